@@ -47,7 +47,9 @@ public class Configs
         public static final BooleanConfig AREAS_PER_WORLD                           = new BooleanConfig("areaSelectionsPerWorld", true);
         public static final BooleanConfig BETTER_RENDER_ORDER                       = new BooleanConfig("betterRenderOrder", true);
         public static final BooleanConfig CHANGE_SELECTED_CORNER                    = new BooleanConfig("changeSelectedCornerOnMove", true);
+        public static final IntegerConfig CHUNK_REBUILD_TIME_BUDGET                 = new IntegerConfig("chunkRebuildTimeBudget", 15, 1, 200);
         public static final BooleanConfig CLONE_AT_ORIGINAL_POS                     = new BooleanConfig("cloneAtOriginalPosition", true);
+        public static final StringConfig  COMMAND_NAME_FILL                         = new StringConfig( "commandNameFill", "fill");
         public static final StringConfig  COMMAND_NAME_SETBLOCK                     = new StringConfig( "commandNameSetblock", "setblock");
         public static final StringConfig  DATE_FORMAT                               = new StringConfig( "dateFormat", "yyyy-MM-dd HH:mm:ss");
         public static final BooleanConfig DEBUG_MESSAGES                            = new BooleanConfig("debugMessages", false);
@@ -59,17 +61,25 @@ public class Configs
         public static final BooleanConfig LOAD_ENTIRE_SCHEMATICS                    = new BooleanConfig("loadEntireSchematics", false);
         public static final BooleanConfig MATERIAL_LIST_IGNORE_BLOCK_STATE          = new BooleanConfig("materialListIgnoreBlockState", false);
         public static final BooleanConfig MATERIALS_FROM_CONTAINER                  = new BooleanConfig("materialListFromContainer", true);
+        public static final BooleanConfig OFF_THREAD_CHUNK_POPULATION               = new BooleanConfig("offThreadChunkPopulation", false);
+        public static final BooleanConfig PAGED_BLOCK_CONTAINERS                    = new BooleanConfig("pagedBlockContainers", false);
+        public static final IntegerConfig PAGED_BLOCK_CONTAINERS_MIN_VOLUME         = new IntegerConfig("pagedBlockContainersMinVolume", 16777216, 0, Integer.MAX_VALUE);
+        public static final BooleanConfig PASTE_COMMAND_ADAPTIVE_LIMIT              = new BooleanConfig("pasteCommandAdaptiveLimit", false);
         public static final IntegerConfig PASTE_COMMAND_INTERVAL                    = new IntegerConfig("pasteCommandInterval", 1, 1, 1000);
         public static final IntegerConfig PASTE_COMMAND_LIMIT                       = new IntegerConfig("pasteCommandLimit", 64, 1, 1000);
+        public static final IntegerConfig PASTE_COMMAND_MAX_LIMIT                   = new IntegerConfig("pasteCommandMaxLimit", 128, 1, 10000);
+        public static final IntegerConfig PASTE_TICK_TIME_BUDGET                    = new IntegerConfig("pasteTickTimeBudget", 25, 1, 1000);
         public static final BooleanConfig PICK_BLOCK_AVOID_DAMAGEABLE               = new BooleanConfig("pickBlockAvoidDamageable", true);
         public static final BooleanConfig PICK_BLOCK_AVOID_TOOLS                    = new BooleanConfig("pickBlockAvoidTools", false);
         public static final BooleanConfig PICK_BLOCK_IGNORE_NBT                     = new BooleanConfig("pickBlockIgnoreNBT", true);
         public static final BooleanConfig PICK_BLOCK_SHULKER_BOXES                  = new BooleanConfig("pickBlockShulkerBoxes", false);
         public static final StringConfig  PICK_BLOCK_USABLE_SLOTS                   = new StringConfig( "pickBlockUsableSlots", "1-9");
         public static final BooleanConfig PLACEMENTS_INFRONT                        = new BooleanConfig("placementInfrontOfPlayer", false);
+        public static final BooleanConfig PROJECT_VERSION_DELTA_STORAGE             = new BooleanConfig("projectVersionDeltaStorage", false);
         public static final BooleanConfig RENDER_MATERIALS_IN_GUI                   = new BooleanConfig("renderMaterialListInGuis", true);
         public static final BooleanConfig RENDER_THREAD_NO_TIMEOUT                  = new BooleanConfig("renderThreadNoTimeout", true);
         public static final BooleanConfig REQUIRE_ADJACENT_CHUNKS                   = new BooleanConfig("requireAdjacentChunks", true);
+        public static final BooleanConfig SECTIONED_BLOCK_CONTAINERS                = new BooleanConfig("sectionedBlockContainers", false);
         public static final StringConfig  TOOL_ITEM                                 = new StringConfig( "toolItem", "minecraft:stick");
 
         public static final OptionListConfig<AreaSelectionType>     DEFAULT_AREA_SELECTION_MODE = new OptionListConfig<>("defaultAreaSelectionMode", AreaSelectionType.SIMPLE, AreaSelectionType.VALUES);
@@ -81,7 +91,9 @@ public class Configs
                 AREAS_PER_WORLD,
                 BETTER_RENDER_ORDER,
                 CHANGE_SELECTED_CORNER,
+                CHUNK_REBUILD_TIME_BUDGET,
                 CLONE_AT_ORIGINAL_POS,
+                COMMAND_NAME_FILL,
                 COMMAND_NAME_SETBLOCK,
                 CUSTOM_SCHEMATIC_DIRECTORY,
                 DATE_FORMAT,
@@ -96,9 +108,15 @@ public class Configs
                 LOAD_ENTIRE_SCHEMATICS,
                 MATERIAL_LIST_IGNORE_BLOCK_STATE,
                 MATERIALS_FROM_CONTAINER,
+                OFF_THREAD_CHUNK_POPULATION,
+                PAGED_BLOCK_CONTAINERS,
+                PAGED_BLOCK_CONTAINERS_MIN_VOLUME,
                 PASTE_REPLACE_BEHAVIOR,
+                PASTE_COMMAND_ADAPTIVE_LIMIT,
                 PASTE_COMMAND_INTERVAL,
                 PASTE_COMMAND_LIMIT,
+                PASTE_COMMAND_MAX_LIMIT,
+                PASTE_TICK_TIME_BUDGET,
                 PICK_BLOCK_AUTO,
                 PICK_BLOCK_AVOID_DAMAGEABLE,
                 PICK_BLOCK_AVOID_TOOLS,
@@ -108,10 +126,12 @@ public class Configs
                 PICK_BLOCK_SHULKER_BOXES,
                 PLACEMENT_RESTRICTION,
                 PLACEMENTS_INFRONT,
+                PROJECT_VERSION_DELTA_STORAGE,
                 RENDER_MATERIALS_IN_GUI,
                 RENDER_THREAD_NO_TIMEOUT,
                 REQUIRE_ADJACENT_CHUNKS,
                 SCHEMATIC_BROWSER_COLUMNS,
+                SECTIONED_BLOCK_CONTAINERS,
                 SIGN_TEXT_PASTE,
                 TOOL_ITEM_ENABLED,
                 TOOL_ITEM,
@@ -149,7 +169,9 @@ public class Configs
         public static final BooleanAndDoubleConfig PLACEMENT_ENCLOSING_BOX_SIDES        = new BooleanAndDoubleConfig("placementEnclosingBoxSides", false, 0.2, 0.0, 1.0);
         public static final BooleanAndDoubleConfig TRANSLUCENT_SCHEMATIC_RENDERING      = new BooleanAndDoubleConfig("translucentSchematicRendering", false, 0.5, 0.0, 1.0);
 
+        public static final BooleanConfig GRID_REPEAT_GEOMETRY_CACHE                = new BooleanConfig("gridRepeatGeometryCache", false);
         public static final BooleanConfig IGNORE_EXISTING_FLUIDS                    = new BooleanConfig("ignoreExistingFluids", true);
+        public static final BooleanConfig OVERLAY_GREEDY_MESHING                    = new BooleanConfig("overlayGreedyMeshing", false);
         public static final BooleanConfig OVERLAY_REDUCED_INNER_SIDES               = new BooleanConfig("overlayReducedInnerSides", false);
         public static final BooleanConfig SCHEMATIC_OVERLAY_MODEL_OUTLINE           = new BooleanConfig("schematicOverlayModelOutline", true);
         public static final BooleanConfig SCHEMATIC_OVERLAY_MODEL_SIDES             = new BooleanConfig("schematicOverlayModelSides", true);
@@ -177,7 +199,9 @@ public class Configs
                 SCHEMATIC_OVERLAY_TYPE_WRONG_BLOCK,
                 SCHEMATIC_OVERLAY_TYPE_WRONG_STATE,
 
+                GRID_REPEAT_GEOMETRY_CACHE,
                 IGNORE_EXISTING_FLUIDS,
+                OVERLAY_GREEDY_MESHING,
                 OVERLAY_REDUCED_INNER_SIDES,
                 PLACEMENT_BOX_RENDERING,
                 PLACEMENT_BOX_SIDES,
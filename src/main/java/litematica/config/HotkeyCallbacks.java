@@ -85,8 +85,10 @@ public class HotkeyCallbacks
     {
         EventListener refreshCallback = HotkeyCallbacks::refreshRenderer;
 
+        Configs.Visuals.GRID_REPEAT_GEOMETRY_CACHE.addValueChangeListener(refreshCallback);
         Configs.Visuals.IGNORE_EXISTING_FLUIDS.addValueChangeListener(refreshCallback);
         Configs.Visuals.MAIN_RENDERING_TOGGLE.addValueChangeListener(refreshCallback);
+        Configs.Visuals.OVERLAY_GREEDY_MESHING.addValueChangeListener(refreshCallback);
         Configs.Visuals.OVERLAY_REDUCED_INNER_SIDES.addValueChangeListener(refreshCallback);
         Configs.Visuals.RENDER_COLLIDING_SCHEMATIC_BLOCKS.addValueChangeListener(refreshCallback);
         Configs.Visuals.TRANSLUCENT_INNER_SIDES.addValueChangeListener(refreshCallback);
@@ -7,6 +7,7 @@ import java.util.List;
 import javax.annotation.Nullable;
 
 import litematica.schematic.ISchematic;
+import litematica.schematic.LitematicaSchematic;
 import litematica.schematic.SchematicType;
 
 public class SchematicHolder
@@ -21,6 +22,7 @@ public class SchematicHolder
 
     public void clearLoadedSchematics()
     {
+        this.schematics.forEach(SchematicHolder::releaseSchematic);
         this.schematics.clear();
     }
 
@@ -89,12 +91,24 @@ public class SchematicHolder
         if (this.schematics.remove(schematic))
         {
             DataManager.getSchematicPlacementManager().removeAllPlacementsOfSchematic(schematic);
+            releaseSchematic(schematic);
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Releases any off-heap resources, such as the backing files of paged block containers
+     */
+    private static void releaseSchematic(ISchematic schematic)
+    {
+        if (schematic instanceof LitematicaSchematic)
+        {
+            ((LitematicaSchematic) schematic).closePagedContainers();
+        }
+    }
+
     public List<ISchematic> getAllSchematics()
     {
         return this.schematics;
@@ -12,6 +12,7 @@ import malilib.util.StringUtils;
 import litematica.config.Configs;
 import litematica.data.DataManager;
 import litematica.gui.util.SchematicBrowserIconProvider;
+import litematica.gui.util.SchematicIndexCache;
 import litematica.gui.widget.SchematicInfoWidgetByPath;
 import litematica.schematic.ISchematic;
 import litematica.schematic.SchematicType;
@@ -40,6 +41,7 @@ public class BaseSchematicBrowserScreen extends BaseListScreen<BaseFileBrowserWi
         this.addPreInitListener(clearTask);
         this.addPostInitListener(() -> this.getListWidget().clearSelection());
         this.addPreScreenCloseListener(clearTask);
+        this.addPreScreenCloseListener(() -> SchematicIndexCache.getInstance().writeToFileInBackground());
     }
 
     @Override
@@ -188,15 +188,18 @@ public class SaveSchematicFromAreaScreen extends BaseSaveSchematicScreen
 
         SchematicCreationUtils.setSchematicMetadataOnCreation(schematic, this.selection.getName());
 
-        if (schematic.writeToFile(file, overwrite))
+        schematic.writeToFileAsync(file, overwrite).thenAccept(success ->
         {
-            this.onSchematicSaved(fileName);
-        }
-        else
-        {
-            SchematicHolder.getInstance().addSchematic(schematic, false);
-            MessageDispatcher.error("litematica.message.error.save_schematic.failed_to_save_from_area", fileName);
-        }
+            if (success)
+            {
+                this.onSchematicSaved(fileName);
+            }
+            else
+            {
+                SchematicHolder.getInstance().addSchematic(schematic, false);
+                MessageDispatcher.error("litematica.message.error.save_schematic.failed_to_save_from_area", fileName);
+            }
+        });
     }
 
     protected void onSchematicSaved(String fileName)
@@ -179,10 +179,17 @@ public class SchematicVcsProjectBrowserScreen extends BaseListScreen<BaseFileBro
     protected void executeDeleteProject()
     {
         DirectoryEntry entry = this.getListWidget().getLastSelectedEntry();
+        SchematicProject project = this.projectInfoWidget.getSelectedSchematicProject();
 
         if (entry != null && entry.getType() == DirectoryEntryType.FILE)
         {
             Path file = entry.getFullPath();
+
+            if (project != null)
+            {
+                project.deleteStoredVersions();
+            }
+
             FileUtils.deleteFiles(Collections.singletonList(file), MessageDispatcher.error()::send);
             this.getListWidget().clearSelection();
             this.getListWidget().refreshEntries();
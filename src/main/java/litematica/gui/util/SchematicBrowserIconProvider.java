@@ -2,6 +2,7 @@ package litematica.gui.util;
 
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import javax.annotation.Nullable;
 
@@ -12,6 +13,7 @@ import litematica.schematic.SchematicType;
 public class SchematicBrowserIconProvider implements FileBrowserIconProvider
 {
     protected final HashMap<Path, Icon> cachedIcons = new HashMap<>();
+    protected final HashSet<Path> scannedDirectories = new HashSet<>();
 
     @Override
     @Nullable
@@ -21,11 +23,29 @@ public class SchematicBrowserIconProvider implements FileBrowserIconProvider
 
         if (icon == null && this.cachedIcons.containsKey(file) == false)
         {
-            List<SchematicType<?>> possibleTypes = SchematicType.getPossibleTypesFromFileName(file);
+            SchematicIndexCache index = SchematicIndexCache.getInstance();
+            SchematicIndexCache.Entry entry = index.getUpToDateEntry(file);
+            Path dir = file.getParent();
 
-            if (possibleTypes.isEmpty() == false)
+            if (dir != null && this.scannedDirectories.add(dir))
             {
-                icon = possibleTypes.get(0).getIcon();
+                index.removeMissingFilesInDirectory(dir);
+            }
+
+            if (entry != null)
+            {
+                icon = entry.type.getIcon();
+            }
+            else
+            {
+                List<SchematicType<?>> possibleTypes = SchematicType.getPossibleTypesFromFileName(file);
+
+                if (possibleTypes.isEmpty() == false)
+                {
+                    icon = possibleTypes.get(0).getIcon();
+                }
+
+                index.refreshFileInBackground(file);
             }
 
             this.cachedIcons.put(file, icon);
@@ -0,0 +1,400 @@
+package litematica.gui.util;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+
+import malilib.util.FileUtils;
+import malilib.util.game.wrap.NbtWrap;
+import litematica.Litematica;
+import litematica.schematic.ISchematic;
+import litematica.schematic.LitematicaSchematic;
+import litematica.schematic.SchematicMetadata;
+import litematica.schematic.SchematicType;
+import litematica.util.LitematicaDirectories;
+
+/**
+ * A persistent index of the schematic files seen in the schematic browser.
+ * Each entry stores the file size and modification time along with the detected
+ * schematic type and the metadata, so that the schematic browser doesn't need
+ * to read the schematic files again, unless they have changed.
+ * The preview images are not kept in the index, as they would make up most of its size,
+ * and they are only needed for the one selected file at a time. They are read
+ * from the file header when needed, see {@link #getMetadataWithPreviewImage(Path)}.
+ * Stale litematic files are re-indexed on a background thread, by only reading the file header.
+ * The index is written to file when the schematic browser is closed.
+ */
+public class SchematicIndexCache
+{
+    private static final SchematicIndexCache INSTANCE = new SchematicIndexCache();
+
+    protected final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    protected final Set<Path> queuedFiles = ConcurrentHashMap.newKeySet();
+    protected final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Litematica Schematic Indexer %d").setDaemon(true).build());
+    protected volatile boolean dirty;
+    protected boolean hasReadFromFile;
+
+    public static SchematicIndexCache getInstance()
+    {
+        if (INSTANCE.hasReadFromFile == false)
+        {
+            INSTANCE.readFromFile();
+        }
+
+        return INSTANCE;
+    }
+
+    /**
+     * @return the index entry for the given file, if one exists and the file
+     *         has not been modified since the entry was created
+     */
+    @Nullable
+    public Entry getUpToDateEntry(Path file)
+    {
+        Entry entry = this.entries.get(file.toAbsolutePath());
+
+        if (entry != null)
+        {
+            BasicFileAttributes attributes = readAttributes(file);
+
+            if (attributes != null && entry.matches(attributes))
+            {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns an up-to-date index entry for the given file, re-parsing the file on
+     * the calling thread if the file has changed or if there is no entry for it yet.
+     */
+    @Nullable
+    public Entry getOrIndexFile(Path file)
+    {
+        Entry entry = this.getUpToDateEntry(file);
+
+        if (entry == null)
+        {
+            entry = this.indexFile(file.toAbsolutePath(), true);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Returns the metadata of the given file including the preview image, which is not kept in the index.
+     * For litematic files this reads the file header again, to get the preview image.
+     */
+    @Nullable
+    public SchematicMetadata getMetadataWithPreviewImage(Path file)
+    {
+        Entry entry = this.getOrIndexFile(file);
+
+        if (entry == null)
+        {
+            return null;
+        }
+
+        if (entry.type == SchematicType.LITEMATICA)
+        {
+            SchematicMetadata metadata = LitematicaSchematic.readMetadataFromFile(file);
+            return metadata != null ? metadata : entry.metadata;
+        }
+
+        return entry.metadata;
+    }
+
+    /**
+     * Queues the given file for re-indexing on the background thread, if the file
+     * has changed since it was last indexed, or if it hasn't been indexed yet.
+     * Only litematic files are indexed in the background, as only their metadata can be
+     * read without reading the entire file. Other files are indexed when they are first selected.
+     */
+    public void refreshFileInBackground(Path file)
+    {
+        final Path path = file.toAbsolutePath();
+
+        if (SchematicType.getPossibleTypesFromFileName(path).contains(SchematicType.LITEMATICA) == false ||
+            this.queuedFiles.add(path) == false)
+        {
+            return;
+        }
+
+        this.executor.execute(() -> {
+            try
+            {
+                if (this.getUpToDateEntry(path) == null)
+                {
+                    this.indexFile(path, false);
+                }
+            }
+            finally
+            {
+                this.queuedFiles.remove(path);
+            }
+        });
+    }
+
+    /**
+     * Removes all the entries of files in the given directory that don't exist anymore
+     */
+    public void removeMissingFilesInDirectory(Path dir)
+    {
+        final Path absoluteDir = dir.toAbsolutePath();
+
+        this.executor.execute(() -> {
+            if (this.entries.keySet().removeIf(p -> absoluteDir.equals(p.getParent()) && Files.exists(p) == false))
+            {
+                this.dirty = true;
+            }
+        });
+    }
+
+    @Nullable
+    protected Entry indexFile(Path file, boolean allowFullRead)
+    {
+        BasicFileAttributes attributes = readAttributes(file);
+
+        if (attributes == null)
+        {
+            this.entries.remove(file);
+            return null;
+        }
+
+        SchematicType<?> type = null;
+        SchematicMetadata metadata = null;
+
+        if (SchematicType.getPossibleTypesFromFileName(file).contains(SchematicType.LITEMATICA))
+        {
+            metadata = LitematicaSchematic.readMetadataFromFile(file);
+            type = metadata != null ? SchematicType.LITEMATICA : null;
+        }
+
+        if (metadata == null && allowFullRead)
+        {
+            ISchematic schematic = SchematicType.tryCreateSchematicFrom(file);
+
+            if (schematic != null)
+            {
+                type = schematic.getType();
+                metadata = schematic.getMetadata();
+            }
+        }
+
+        if (type == null || metadata == null)
+        {
+            return null;
+        }
+
+        metadata.setPreviewImagePixelData(null);
+
+        Entry entry = new Entry(type, metadata, attributes.size(), attributes.lastModifiedTime().toMillis());
+        this.entries.put(file, entry);
+        this.dirty = true;
+
+        return entry;
+    }
+
+    @Nullable
+    protected static BasicFileAttributes readAttributes(Path file)
+    {
+        try
+        {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+
+    protected Path getCacheFile()
+    {
+        return LitematicaDirectories.getModConfigDirectory().resolve("schematic_index.nbt");
+    }
+
+    protected NBTTagCompound writeToNBT()
+    {
+        NBTTagCompound nbt = new NBTTagCompound();
+        NBTTagList list = new NBTTagList();
+
+        for (Map.Entry<Path, Entry> mapEntry : this.entries.entrySet())
+        {
+            Entry entry = mapEntry.getValue();
+            NBTTagCompound tag = new NBTTagCompound();
+
+            NbtWrap.putString(tag, "File", mapEntry.getKey().toString());
+            NbtWrap.putString(tag, "Type", entry.type.getDisplayName());
+            NbtWrap.putLong(tag, "Size", entry.fileSize);
+            NbtWrap.putLong(tag, "MTime", entry.lastModified);
+            NbtWrap.putTag(tag, "Metadata", entry.metadata.toTag());
+
+            NbtWrap.addTag(list, tag);
+        }
+
+        NbtWrap.putTag(nbt, "Files", list);
+
+        return nbt;
+    }
+
+    protected void readFromNBT(NBTTagCompound nbt)
+    {
+        NBTTagList list = NbtWrap.getListOfCompounds(nbt, "Files");
+        final int size = NbtWrap.getListSize(list);
+
+        for (int i = 0; i < size; ++i)
+        {
+            NBTTagCompound tag = NbtWrap.getCompoundAt(list, i);
+            SchematicType<?> type = getTypeByName(NbtWrap.getString(tag, "Type"));
+
+            if (type != null && NbtWrap.containsCompound(tag, "Metadata"))
+            {
+                try
+                {
+                    Path file = Paths.get(NbtWrap.getString(tag, "File"));
+                    SchematicMetadata metadata = new SchematicMetadata();
+                    metadata.fromTag(NbtWrap.getCompound(tag, "Metadata"));
+                    // Drop the preview images from index files written by older versions
+                    metadata.setPreviewImagePixelData(null);
+
+                    this.entries.put(file, new Entry(type, metadata, NbtWrap.getLong(tag, "Size"), NbtWrap.getLong(tag, "MTime")));
+                }
+                catch (Exception ignore) {}
+            }
+        }
+    }
+
+    @Nullable
+    protected static SchematicType<?> getTypeByName(String name)
+    {
+        for (SchematicType<?> type : SchematicType.KNOWN_TYPES)
+        {
+            if (type.getDisplayName().equals(name))
+            {
+                return type;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes the index to file on the background thread, if it has changed.
+     * The write runs after any already queued background indexing has finished.
+     */
+    public void writeToFileInBackground()
+    {
+        if (this.dirty)
+        {
+            this.executor.execute(this::writeToFile);
+        }
+    }
+
+    /**
+     * Writes the index to file, if it has changed. The file is first written
+     * to a temporary file, which is then moved over the old file.
+     */
+    public synchronized boolean writeToFile()
+    {
+        if (this.dirty == false)
+        {
+            return false;
+        }
+
+        Path file = this.getCacheFile();
+        Path tmpFile = file.resolveSibling(file.getFileName().toString() + ".tmp");
+
+        try
+        {
+            if (FileUtils.createDirectoriesIfMissing(file.getParent()) == false)
+            {
+                Litematica.LOGGER.warn("Failed to write the schematic index to file '{}'", file.toAbsolutePath().toString());
+                return false;
+            }
+
+            this.dirty = false;
+
+            try (OutputStream os = Files.newOutputStream(tmpFile))
+            {
+                CompressedStreamTools.writeCompressed(this.writeToNBT(), os);
+            }
+
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+
+            return true;
+        }
+        catch (Exception e)
+        {
+            this.dirty = true;
+            Litematica.LOGGER.warn("Failed to write the schematic index to file '{}'", file.toAbsolutePath().toString(), e);
+        }
+
+        return false;
+    }
+
+    public void readFromFile()
+    {
+        Path file = this.getCacheFile();
+        this.hasReadFromFile = true;
+
+        if (Files.isRegularFile(file) == false || Files.isReadable(file) == false)
+        {
+            return;
+        }
+
+        try (InputStream is = Files.newInputStream(file))
+        {
+            NBTTagCompound nbt = CompressedStreamTools.readCompressed(is);
+
+            if (nbt != null)
+            {
+                this.readFromNBT(nbt);
+                this.dirty = false;
+            }
+        }
+        catch (Exception e)
+        {
+            Litematica.LOGGER.warn("Failed to read the schematic index from file '{}'", file.toAbsolutePath().toString(), e);
+        }
+    }
+
+    public static class Entry
+    {
+        public final SchematicType<?> type;
+        public final SchematicMetadata metadata;
+        public final long fileSize;
+        public final long lastModified;
+
+        public Entry(SchematicType<?> type, SchematicMetadata metadata, long fileSize, long lastModified)
+        {
+            this.type = type;
+            this.metadata = metadata;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+        }
+
+        public boolean matches(BasicFileAttributes attributes)
+        {
+            return attributes.size() == this.fileSize &&
+                   attributes.lastModifiedTime().toMillis() == this.lastModified;
+        }
+    }
+}
@@ -24,6 +24,9 @@ import litematica.gui.MaterialListScreen;
 import litematica.schematic.ISchematic;
 import litematica.schematic.ISchematicRegion;
 import litematica.schematic.container.ILitematicaBlockStateContainer;
+import litematica.schematic.container.ILitematicaBlockStatePalette;
+import litematica.schematic.container.LitematicaBlockStateContainerBase;
+import litematica.schematic.container.LitematicaBlockStateContainerFull;
 
 public class MaterialListUtils
 {
@@ -56,6 +59,10 @@ public class MaterialListUtils
                         }
                     }
                 }
+                else if (container instanceof LitematicaBlockStateContainerFull)
+                {
+                    countBlocksFromBackingArray((LitematicaBlockStateContainerFull) container, countsTotal);
+                }
                 else
                 {
                     Vec3i size = container.getSize();
@@ -81,6 +88,23 @@ public class MaterialListUtils
         return getMaterialList(countsTotal, countsTotal, new Object2LongOpenHashMap<>());
     }
 
+    private static void countBlocksFromBackingArray(LitematicaBlockStateContainerFull container,
+                                          Object2LongOpenHashMap<IBlockState> countsTotal)
+    {
+        ILitematicaBlockStatePalette palette = container.getPalette();
+        long[] countsPerId = container.getPaletteIdCounts();
+
+        for (int id = 0; id < countsPerId.length; ++id)
+        {
+            IBlockState state = palette.getBlockState(id);
+
+            if (countsPerId[id] > 0)
+            {
+                countsTotal.addTo(state != null ? state : LitematicaBlockStateContainerBase.AIR_BLOCK_STATE, countsPerId[id]);
+            }
+        }
+    }
+
     public static List<MaterialListEntry> getMaterialList(
             Object2LongOpenHashMap<IBlockState> countsTotal,
             Object2LongOpenHashMap<IBlockState> countsMissing,
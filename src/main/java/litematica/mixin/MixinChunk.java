@@ -1,21 +1,43 @@
 package litematica.mixin;
 
+import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 
+import malilib.util.game.wrap.GameWrap;
+import litematica.scheduler.CommandRateController;
+import litematica.schematic.verifier.SchematicVerifierManager;
 import litematica.util.WorldUtils;
 
 @Mixin(Chunk.class)
 public abstract class MixinChunk
 {
+    @Shadow @Final private World world;
+
     @Redirect(method = "setBlockState",
               at = @At(value = "FIELD", target = "Lnet/minecraft/world/World;isRemote:Z"))
     private boolean redirectIsRemote(World world)
     {
         return WorldUtils.shouldPreventBlockUpdates(world) ? true : world.isRemote;
     }
+
+    @Inject(method = "setBlockState", at = @At("RETURN"))
+    private void onSetBlockState(BlockPos pos, IBlockState state, CallbackInfoReturnable<IBlockState> cir)
+    {
+        // A null return value means that the block did not change
+        if (cir.getReturnValue() != null && this.world == GameWrap.getClientWorld())
+        {
+            SchematicVerifierManager.INSTANCE.onBlockChanged(pos.getX(), pos.getY(), pos.getZ());
+            CommandRateController.INSTANCE.onClientBlockChanged(pos.getX(), pos.getY(), pos.getZ());
+        }
+    }
 }
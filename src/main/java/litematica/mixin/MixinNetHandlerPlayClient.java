@@ -7,8 +7,10 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import net.minecraft.client.network.NetHandlerPlayClient;
 import net.minecraft.network.play.server.SPacketChunkData;
+import net.minecraft.network.play.server.SPacketTimeUpdate;
 
 import litematica.config.Configs;
+import litematica.scheduler.CommandRateController;
 import litematica.schematic.verifier.SchematicVerifierManager;
 import litematica.world.SchematicWorldRenderingNotifier;
 
@@ -26,4 +28,10 @@ public abstract class MixinNetHandlerPlayClient
 
         SchematicVerifierManager.INSTANCE.onChunkChanged(packetIn.getChunkX(), packetIn.getChunkZ());
     }
+
+    @Inject(method = "handleTimeUpdate", at = @At("RETURN"))
+    private void onTimeUpdate(SPacketTimeUpdate packetIn, CallbackInfo ci)
+    {
+        CommandRateController.INSTANCE.onTimeUpdate(packetIn.getTotalWorldTime());
+    }
 }
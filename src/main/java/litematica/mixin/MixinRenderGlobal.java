@@ -9,7 +9,6 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import malilib.util.position.BlockPos;
 import litematica.config.Configs;
 import litematica.render.LitematicaRenderer;
-import litematica.schematic.verifier.SchematicVerifierManager;
 import litematica.world.SchematicWorldRenderingNotifier;
 
 @Mixin(net.minecraft.client.renderer.RenderGlobal.class)
@@ -37,7 +36,6 @@ public abstract class MixinRenderGlobal
         if (oldState != newState)
         {
             BlockPos bp = BlockPos.of(pos);
-            SchematicVerifierManager.INSTANCE.onBlockChanged(bp);
 
             if (Configs.Visuals.MAIN_RENDERING_TOGGLE.getBooleanValue() &&
                 Configs.Visuals.SCHEMATIC_RENDERING.getBooleanValue())
@@ -4,6 +4,9 @@ import java.util.List;
 
 import net.minecraft.client.renderer.RenderGlobal;
 
+import litematica.config.Configs;
+import litematica.data.DataManager;
+import litematica.scheduler.CommandRateController;
 import litematica.world.SchematicWorldHandler;
 import litematica.world.WorldSchematic;
 
@@ -28,6 +31,12 @@ public class DebugScreenMessages
                                    render.getDebugInfoEntities(),
                                    world.getDebugLoadedEntities(),
                                    world.loadedTileEntityList.size()));
+            list.add(String.format("§6[Litematica]§r %s", DataManager.getSchematicPlacementManager().getChunkRebuildDebugInfo()));
+
+            if (Configs.Generic.PASTE_COMMAND_ADAPTIVE_LIMIT.getBooleanValue())
+            {
+                list.add(String.format("§6[Litematica]§r %s", CommandRateController.INSTANCE.getDebugInfo()));
+            }
         }
     }
 }
@@ -2,6 +2,8 @@ package litematica.render;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -70,6 +72,7 @@ public class OverlayRenderer
     private final Minecraft mc;
     private final Map<SchematicPlacement, ImmutableMap<String, SelectionBox>> placements = new HashMap<>();
     private final List<String> blockInfoLines = new ArrayList<>();
+    private final Map<SchematicVerifier, VerifierHighlightBuffers> verifierHighlightBuffers = new IdentityHashMap<>();
     private Color4f colorPos1 = new Color4f(1f, 0.0625f, 0.0625f);
     private Color4f colorPos2 = new Color4f(0.0625f, 0.0625f, 1f);
     private Color4f colorOverlapping = new Color4f(1f, 0.0625f, 1f);
@@ -325,13 +328,72 @@ public class OverlayRenderer
 
                 if (list.isEmpty() == false)
                 {
-                    List<BlockPairTypePosition> posList = verifier.getClosestSelectedPositions(cameraPos);
                     Entity entity = GameWrap.getCameraEntity();
-                    BlockPairTypePosition lookPos = RayTraceUtils.traceToVerifierResultPositions(posList, entity, 128);
-                    this.renderSchematicMismatches(list, lookPos, partialTicks, ctx);
+                    BlockPairTypePosition lookPos = RayTraceUtils.traceToVerifierResultPositions(list, entity, 128);
+
+                    if (RenderWrap.useVbo())
+                    {
+                        VerifierHighlightBuffers buffers = this.verifierHighlightBuffers.computeIfAbsent(verifier, v -> new VerifierHighlightBuffers());
+                        buffers.updateIfNeeded(list, verifier.getClosestPositionsVersion(), cameraPos);
+                        this.renderSchematicMismatchesBuffered(buffers, lookPos, partialTicks, ctx);
+                    }
+                    else
+                    {
+                        this.renderSchematicMismatches(list, lookPos, partialTicks, ctx);
+                    }
                 }
             }
         }
+
+        this.deleteUnusedVerifierHighlightBuffers(activeVerifiers);
+    }
+
+    private void deleteUnusedVerifierHighlightBuffers(List<SchematicVerifier> activeVerifiers)
+    {
+        Iterator<Map.Entry<SchematicVerifier, VerifierHighlightBuffers>> iter = this.verifierHighlightBuffers.entrySet().iterator();
+
+        while (iter.hasNext())
+        {
+            Map.Entry<SchematicVerifier, VerifierHighlightBuffers> entry = iter.next();
+
+            if (activeVerifiers.contains(entry.getKey()) == false)
+            {
+                entry.getValue().deleteGlBuffers();
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Draws the cached highlight geometry of all the positions, and then
+     * the highlight of the looked at position on top of it as a separate pass.
+     */
+    private void renderSchematicMismatchesBuffered(VerifierHighlightBuffers buffers,
+                                                   @Nullable BlockPairTypePosition lookPos,
+                                                   float partialTicks, RenderContext ctx)
+    {
+        Entity entity = GameWrap.getCameraEntity();
+
+        RenderWrap.disableDepthTest();
+        RenderWrap.depthMask(false);
+        RenderWrap.disableLighting();
+
+        buffers.draw(entity, partialTicks, ctx);
+
+        if (lookPos != null)
+        {
+            Color4f color = lookPos.type.getOverlayColor().withAlpha(1f);
+            VertexBuilder lineBuilder = VanillaWrappingVertexBuilder.coloredLines();
+
+            RenderWrap.lineWidth(6f);
+            RenderUtils.drawBlockBoundingBoxOutlinesBatchedLines(lookPos.posLong, color, 0.002, lineBuilder, entity, partialTicks);
+            lineBuilder.draw();
+        }
+
+        RenderWrap.enableTexture2D();
+        RenderWrap.enableCull();
+        RenderWrap.depthMask(true);
+        RenderWrap.enableDepthTest();
     }
 
     private void renderSchematicMismatches(List<BlockPairTypePosition> posList,
@@ -0,0 +1,235 @@
+package litematica.render;
+
+import java.util.List;
+import org.lwjgl.opengl.GL11;
+
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexBuffer;
+import net.minecraft.entity.Entity;
+
+import malilib.render.RenderContext;
+import malilib.render.ShapeRenderUtils;
+import malilib.render.buffer.VanillaWrappingVertexBuilder;
+import malilib.render.buffer.VertexBuilder;
+import malilib.util.data.Color4f;
+import malilib.util.game.wrap.EntityWrap;
+import malilib.util.game.wrap.RenderWrap;
+import malilib.util.position.BlockPos;
+import malilib.util.position.PositionUtils;
+import litematica.config.Configs;
+import litematica.schematic.verifier.BlockPairTypePosition;
+import litematica.schematic.verifier.VerifierResultType;
+
+/**
+ * Holds the mismatch highlight geometry of the closest selected positions of one
+ * schematic verifier in persistent vertex buffers. The geometry is only rebuilt when
+ * the verifier's closest positions or the highlight settings change, so drawing
+ * the highlights costs the same every frame regardless of the number of positions.
+ * The vertices are relative to the camera block position at the time of the
+ * last rebuild, to keep the float vertex coordinates precise.
+ */
+public class VerifierHighlightBuffers
+{
+    private static final VerifierResultType[] RESULT_TYPES = VerifierResultType.values();
+
+    protected final VertexBuilder lineBuilder = VanillaWrappingVertexBuilder.create(GL11.GL_LINES, DefaultVertexFormats.POSITION_COLOR);
+    protected final VertexBuilder quadBuilder = VanillaWrappingVertexBuilder.create(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+    protected final VertexBuffer lineBuffer = new VertexBuffer(DefaultVertexFormats.POSITION_COLOR);
+    protected final VertexBuffer quadBuffer = new VertexBuffer(DefaultVertexFormats.POSITION_COLOR);
+    protected final int[] typeColors = new int[RESULT_TYPES.length];
+    protected int positionsVersion = -1;
+    protected int originX;
+    protected int originY;
+    protected int originZ;
+    protected float sideAlpha;
+    protected boolean connections;
+    protected boolean sides;
+    protected boolean hasLines;
+    protected boolean hasQuads;
+
+    /**
+     * Rebuilds the buffers if the positions version or any of the highlight settings have changed since the last rebuild
+     * @param positionsVersion the version of the given positions list, see {@link litematica.schematic.verifier.SchematicVerifier#getClosestPositionsVersion()}
+     */
+    public void updateIfNeeded(List<BlockPairTypePosition> posList, int positionsVersion, BlockPos cameraPos)
+    {
+        boolean connections = Configs.Visuals.VERIFIER_HIGHLIGHT_CONNECTIONS.getBooleanValue();
+        boolean sides = Configs.Visuals.VERIFIER_HIGHLIGHT_SIDES.getBooleanValue();
+        float alpha = (float) Configs.InfoOverlays.VERIFIER_ERROR_HIGHLIGHT_ALPHA.getDoubleValue();
+        boolean rebuild = positionsVersion != this.positionsVersion ||
+                          connections != this.connections ||
+                          sides != this.sides ||
+                          alpha != this.sideAlpha;
+
+        for (VerifierResultType type : RESULT_TYPES)
+        {
+            int color = type.getOverlayColor().intValue;
+
+            if (color != this.typeColors[type.ordinal()])
+            {
+                this.typeColors[type.ordinal()] = color;
+                rebuild = true;
+            }
+        }
+
+        if (rebuild)
+        {
+            this.positionsVersion = positionsVersion;
+            this.connections = connections;
+            this.sides = sides;
+            this.sideAlpha = alpha;
+            this.originX = cameraPos.getX();
+            this.originY = cameraPos.getY();
+            this.originZ = cameraPos.getZ();
+            this.rebuild(posList);
+        }
+    }
+
+    protected void rebuild(List<BlockPairTypePosition> posList)
+    {
+        Color4f[] lineColors = new Color4f[RESULT_TYPES.length];
+        Color4f[] quadColors = new Color4f[RESULT_TYPES.length];
+
+        for (VerifierResultType type : RESULT_TYPES)
+        {
+            Color4f color = type.getOverlayColor();
+            lineColors[type.ordinal()] = color.withAlpha(1f);
+            quadColors[type.ordinal()] = new Color4f(color.r, color.g, color.b, this.sideAlpha);
+        }
+
+        VertexBuilder lineBuilder = this.lineBuilder;
+        BlockPairTypePosition prevEntry = null;
+
+        lineBuilder.start();
+
+        for (BlockPairTypePosition entry : posList)
+        {
+            Color4f color = lineColors[entry.type.ordinal()];
+            this.addBoxEdgeLines(entry.posLong, color, lineBuilder);
+
+            if (this.connections && prevEntry != null)
+            {
+                lineBuilder.posColor(this.getRelativeX(prevEntry.posLong), this.getRelativeY(prevEntry.posLong),
+                                     this.getRelativeZ(prevEntry.posLong), color);
+                lineBuilder.posColor(this.getRelativeX(entry.posLong), this.getRelativeY(entry.posLong),
+                                     this.getRelativeZ(entry.posLong), color);
+            }
+
+            prevEntry = entry;
+        }
+
+        lineBuilder.finishDrawing();
+        this.uploadVertexBuffer(lineBuilder, this.lineBuffer);
+        this.hasLines = posList.isEmpty() == false;
+        this.hasQuads = this.sides && posList.isEmpty() == false;
+
+        if (this.hasQuads)
+        {
+            VertexBuilder quadBuilder = this.quadBuilder;
+            quadBuilder.start();
+
+            for (BlockPairTypePosition entry : posList)
+            {
+                this.addBoxSideQuads(entry.posLong, quadColors[entry.type.ordinal()], quadBuilder);
+            }
+
+            quadBuilder.finishDrawing();
+            this.uploadVertexBuffer(quadBuilder, this.quadBuffer);
+        }
+    }
+
+    protected void addBoxEdgeLines(long posLong, Color4f color, VertexBuilder builder)
+    {
+        double expand = 0.002;
+        double minX = this.getRelativeX(posLong) - expand;
+        double minY = this.getRelativeY(posLong) - expand;
+        double minZ = this.getRelativeZ(posLong) - expand;
+
+        ShapeRenderUtils.renderBoxEdgeLines(minX, minY, minZ, minX + 1 + 2 * expand, minY + 1 + 2 * expand, minZ + 1 + 2 * expand, color, builder);
+    }
+
+    protected void addBoxSideQuads(long posLong, Color4f color, VertexBuilder builder)
+    {
+        double expand = 0.002;
+        double minX = this.getRelativeX(posLong) - expand;
+        double minY = this.getRelativeY(posLong) - expand;
+        double minZ = this.getRelativeZ(posLong) - expand;
+
+        ShapeRenderUtils.renderBoxSideQuads(minX, minY, minZ, minX + 1 + 2 * expand, minY + 1 + 2 * expand, minZ + 1 + 2 * expand, color, builder);
+    }
+
+    protected int getRelativeX(long posLong)
+    {
+        return PositionUtils.unpackX(posLong) - this.originX;
+    }
+
+    protected int getRelativeY(long posLong)
+    {
+        return PositionUtils.unpackY(posLong) - this.originY;
+    }
+
+    protected int getRelativeZ(long posLong)
+    {
+        return PositionUtils.unpackZ(posLong) - this.originZ;
+    }
+
+    protected void uploadVertexBuffer(VertexBuilder builder, VertexBuffer vertexBuffer)
+    {
+        builder.reset();
+        vertexBuffer.bufferData(builder.getByteBuffer());
+    }
+
+    /**
+     * Draws the buffered highlight lines and sides.
+     * Expects the depth test and the depth mask to already be set up by the caller.
+     */
+    public void draw(Entity cameraEntity, float partialTicks, RenderContext ctx)
+    {
+        if (this.hasLines == false)
+        {
+            return;
+        }
+
+        RenderWrap.pushMatrix(ctx);
+        RenderWrap.translate(this.originX - EntityWrap.lerpX(cameraEntity, partialTicks),
+                             this.originY - EntityWrap.lerpY(cameraEntity, partialTicks),
+                             this.originZ - EntityWrap.lerpZ(cameraEntity, partialTicks), ctx);
+        RenderWrap.disableTexture2D();
+        RenderWrap.enableClientState(GL11.GL_VERTEX_ARRAY);
+        RenderWrap.enableClientState(GL11.GL_COLOR_ARRAY);
+
+        RenderWrap.lineWidth(2f);
+        this.drawBuffer(this.lineBuffer, GL11.GL_LINES);
+
+        if (this.hasQuads)
+        {
+            RenderWrap.enableBlend();
+            RenderWrap.disableCull();
+
+            this.drawBuffer(this.quadBuffer, GL11.GL_QUADS);
+
+            RenderWrap.enableCull();
+            RenderWrap.disableBlend();
+        }
+
+        RenderWrap.bindBuffer(RenderWrap.GL_ARRAY_BUFFER, 0);
+        RenderWrap.disableClientState(GL11.GL_COLOR_ARRAY);
+        RenderWrap.disableClientState(GL11.GL_VERTEX_ARRAY);
+        RenderWrap.resetColor();
+        RenderWrap.popMatrix(ctx);
+    }
+
+    protected void drawBuffer(VertexBuffer vertexBuffer, int glMode)
+    {
+        vertexBuffer.bindBuffer();
+        RenderWrap.vertexPointer(3, GL11.GL_FLOAT, 16, 0);
+        RenderWrap.colorPointer(4, GL11.GL_UNSIGNED_BYTE, 16, 12);
+        vertexBuffer.drawArrays(glMode);
+    }
+
+    public void deleteGlBuffers()
+    {
+        this.lineBuffer.deleteGlBuffers();
+        this.quadBuffer.deleteGlBuffers();
+    }
+}
@@ -13,6 +13,8 @@ public class CompiledChunkSchematic extends CompiledChunk
     private final BufferBuilder.State[] blockBufferStates = new BufferBuilder.State[BlockRenderLayer.values().length];
     private final BufferBuilder.State[] overlayBufferStates = new BufferBuilder.State[OverlayRenderType.COUNT];
     private boolean overlayEmpty = true;
+    private int overlayVertexCountUnmerged;
+    private int overlayVertexCountMerged;
 
     public boolean isOverlayEmpty()
     {
@@ -40,6 +42,28 @@ public class CompiledChunkSchematic extends CompiledChunk
         return this.overlayLayersStarted[type.ordinal()];
     }
 
+    /**
+     * @return the number of overlay vertices before the greedy meshing merged them
+     */
+    public int getOverlayVertexCountUnmerged()
+    {
+        return this.overlayVertexCountUnmerged;
+    }
+
+    /**
+     * @return the number of overlay vertices built by the greedy meshing
+     */
+    public int getOverlayVertexCountMerged()
+    {
+        return this.overlayVertexCountMerged;
+    }
+
+    public void setOverlayVertexCounts(int unmerged, int merged)
+    {
+        this.overlayVertexCountUnmerged = unmerged;
+        this.overlayVertexCountMerged = merged;
+    }
+
     public BufferBuilder.State getBlockBufferState(BlockRenderLayer layer)
     {
         return this.blockBufferStates[layer.ordinal()];
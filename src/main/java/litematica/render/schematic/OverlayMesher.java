@@ -0,0 +1,320 @@
+package litematica.render.schematic;
+
+import java.util.Arrays;
+
+import malilib.render.buffer.VertexBuilder;
+import malilib.util.data.Color4f;
+import malilib.util.position.BlockPos;
+import malilib.util.position.Direction;
+import malilib.util.position.Vec3i;
+import litematica.util.PositionUtils;
+import litematica.util.value.OverlayType;
+
+/**
+ * Collects the full block overlay sides and edges of one render chunk section by their
+ * overlay type, and then merges the coplanar adjacent sides and the collinear adjacent
+ * edges of the same overlay type into larger quads and lines using greedy meshing.
+ * All the positions are section relative, ie. in the range 0..15.
+ */
+public class OverlayMesher
+{
+    protected static final int SIZE = 16;
+    protected static final int LAYER_SIZE = SIZE * SIZE;
+    protected static final int EDGE_LINES = (SIZE + 1) * (SIZE + 1);
+    private static final OverlayType[] OVERLAY_TYPES = OverlayType.values();
+
+    /**
+     * The side masks per side, indexed as [layer * 256 + v * 16 + u],
+     * with the values being the overlay type ordinal + 1, and 0 meaning no side.
+     * The layer is the block's coordinate on the side's axis, u and v are the two
+     * other coordinates, see {@link #getUIndex(Direction.Axis, int, int, int)}.
+     */
+    protected final byte[][] sides = new byte[6][SIZE * LAYER_SIZE];
+    /**
+     * The edge masks per axis, indexed as [(b * 17 + a) * 16 + t],
+     * where t is the coordinate along the axis, and a and b are the
+     * two other coordinates of the edge, in the range 0..16.
+     */
+    protected final byte[][] edges = new byte[3][EDGE_LINES * SIZE];
+    protected boolean hasSides;
+    protected boolean hasEdges;
+    protected int inputQuadVertices;
+    protected int inputLineVertices;
+    protected int outputQuadVertices;
+    protected int outputLineVertices;
+
+    public void clear()
+    {
+        if (this.hasSides)
+        {
+            for (byte[] arr : this.sides)
+            {
+                Arrays.fill(arr, (byte) 0);
+            }
+        }
+
+        if (this.hasEdges)
+        {
+            for (byte[] arr : this.edges)
+            {
+                Arrays.fill(arr, (byte) 0);
+            }
+        }
+
+        this.hasSides = false;
+        this.hasEdges = false;
+        this.inputQuadVertices = 0;
+        this.inputLineVertices = 0;
+        this.outputQuadVertices = 0;
+        this.outputLineVertices = 0;
+    }
+
+    /**
+     * @return the number of quad and line vertices that were added, ie. the vertex count without the merging
+     */
+    public int getInputVertexCount()
+    {
+        return this.inputQuadVertices + this.inputLineVertices;
+    }
+
+    /**
+     * @return the number of quad and line vertices that were built by the merging
+     */
+    public int getOutputVertexCount()
+    {
+        return this.outputQuadVertices + this.outputLineVertices;
+    }
+
+    public void addSide(BlockPos pos, Direction side, OverlayType type)
+    {
+        Direction.Axis axis = side.getAxis();
+        int layer = getLayerCoordinate(axis, pos.getX(), pos.getY(), pos.getZ());
+        int u = getUIndex(axis, pos.getX(), pos.getY(), pos.getZ());
+        int v = getVIndex(axis, pos.getX(), pos.getY(), pos.getZ());
+
+        this.sides[side.ordinal()][layer * LAYER_SIZE + v * SIZE + u] = (byte) (type.ordinal() + 1);
+        this.inputQuadVertices += 4;
+        this.hasSides = true;
+    }
+
+    public void addAllSides(BlockPos pos, OverlayType type)
+    {
+        for (Direction side : Direction.ALL_DIRECTIONS)
+        {
+            this.addSide(pos, side, type);
+        }
+    }
+
+    /**
+     * Adds the block edge along the given axis at the given corner,
+     * see {@link litematica.render.RenderUtils#drawBlockBoxEdgeBatchedLines}
+     */
+    public void addEdge(BlockPos pos, Direction.Axis axis, int cornerIndex, OverlayType type)
+    {
+        Vec3i offset = PositionUtils.getEdgeNeighborOffsets(axis, cornerIndex)[cornerIndex];
+        int x = pos.getX() + offset.getX();
+        int y = pos.getY() + offset.getY();
+        int z = pos.getZ() + offset.getZ();
+        int index = (getVIndex(axis, x, y, z) * (SIZE + 1) + getUIndex(axis, x, y, z)) * SIZE + getLayerCoordinate(axis, x, y, z);
+        byte[] arr = this.edges[axis.ordinal()];
+        int existing = arr[index];
+
+        // An edge shared by blocks of different overlay types gets the color of the highest priority type
+        if (existing == 0 || OVERLAY_TYPES[existing - 1].getRenderPriority() < type.getRenderPriority())
+        {
+            arr[index] = (byte) (type.ordinal() + 1);
+        }
+
+        this.inputLineVertices += 2;
+        this.hasEdges = true;
+    }
+
+    public void addAllEdges(BlockPos pos, OverlayType type)
+    {
+        for (Direction.Axis axis : Direction.Axis.ALL_AXES)
+        {
+            for (int corner = 0; corner < 4; ++corner)
+            {
+                this.addEdge(pos, axis, corner, type);
+            }
+        }
+    }
+
+    /**
+     * Builds the merged side quads into the given builder, and clears the side masks.
+     * @param colors the side colors indexed by the overlay type ordinal
+     */
+    public void buildQuads(VertexBuilder builder, Color4f[] colors)
+    {
+        if (this.hasSides == false)
+        {
+            return;
+        }
+
+        for (Direction side : Direction.ALL_DIRECTIONS)
+        {
+            Direction.Axis axis = side.getAxis();
+            int planeOffset = side.getAxisDirection() == Direction.AxisDirection.POSITIVE ? 1 : 0;
+            byte[] arr = this.sides[side.ordinal()];
+
+            for (int layer = 0; layer < SIZE; ++layer)
+            {
+                this.buildLayerQuads(arr, layer * LAYER_SIZE, axis, layer + planeOffset, colors, builder);
+            }
+        }
+
+        this.hasSides = false;
+    }
+
+    protected void buildLayerQuads(byte[] arr, int layerStart, Direction.Axis axis, int plane,
+                                   Color4f[] colors, VertexBuilder builder)
+    {
+        for (int v = 0; v < SIZE; ++v)
+        {
+            for (int u = 0; u < SIZE; ++u)
+            {
+                final byte value = arr[layerStart + v * SIZE + u];
+
+                if (value == 0)
+                {
+                    continue;
+                }
+
+                int width = 1;
+
+                while (u + width < SIZE && arr[layerStart + v * SIZE + u + width] == value)
+                {
+                    ++width;
+                }
+
+                int height = 1;
+
+                while (v + height < SIZE && isRowFilled(arr, layerStart + (v + height) * SIZE + u, width, value))
+                {
+                    ++height;
+                }
+
+                for (int row = v; row < v + height; ++row)
+                {
+                    int start = layerStart + row * SIZE + u;
+                    Arrays.fill(arr, start, start + width, (byte) 0);
+                }
+
+                Color4f color = colors[value - 1];
+                this.addVertex(axis, plane, u,         v,          color, builder);
+                this.addVertex(axis, plane, u + width, v,          color, builder);
+                this.addVertex(axis, plane, u + width, v + height, color, builder);
+                this.addVertex(axis, plane, u,         v + height, color, builder);
+                this.outputQuadVertices += 4;
+
+                u += width - 1;
+            }
+        }
+    }
+
+    /**
+     * Builds the merged edge lines into the given builder, and clears the edge masks.
+     * @param colors the line colors indexed by the overlay type ordinal
+     */
+    public void buildLines(VertexBuilder builder, Color4f[] colors)
+    {
+        if (this.hasEdges == false)
+        {
+            return;
+        }
+
+        for (Direction.Axis axis : Direction.Axis.ALL_AXES)
+        {
+            byte[] arr = this.edges[axis.ordinal()];
+
+            for (int line = 0; line < EDGE_LINES; ++line)
+            {
+                final int lineStart = line * SIZE;
+                final int u = line % (SIZE + 1);
+                final int v = line / (SIZE + 1);
+
+                for (int t = 0; t < SIZE; ++t)
+                {
+                    final byte value = arr[lineStart + t];
+
+                    if (value == 0)
+                    {
+                        continue;
+                    }
+
+                    int length = 1;
+
+                    while (t + length < SIZE && arr[lineStart + t + length] == value)
+                    {
+                        ++length;
+                    }
+
+                    Arrays.fill(arr, lineStart + t, lineStart + t + length, (byte) 0);
+
+                    Color4f color = colors[value - 1];
+                    this.addVertex(axis, t,          u, v, color, builder);
+                    this.addVertex(axis, t + length, u, v, color, builder);
+                    this.outputLineVertices += 2;
+
+                    t += length - 1;
+                }
+            }
+        }
+
+        this.hasEdges = false;
+    }
+
+    /**
+     * Adds a vertex at the given coordinate on the axis, and the given u and v coordinates
+     */
+    protected void addVertex(Direction.Axis axis, int layer, int u, int v, Color4f color, VertexBuilder builder)
+    {
+        switch (axis)
+        {
+            case X: builder.posColor(layer, v, u, color); break;
+            case Y: builder.posColor(u, layer, v, color); break;
+            case Z: builder.posColor(u, v, layer, color); break;
+        }
+    }
+
+    protected static boolean isRowFilled(byte[] arr, int start, int width, byte value)
+    {
+        for (int i = start; i < start + width; ++i)
+        {
+            if (arr[i] != value)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    protected static int getLayerCoordinate(Direction.Axis axis, int x, int y, int z)
+    {
+        switch (axis)
+        {
+            case X: return x;
+            case Y: return y;
+            default: return z;
+        }
+    }
+
+    protected static int getUIndex(Direction.Axis axis, int x, int y, int z)
+    {
+        switch (axis)
+        {
+            case X: return z;
+            default: return x;
+        }
+    }
+
+    protected static int getVIndex(Direction.Axis axis, int x, int y, int z)
+    {
+        switch (axis)
+        {
+            case Y: return z;
+            default: return y;
+        }
+    }
+}
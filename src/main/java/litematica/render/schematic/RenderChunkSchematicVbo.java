@@ -45,6 +45,8 @@ import litematica.config.Configs;
 import litematica.data.DataManager;
 import litematica.mixin.IMixinCompiledChunk;
 import litematica.render.RenderUtils;
+import litematica.schematic.placement.SchematicPlacement;
+import litematica.schematic.placement.SchematicPlacementManager.PlacementPart;
 import litematica.util.PositionUtils;
 import litematica.util.value.OverlayType;
 
@@ -52,6 +54,12 @@ public class RenderChunkSchematicVbo extends RenderChunk
 {
     public static int schematicRenderChunksUpdated;
 
+    private static final OverlayType[] OVERLAY_TYPES = OverlayType.values();
+    /** The overlay type grid covers the section and a one block border around it */
+    private static final int GRID_SIZE = 18;
+    private static final int GRID_STRIDE_Z = GRID_SIZE;
+    private static final int GRID_STRIDE_Y = GRID_SIZE * GRID_SIZE;
+
     private final RenderGlobalSchematic renderGlobal;
     private final VertexBuffer[] vertexBufferOverlay = new VertexBuffer[OverlayRenderType.values().length];
     private final Set<TileEntity> setTileEntities = new HashSet<>();
@@ -60,6 +68,12 @@ public class RenderChunkSchematicVbo extends RenderChunk
     protected final ReentrantLock chunkRenderDataLock;
     protected final BlockPos.MutBlockPos chunkRelPos = new BlockPos.MutBlockPos();
     protected final BlockPos.MutBlockPos overlayTempPos = new BlockPos.MutBlockPos();
+    protected final byte[] overlayTypeGrid = new byte[GRID_SIZE * GRID_SIZE * GRID_SIZE];
+    protected final OverlayType[] edgeNeighborTypes = new OverlayType[4];
+    protected final Vec3i[] edgeNeighborOffsets = new Vec3i[4];
+    protected final OverlayMesher overlayMesher = new OverlayMesher();
+    protected final Color4f[] overlaySideColors = new Color4f[OVERLAY_TYPES.length];
+    protected final Color4f[] overlayLineColors = new Color4f[OVERLAY_TYPES.length];
     private ChunkCompileTaskGeneratorSchematic compileTask;
 
     private ChunkCacheSchematic schematicWorldView;
@@ -68,9 +82,12 @@ public class RenderChunkSchematicVbo extends RenderChunk
     private CompiledChunkSchematic schematicChunkRenderData;
 
     private boolean hasOverlay = false;
+    private boolean skipBlockGeometry;
+    private boolean useGeometryCache;
 
     private boolean ignoreClientWorldFluids;
     private boolean overlayEnabled;
+    private boolean overlayGreedyMeshing;
     private boolean overlayLinesEnabled;
     private boolean overlayModelLines;
     private boolean overlayModelSides;
@@ -86,6 +103,10 @@ public class RenderChunkSchematicVbo extends RenderChunk
     private Color4f overlayColorMissing;
     private Color4f overlayColorWrongBlock;
     private Color4f overlayColorWrongState;
+    private Color4f overlayLineColorExtra;
+    private Color4f overlayLineColorMissing;
+    private Color4f overlayLineColorWrongBlock;
+    private Color4f overlayLineColorWrongState;
 
     public RenderChunkSchematicVbo(World worldIn, RenderGlobal renderGlobalIn, int indexIn)
     {
@@ -238,6 +259,35 @@ public class RenderChunkSchematicVbo extends RenderChunk
                 VertexBuilderCache buffers = generator.getBufferCache();
                 BlockPos.MutBlockPos posMutable = new BlockPos.MutBlockPos();
 
+                if (this.overlayEnabled && this.overlayReducedInnerSides &&
+                    (this.overlaySidesEnabled || this.overlayLinesEnabled))
+                {
+                    this.updateOverlayTypeGrid();
+                }
+
+                if (this.overlayGreedyMeshing)
+                {
+                    this.overlayMesher.clear();
+                }
+
+                SectionGeometryCache.Key geometryKey = null;
+                SectionGeometryCache.Entry cachedGeometry = null;
+
+                if (this.useGeometryCache)
+                {
+                    geometryKey = this.createGeometryCacheKey(range);
+                    cachedGeometry = this.renderGlobal.getSectionGeometryCache().get(geometryKey);
+                }
+
+                if (cachedGeometry != null)
+                {
+                    this.applyCachedGeometry(cachedGeometry, usedLayers, data, buffers);
+                }
+
+                // When the block geometry is reused from an identical section,
+                // only the block entities and the overlay are collected and built here
+                this.skipBlockGeometry = cachedGeometry != null;
+
                 for (IntBoundingBox box : this.boxes)
                 {
                     box = range.getClampedBox(box);
@@ -261,6 +311,9 @@ public class RenderChunkSchematicVbo extends RenderChunk
                     }
                 }
 
+                boolean cacheGeometry = geometryKey != null && cachedGeometry == null;
+                BufferBuilder.State[] layerStates = new BufferBuilder.State[usedLayers.length];
+
                 for (BlockRenderLayer layerTmp : BlockRenderLayer.values())
                 {
                     if (usedLayers[layerTmp.ordinal()])
@@ -270,10 +323,25 @@ public class RenderChunkSchematicVbo extends RenderChunk
 
                     if (data.isLayerStarted(layerTmp))
                     {
+                        if (cacheGeometry)
+                        {
+                            layerStates[layerTmp.ordinal()] = buffers.getWorldRendererByLayer(layerTmp).getVertexData();
+                        }
+
                         this.postRenderBlocks(layerTmp, x, y, z, buffers.getWorldRendererByLayer(layerTmp), data);
                     }
                 }
 
+                if (cacheGeometry)
+                {
+                    this.renderGlobal.getSectionGeometryCache().put(geometryKey, new SectionGeometryCache.Entry(layerStates, usedLayers.clone()));
+                }
+
+                if (this.hasOverlay && this.overlayGreedyMeshing)
+                {
+                    this.buildMergedOverlay(data, buffers);
+                }
+
                 if (this.hasOverlay)
                 {
                     //if (GuiBase.isCtrlDown()) System.out.printf("postRenderOverlays\n");
@@ -307,6 +375,145 @@ public class RenderChunkSchematicVbo extends RenderChunk
         }
     }
 
+    /**
+     * Creates the key of the contents of this section that affect the compiled block geometry.
+     * The schematic block states are taken from the section and the one block border around it,
+     * as the neighbor states affect the culled sides and the ambient occlusion.
+     * The rendered positions are the ones within the rendered boxes, where the client world has air.
+     */
+    protected SectionGeometryCache.Key createGeometryCacheKey(LayerRange range)
+    {
+        BlockPos.MutBlockPos posMutable = this.overlayTempPos;
+        net.minecraft.util.math.BlockPos origin = this.getPosition();
+        final int minX = origin.getX() - 1;
+        final int minY = origin.getY() - 1;
+        final int minZ = origin.getZ() - 1;
+        int[] stateIds = new int[GRID_SIZE * GRID_SIZE * GRID_SIZE];
+        long[] renderedPositions = new long[16 * 16 * 16 / 64];
+        int index = 0;
+
+        for (int y = 0; y < GRID_SIZE; ++y)
+        {
+            for (int z = 0; z < GRID_SIZE; ++z)
+            {
+                for (int x = 0; x < GRID_SIZE; ++x)
+                {
+                    posMutable.set(minX + x, minY + y, minZ + z);
+                    stateIds[index++] = Block.getStateId(this.schematicWorldView.getBlockState(posMutable));
+                }
+            }
+        }
+
+        for (IntBoundingBox box : this.boxes)
+        {
+            box = range.getClampedBox(box);
+
+            if (box == null)
+            {
+                continue;
+            }
+
+            for (int by = box.minY; by <= box.maxY; ++by)
+            {
+                for (int bz = box.minZ; bz <= box.maxZ; ++bz)
+                {
+                    for (int bx = box.minX; bx <= box.maxX; ++bx)
+                    {
+                        posMutable.set(bx, by, bz);
+
+                        if (this.clientWorldView.getBlockState(posMutable).getBlock() == Blocks.AIR)
+                        {
+                            int bit = ((by & 0xF) << 8) | ((bz & 0xF) << 4) | (bx & 0xF);
+                            renderedPositions[bit >> 6] |= 1L << (bit & 63);
+                        }
+                    }
+                }
+            }
+        }
+
+        return new SectionGeometryCache.Key(stateIds, renderedPositions, this.renderAsTranslucent);
+    }
+
+    /**
+     * Starts the block layers with a copy of the cached vertex data of an identical section
+     */
+    protected void applyCachedGeometry(SectionGeometryCache.Entry cachedGeometry, boolean[] usedLayers,
+                                       CompiledChunkSchematic data, VertexBuilderCache buffers)
+    {
+        for (BlockRenderLayer layer : BlockRenderLayer.values())
+        {
+            BufferBuilder.State state = cachedGeometry.getLayerState(layer);
+
+            if (state != null)
+            {
+                VertexBuilder builder = buffers.getWorldRendererByLayer(layer);
+
+                data.setLayerStarted(layer);
+                this.preRenderBlocks(builder, this.getPosition());
+                builder.setVertexData(state);
+                usedLayers[layer.ordinal()] = cachedGeometry.isLayerUsed(layer);
+            }
+        }
+    }
+
+    /**
+     * Builds the overlay sides and edges collected into the overlay mesher
+     * as merged quads and lines into the overlay buffers.
+     */
+    protected void buildMergedOverlay(CompiledChunkSchematic data, VertexBuilderCache buffers)
+    {
+        if (data.isOverlayTypeStarted(OverlayRenderType.QUAD))
+        {
+            this.overlayMesher.buildQuads(buffers.getOverlayBuffer(OverlayRenderType.QUAD), this.overlaySideColors);
+        }
+
+        if (data.isOverlayTypeStarted(OverlayRenderType.OUTLINE))
+        {
+            this.overlayMesher.buildLines(buffers.getOverlayBuffer(OverlayRenderType.OUTLINE), this.overlayLineColors);
+        }
+
+        data.setOverlayVertexCounts(this.overlayMesher.getInputVertexCount(), this.overlayMesher.getOutputVertexCount());
+    }
+
+    /**
+     * Classifies the overlay type of every position in this section and in the one block
+     * border around it, so that the reduced inner sides and edges of the overlay
+     * don't need to look up and compare the neighbor states of each position separately.
+     * The neighbor types are classified from the states without the actual state.
+     */
+    protected void updateOverlayTypeGrid()
+    {
+        BlockPos.MutBlockPos posMutable = this.overlayTempPos;
+        net.minecraft.util.math.BlockPos origin = this.getPosition();
+        final int minX = origin.getX() - 1;
+        final int minY = origin.getY() - 1;
+        final int minZ = origin.getZ() - 1;
+        final byte[] grid = this.overlayTypeGrid;
+        int index = 0;
+
+        for (int y = 0; y < GRID_SIZE; ++y)
+        {
+            for (int z = 0; z < GRID_SIZE; ++z)
+            {
+                for (int x = 0; x < GRID_SIZE; ++x)
+                {
+                    posMutable.set(minX + x, minY + y, minZ + z);
+                    IBlockState stateSchematic = this.schematicWorldView.getBlockState(posMutable);
+                    IBlockState stateClient    = this.clientWorldView.getBlockState(posMutable);
+                    grid[index++] = (byte) this.getOverlayType(stateSchematic, stateClient).ordinal();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the index in the overlay type grid of the given section relative position
+     */
+    protected static int getOverlayGridIndex(BlockPos chunkRelPos)
+    {
+        return (chunkRelPos.getY() + 1) * GRID_STRIDE_Y + (chunkRelPos.getZ() + 1) * GRID_STRIDE_Z + chunkRelPos.getX() + 1;
+    }
+
     protected void renderBlocksAndOverlay(BlockPos pos, Set<TileEntity> tileEntities, boolean[] usedLayers, CompiledChunkSchematic data, VertexBuilderCache buffers)
     {
         IBlockState stateSchematic = this.schematicWorldView.getBlockState(pos);
@@ -336,7 +543,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
             BlockRenderLayer layer = this.renderAsTranslucent ? BlockRenderLayer.TRANSLUCENT : blockSchematic.getRenderLayer();
             int layerIndex = layer.ordinal();
 
-            if (stateSchematic.getRenderType() != EnumBlockRenderType.INVISIBLE)
+            if (this.skipBlockGeometry == false && stateSchematic.getRenderType() != EnumBlockRenderType.INVISIBLE)
             {
                 VertexBuilder builder = buffers.getWorldRendererByLayerId(layerIndex);
 
@@ -378,14 +585,13 @@ public class RenderChunkSchematicVbo extends RenderChunk
 
             if (this.overlayReducedInnerSides)
             {
+                final int gridIndex = getOverlayGridIndex(this.chunkRelPos);
+
                 for (int i = 0; i < 6; ++i)
                 {
                     Direction side = Direction.ALL_DIRECTIONS[i];
-                    this.overlayTempPos.set(pos.getX() + side.getXOffset(), pos.getY() + side.getYOffset(), pos.getZ() + side.getZOffset());
-                    IBlockState adjStateSchematic = this.schematicWorldView.getBlockState(this.overlayTempPos);
-                    IBlockState adjStateClient    = this.clientWorldView.getBlockState(this.overlayTempPos);
-
-                    OverlayType typeAdj = this.getOverlayType(adjStateSchematic, adjStateClient);
+                    int adjIndex = gridIndex + side.getYOffset() * GRID_STRIDE_Y + side.getZOffset() * GRID_STRIDE_Z + side.getXOffset();
+                    OverlayType typeAdj = OVERLAY_TYPES[this.overlayTypeGrid[adjIndex]];
 
                     // Only render the model-based outlines or sides for missing blocks
                     if (missing && this.overlayModelSides)
@@ -403,7 +609,14 @@ public class RenderChunkSchematicVbo extends RenderChunk
                     {
                         if (type.getRenderPriority() > typeAdj.getRenderPriority())
                         {
-                            ShapeRenderUtils.renderBlockPosSideQuad(this.chunkRelPos, side, 0, overlayColor, quadBuilder);
+                            if (this.overlayGreedyMeshing)
+                            {
+                                this.overlayMesher.addSide(this.chunkRelPos, side, type);
+                            }
+                            else
+                            {
+                                ShapeRenderUtils.renderBlockPosSideQuad(this.chunkRelPos, side, 0, overlayColor, quadBuilder);
+                            }
                         }
                     }
                 }
@@ -416,6 +629,10 @@ public class RenderChunkSchematicVbo extends RenderChunk
                     IBakedModel bakedModel = this.renderGlobal.getModelForState(stateSchematic);
                     RenderUtils.drawBlockModelQuadOverlayBatched(bakedModel, stateSchematic, this.chunkRelPos, overlayColor, 0, quadBuilder);
                 }
+                else if (this.overlayGreedyMeshing)
+                {
+                    this.overlayMesher.addAllSides(this.chunkRelPos, type);
+                }
                 else
                 {
                     ShapeRenderUtils.renderBlockPosSideQuads(this.chunkRelPos, 0, overlayColor, quadBuilder);
@@ -433,32 +650,11 @@ public class RenderChunkSchematicVbo extends RenderChunk
                 this.preRenderOverlay(lineBuilder, OverlayRenderType.OUTLINE);
             }
 
-            overlayColor = new Color4f(overlayColor.r, overlayColor.g, overlayColor.b, 1f);
+            overlayColor = this.getOverlayLineColor(type);
 
             if (this.overlayReducedInnerSides)
             {
-                OverlayType[][][] adjTypes = new OverlayType[3][3][3];
-
-                for (int y = 0; y <= 2; ++y)
-                {
-                    for (int z = 0; z <= 2; ++z)
-                    {
-                        for (int x = 0; x <= 2; ++x)
-                        {
-                            if (x != 1 || y != 1 || z != 1)
-                            {
-                                this.overlayTempPos.set(pos.getX() + x - 1, pos.getY() + y - 1, pos.getZ() + z - 1);
-                                IBlockState adjStateSchematic = this.schematicWorldView.getBlockState(this.overlayTempPos);
-                                IBlockState adjStateClient    = this.clientWorldView.getBlockState(this.overlayTempPos);
-                                adjTypes[x][y][z] = this.getOverlayType(adjStateSchematic, adjStateClient);
-                            }
-                            else
-                            {
-                                adjTypes[x][y][z] = type;
-                            }
-                        }
-                    }
-                }
+                final int gridIndex = getOverlayGridIndex(this.chunkRelPos);
 
                 // Only render the model-based outlines or sides for missing blocks
                 if (missing && this.overlayModelLines)
@@ -468,7 +664,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
                     // FIXME: how to implement this correctly here... >_>
                     if (stateSchematic.isFullCube())
                     {
-                        this.renderOverlayReducedEdges(pos, adjTypes, type, overlayColor, lineBuilder);
+                        this.renderOverlayReducedEdges(gridIndex, type, overlayColor, lineBuilder);
                     }
                     else
                     {
@@ -477,7 +673,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
                 }
                 else
                 {
-                    this.renderOverlayReducedEdges(pos, adjTypes, type, overlayColor, lineBuilder);
+                    this.renderOverlayReducedEdges(gridIndex, type, overlayColor, lineBuilder);
                 }
             }
             else
@@ -488,6 +684,10 @@ public class RenderChunkSchematicVbo extends RenderChunk
                     IBakedModel bakedModel = this.renderGlobal.getModelForState(stateSchematic);
                     RenderUtils.drawBlockModelOutlinesBatched(bakedModel, stateSchematic, this.chunkRelPos, overlayColor, lineBuilder);
                 }
+                else if (this.overlayGreedyMeshing)
+                {
+                    this.overlayMesher.addAllEdges(this.chunkRelPos, type);
+                }
                 else
                 {
                     ShapeRenderUtils.renderBlockPosEdgeLines(this.chunkRelPos, 0, overlayColor, lineBuilder);
@@ -496,12 +696,18 @@ public class RenderChunkSchematicVbo extends RenderChunk
         }
     }
 
-    protected void renderOverlayReducedEdges(BlockPos pos, OverlayType[][][] adjTypes, OverlayType typeSelf,
+    /**
+     * Renders the edges of the block at the given overlay grid index, that are not
+     * rendered by any of the other positions sharing the edge, based on their overlay types.
+     * @param gridIndex the index of the block in the overlay type grid
+     * @param typeSelf the overlay type of the block itself
+     */
+    protected void renderOverlayReducedEdges(int gridIndex, OverlayType typeSelf,
                                              Color4f overlayColor, VertexBuilder lineBuilder)
     {
-        OverlayType[] neighborTypes = new OverlayType[4];
-        Vec3i[] neighborPositions = new Vec3i[4];
-        int lines = 0;
+        final OverlayType[] neighborTypes = this.edgeNeighborTypes;
+        final Vec3i[] neighborOffsets = this.edgeNeighborOffsets;
+        final byte[] grid = this.overlayTypeGrid;
 
         for (Direction.Axis axis : Direction.Axis.ALL_AXES)
         {
@@ -515,7 +721,9 @@ public class RenderChunkSchematicVbo extends RenderChunk
                 for (int i = 0; i < 4; ++i)
                 {
                     Vec3i offset = offsets[i];
-                    OverlayType type = adjTypes[offset.getX() + 1][offset.getY() + 1][offset.getZ() + 1];
+                    // The self position is the first (offset = [0, 0, 0]) in the arrays
+                    OverlayType type = i == 0 ? typeSelf : OVERLAY_TYPES[grid[gridIndex + offset.getY() * GRID_STRIDE_Y +
+                                                                               offset.getZ() * GRID_STRIDE_Z + offset.getX()]];
 
                     // type NONE
                     if (type == OverlayType.NONE)
@@ -533,46 +741,48 @@ public class RenderChunkSchematicVbo extends RenderChunk
                         }
                         // else: Same priority as a previous entry, append this position
 
-                        //System.out.printf("plop 0 axis: %s, corner: %d, i: %d, index: %d, type: %s\n", axis, corner, i, index, type);
-                        neighborPositions[index] = new Vec3i(pos.getX() + offset.getX(), pos.getY() + offset.getY(), pos.getZ() + offset.getZ());
+                        neighborOffsets[index] = offset;
                         neighborTypes[index] = type;
-                        // The self position is the first (offset = [0, 0, 0]) in the arrays
                         hasCurrent |= (i == 0);
                         ++index;
                     }
                 }
 
-                //System.out.printf("plop 1 index: %d, pos: %s\n", index, pos);
                 // Found something to render, and the current block is among the highest priority for this edge
                 if (index > 0 && hasCurrent)
                 {
-                    Vec3i posTmp = new Vec3i(pos.getX(), pos.getY(), pos.getZ());
-                    int ind = -1;
+                    int minX = 0;
+                    int minY = 0;
+                    int minZ = 0;
 
                     for (int i = 0; i < index; ++i)
                     {
-                        Vec3i tmp = neighborPositions[i];
-                        //System.out.printf("posTmp: %s, tmp: %s\n", posTmp, tmp);
+                        Vec3i tmp = neighborOffsets[i];
 
                         // Just prioritize the position to render a shared highest priority edge by the coordinates
-                        if (tmp.getX() <= posTmp.getX() && tmp.getY() <= posTmp.getY() && tmp.getZ() <= posTmp.getZ())
+                        if (tmp.getX() <= minX && tmp.getY() <= minY && tmp.getZ() <= minZ)
                         {
-                            posTmp = tmp;
-                            ind = i;
+                            minX = tmp.getX();
+                            minY = tmp.getY();
+                            minZ = tmp.getZ();
                         }
                     }
 
                     // The current position is the one that should render this edge
-                    if (posTmp.getX() == pos.getX() && posTmp.getY() == pos.getY() && posTmp.getZ() == pos.getZ())
+                    if (minX == 0 && minY == 0 && minZ == 0)
                     {
-                        //System.out.printf("plop 2 index: %d, ind: %d, pos: %s, off: %s\n", index, ind, pos, posTmp);
-                        RenderUtils.drawBlockBoxEdgeBatchedLines(this.chunkRelPos, axis, corner, overlayColor, lineBuilder);
-                        lines++;
+                        if (this.overlayGreedyMeshing)
+                        {
+                            this.overlayMesher.addEdge(this.chunkRelPos, axis, corner, typeSelf);
+                        }
+                        else
+                        {
+                            RenderUtils.drawBlockBoxEdgeBatchedLines(this.chunkRelPos, axis, corner, overlayColor, lineBuilder);
+                        }
                     }
                 }
             }
         }
-        //System.out.printf("typeSelf: %s, pos: %s, lines: %d\n", typeSelf, pos, lines);
     }
 
     protected OverlayType getOverlayType(IBlockState stateSchematic, IBlockState stateClient)
@@ -645,6 +855,21 @@ public class RenderChunkSchematicVbo extends RenderChunk
         return null;
     }
 
+    /**
+     * @return the opaque line color of the given overlay type.
+     * Only called for types that have a color via {@link #getOverlayColor(OverlayType)}.
+     */
+    protected Color4f getOverlayLineColor(OverlayType overlayType)
+    {
+        switch (overlayType)
+        {
+            case MISSING:       return this.overlayLineColorMissing;
+            case EXTRA:         return this.overlayLineColorExtra;
+            case WRONG_BLOCK:   return this.overlayLineColorWrongBlock;
+            default:            return this.overlayLineColorWrongState;
+        }
+    }
+
     private void addTileEntity(BlockPos pos, CompiledChunk compiledChunk, Set<TileEntity> tileEntities)
     {
         TileEntity te = this.schematicWorldView.getTileEntity(pos, Chunk.EnumCreateEntityType.CHECK);
@@ -778,6 +1003,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
         {
             this.ignoreClientWorldFluids = Configs.Visuals.IGNORE_EXISTING_FLUIDS.getBooleanValue();
             this.overlayEnabled = Configs.Visuals.SCHEMATIC_OVERLAY.getBooleanValue();
+            this.overlayGreedyMeshing = Configs.Visuals.OVERLAY_GREEDY_MESHING.getBooleanValue();
             this.overlayReducedInnerSides = Configs.Visuals.OVERLAY_REDUCED_INNER_SIDES.getBooleanValue();
             this.overlayLinesEnabled = Configs.Visuals.SCHEMATIC_OVERLAY_OUTLINES.getBooleanValue();
             this.overlayModelLines = Configs.Visuals.SCHEMATIC_OVERLAY_MODEL_OUTLINE.getBooleanValue();
@@ -785,6 +1011,7 @@ public class RenderChunkSchematicVbo extends RenderChunk
             this.overlaySidesEnabled = Configs.Visuals.SCHEMATIC_OVERLAY_SIDES.getBooleanValue();
             this.renderColliding = Configs.Visuals.RENDER_COLLIDING_SCHEMATIC_BLOCKS.getBooleanValue();
             this.renderAsTranslucent = Configs.Visuals.TRANSLUCENT_SCHEMATIC_RENDERING.getBooleanValue();
+            boolean cacheGridGeometry = Configs.Visuals.GRID_REPEAT_GEOMETRY_CACHE.getBooleanValue();
             this.overlayTypeExtra = Configs.Visuals.SCHEMATIC_OVERLAY_TYPE_EXTRA.getBooleanValue();
             this.overlayTypeMissing = Configs.Visuals.SCHEMATIC_OVERLAY_TYPE_MISSING.getBooleanValue();
             this.overlayTypeWrongBlock = Configs.Visuals.SCHEMATIC_OVERLAY_TYPE_WRONG_BLOCK.getBooleanValue();
@@ -794,6 +1021,19 @@ public class RenderChunkSchematicVbo extends RenderChunk
             this.overlayColorMissing = Configs.Colors.SCHEMATIC_OVERLAY_MISSING.getColor();
             this.overlayColorWrongBlock = Configs.Colors.SCHEMATIC_OVERLAY_WRONG_BLOCK.getColor();
             this.overlayColorWrongState = Configs.Colors.SCHEMATIC_OVERLAY_WRONG_STATE.getColor();
+            this.overlayLineColorExtra = getOpaqueColor(this.overlayColorExtra);
+            this.overlayLineColorMissing = getOpaqueColor(this.overlayColorMissing);
+            this.overlayLineColorWrongBlock = getOpaqueColor(this.overlayColorWrongBlock);
+            this.overlayLineColorWrongState = getOpaqueColor(this.overlayColorWrongState);
+
+            for (OverlayType type : OVERLAY_TYPES)
+            {
+                if (type != OverlayType.NONE)
+                {
+                    this.overlaySideColors[type.ordinal()] = this.getOverlayColor(type);
+                    this.overlayLineColors[type.ordinal()] = this.getOverlayLineColor(type);
+                }
+            }
 
             this.schematicWorldView = new ChunkCacheSchematic(this.getWorld(), this.getPosition(), 2);
             this.clientWorldView    = new ChunkCacheSchematic(Minecraft.getMinecraft().world, this.getPosition(), 2);
@@ -801,9 +1041,43 @@ public class RenderChunkSchematicVbo extends RenderChunk
             ChunkSectionPos subChunk = ChunkSectionPos.ofBlockPos(this.getPosition());
             this.boxes.clear();
             this.boxes.addAll(DataManager.getSchematicPlacementManager().getTouchedBoxesInSubChunk(subChunk));
+
+            // The client world decides which schematic blocks get rendered only in the non-colliding mode
+            this.useGeometryCache = cacheGridGeometry && this.renderColliding == false && this.isGridRepeatSection(subChunk);
         }
     }
 
+    /**
+     * @return true if all the placements touching the given section are grid repeated placements,
+     * or base placements of a grid, so that the section's contents likely also exist at the other grid points
+     */
+    private boolean isGridRepeatSection(ChunkSectionPos subChunk)
+    {
+        List<PlacementPart> parts = DataManager.getSchematicPlacementManager().getAllPlacementsTouchingSubChunk(subChunk);
+
+        if (parts.isEmpty())
+        {
+            return false;
+        }
+
+        for (PlacementPart part : parts)
+        {
+            SchematicPlacement placement = part.getPlacement();
+
+            if (placement.isRepeatedPlacement() == false && placement.getGridSettings().isEnabled() == false)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Color4f getOpaqueColor(Color4f color)
+    {
+        return new Color4f(color.r, color.g, color.b, 1f);
+    }
+
     public enum OverlayRenderType
     {
         OUTLINE     (GL11.GL_LINES),
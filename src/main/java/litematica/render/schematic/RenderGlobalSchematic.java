@@ -52,6 +52,7 @@ import malilib.util.game.wrap.RenderWrap;
 import malilib.util.position.BlockPos;
 import malilib.util.position.ChunkSectionPos;
 import malilib.util.position.LayerRange;
+import litematica.config.Configs;
 import litematica.data.DataManager;
 import litematica.mixin.IMixinBlockRendererDispatcher;
 import litematica.mixin.IMixinViewFrustum;
@@ -67,6 +68,7 @@ public class RenderGlobalSchematic extends RenderGlobal
     private final Set<TileEntity> setTileEntities = new HashSet<>();
     private final List<RenderChunkSchematicVbo> renderInfos = new ArrayList<>(1024);
     private final List<ChunkSectionPos> subChunksWithinRenderRange = new ArrayList<>();
+    private final SectionGeometryCache sectionGeometryCache = new SectionGeometryCache();
     private Set<RenderChunkSchematicVbo> chunksToUpdate = new LinkedHashSet<>();
     private WorldClient world;
     private ViewFrustum viewFrustum;
@@ -81,6 +83,7 @@ public class RenderGlobalSchematic extends RenderGlobal
     private double lastViewEntityZ = Double.MIN_VALUE;
     private float lastViewEntityPitch = Float.MIN_VALUE;
     private float lastViewEntityYaw = Float.MIN_VALUE;
+    @Nullable private ICamera lastCamera;
     private ChunkRenderDispatcherLitematica renderDispatcher;
     private ChunkRenderContainerSchematic renderContainer;
     private IRenderChunkFactory renderChunkFactory;
@@ -129,6 +132,14 @@ public class RenderGlobalSchematic extends RenderGlobal
         DataManager.getSchematicPlacementManager().addRebuildListener(this::onEvent);
     }
 
+    /**
+     * @return the cache of the shared block geometry of the identical grid repeated sections
+     */
+    public SectionGeometryCache getSectionGeometryCache()
+    {
+        return this.sectionGeometryCache;
+    }
+
     public void markNeedsUpdate()
     {
         this.displayListEntitiesDirty = true;
@@ -144,7 +155,41 @@ public class RenderGlobalSchematic extends RenderGlobal
     {
         int rcTotal = this.viewFrustum != null ? this.viewFrustum.renderChunks.length : 0;
         int rcRendered = this.viewFrustum != null ? this.getRenderedChunks() : 0;
-        return String.format("C: %d/%d %sD: %d, L: %d, %s", rcRendered, rcTotal, this.mc.renderChunksMany ? "(s) " : "", this.renderDistanceChunks, 0, this.renderDispatcher == null ? "null" : this.renderDispatcher.getDebugInfo());
+        String str = String.format("C: %d/%d %sD: %d, L: %d, %s", rcRendered, rcTotal, this.mc.renderChunksMany ? "(s) " : "", this.renderDistanceChunks, 0, this.renderDispatcher == null ? "null" : this.renderDispatcher.getDebugInfo());
+
+        if (Configs.Visuals.OVERLAY_GREEDY_MESHING.getBooleanValue())
+        {
+            str += this.getOverlayVertexCountInfo();
+        }
+
+        return str;
+    }
+
+    /**
+     * @return the overlay vertex counts of the rendered chunks before and after the greedy meshing
+     */
+    protected String getOverlayVertexCountInfo()
+    {
+        long unmerged = 0;
+        long merged = 0;
+
+        for (RenderChunkSchematicVbo renderChunk : this.renderInfos)
+        {
+            CompiledChunkSchematic compiledChunk = renderChunk.getChunkRenderData();
+            unmerged += compiledChunk.getOverlayVertexCountUnmerged();
+            merged += compiledChunk.getOverlayVertexCountMerged();
+        }
+
+        return String.format(", OV: %d -> %d", unmerged, merged);
+    }
+
+    /**
+     * @return the view frustum from the last terrain setup, or null if nothing has been rendered yet
+     */
+    @Nullable
+    public ICamera getLastCamera()
+    {
+        return this.lastCamera;
     }
 
     @Override
@@ -210,6 +255,7 @@ public class RenderGlobalSchematic extends RenderGlobal
             }
 
             this.renderDispatcher = null;
+            this.sectionGeometryCache.clear();
         }
     }
 
@@ -248,6 +294,7 @@ public class RenderGlobalSchematic extends RenderGlobal
             }
 
             this.stopChunkUpdates();
+            this.sectionGeometryCache.clear();
 
             synchronized (this.setTileEntities)
             {
@@ -279,6 +326,7 @@ public class RenderGlobalSchematic extends RenderGlobal
     {
         WorldClient world = this.world;
         GameWrap.profilerPush("setup_terrain");
+        this.lastCamera = camera;
 
         if (this.viewFrustum == null || GameWrap.getRenderDistanceChunks() != this.renderDistanceChunks)
         {
@@ -0,0 +1,170 @@
+package litematica.render.schematic;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.util.BlockRenderLayer;
+
+/**
+ * A compile-time cache of the block geometry of render chunk sections by their contents,
+ * so that the identical sections of grid repeated placements only need to have
+ * their block geometry built once, and the other repeats just copy the same
+ * section relative vertex data, drawn at their own position.
+ * The vertex data is copied into the vertex buffers of each repeat,
+ * so this only saves the build time, not any memory.
+ * The cache is limited both by the number of entries and by the estimated size of
+ * the cached keys and vertex data, and the least recently used entries are evicted first.
+ * The cache is accessed from the chunk render worker threads.
+ */
+public class SectionGeometryCache
+{
+    protected static final int MAX_ENTRIES = 256;
+    protected static final long MAX_BYTES = 32L * 1024L * 1024L;
+
+    protected final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    protected long totalBytes;
+
+    @Nullable
+    public synchronized Entry get(Key key)
+    {
+        return this.entries.get(key);
+    }
+
+    public synchronized void put(Key key, Entry entry)
+    {
+        long bytes = key.getSizeBytes() + entry.getSizeBytes();
+
+        if (bytes > MAX_BYTES)
+        {
+            return;
+        }
+
+        Entry old = this.entries.put(key, entry);
+        this.totalBytes += bytes;
+
+        if (old != null)
+        {
+            this.totalBytes -= key.getSizeBytes() + old.getSizeBytes();
+        }
+
+        Iterator<Map.Entry<Key, Entry>> iter = this.entries.entrySet().iterator();
+
+        while ((this.totalBytes > MAX_BYTES || this.entries.size() > MAX_ENTRIES) && iter.hasNext())
+        {
+            Map.Entry<Key, Entry> eldest = iter.next();
+            this.totalBytes -= eldest.getKey().getSizeBytes() + eldest.getValue().getSizeBytes();
+            iter.remove();
+        }
+    }
+
+    public synchronized void clear()
+    {
+        this.entries.clear();
+        this.totalBytes = 0;
+    }
+
+    public synchronized int size()
+    {
+        return this.entries.size();
+    }
+
+    /**
+     * The contents of a section that affect its compiled block geometry.
+     */
+    public static class Key
+    {
+        protected final int[] stateIds;
+        protected final long[] renderedPositions;
+        protected final boolean translucent;
+        protected final int hash;
+
+        /**
+         * @param stateIds the schematic world block state ids of the section and the one block border around it
+         * @param renderedPositions a bit mask of the section relative positions whose schematic block gets rendered
+         * @param translucent whether all the blocks are rendered in the translucent layer
+         */
+        public Key(int[] stateIds, long[] renderedPositions, boolean translucent)
+        {
+            this.stateIds = stateIds;
+            this.renderedPositions = renderedPositions;
+            this.translucent = translucent;
+            this.hash = 31 * (31 * Arrays.hashCode(stateIds) + Arrays.hashCode(renderedPositions)) + (translucent ? 1 : 0);
+        }
+
+        public long getSizeBytes()
+        {
+            return (long) this.stateIds.length * 4L + (long) this.renderedPositions.length * 8L;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) { return true; }
+            if (o == null || this.getClass() != o.getClass()) { return false; }
+
+            Key other = (Key) o;
+
+            return this.hash == other.hash &&
+                   this.translucent == other.translucent &&
+                   Arrays.equals(this.renderedPositions, other.renderedPositions) &&
+                   Arrays.equals(this.stateIds, other.stateIds);
+        }
+    }
+
+    /**
+     * The compiled block geometry of a section.
+     */
+    public static class Entry
+    {
+        protected final BufferBuilder.State[] layerStates;
+        protected final boolean[] usedLayers;
+        protected final long sizeBytes;
+
+        public Entry(BufferBuilder.State[] layerStates, boolean[] usedLayers)
+        {
+            this.layerStates = layerStates;
+            this.usedLayers = usedLayers;
+
+            long sizeBytes = 0;
+
+            for (BufferBuilder.State state : layerStates)
+            {
+                if (state != null)
+                {
+                    sizeBytes += (long) state.getRawBuffer().length * 4L;
+                }
+            }
+
+            this.sizeBytes = sizeBytes;
+        }
+
+        public long getSizeBytes()
+        {
+            return this.sizeBytes;
+        }
+
+        /**
+         * @return the vertex data of the given layer, or null if the layer has no geometry
+         */
+        @Nullable
+        public BufferBuilder.State getLayerState(BlockRenderLayer layer)
+        {
+            return this.layerStates[layer.ordinal()];
+        }
+
+        public boolean isLayerUsed(BlockRenderLayer layer)
+        {
+            return this.usedLayers[layer.ordinal()];
+        }
+    }
+}
@@ -21,6 +21,7 @@ public class ClientTickHandler implements malilib.event.ClientTickHandler
         DataManager.getRenderLayerRange().followPlayerIfEnabled(GameWrap.getClientPlayer());
         DataManager.getSchematicPlacementManager().processQueuedChunks();
         TaskScheduler.getInstanceClient().runTasks();
+        SchematicVerifierManager.INSTANCE.reCheckChangedPositions();
 
         if ((this.tickCounter) % 10 == 0)
         {
@@ -0,0 +1,230 @@
+package litematica.scheduler;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import malilib.util.position.BlockPos;
+import litematica.config.Configs;
+
+/**
+ * Controls how many commands per task execution the command-based tasks
+ * (such as the command-based Paste and Fill) are allowed to send.
+ * The limit is adjusted once per second with an AIMD style controller:
+ * it grows additively while the server keeps up, and is halved when the server
+ * falls behind. The server is considered to be falling behind when the tick rate
+ * measured from the world time updates drops, when the time updates stop arriving,
+ * or when the client sees the block changes caused by the sent commands much later
+ * than it normally does.
+ * If the adaptive limit is disabled, then the fixed {@link Configs.Generic#PASTE_COMMAND_LIMIT} is used.
+ */
+public class CommandRateController
+{
+    public static final CommandRateController INSTANCE = new CommandRateController();
+
+    protected static final long WINDOW_NANOS = 1000000000L;
+    protected static final long ACK_TIMEOUT_NANOS = 5000000000L;
+    protected static final long TIME_UPDATE_TIMEOUT_NANOS = 3000000000L;
+    protected static final long LATENCY_MARGIN_NANOS = 250000000L;
+    protected static final double TPS_THRESHOLD = 18.0;
+    /** The weight of each new tick rate sample, so that single slow samples don't halve the limit */
+    protected static final double TPS_SMOOTHING = 0.1;
+    protected static final double ADDITIVE_INCREASE = 4.0;
+    protected static final double MULTIPLICATIVE_DECREASE = 0.5;
+    protected static final int MAX_PENDING_ACKS = 4096;
+
+    protected final Long2LongOpenHashMap pendingAcks = new Long2LongOpenHashMap();
+    protected final BlockPos.MutBlockPos mutablePos = new BlockPos.MutBlockPos();
+    protected double limit = -1;
+    protected long windowStartTime;
+    protected int commandsSentInWindow;
+    protected int acksInWindow;
+    protected long ackLatencySumInWindow;
+    protected long minAckLatency = Long.MAX_VALUE;
+    protected long lastAckLatency;
+
+    protected long lastTimeUpdateTime;
+    protected long lastTimeUpdateWorldTime;
+    protected double ticksPerSecond = -1;
+
+    protected CommandRateController()
+    {
+        this.pendingAcks.defaultReturnValue(-1L);
+    }
+
+    /**
+     * @return the number of commands that can be sent during one task execution
+     */
+    public int getCommandLimit()
+    {
+        if (Configs.Generic.PASTE_COMMAND_ADAPTIVE_LIMIT.getBooleanValue() == false)
+        {
+            return Configs.Generic.PASTE_COMMAND_LIMIT.getIntegerValue();
+        }
+
+        long currentTime = System.nanoTime();
+
+        if (this.limit < 0)
+        {
+            this.limit = Configs.Generic.PASTE_COMMAND_LIMIT.getIntegerValue();
+            this.windowStartTime = currentTime;
+        }
+        else if (currentTime - this.windowStartTime >= WINDOW_NANOS)
+        {
+            this.adjustLimit(currentTime);
+        }
+
+        return Math.max(1, (int) this.limit);
+    }
+
+    /**
+     * Called when a command has been sent.
+     * @param posLong a block position that the command is expected to change, in the {@link BlockPos#toLong()} format
+     */
+    public void onCommandSent(long posLong)
+    {
+        ++this.commandsSentInWindow;
+
+        if (this.pendingAcks.size() < MAX_PENDING_ACKS)
+        {
+            this.pendingAcks.putIfAbsent(posLong, System.nanoTime());
+        }
+    }
+
+    /**
+     * Called when a command has been sent, which doesn't change any specific block
+     */
+    public void onCommandSent()
+    {
+        ++this.commandsSentInWindow;
+    }
+
+    /**
+     * Called when a block changes in the client world
+     */
+    public void onClientBlockChanged(int x, int y, int z)
+    {
+        if (this.pendingAcks.isEmpty())
+        {
+            return;
+        }
+
+        this.mutablePos.set(x, y, z);
+        long sendTime = this.pendingAcks.remove(this.mutablePos.toLong());
+
+        if (sendTime != -1L)
+        {
+            long latency = System.nanoTime() - sendTime;
+            this.lastAckLatency = latency;
+            this.ackLatencySumInWindow += latency;
+            ++this.acksInWindow;
+
+            if (latency < this.minAckLatency)
+            {
+                this.minAckLatency = latency;
+            }
+        }
+    }
+
+    /**
+     * Called when the client receives a world time update from the server,
+     * which the server sends once every 20 ticks
+     */
+    public void onTimeUpdate(long totalWorldTime)
+    {
+        long currentTime = System.nanoTime();
+
+        if (this.lastTimeUpdateTime != 0 && totalWorldTime > this.lastTimeUpdateWorldTime)
+        {
+            double seconds = (double) (currentTime - this.lastTimeUpdateTime) / 1000000000.0;
+            double tps = Math.min(20.0, (double) (totalWorldTime - this.lastTimeUpdateWorldTime) / seconds);
+            this.ticksPerSecond = this.ticksPerSecond < 0 ? tps : this.ticksPerSecond * (1.0 - TPS_SMOOTHING) + tps * TPS_SMOOTHING;
+        }
+
+        this.lastTimeUpdateTime = currentTime;
+        this.lastTimeUpdateWorldTime = totalWorldTime;
+    }
+
+    /**
+     * Resets all the measurements, for example when changing worlds
+     */
+    public void reset()
+    {
+        this.pendingAcks.clear();
+        this.limit = -1;
+        this.commandsSentInWindow = 0;
+        this.acksInWindow = 0;
+        this.ackLatencySumInWindow = 0;
+        this.minAckLatency = Long.MAX_VALUE;
+        this.lastAckLatency = 0;
+        this.lastTimeUpdateTime = 0;
+        this.ticksPerSecond = -1;
+    }
+
+    public String getDebugInfo()
+    {
+        return String.format("Command rate - limit: %d, TPS: %.1f, ack latency: %d ms (min %d ms), pending acks: %d",
+                             Math.max(1, (int) this.limit), this.ticksPerSecond,
+                             this.lastAckLatency / 1000000L,
+                             this.minAckLatency != Long.MAX_VALUE ? this.minAckLatency / 1000000L : 0,
+                             this.pendingAcks.size());
+    }
+
+    protected void adjustLimit(long currentTime)
+    {
+        this.expirePendingAcks(currentTime);
+
+        if (this.commandsSentInWindow > 0)
+        {
+            if (this.isServerFallingBehind(currentTime))
+            {
+                this.limit = Math.max(1.0, this.limit * MULTIPLICATIVE_DECREASE);
+            }
+            else
+            {
+                this.limit = Math.min(Configs.Generic.PASTE_COMMAND_MAX_LIMIT.getIntegerValue(), this.limit + ADDITIVE_INCREASE);
+            }
+        }
+
+        this.commandsSentInWindow = 0;
+        this.acksInWindow = 0;
+        this.ackLatencySumInWindow = 0;
+        this.windowStartTime = currentTime;
+    }
+
+    protected boolean isServerFallingBehind(long currentTime)
+    {
+        if (this.ticksPerSecond >= 0 && this.ticksPerSecond < TPS_THRESHOLD)
+        {
+            return true;
+        }
+
+        if (this.lastTimeUpdateTime != 0 && currentTime - this.lastTimeUpdateTime > TIME_UPDATE_TIMEOUT_NANOS)
+        {
+            return true;
+        }
+
+        if (this.acksInWindow > 0 && this.minAckLatency != Long.MAX_VALUE)
+        {
+            long averageLatency = this.ackLatencySumInWindow / this.acksInWindow;
+            return averageLatency > this.minAckLatency * 2 + LATENCY_MARGIN_NANOS;
+        }
+
+        return false;
+    }
+
+    protected void expirePendingAcks(long currentTime)
+    {
+        // Commands that don't end up changing the block (for example because
+        // it was already the same) never get acknowledged, so just drop them
+        ObjectIterator<Long2LongMap.Entry> iter = this.pendingAcks.long2LongEntrySet().fastIterator();
+
+        while (iter.hasNext())
+        {
+            if (currentTime - iter.next().getLongValue() > ACK_TIMEOUT_NANOS)
+            {
+                iter.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package litematica.scheduler.tasks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+
+import malilib.util.game.wrap.RegistryUtils;
+import malilib.util.position.BlockPos;
+import malilib.util.position.IntBoundingBox;
+import litematica.config.Configs;
+
+/**
+ * Plans the commands for setting the given target block states into a box, for the
+ * command-based paste mode. Identical neighboring states are greedily merged into
+ * axis-aligned boxes, first along the x-axis, then the z-axis and then the y-axis,
+ * and each merged box is sent as one {@code /fill} command. Only single blocks and
+ * the blocks that must be set individually, such as blocks with a block entity,
+ * are sent as {@code /setblock} commands.
+ * The planner also keeps track of the total number of planned commands and blocks,
+ * so that the achieved commands per block ratio can be shown.
+ */
+public class FillCommandPlanner
+{
+    /** The maximum volume of one /fill command in vanilla */
+    public static final int MAX_FILL_VOLUME = 32768;
+
+    protected final List<String> commands = new ArrayList<>();
+    protected final LongArrayList commandPositions = new LongArrayList();
+    protected boolean[] visited = new boolean[0];
+    protected long fillCommandCount;
+    protected long setBlockCommandCount;
+    protected long plannedBlockCount;
+
+    /**
+     * @return the list of the commands planned since the last {@link #clearCommands()} call
+     */
+    public List<String> getCommands()
+    {
+        return this.commands;
+    }
+
+    /**
+     * @return the minimum corner positions of the planned commands, in the {@link BlockPos#toLong()} format
+     */
+    public LongArrayList getCommandPositions()
+    {
+        return this.commandPositions;
+    }
+
+    public void clearCommands()
+    {
+        this.commands.clear();
+        this.commandPositions.clear();
+    }
+
+    public long getFillCommandCount()
+    {
+        return this.fillCommandCount;
+    }
+
+    public long getSetBlockCommandCount()
+    {
+        return this.setBlockCommandCount;
+    }
+
+    public long getCommandCount()
+    {
+        return this.fillCommandCount + this.setBlockCommandCount;
+    }
+
+    public long getPlannedBlockCount()
+    {
+        return this.plannedBlockCount;
+    }
+
+    /**
+     * @return the number of planned commands per planned block, or 0 if no blocks have been planned yet
+     */
+    public double getCommandsPerBlock()
+    {
+        return this.plannedBlockCount > 0 ? (double) this.getCommandCount() / (double) this.plannedBlockCount : 0.0;
+    }
+
+    /**
+     * Plans the commands for the given box, and adds them to the command list.
+     * @param box the world coordinate box
+     * @param states the target states, indexed as {@code (y * sizeZ + z) * sizeX + x} relative to
+     *               the box's minimum corner. Null values are positions that must not be touched.
+     *               The states are compared by identity when merging.
+     * @param singleOnly the positions that must be set using individual /setblock commands,
+     *                   using the same indexing as the states, or null if there are no such positions
+     */
+    public void planBox(IntBoundingBox box, IBlockState[] states, @Nullable boolean[] singleOnly)
+    {
+        final int sizeX = box.maxX - box.minX + 1;
+        final int sizeY = box.maxY - box.minY + 1;
+        final int sizeZ = box.maxZ - box.minZ + 1;
+        final int layerSize = sizeX * sizeZ;
+        final int volume = layerSize * sizeY;
+
+        if (this.visited.length < volume)
+        {
+            this.visited = new boolean[volume];
+        }
+
+        final boolean[] visited = this.visited;
+        Arrays.fill(visited, 0, volume, false);
+
+        for (int y = 0; y < sizeY; ++y)
+        {
+            for (int z = 0; z < sizeZ; ++z)
+            {
+                for (int x = 0; x < sizeX; ++x)
+                {
+                    final int index = y * layerSize + z * sizeX + x;
+                    final IBlockState state = states[index];
+
+                    if (state == null || visited[index])
+                    {
+                        continue;
+                    }
+
+                    if (singleOnly != null && singleOnly[index])
+                    {
+                        visited[index] = true;
+                        this.addSetBlockCommand(box.minX + x, box.minY + y, box.minZ + z, state);
+                        continue;
+                    }
+
+                    // Extend along the x-axis
+                    int endX = x;
+
+                    while (endX + 1 < sizeX && this.canMerge(index + endX + 1 - x, state, states, singleOnly))
+                    {
+                        ++endX;
+                    }
+
+                    final int runLength = endX - x + 1;
+
+                    // Extend along the z-axis, by whole rows
+                    int endZ = z;
+
+                    while (endZ + 1 < sizeZ && runLength * (endZ - z + 2) <= MAX_FILL_VOLUME &&
+                           this.canMergeRow(y * layerSize + (endZ + 1) * sizeX, x, endX, state, states, singleOnly))
+                    {
+                        ++endZ;
+                    }
+
+                    // Extend along the y-axis, by whole layers
+                    final int area = runLength * (endZ - z + 1);
+                    int endY = y;
+
+                    while (endY + 1 < sizeY && area * (endY - y + 2) <= MAX_FILL_VOLUME &&
+                           this.canMergeLayer(endY + 1, layerSize, sizeX, x, endX, z, endZ, state, states, singleOnly))
+                    {
+                        ++endY;
+                    }
+
+                    for (int by = y; by <= endY; ++by)
+                    {
+                        for (int bz = z; bz <= endZ; ++bz)
+                        {
+                            int rowStart = by * layerSize + bz * sizeX;
+                            Arrays.fill(visited, rowStart + x, rowStart + endX + 1, true);
+                        }
+                    }
+
+                    if (x == endX && y == endY && z == endZ)
+                    {
+                        this.addSetBlockCommand(box.minX + x, box.minY + y, box.minZ + z, state);
+                    }
+                    else
+                    {
+                        this.addFillCommand(box.minX + x, box.minY + y, box.minZ + z,
+                                            box.minX + endX, box.minY + endY, box.minZ + endZ, state);
+                    }
+                }
+            }
+        }
+    }
+
+    protected boolean canMerge(int index, IBlockState state, IBlockState[] states, @Nullable boolean[] singleOnly)
+    {
+        return states[index] == state && this.visited[index] == false && (singleOnly == null || singleOnly[index] == false);
+    }
+
+    protected boolean canMergeRow(int rowStart, int startX, int endX, IBlockState state, IBlockState[] states, @Nullable boolean[] singleOnly)
+    {
+        for (int x = startX; x <= endX; ++x)
+        {
+            if (this.canMerge(rowStart + x, state, states, singleOnly) == false)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    protected boolean canMergeLayer(int y, int layerSize, int sizeX, int startX, int endX, int startZ, int endZ,
+                                    IBlockState state, IBlockState[] states, @Nullable boolean[] singleOnly)
+    {
+        for (int z = startZ; z <= endZ; ++z)
+        {
+            if (this.canMergeRow(y * layerSize + z * sizeX, startX, endX, state, states, singleOnly) == false)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    protected void addSetBlockCommand(int x, int y, int z, IBlockState state)
+    {
+        Block block = state.getBlock();
+        String blockName = RegistryUtils.getBlockIdStr(block);
+
+        if (blockName == null)
+        {
+            return;
+        }
+
+        String cmdName = Configs.Generic.COMMAND_NAME_SETBLOCK.getValue();
+        this.commands.add(String.format("/%s %d %d %d %s %d", cmdName, x, y, z, blockName, block.getMetaFromState(state)));
+        this.commandPositions.add(new BlockPos(x, y, z).toLong());
+        ++this.setBlockCommandCount;
+        ++this.plannedBlockCount;
+    }
+
+    protected void addFillCommand(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, IBlockState state)
+    {
+        Block block = state.getBlock();
+        String blockName = RegistryUtils.getBlockIdStr(block);
+
+        if (blockName == null)
+        {
+            return;
+        }
+
+        String cmdName = Configs.Generic.COMMAND_NAME_FILL.getValue();
+        this.commands.add(String.format("/%s %d %d %d %d %d %d %s %d", cmdName, minX, minY, minZ, maxX, maxY, maxZ,
+                                        blockName, block.getMetaFromState(state)));
+        this.commandPositions.add(new BlockPos(minX, minY, minZ).toLong());
+        ++this.fillCommandCount;
+        this.plannedBlockCount += (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+}
@@ -16,7 +16,9 @@ import malilib.util.game.wrap.RegistryUtils;
 import malilib.util.position.BlockPos;
 import malilib.util.position.ChunkPos;
 import malilib.util.position.IntBoundingBox;
+import litematica.config.Configs;
 import litematica.render.infohud.InfoHud;
+import litematica.scheduler.CommandRateController;
 import litematica.selection.SelectionBox;
 import litematica.util.EntityUtils;
 import litematica.util.WorldUtils;
@@ -28,6 +30,8 @@ public class TaskFillArea extends TaskProcessChunkBase
     protected final String blockString;
     protected final boolean removeEntities;
     protected int chunkCount;
+    protected int maxCommandsPerTick;
+    protected int sentCommandsThisTick;
 
     public TaskFillArea(List<SelectionBox> boxes, IBlockState fillState, @Nullable IBlockState replaceState, boolean removeEntities)
     {
@@ -81,10 +85,25 @@ public class TaskFillArea extends TaskProcessChunkBase
         return super.canExecute() && this.blockString != null;
     }
 
+    @Override
+    public boolean execute()
+    {
+        if (this.isClientWorld)
+        {
+            // The fill commands are only rate limited when the adaptive limit is enabled
+            this.maxCommandsPerTick = Configs.Generic.PASTE_COMMAND_ADAPTIVE_LIMIT.getBooleanValue() ?
+                                      CommandRateController.INSTANCE.getCommandLimit() : Integer.MAX_VALUE;
+            this.sentCommandsThisTick = 0;
+        }
+
+        return super.execute();
+    }
+
     @Override
     protected boolean canProcessChunk(ChunkPos pos)
     {
         return GameWrap.getClientPlayer() != null &&
+               (this.isClientWorld == false || this.sentCommandsThisTick < this.maxCommandsPerTick) &&
                this.areSurroundingChunksLoaded(pos, this.worldClient, 1);
     }
 
@@ -173,13 +192,17 @@ public class TaskFillArea extends TaskProcessChunkBase
                         box.maxX - box.minX + 1, box.maxY - box.minY + 1, box.maxZ - box.minZ + 1);
 
                 GameWrap.sendCommand(killCmd);
+                CommandRateController.INSTANCE.onCommandSent();
+                ++this.sentCommandsThisTick;
             }
         }
 
-        String fillCmd = String.format("/fill %d %d %d %d %d %d %s",
+        String fillCmd = String.format("/%s %d %d %d %d %d %d %s", Configs.Generic.COMMAND_NAME_FILL.getValue(),
                 box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ, this.blockString);
 
         GameWrap.sendCommand(fillCmd);
+        CommandRateController.INSTANCE.onCommandSent(new BlockPos(box.minX, box.minY, box.minZ).toLong());
+        ++this.sentCommandsThisTick;
     }
 
     @Override
@@ -22,6 +22,7 @@ import litematica.data.DataManager;
 import litematica.render.infohud.IInfoHudRenderer;
 import litematica.render.infohud.InfoHud;
 import litematica.schematic.placement.SchematicPlacement;
+import litematica.schematic.util.SchematicDeltaIndex;
 import litematica.util.PositionUtils.ChunkPosComparator;
 import litematica.util.value.ReplaceBehavior;
 import litematica.world.SchematicWorldHandler;
@@ -31,6 +32,7 @@ public abstract class TaskPasteSchematicPerChunkBase extends TaskBase implements
 {
     protected final ArrayListMultimap<ChunkPos, IntBoundingBox> boxesInChunks = ArrayListMultimap.create();
     protected final List<ChunkPos> chunks = new ArrayList<>();
+    protected final SchematicDeltaIndex deltaIndex = new SchematicDeltaIndex();
     private final HashSet<ChunkPos> individualChunks = new HashSet<>();
     private final Collection<SchematicPlacement> placements;
     private final LayerRange layerRange;
@@ -4,8 +4,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 
-import net.minecraft.block.Block;
 import net.minecraft.block.material.Material;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.entity.EntityPlayerSP;
@@ -18,15 +19,18 @@ import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.world.chunk.Chunk;
 
 import malilib.overlay.message.MessageDispatcher;
+import malilib.util.StringUtils;
 import malilib.util.game.wrap.EntityWrap;
 import malilib.util.game.wrap.GameWrap;
-import malilib.util.game.wrap.RegistryUtils;
 import malilib.util.position.BlockPos;
 import malilib.util.position.ChunkPos;
 import malilib.util.position.IntBoundingBox;
 import malilib.util.position.LayerRange;
 import litematica.config.Configs;
+import litematica.scheduler.CommandRateController;
 import litematica.schematic.placement.SchematicPlacement;
+import litematica.schematic.util.ChunkDelta;
+import litematica.util.PositionUtils;
 import litematica.util.value.ReplaceBehavior;
 import litematica.world.SchematicWorldHandler;
 import litematica.world.WorldSchematic;
@@ -34,21 +38,17 @@ import litematica.world.WorldSchematic;
 public class TaskPasteSchematicPerChunkCommand extends TaskPasteSchematicPerChunkBase
 {
     protected final List<IntBoundingBox> boxesInCurrentChunk = new ArrayList<>();
-    private final int maxCommandsPerTick;
+    private final FillCommandPlanner planner = new FillCommandPlanner();
+    private int maxCommandsPerTick;
+    private long tickDeadline;
     private int sentCommandsThisTick;
     private int sentCommandsTotal;
-    private int currentX;
-    private int currentY;
-    private int currentZ;
     private int currentIndex;
-    private int boxVolume;
     private boolean boxInProgress;
 
     public TaskPasteSchematicPerChunkCommand(Collection<SchematicPlacement> placements, LayerRange range, boolean changedBlocksOnly)
     {
         super(placements, range, changedBlocksOnly);
-
-        this.maxCommandsPerTick = Configs.Generic.PASTE_COMMAND_LIMIT.getIntegerValue();
     }
 
     @Override
@@ -57,6 +57,8 @@ public class TaskPasteSchematicPerChunkCommand extends TaskPasteSchematicPerChun
         WorldSchematic worldSchematic = SchematicWorldHandler.getSchematicWorld();
         WorldClient worldClient = this.mc.world;
         this.sentCommandsThisTick = 0;
+        this.maxCommandsPerTick = CommandRateController.INSTANCE.getCommandLimit();
+        this.tickDeadline = System.nanoTime() + Configs.Generic.PASTE_TICK_TIME_BUDGET.getIntegerValue() * 1000000L;
         int processed = 0;
         int chunkAttempts = 0;
 
@@ -96,6 +98,7 @@ public class TaskPasteSchematicPerChunkCommand extends TaskPasteSchematicPerChun
                     if (this.boxesInCurrentChunk.isEmpty())
                     {
                         this.boxesInChunks.removeAll(pos);
+                        this.deltaIndex.remove(pos);
                         this.chunks.remove(0);
                         ++processed;
 
@@ -144,74 +147,132 @@ public class TaskPasteSchematicPerChunkCommand extends TaskPasteSchematicPerChun
     protected boolean processBox(ChunkPos pos, IntBoundingBox box,
             WorldSchematic worldSchematic, WorldClient worldClient, EntityPlayerSP player)
     {
-        BlockPos.MutBlockPos posMutable = new BlockPos.MutBlockPos();
-        Chunk chunkSchematic = worldSchematic.getChunkProvider().getLoadedChunk(pos.x, pos.z);
-        Chunk chunkClient = worldClient.getChunkProvider().getLoadedChunk(pos.x, pos.z);
-
         if (this.boxInProgress == false)
         {
-            this.currentX = box.minX;
-            this.currentY = box.minY;
-            this.currentZ = box.minZ;
-            this.boxVolume = (box.maxX - box.minX + 1) * (box.maxY - box.minY + 1) * (box.maxZ - box.minZ + 1);
-            this.currentIndex = 0;
-            this.boxInProgress = true;
-        }
+            ChunkDelta delta = null;
 
-        while (this.currentIndex < this.boxVolume)
-        {
-            posMutable.set(this.currentX, this.currentY, this.currentZ);
-
-            if (++this.currentY > box.maxY)
+            // In the changed blocks only mode, the delta is built within the tick's time budget, possibly over several ticks
+            if (this.changedBlockOnly)
             {
-                this.currentY = box.minY;
+                Chunk chunkSchematic = worldSchematic.getChunkProvider().getLoadedChunk(pos.x, pos.z);
+                Chunk chunkClient = worldClient.getChunkProvider().getLoadedChunk(pos.x, pos.z);
+                delta = this.deltaIndex.getOrBuild(pos, chunkSchematic, chunkClient, this.boxesInChunks.get(pos), this.tickDeadline);
 
-                if (++this.currentX > box.maxX)
+                if (delta == null)
                 {
-                    this.currentX = box.minX;
-                    ++this.currentZ;
+                    return false;
                 }
             }
 
+            this.planBox(pos, box, delta, worldSchematic, worldClient);
+            this.currentIndex = 0;
+            this.boxInProgress = true;
+        }
+
+        List<String> commands = this.planner.getCommands();
+        LongArrayList positions = this.planner.getCommandPositions();
+
+        while (this.currentIndex < commands.size() && this.sentCommandsThisTick < this.maxCommandsPerTick)
+        {
+            GameWrap.sendChatMessage(commands.get(this.currentIndex));
+            CommandRateController.INSTANCE.onCommandSent(positions.getLong(this.currentIndex));
             ++this.currentIndex;
+            ++this.sentCommandsThisTick;
+            ++this.sentCommandsTotal;
+        }
 
-            IBlockState stateSchematicOrig = chunkSchematic.getBlockState(posMutable);
-            IBlockState stateClient = chunkClient.getBlockState(posMutable);
+        if (this.currentIndex >= commands.size())
+        {
+            this.summonEntities(box, worldSchematic);
+            this.planner.clearCommands();
+            this.boxInProgress = false;
 
-            if (stateSchematicOrig.getBlock() != Blocks.AIR || stateClient.getBlock() != Blocks.AIR)
-            {
-                // Discard the non-meta state info, as it depends on neighbor blocks which will
-                // be synced with some delay from the server. TODO 1.13 remove this
-                @SuppressWarnings("deprecation")
-                IBlockState stateSchematic = stateSchematicOrig.getBlock().getStateFromMeta(stateSchematicOrig.getBlock().getMetaFromState(stateSchematicOrig));
+            return true;
+        }
 
-                if (this.changedBlockOnly == false || stateClient != stateSchematic)
-                {
-                    if ((this.replace == ReplaceBehavior.NONE && stateClient.getMaterial() != Material.AIR) ||
-                        (this.replace == ReplaceBehavior.WITH_NON_AIR && stateSchematicOrig.getMaterial() == Material.AIR))
-                    {
-                        continue;
-                    }
+        return false;
+    }
 
-                    this.sendSetBlockCommand(posMutable.getX(), posMutable.getY(), posMutable.getZ(), stateSchematicOrig);
+    /**
+     * Collects the target states of the given box, and plans the commands for them.
+     * In the changed blocks only mode, only the positions in the chunk's delta are visited.
+     * @param delta the delta of the chunk in the changed blocks only mode, otherwise null
+     */
+    protected void planBox(ChunkPos pos, IntBoundingBox box, @Nullable ChunkDelta delta, WorldSchematic worldSchematic, WorldClient worldClient)
+    {
+        BlockPos.MutBlockPos posMutable = new BlockPos.MutBlockPos();
+        Chunk chunkSchematic = worldSchematic.getChunkProvider().getLoadedChunk(pos.x, pos.z);
+        Chunk chunkClient = worldClient.getChunkProvider().getLoadedChunk(pos.x, pos.z);
+        final int sizeX = box.maxX - box.minX + 1;
+        final int sizeZ = box.maxZ - box.minZ + 1;
+        final int volume = sizeX * sizeZ * (box.maxY - box.minY + 1);
+        IBlockState[] states = new IBlockState[volume];
+        boolean[] singleOnly = new boolean[volume];
 
-                    if (++this.sentCommandsThisTick >= this.maxCommandsPerTick)
+        if (delta != null)
+        {
+            final int baseX = pos.x << 4;
+            final int baseZ = pos.z << 4;
+            final int count = delta.size();
+
+            for (int i = 0; i < count; ++i)
+            {
+                int relPos = delta.getRelativePositionAt(i);
+                int x = baseX + PositionUtils.getChunkRelativeX(relPos);
+                int y = PositionUtils.getChunkRelativeY(relPos);
+                int z = baseZ + PositionUtils.getChunkRelativeZ(relPos);
+
+                if (x >= box.minX && x <= box.maxX &&
+                    y >= box.minY && y <= box.maxY &&
+                    z >= box.minZ && z <= box.maxZ)
+                {
+                    posMutable.set(x, y, z);
+                    int index = ((y - box.minY) * sizeZ + (z - box.minZ)) * sizeX + (x - box.minX);
+                    this.setTargetState(index, delta.getTargetStateAt(i), chunkClient.getBlockState(posMutable), states, singleOnly);
+                }
+            }
+        }
+        else
+        {
+            int index = 0;
+
+            for (int y = box.minY; y <= box.maxY; ++y)
+            {
+                for (int z = box.minZ; z <= box.maxZ; ++z)
+                {
+                    for (int x = box.minX; x <= box.maxX; ++x, ++index)
                     {
-                        break;
+                        posMutable.set(x, y, z);
+                        this.setTargetState(index, chunkSchematic.getBlockState(posMutable), chunkClient.getBlockState(posMutable), states, singleOnly);
                     }
                 }
             }
         }
 
-        if (this.currentIndex >= this.boxVolume)
+        this.planner.planBox(box, states, singleOnly);
+    }
+
+    protected void setTargetState(int index, IBlockState stateSchematicOrig, IBlockState stateClient, IBlockState[] states, boolean[] singleOnly)
+    {
+        if (stateSchematicOrig.getBlock() != Blocks.AIR || stateClient.getBlock() != Blocks.AIR)
         {
-            this.summonEntities(box, worldSchematic);
-            this.boxInProgress = false;
+            // Discard the non-meta state info, as it depends on neighbor blocks which will
+            // be synced with some delay from the server. TODO 1.13 remove this
+            @SuppressWarnings("deprecation")
+            IBlockState stateSchematic = stateSchematicOrig.getBlock().getStateFromMeta(stateSchematicOrig.getBlock().getMetaFromState(stateSchematicOrig));
 
-            return true;
-        }
+            if (this.changedBlockOnly == false || stateClient != stateSchematic)
+            {
+                if ((this.replace == ReplaceBehavior.NONE && stateClient.getMaterial() != Material.AIR) ||
+                    (this.replace == ReplaceBehavior.WITH_NON_AIR && stateSchematicOrig.getMaterial() == Material.AIR))
+                {
+                    return;
+                }
 
-        return false;
+                states[index] = stateSchematic;
+                singleOnly[index] = stateSchematic.getBlock().hasTileEntity();
+            }
+        }
     }
 
     private void summonEntities(IntBoundingBox box, WorldSchematic worldSchematic)
@@ -246,21 +307,17 @@ public class TaskPasteSchematicPerChunkCommand extends TaskPasteSchematicPerChun
         }
     }
 
-    private void sendSetBlockCommand(int x, int y, int z, IBlockState state)
+    @Override
+    protected void updateInfoHudLines()
     {
-        Block block = state.getBlock();
-        String blockName = RegistryUtils.getBlockIdStr(block);
-
-        if (blockName == null)
-        {
-            return;
-        }
-
-        String cmdName = Configs.Generic.COMMAND_NAME_SETBLOCK.getValue();
-        String strCommand = String.format("/%s %d %d %d %s %d", cmdName, x, y, z, blockName, block.getMetaFromState(state));
-
-        GameWrap.sendChatMessage(strCommand);
-        ++this.sentCommandsTotal;
+        super.updateInfoHudLines();
+
+        List<String> hudLines = new ArrayList<>(this.infoHudLines);
+        hudLines.add(0, StringUtils.translate("litematica.title.hud.schematic_paste.commands",
+                                              this.sentCommandsTotal, this.planner.getFillCommandCount(),
+                                              this.planner.getSetBlockCommandCount(), this.planner.getPlannedBlockCount(),
+                                              String.format("%.3f", this.planner.getCommandsPerBlock())));
+        this.infoHudLines = hudLines;
     }
 
     @Override
@@ -270,7 +327,10 @@ public class TaskPasteSchematicPerChunkCommand extends TaskPasteSchematicPerChun
         {
             if (this.printCompletionMessage)
             {
-                MessageDispatcher.success().screenOrActionbar().translate("litematica.message.schematic_pasted_using_setblock", this.sentCommandsTotal);
+                MessageDispatcher.success().screenOrActionbar().translate("litematica.message.schematic_pasted_using_commands",
+                                                                          this.sentCommandsTotal, this.planner.getFillCommandCount(),
+                                                                          this.planner.getSetBlockCommandCount(), this.planner.getPlannedBlockCount(),
+                                                                          String.format("%.3f", this.planner.getCommandsPerBlock()));
             }
         }
         else
@@ -2,27 +2,61 @@ package litematica.scheduler.tasks;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import net.minecraft.client.multiplayer.WorldClient;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
 
 import malilib.overlay.message.MessageDispatcher;
+import malilib.util.StringUtils;
 import malilib.util.game.wrap.WorldWrap;
 import malilib.util.game.wrap.GameWrap;
 import malilib.util.position.ChunkPos;
 import malilib.util.position.LayerRange;
+import litematica.Litematica;
 import litematica.config.Configs;
 import litematica.schematic.placement.SchematicPlacement;
+import litematica.schematic.util.ChunkDelta;
+import litematica.schematic.util.ChunkPastePayload;
 import litematica.schematic.util.SchematicPlacingUtils;
 import litematica.util.value.ReplaceBehavior;
 import litematica.world.SchematicWorldHandler;
 import litematica.world.WorldSchematic;
 
+/**
+ * Pastes the placements chunk by chunk in single player.
+ * The paste payloads of the chunks are prepared on worker threads, and the ready
+ * payloads are then applied to the world on the server thread, within the
+ * per-tick time budget set by the {@link Configs.Generic#PASTE_TICK_TIME_BUDGET} option.
+ * In the changed blocks only mode, the payloads only contain the positions
+ * of the chunk's delta from the {@link litematica.schematic.util.SchematicDeltaIndex}.
+ */
 public class TaskPasteSchematicPerChunkDirect extends TaskPasteSchematicPerChunkBase
 {
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(getThreadCount(),
+            new ThreadFactoryBuilder().setNameFormat("Litematica Paste Preparer %d").setDaemon(true).build());
+    private static final int MAX_PREPARED_PAYLOADS_PER_THREAD = 4;
+
     private final ArrayListMultimap<ChunkPos, SchematicPlacement> placementsPerChunk = ArrayListMultimap.create();
+    private final Map<ChunkPos, CompletableFuture<ChunkPastePayload>> preparingChunks = new LinkedHashMap<>();
     private final ReplaceBehavior replace;
+    @Nullable private ChunkPastePayload currentPayload;
+    private int totalChunks;
+    private int pastedChunks;
+    private long pastedBlocks;
+    private int blocksThisSecond;
+    private int blocksPerSecond;
+    private long secondStartTime;
 
     public TaskPasteSchematicPerChunkDirect(Collection<SchematicPlacement> placements, LayerRange range, boolean changedBlocksOnly)
     {
@@ -31,6 +65,15 @@ public class TaskPasteSchematicPerChunkDirect extends TaskPasteSchematicPerChunk
         this.replace = Configs.Generic.PASTE_REPLACE_BEHAVIOR.getValue();
     }
 
+    @Override
+    public void init()
+    {
+        super.init();
+
+        this.totalChunks = this.chunks.size();
+        this.secondStartTime = System.nanoTime();
+    }
+
     @Override
     protected void onChunkAddedForHandling(ChunkPos pos, SchematicPlacement placement)
     {
@@ -54,48 +97,50 @@ public class TaskPasteSchematicPerChunkDirect extends TaskPasteSchematicPerChunk
     @Override
     public boolean execute()
     {
-        WorldSchematic worldSchematic = SchematicWorldHandler.getSchematicWorld();
-        WorldClient worldClient = GameWrap.getClientWorld();
         World world = WorldWrap.getBestWorld();
+        long deadline = System.nanoTime() + Configs.Generic.PASTE_TICK_TIME_BUDGET.getIntegerValue() * 1000000L;
         int processed = 0;
 
         this.sortChunkList();
 
-        for (int chunkIndex = 0; chunkIndex < this.chunks.size(); ++chunkIndex)
+        // Apply the ready payloads until the time budget for this tick runs out
+        while (System.nanoTime() < deadline)
         {
-            ChunkPos pos = this.chunks.get(chunkIndex);
-
-            if (this.canProcessChunk(pos, worldSchematic, worldClient))
+            if (this.currentPayload == null)
             {
-                // New list to avoid CME
-                ArrayList<SchematicPlacement> placements = new ArrayList<>(this.placementsPerChunk.get(pos));
+                this.currentPayload = this.pollPreparedPayload(world);
 
-                for (SchematicPlacement placement : placements)
+                if (this.currentPayload == null)
                 {
-                    if (placement.isSchematicLoaded() == false ||
-                        placement.isValid() == false ||
-                        SchematicPlacingUtils.placeToWorldWithinChunk(placement, pos, world, this.replace, false))
-                    {
-                        this.placementsPerChunk.remove(pos, placement);
-                        ++processed;
-                    }
+                    break;
                 }
+            }
 
-                if (this.placementsPerChunk.containsKey(pos) == false)
-                {
-                    this.chunks.remove(chunkIndex);
-                    --chunkIndex;
-                }
+            ChunkPastePayload payload = this.currentPayload;
+            int placedBefore = payload.getPlacedBlockCount();
+            boolean done = payload.apply(world, this.replace, deadline);
+            this.onBlocksPasted(payload.getPlacedBlockCount() - placedBefore);
+
+            if (done == false)
+            {
+                break;
             }
+
+            this.onChunkPasted(payload.chunkPos);
+            this.currentPayload = null;
+            ++processed;
         }
 
+        this.submitChunksForPreparing(world, deadline);
+        this.updateThroughput();
+
         if (this.chunks.isEmpty())
         {
             this.finished = true;
             return true;
         }
 
-        if (processed > 0)
+        if (processed > 0 || this.currentPayload != null)
         {
             this.updateInfoHudLines();
         }
@@ -103,9 +148,148 @@ public class TaskPasteSchematicPerChunkDirect extends TaskPasteSchematicPerChunk
         return false;
     }
 
+    private void submitChunksForPreparing(World world, long deadline)
+    {
+        final int maxPreparing = getThreadCount() * MAX_PREPARED_PAYLOADS_PER_THREAD;
+        WorldSchematic worldSchematic = SchematicWorldHandler.getSchematicWorld();
+        WorldClient worldClient = GameWrap.getClientWorld();
+
+        for (int chunkIndex = 0; chunkIndex < this.chunks.size() && this.preparingChunks.size() < maxPreparing; ++chunkIndex)
+        {
+            ChunkPos pos = this.chunks.get(chunkIndex);
+
+            if (this.preparingChunks.containsKey(pos) ||
+                (this.currentPayload != null && this.currentPayload.chunkPos.equals(pos)) ||
+                this.canProcessChunk(pos, worldSchematic, worldClient) == false)
+            {
+                continue;
+            }
+
+            List<SchematicPlacement> placements = new ArrayList<>();
+
+            for (SchematicPlacement placement : this.placementsPerChunk.get(pos))
+            {
+                if (placement.isSchematicLoaded() && placement.isValid())
+                {
+                    placements.add(placement);
+                }
+            }
+
+            // In the changed blocks only mode, the delta is built here within the tick's time budget,
+            // possibly over several ticks, and the worker then only visits the changed positions
+            ChunkDelta delta = null;
+
+            if (this.changedBlockOnly)
+            {
+                Chunk schematicChunk = worldSchematic.getChunkProvider().getLoadedChunk(pos.x, pos.z);
+                delta = this.deltaIndex.getOrBuild(pos, schematicChunk, world.getChunk(pos.x, pos.z), this.boxesInChunks.get(pos), deadline);
+
+                if (delta == null)
+                {
+                    break;
+                }
+            }
+
+            // The placement data is captured here, so the worker only reads the captured data and the schematics
+            ChunkPastePayload payload = ChunkPastePayload.create(pos, placements, delta);
+            this.preparingChunks.put(pos, CompletableFuture.supplyAsync(payload::prepare, EXECUTOR));
+        }
+    }
+
+    /**
+     * Removes and returns the first finished payload in the submission order, if any.
+     * If the preparation failed, then the chunk is pasted directly on this thread instead.
+     */
+    @Nullable
+    private ChunkPastePayload pollPreparedPayload(World world)
+    {
+        Iterator<Map.Entry<ChunkPos, CompletableFuture<ChunkPastePayload>>> iter = this.preparingChunks.entrySet().iterator();
+
+        while (iter.hasNext())
+        {
+            Map.Entry<ChunkPos, CompletableFuture<ChunkPastePayload>> entry = iter.next();
+            CompletableFuture<ChunkPastePayload> future = entry.getValue();
+
+            if (future.isDone() == false)
+            {
+                continue;
+            }
+
+            iter.remove();
+
+            try
+            {
+                return future.join();
+            }
+            catch (Exception e)
+            {
+                ChunkPos pos = entry.getKey();
+                Litematica.LOGGER.warn("Failed to prepare the paste of the chunk [{}, {}] off-thread", pos.x, pos.z, e);
+
+                for (SchematicPlacement placement : this.placementsPerChunk.get(pos))
+                {
+                    if (placement.isSchematicLoaded() && placement.isValid())
+                    {
+                        SchematicPlacingUtils.placeToWorldWithinChunk(placement, pos, world, this.replace, false);
+                    }
+                }
+
+                this.onChunkPasted(pos);
+            }
+        }
+
+        return null;
+    }
+
+    private void onChunkPasted(ChunkPos pos)
+    {
+        this.placementsPerChunk.removeAll(pos);
+        this.deltaIndex.remove(pos);
+        this.chunks.remove(pos);
+        ++this.pastedChunks;
+    }
+
+    private void onBlocksPasted(int count)
+    {
+        this.pastedBlocks += count;
+        this.blocksThisSecond += count;
+    }
+
+    private void updateThroughput()
+    {
+        long currentTime = System.nanoTime();
+
+        if (currentTime - this.secondStartTime >= 1000000000L)
+        {
+            this.blocksPerSecond = this.blocksThisSecond;
+            this.blocksThisSecond = 0;
+            this.secondStartTime = currentTime;
+        }
+    }
+
+    @Override
+    protected void updateInfoHudLines()
+    {
+        super.updateInfoHudLines();
+
+        List<String> hudLines = new ArrayList<>(this.infoHudLines);
+        hudLines.add(0, StringUtils.translate("litematica.title.hud.schematic_paste.progress",
+                                              this.pastedChunks, this.totalChunks, this.pastedBlocks,
+                                              this.blocksPerSecond, this.preparingChunks.size()));
+        this.infoHudLines = hudLines;
+    }
+
     @Override
     public void stop()
     {
+        for (CompletableFuture<ChunkPastePayload> future : this.preparingChunks.values())
+        {
+            future.cancel(false);
+        }
+
+        this.preparingChunks.clear();
+        this.currentPayload = null;
+
         if (this.finished)
         {
             MessageDispatcher.success().screenOrActionbar().translate("litematica.message.schematic_placements_pasted");
@@ -117,4 +301,9 @@ public class TaskPasteSchematicPerChunkDirect extends TaskPasteSchematicPerChunk
 
         super.stop();
     }
+
+    private static int getThreadCount()
+    {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
 }
@@ -4,6 +4,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -15,7 +16,6 @@ import malilib.overlay.message.MessageDispatcher;
 import malilib.util.FileUtils;
 import malilib.util.nbt.NbtUtils;
 import malilib.util.position.Vec3i;
-import litematica.Litematica;
 
 public interface ISchematic
 {
@@ -123,22 +123,71 @@ public interface ISchematic
                 return false;
             }
 
-            FileOutputStream os = new FileOutputStream(file.toFile());
-            this.writeToStream(this.toTag(), os);
-            os.close();
-
-            return true;
+            return SchematicFileWriter.write(this, this.toTag(), file, override);
         }
         catch (Exception e)
         {
-            String name = file.toAbsolutePath().toString();
-            MessageDispatcher.error("litematica.error.schematic_write_to_file_failed.exception", name);
-            Litematica.LOGGER.warn("Failed to write schematic to file '{}'", name, e);
+            SchematicFileWriter.onWriteFailed(file, e);
         }
 
         return false;
     }
 
+    /**
+     * Writes this schematic to the given file, by the given file name, in the given directory.
+     * The schematic tag is created on the calling thread, but the data is encoded,
+     * compressed and written to the file on a background thread.
+     * The schematic must not be modified until the returned future has completed.
+     * @return a future that is completed on the client thread once the write has finished,
+     *         with the value true on success and false on failure
+     */
+    default CompletableFuture<Boolean> writeToFileAsync(Path dir, String fileName, boolean override)
+    {
+        if (FileUtils.createDirectoriesIfMissing(dir) == false)
+        {
+            String key = "litematica.error.schematic_write_to_file_failed.directory_creation_failed";
+            MessageDispatcher.error(key, dir.toAbsolutePath().toString());
+            return CompletableFuture.completedFuture(false);
+        }
+
+        String extension = this.getType().getFileNameExtension();
+
+        if (fileName.endsWith(extension) == false)
+        {
+            fileName = fileName + extension;
+        }
+
+        return this.writeToFileAsync(dir.resolve(fileName), override);
+    }
+
+    /**
+     * Writes this schematic to the given file. The schematic tag is created on the calling thread,
+     * but the data is encoded, compressed and written to the file on a background thread.
+     * The schematic must not be modified until the returned future has completed.
+     * @return a future that is completed on the client thread once the write has finished,
+     *         with the value true on success and false on failure
+     */
+    default CompletableFuture<Boolean> writeToFileAsync(Path file, boolean override)
+    {
+        try
+        {
+            if (override == false && Files.exists(file))
+            {
+                MessageDispatcher.error("litematica.error.schematic_write_to_file_failed.exists",
+                                        file.toAbsolutePath().toString());
+                return CompletableFuture.completedFuture(false);
+            }
+
+            return SchematicFileWriter.writeAsync(this, this.toTag(), file, override);
+        }
+        catch (Exception e)
+        {
+            SchematicFileWriter.onWriteFailed(file, e);
+        }
+
+        return CompletableFuture.completedFuture(false);
+    }
+
     default void writeToStream(NBTTagCompound tag, FileOutputStream outputStream) throws IOException
     {
         CompressedStreamTools.writeCompressed(tag, outputStream);
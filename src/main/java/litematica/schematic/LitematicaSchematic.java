@@ -5,6 +5,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -27,17 +31,23 @@ import malilib.util.position.BlockPos;
 import malilib.util.position.Vec3d;
 import malilib.util.position.Vec3i;
 import litematica.Litematica;
+import litematica.config.Configs;
 import litematica.schematic.container.ILitematicaBlockStateContainer;
 import litematica.schematic.container.LitematicaBlockStateContainerFull;
+import litematica.schematic.container.LitematicaBlockStateContainerPaged;
+import litematica.schematic.container.LitematicaBlockStateContainerSectioned;
 import litematica.selection.SelectionBox;
+import litematica.util.NbtStreamReader;
 import litematica.util.PositionUtils;
 
 public class LitematicaSchematic extends SchematicBase
 {
     public static final String FILE_NAME_EXTENSION = ".litematic";
     public static final int SCHEMATIC_VERSION = 4;
+    /** The bounded pool used for decoding the sub-regions of multi-region schematics in parallel */
+    private static final ForkJoinPool REGION_LOADER_POOL = createRegionLoaderPool();
 
-    private final Map<String, LitematicaBlockStateContainerFull> blockContainers = new HashMap<>();
+    private final Map<String, ILitematicaBlockStateContainer> blockContainers = new HashMap<>();
     private final Map<String, Map<BlockPos, NBTTagCompound>> blockEntities = new HashMap<>();
     // TODO FIXME use a custom class for holding this data
     private final Map<String, Map<BlockPos, NextTickListEntry>> pendingBlockTicks = new HashMap<>();
@@ -65,6 +75,7 @@ public class LitematicaSchematic extends SchematicBase
     public void clear()
     {
         this.subRegions.clear();
+        this.closePagedContainers();
         this.blockContainers.clear();
         this.blockEntities.clear();
         this.entities.clear();
@@ -72,6 +83,21 @@ public class LitematicaSchematic extends SchematicBase
         this.getMetadata().clearModifiedSinceSaved();
     }
 
+    /**
+     * Closes and deletes the backing files of any paged block state containers.
+     * This should be called when the schematic is no longer used.
+     */
+    public void closePagedContainers()
+    {
+        for (ILitematicaBlockStateContainer container : this.blockContainers.values())
+        {
+            if (container instanceof LitematicaBlockStateContainerPaged)
+            {
+                ((LitematicaBlockStateContainerPaged) container).close();
+            }
+        }
+    }
+
     @Override
     public ImmutableList<String> getRegionNames()
     {
@@ -153,7 +179,7 @@ public class LitematicaSchematic extends SchematicBase
 
             try
             {
-                this.blockContainers.put(regionName, new LitematicaBlockStateContainerFull(new Vec3i(sizeX, sizeY, sizeZ)));
+                this.blockContainers.put(regionName, createContainer(new Vec3i(sizeX, sizeY, sizeZ)));
             }
             catch (Exception e)
             {
@@ -184,9 +210,11 @@ public class LitematicaSchematic extends SchematicBase
 
                 this.subRegions.put(regionName, new SubRegion(region.getPosition(), region.getSize()));
 
-                if (containerOther instanceof LitematicaBlockStateContainerFull)
+                if (containerOther instanceof LitematicaBlockStateContainerFull ||
+                    containerOther instanceof LitematicaBlockStateContainerSectioned ||
+                    containerOther instanceof LitematicaBlockStateContainerPaged)
                 {
-                    this.blockContainers.put(regionName, (LitematicaBlockStateContainerFull) containerOther.copy());
+                    this.blockContainers.put(regionName, containerOther.copy());
                 }
                 else
                 {
@@ -237,9 +265,8 @@ public class LitematicaSchematic extends SchematicBase
             if (version >= 1 && version <= SCHEMATIC_VERSION)
             {
                 this.readMetadataFromTag(tag);
-                this.readSubRegionsFromTag(tag, version);
 
-                return true;
+                return this.readSubRegionsFromTag(tag, version);
             }
             else
             {
@@ -262,7 +289,7 @@ public class LitematicaSchematic extends SchematicBase
         {
             for (String regionName : this.blockContainers.keySet())
             {
-                LitematicaBlockStateContainerFull blockContainer = this.blockContainers.get(regionName);
+                LitematicaBlockStateContainerFull blockContainer = getFullContainer(this.blockContainers.get(regionName));
                 Map<BlockPos, NBTTagCompound> tileMap = this.blockEntities.get(regionName);
                 List<EntityInfo> entityList = this.entities.get(regionName);
                 Map<BlockPos, NextTickListEntry> pendingTicks = this.pendingBlockTicks.get(regionName);
@@ -329,72 +356,198 @@ public class LitematicaSchematic extends SchematicBase
     private boolean readSubRegionsFromTag(NBTTagCompound tag, int version)
     {
         tag = NbtWrap.getCompound(tag, "Regions");
+        List<String> regionNames = new ArrayList<>();
 
         for (String regionName : NbtWrap.getKeys(tag))
         {
             if (NbtWrap.getTypeId(NbtWrap.getTag(tag, regionName)) == Constants.NBT.TAG_COMPOUND)
             {
-                NBTTagCompound regionTag = NbtWrap.getCompound(tag, regionName);
-                BlockPos regionPos = NbtUtils.readBlockPos(NbtWrap.getCompound(regionTag, "Position"));
-                BlockPos regionSize = NbtUtils.readBlockPos(NbtWrap.getCompound(regionTag, "Size"));
+                regionNames.add(regionName);
+            }
+        }
 
-                if (regionPos != null && regionSize != null)
-                {
-                    this.subRegions.put(regionName, new SubRegion(regionPos, regionSize));
+        long startTime = System.nanoTime();
+        List<RegionReadResult> results = this.readSubRegions(tag, regionNames, version);
 
-                    NBTTagList beList = NbtWrap.getListOfCompounds(regionTag, "TileEntities");
-                    NBTTagList entityList = NbtWrap.getListOfCompounds(regionTag, "Entities");
+        Litematica.printDebug("Read %d sub-regions in %.2f ms", results.size(), (System.nanoTime() - startTime) / 1000000.0);
 
-                    if (version >= 2)
-                    {
-                        this.blockEntities.put(regionName, this.readBlockEntitiesFromListTag(beList));
-                        this.entities.put(regionName, this.readEntitiesFromListTag(entityList));
-                    }
-                    else if (version == 1)
-                    {
-                        this.blockEntities.put(regionName, this.readTileEntitiesFromNBT_v1(beList));
-                        this.entities.put(regionName, this.readEntitiesFromNBT_v1(entityList));
-                    }
+        return this.storeSubRegionReadResults(results);
+    }
 
-                    if (version >= 3)
-                    {
-                        this.pendingBlockTicks.put(regionName, this.readBlockTicksFromNBT(NbtWrap.getListOfCompounds(regionTag, "PendingBlockTicks")));
-                    }
+    /**
+     * Stores the decoded sub-regions into this schematic, in the order of the results list
+     * @return false if any of the sub-regions failed to read
+     */
+    private boolean storeSubRegionReadResults(List<RegionReadResult> results)
+    {
+        for (RegionReadResult result : results)
+        {
+            String regionName = result.regionName;
 
-                    NBTBase nbtBase = NbtWrap.getTag(regionTag, "BlockStates");
+            Litematica.printDebug("Read sub-region '%s' in %.2f ms", regionName, result.durationNanos / 1000000.0);
 
-                    // There are no convenience methods in NBTTagCompound yet in 1.12, so we'll have to do it the ugly way...
-                    if (nbtBase != null && NbtWrap.getTypeId(nbtBase) == Constants.NBT.TAG_LONG_ARRAY)
-                    {
-                        Vec3i size = new Vec3i(Math.abs(regionSize.getX()), Math.abs(regionSize.getY()), Math.abs(regionSize.getZ()));
-                        NBTTagList paletteTag = NbtWrap.getListOfCompounds(regionTag, "BlockStatePalette");
-                        long[] blockStateArr = ((NBTTagLongArrayMixin) nbtBase).getArray();
-                        int paletteSize = NbtWrap.getListSize(paletteTag);
-
-                        LitematicaBlockStateContainerFull container = LitematicaBlockStateContainerFull.createContainer(paletteSize, blockStateArr, size);
-
-                        if (container == null)
-                        {
-                            String fileName = this.getFile() != null ? this.getFile().getFileName().toString() : "<null>";
-                            MessageDispatcher.error().translate("litematica.error.schematic_read_from_file_failed.region_container",
-                                                                regionName, fileName);
-                            return false;
-                        }
-
-                        readPaletteFromLitematicaFormatTag(paletteTag, container.getPalette());
-                        this.blockContainers.put(regionName, container);
-                    }
-                    else
-                    {
-                        return false;
-                    }
-                }
+            if (result.failed)
+            {
+                this.onSubRegionReadFailed(regionName);
+                return false;
             }
+
+            if (result.region == null)
+            {
+                continue;
+            }
+
+            this.subRegions.put(regionName, result.region);
+
+            if (result.blockEntities != null)
+            {
+                this.blockEntities.put(regionName, result.blockEntities);
+                this.entities.put(regionName, result.entities);
+            }
+
+            if (result.blockTicks != null)
+            {
+                this.pendingBlockTicks.put(regionName, result.blockTicks);
+            }
+
+            if (result.hasBlockStates == false)
+            {
+                return false;
+            }
+
+            if (result.container == null)
+            {
+                this.onSubRegionReadFailed(regionName);
+                return false;
+            }
+
+            this.blockContainers.put(regionName, result.container);
         }
 
         return true;
     }
 
+    private void onSubRegionReadFailed(String regionName)
+    {
+        String fileName = this.getFile() != null ? this.getFile().getFileName().toString() : "<null>";
+        MessageDispatcher.error().translate("litematica.error.schematic_read_from_file_failed.region_container",
+                                            regionName, fileName);
+    }
+
+    /**
+     * Reads the given sub-regions from the Regions tag. If there are multiple sub-regions,
+     * then they are decoded in parallel on the region loader pool.
+     * @return the results in the same order as the region names
+     */
+    private List<RegionReadResult> readSubRegions(NBTTagCompound regionsTag, List<String> regionNames, int version)
+    {
+        List<RegionReadResult> results = new ArrayList<>(regionNames.size());
+
+        if (regionNames.size() <= 1)
+        {
+            for (String regionName : regionNames)
+            {
+                results.add(this.readSubRegion(regionName, NbtWrap.getCompound(regionsTag, regionName), version));
+            }
+
+            return results;
+        }
+
+        List<ForkJoinTask<RegionReadResult>> tasks = new ArrayList<>(regionNames.size());
+
+        for (String regionName : regionNames)
+        {
+            NBTTagCompound regionTag = NbtWrap.getCompound(regionsTag, regionName);
+            tasks.add(REGION_LOADER_POOL.submit(new RegionReadTask(this, regionName, regionTag, version)));
+        }
+
+        return joinSubRegionReads(regionNames, tasks);
+    }
+
+    private static List<RegionReadResult> joinSubRegionReads(List<String> regionNames,
+                                                             List<ForkJoinTask<RegionReadResult>> tasks)
+    {
+        List<RegionReadResult> results = new ArrayList<>(tasks.size());
+
+        for (int i = 0; i < tasks.size(); ++i)
+        {
+            String regionName = regionNames.get(i);
+
+            try
+            {
+                results.add(tasks.get(i).join());
+            }
+            catch (Exception e)
+            {
+                Litematica.LOGGER.warn("Exception while reading the sub-region '{}'", regionName, e);
+                RegionReadResult result = new RegionReadResult(regionName);
+                result.failed = true;
+                results.add(result);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Decodes one sub-region. This does not modify the schematic, so it can be called from worker threads.
+     */
+    private RegionReadResult readSubRegion(String regionName, NBTTagCompound regionTag, int version)
+    {
+        long startTime = System.nanoTime();
+        RegionReadResult result = new RegionReadResult(regionName);
+        BlockPos regionPos = NbtUtils.readBlockPos(NbtWrap.getCompound(regionTag, "Position"));
+        BlockPos regionSize = NbtUtils.readBlockPos(NbtWrap.getCompound(regionTag, "Size"));
+
+        if (regionPos != null && regionSize != null)
+        {
+            result.region = new SubRegion(regionPos, regionSize);
+
+            NBTTagList beList = NbtWrap.getListOfCompounds(regionTag, "TileEntities");
+            NBTTagList entityList = NbtWrap.getListOfCompounds(regionTag, "Entities");
+
+            if (version >= 2)
+            {
+                result.blockEntities = this.readBlockEntitiesFromListTag(beList);
+                result.entities = this.readEntitiesFromListTag(entityList);
+            }
+            else if (version == 1)
+            {
+                result.blockEntities = this.readTileEntitiesFromNBT_v1(beList);
+                result.entities = this.readEntitiesFromNBT_v1(entityList);
+            }
+
+            if (version >= 3)
+            {
+                result.blockTicks = this.readBlockTicksFromNBT(NbtWrap.getListOfCompounds(regionTag, "PendingBlockTicks"));
+            }
+
+            NBTBase nbtBase = NbtWrap.getTag(regionTag, "BlockStates");
+
+            // There are no convenience methods in NBTTagCompound yet in 1.12, so we'll have to do it the ugly way...
+            if (nbtBase != null && NbtWrap.getTypeId(nbtBase) == Constants.NBT.TAG_LONG_ARRAY)
+            {
+                Vec3i size = new Vec3i(Math.abs(regionSize.getX()), Math.abs(regionSize.getY()), Math.abs(regionSize.getZ()));
+                NBTTagList paletteTag = NbtWrap.getListOfCompounds(regionTag, "BlockStatePalette");
+                long[] blockStateArr = ((NBTTagLongArrayMixin) nbtBase).getArray();
+                int paletteSize = NbtWrap.getListSize(paletteTag);
+
+                LitematicaBlockStateContainerFull container = LitematicaBlockStateContainerFull.createContainer(paletteSize, blockStateArr, size);
+                result.hasBlockStates = true;
+
+                if (container != null)
+                {
+                    readPaletteFromLitematicaFormatTag(paletteTag, container.getPalette());
+                    result.container = convertContainerIfNeeded(container);
+                }
+            }
+        }
+
+        result.durationNanos = System.nanoTime() - startTime;
+
+        return result;
+    }
+
     private Map<BlockPos, NextTickListEntry> readBlockTicksFromNBT(NBTTagList tagList)
     {
         Map<BlockPos, NextTickListEntry> tickMap = new HashMap<>();
@@ -470,6 +623,220 @@ public class LitematicaSchematic extends SchematicBase
         return tileMap;
     }
 
+    /**
+     * Reads this schematic from its file, by streaming the NBT data. Each sub-region is handed
+     * over for decoding to the region loader pool as soon as it has been read from the stream,
+     * and its NBT data is released as soon as it has been decoded, so that the NBT data of
+     * the entire file only needs to exist in memory at once if the decoding can't keep up
+     * with reading the file.
+     * The BlockStates long arrays are read from the stream directly into the arrays
+     * that then back the block state containers.
+     */
+    @Override
+    public boolean readFromFile()
+    {
+        Path file = this.getFile();
+
+        if (file == null)
+        {
+            MessageDispatcher.error("litematica.error.schematic_read_from_file_failed.no_file");
+            return false;
+        }
+
+        this.clear();
+
+        NBTTagCompound rootTag = new NBTTagCompound();
+        List<String> regionNames = new ArrayList<>();
+        List<NBTTagCompound> deferredRegionTags = new ArrayList<>();
+        List<ForkJoinTask<RegionReadResult>> tasks = new ArrayList<>();
+        long startTime = System.nanoTime();
+
+        try (NbtStreamReader reader = NbtStreamReader.openCompressed(file))
+        {
+            reader.readRootCompound(rootTag, (typeId, name, r) -> {
+                if (typeId != NbtStreamReader.TAG_COMPOUND || name.equals("Regions") == false)
+                {
+                    return NbtStreamReader.EntryAction.READ;
+                }
+
+                r.readCompound(new NBTTagCompound(), (regionTypeId, regionName, r2) -> {
+                    if (regionTypeId != NbtStreamReader.TAG_COMPOUND)
+                    {
+                        return NbtStreamReader.EntryAction.SKIP;
+                    }
+
+                    NBTTagCompound regionTag = new NBTTagCompound();
+                    r2.readCompound(regionTag, (t, n, r3) -> NbtStreamReader.EntryAction.READ);
+                    regionNames.add(regionName);
+
+                    // The Version tag is normally stored before the Regions tag
+                    int version = getSupportedVersion(rootTag);
+
+                    if (version > 0)
+                    {
+                        tasks.add(REGION_LOADER_POOL.submit(new RegionReadTask(this, regionName, regionTag, version)));
+                    }
+                    else
+                    {
+                        deferredRegionTags.add(regionTag);
+                    }
+
+                    return NbtStreamReader.EntryAction.HANDLED;
+                });
+
+                return NbtStreamReader.EntryAction.HANDLED;
+            });
+        }
+        catch (Exception e)
+        {
+            String name = file.toAbsolutePath().toString();
+            MessageDispatcher.error("litematica.error.schematic_read_from_file_failed.cant_read", name);
+            Litematica.LOGGER.warn("Failed to read schematic from file '{}'", name, e);
+            joinSubRegionReads(regionNames, tasks);
+            return false;
+        }
+
+        int version = getSupportedVersion(rootTag);
+
+        if (version <= 0)
+        {
+            joinSubRegionReads(regionNames, tasks);
+            // Let the normal path print the appropriate error message
+            return this.fromTag(rootTag);
+        }
+
+        this.readMetadataFromTag(rootTag);
+
+        for (NBTTagCompound regionTag : deferredRegionTags)
+        {
+            String regionName = regionNames.get(tasks.size());
+            tasks.add(REGION_LOADER_POOL.submit(new RegionReadTask(this, regionName, regionTag, version)));
+        }
+
+        deferredRegionTags.clear();
+
+        List<RegionReadResult> results = joinSubRegionReads(regionNames, tasks);
+
+        Litematica.printDebug("Streamed and read %d sub-regions in %.2f ms", results.size(), (System.nanoTime() - startTime) / 1000000.0);
+
+        return this.storeSubRegionReadResults(results);
+    }
+
+    /**
+     * @return the schematic version from the given root tag, or -1 if it's missing or not supported
+     */
+    private static int getSupportedVersion(NBTTagCompound rootTag)
+    {
+        if (NbtWrap.containsInt(rootTag, "Version"))
+        {
+            int version = NbtWrap.getInt(rootTag, "Version");
+            return version >= 1 && version <= SCHEMATIC_VERSION ? version : -1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Reads only the metadata of the given schematic file, by streaming the NBT data and
+     * stopping as soon as the Version and Metadata tags have been read. Any other tags
+     * that come before those in the stream are skipped without being built.
+     * @return the metadata, or null if the file could not be read or is not a valid litematic file
+     */
+    @Nullable
+    public static SchematicMetadata readMetadataFromFile(Path file)
+    {
+        NBTTagCompound rootTag = new NBTTagCompound();
+
+        try (NbtStreamReader reader = NbtStreamReader.openCompressed(file))
+        {
+            reader.readRootCompound(rootTag, (typeId, name, r) -> {
+                if (NbtWrap.containsInt(rootTag, "Version") && NbtWrap.containsCompound(rootTag, "Metadata"))
+                {
+                    return NbtStreamReader.EntryAction.STOP;
+                }
+
+                return name.equals("Version") || name.equals("Metadata") ? NbtStreamReader.EntryAction.READ : NbtStreamReader.EntryAction.SKIP;
+            });
+        }
+        catch (Exception e)
+        {
+            Litematica.LOGGER.warn("Failed to read the schematic metadata from file '{}'", file.toAbsolutePath(), e);
+            return null;
+        }
+
+        if (getSupportedVersion(rootTag) > 0 && NbtWrap.containsCompound(rootTag, "Metadata"))
+        {
+            SchematicMetadata metadata = new SchematicMetadata();
+            metadata.fromTag(NbtWrap.getCompound(rootTag, "Metadata"));
+            return metadata;
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a new empty block state container of the type
+     * selected by the {@link Configs.Generic#SECTIONED_BLOCK_CONTAINERS} option
+     */
+    public static ILitematicaBlockStateContainer createContainer(Vec3i size)
+    {
+        if (Configs.Generic.SECTIONED_BLOCK_CONTAINERS.getBooleanValue())
+        {
+            return new LitematicaBlockStateContainerSectioned(size);
+        }
+
+        return new LitematicaBlockStateContainerFull(size);
+    }
+
+    /**
+     * Converts the container read from a file to the paged file-backed format,
+     * if the {@link Configs.Generic#PAGED_BLOCK_CONTAINERS} option is enabled and the
+     * container is large enough, or otherwise to the sectioned in-memory format,
+     * if the {@link Configs.Generic#SECTIONED_BLOCK_CONTAINERS} option is enabled
+     */
+    public static ILitematicaBlockStateContainer convertContainerIfNeeded(LitematicaBlockStateContainerFull container)
+    {
+        Vec3i size = container.getSize();
+        long volume = (long) size.getX() * (long) size.getY() * (long) size.getZ();
+
+        if (Configs.Generic.PAGED_BLOCK_CONTAINERS.getBooleanValue() &&
+            volume >= Configs.Generic.PAGED_BLOCK_CONTAINERS_MIN_VOLUME.getIntegerValue())
+        {
+            try
+            {
+                return LitematicaBlockStateContainerPaged.fromFullContainer(container);
+            }
+            catch (Exception e)
+            {
+                Litematica.LOGGER.warn("Failed to create a paged block state container, keeping the region in memory", e);
+            }
+        }
+
+        if (Configs.Generic.SECTIONED_BLOCK_CONTAINERS.getBooleanValue())
+        {
+            return LitematicaBlockStateContainerSectioned.fromFullContainer(container);
+        }
+
+        return container;
+    }
+
+    /**
+     * Returns the given container in the flat format used in the schematic files
+     */
+    public static LitematicaBlockStateContainerFull getFullContainer(ILitematicaBlockStateContainer container)
+    {
+        if (container instanceof LitematicaBlockStateContainerSectioned)
+        {
+            return ((LitematicaBlockStateContainerSectioned) container).toFullContainer();
+        }
+        else if (container instanceof LitematicaBlockStateContainerPaged)
+        {
+            return ((LitematicaBlockStateContainerPaged) container).toFullContainer();
+        }
+
+        return (LitematicaBlockStateContainerFull) container;
+    }
+
     public static Boolean isValidSchematic(NBTTagCompound tag)
     {
         return NbtWrap.containsInt(tag, "Version") &&
@@ -491,6 +858,65 @@ public class LitematicaSchematic extends SchematicBase
         return schematic.readFromFile() ? schematic : null;
     }
 
+    private static ForkJoinPool createRegionLoaderPool()
+    {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+        return new ForkJoinPool(threads, (pool) -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Litematica Region Loader " + thread.getPoolIndex());
+            thread.setContextClassLoader(LitematicaSchematic.class.getClassLoader());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Holds the NBT data of one sub-region until it gets decoded, and releases it right after that,
+     * so that the completed tasks don't keep the NBT data alive until all the sub-regions have been decoded.
+     */
+    private static class RegionReadTask implements Callable<RegionReadResult>
+    {
+        private final LitematicaSchematic schematic;
+        private final String regionName;
+        private final int version;
+        @Nullable private NBTTagCompound regionTag;
+
+        private RegionReadTask(LitematicaSchematic schematic, String regionName, NBTTagCompound regionTag, int version)
+        {
+            this.schematic = schematic;
+            this.regionName = regionName;
+            this.regionTag = regionTag;
+            this.version = version;
+        }
+
+        @Override
+        public RegionReadResult call()
+        {
+            NBTTagCompound regionTag = this.regionTag;
+            this.regionTag = null;
+
+            return this.schematic.readSubRegion(this.regionName, regionTag, this.version);
+        }
+    }
+
+    private static class RegionReadResult
+    {
+        private final String regionName;
+        @Nullable private SubRegion region;
+        @Nullable private Map<BlockPos, NBTTagCompound> blockEntities;
+        @Nullable private List<EntityInfo> entities;
+        @Nullable private Map<BlockPos, NextTickListEntry> blockTicks;
+        @Nullable private ILitematicaBlockStateContainer container;
+        private boolean hasBlockStates;
+        private boolean failed;
+        private long durationNanos;
+
+        private RegionReadResult(String regionName)
+        {
+            this.regionName = regionName;
+        }
+    }
+
     public static class LitematicaSubRegion implements ISchematicRegion
     {
         private final LitematicaSchematic schematic;
@@ -549,7 +975,12 @@ public class LitematicaSchematic extends SchematicBase
                 Math.abs(containerSize.getY()) == Math.abs(regionSize.getY()) &&
                 Math.abs(containerSize.getZ()) == Math.abs(regionSize.getZ()))
             {
-                this.schematic.blockContainers.put(this.regionName, container);
+                ILitematicaBlockStateContainer oldContainer = this.schematic.blockContainers.put(this.regionName, convertContainerIfNeeded(container));
+
+                if (oldContainer instanceof LitematicaBlockStateContainerPaged && oldContainer != container)
+                {
+                    ((LitematicaBlockStateContainerPaged) oldContainer).close();
+                }
             }
             else
             {
@@ -0,0 +1,142 @@
+package litematica.schematic;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import net.minecraft.nbt.NBTTagCompound;
+
+import malilib.overlay.message.MessageDispatcher;
+import malilib.util.game.wrap.GameWrap;
+import litematica.Litematica;
+
+/**
+ * Writes schematics to files. The schematic is first written into a temporary file
+ * next to the target file, which is then moved over the target file, so that a failed
+ * or interrupted write never leaves behind a partially written schematic file.
+ * The asynchronous writes encode and compress the schematic data on a background thread.
+ * The writes are done in the order they were submitted in.
+ */
+public class SchematicFileWriter
+{
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Litematica Schematic Writer %d").setDaemon(true).build());
+
+    /**
+     * Writes the given schematic tag to the given file on the calling thread
+     * @return true on success, false on failure
+     */
+    public static boolean write(ISchematic schematic, NBTTagCompound tag, Path file, boolean override)
+    {
+        try
+        {
+            writeAtomically(schematic, tag, file, override);
+            return true;
+        }
+        catch (Exception e)
+        {
+            onWriteFailed(file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Writes the given schematic tag to the given file on a background thread.
+     * The tag may still reference the data arrays of the schematic,
+     * so the schematic must not be modified until the write has completed.
+     * @return a future that is completed on the client thread once the write has finished,
+     *         with the value true on success and false on failure
+     */
+    public static CompletableFuture<Boolean> writeAsync(ISchematic schematic, NBTTagCompound tag, Path file, boolean override)
+    {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        EXECUTOR.execute(() ->
+        {
+            boolean success = false;
+
+            try
+            {
+                writeAtomically(schematic, tag, file, override);
+                success = true;
+            }
+            catch (Exception e)
+            {
+                Litematica.LOGGER.warn("Failed to write schematic to file '{}'", file.toAbsolutePath(), e);
+            }
+
+            final boolean finalSuccess = success;
+
+            GameWrap.getClient().addScheduledTask(() ->
+            {
+                if (finalSuccess == false)
+                {
+                    MessageDispatcher.error("litematica.error.schematic_write_to_file_failed.exception",
+                                            file.toAbsolutePath().toString());
+                }
+
+                result.complete(finalSuccess);
+            });
+        });
+
+        return result;
+    }
+
+    protected static void writeAtomically(ISchematic schematic, NBTTagCompound tag, Path file, boolean override) throws IOException
+    {
+        Path tmpFile = file.resolveSibling(file.getFileName().toString() + ".tmp");
+
+        try (FileOutputStream os = new FileOutputStream(tmpFile.toFile()))
+        {
+            schematic.writeToStream(tag, os);
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+
+        try
+        {
+            moveFile(tmpFile, file, override);
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+    }
+
+    protected static void moveFile(Path source, Path target, boolean override) throws IOException
+    {
+        if (override == false)
+        {
+            // A plain move fails if the target file already exists
+            Files.move(source, target);
+            return;
+        }
+
+        try
+        {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    protected static void onWriteFailed(Path file, Exception e)
+    {
+        String name = file.toAbsolutePath().toString();
+        MessageDispatcher.error("litematica.error.schematic_write_to_file_failed.exception", name);
+        Litematica.LOGGER.warn("Failed to write schematic to file '{}'", name, e);
+    }
+}
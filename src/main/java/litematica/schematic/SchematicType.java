@@ -192,6 +192,13 @@ public class SchematicType<S extends ISchematic>
     {
         List<SchematicType<?>> possibleTypes = getPossibleTypesFromFileName(file);
 
+        // Litematic files are streamed, so that the full NBT tree doesn't need to be built first
+        if (possibleTypes.size() == 1 && possibleTypes.get(0) == LITEMATICA)
+        {
+            LitematicaSchematic schematic = LITEMATICA.createSchematic(file);
+            return schematic.readFromFile() ? schematic : null;
+        }
+
         if (possibleTypes.isEmpty() == false)
         {
             NBTTagCompound tag = NbtUtils.readNbtFromFile(file);
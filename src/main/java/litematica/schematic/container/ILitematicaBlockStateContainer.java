@@ -20,5 +20,12 @@ public interface ILitematicaBlockStateContainer
 
     void setBlockState(int x, int y, int z, IBlockState state);
 
+    /**
+     * Replaces all the occurrences of <b>stateOriginal</b> with <b>stateNew</b>
+     * within the given inclusive container coordinate range.
+     * @return the number of replaced blocks
+     */
+    long replaceAll(IBlockState stateOriginal, IBlockState stateNew, Vec3i start, Vec3i end);
+
     ILitematicaBlockStateContainer copy();
 }
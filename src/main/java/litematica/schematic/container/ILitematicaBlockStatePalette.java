@@ -48,6 +48,14 @@ public interface ILitematicaBlockStatePalette
      */
     boolean overrideMapping(int id, IBlockState state);
 
+    /**
+     * Returns a counter that changes every time the existing IDs may have been
+     * mapped to different states, ie. via {@link #setMapping(List)} or {@link #overrideMapping(int, IBlockState)}.
+     * Adding new states to the palette doesn't change it.
+     * This can be used to invalidate any data cached per palette ID.
+     */
+    int getMappingVersion();
+
     /**
      * Creates a copy of this palette, using the provided resize handler
      * @param resizeHandler
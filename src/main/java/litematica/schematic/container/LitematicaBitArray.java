@@ -7,6 +7,9 @@ import malilib.util.MathUtils;
 
 public class LitematicaBitArray
 {
+    /** The maximum number of entries decoded at once in the bulk copy operations */
+    public static final int BULK_BUFFER_SIZE = 4096;
+
     /** The long array that is used to store the data for this BitArray. */
     private final long[] longArray;
     /** Number of bits a single entry takes up */
@@ -78,19 +81,264 @@ public class LitematicaBitArray
         }
     }
 
+    /**
+     * Decodes <b>count</b> consecutive entries starting from <b>startIndex</b>
+     * into the <b>values</b> array, starting at <b>valuesOffset</b>.
+     * The range is only validated once, and the backing array is read
+     * one word at a time, instead of re-computing the word indices per entry.
+     */
+    public void getRange(long startIndex, int[] values, int valuesOffset, int count)
+    {
+        this.validateRange(startIndex, count);
+
+        final long[] arr = this.longArray;
+        final int bits = this.bitsPerEntry;
+        final long mask = this.maxEntryValue;
+        final int lastWordIndex = arr.length - 1;
+        final int end = valuesOffset + count;
+        long startOffset = startIndex * (long) bits;
+        int wordIndex = (int) (startOffset >> 6);
+        int bitOffset = (int) (startOffset & 0x3F);
+        long word = count > 0 ? arr[wordIndex] : 0L;
+
+        for (int i = valuesOffset; i < end; ++i)
+        {
+            int nextBitOffset = bitOffset + bits;
+
+            if (nextBitOffset < 64)
+            {
+                values[i] = (int) (word >>> bitOffset & mask);
+                bitOffset = nextBitOffset;
+            }
+            else if (nextBitOffset == 64)
+            {
+                values[i] = (int) (word >>> bitOffset & mask);
+                word = wordIndex < lastWordIndex ? arr[++wordIndex] : 0L;
+                bitOffset = 0;
+            }
+            else
+            {
+                long nextWord = arr[++wordIndex];
+                values[i] = (int) ((word >>> bitOffset | nextWord << (64 - bitOffset)) & mask);
+                word = nextWord;
+                bitOffset = nextBitOffset - 64;
+            }
+        }
+    }
+
+    /**
+     * Encodes <b>count</b> values from the <b>values</b> array, starting at <b>valuesOffset</b>,
+     * into consecutive entries starting from <b>startIndex</b>.
+     * The range is only validated once, and the values are masked to the entry width
+     * instead of being validated one by one.
+     */
+    public void setRange(long startIndex, int[] values, int valuesOffset, int count)
+    {
+        this.validateRange(startIndex, count);
+
+        if (count <= 0)
+        {
+            return;
+        }
+
+        final long[] arr = this.longArray;
+        final int bits = this.bitsPerEntry;
+        final long mask = this.maxEntryValue;
+        final int lastWordIndex = arr.length - 1;
+        final int end = valuesOffset + count;
+        long startOffset = startIndex * (long) bits;
+        int wordIndex = (int) (startOffset >> 6);
+        int bitOffset = (int) (startOffset & 0x3F);
+        long word = arr[wordIndex];
+
+        for (int i = valuesOffset; i < end; ++i)
+        {
+            long value = (long) values[i] & mask;
+            int nextBitOffset = bitOffset + bits;
+
+            word = word & ~(mask << bitOffset) | value << bitOffset;
+
+            if (nextBitOffset < 64)
+            {
+                bitOffset = nextBitOffset;
+            }
+            else if (nextBitOffset == 64)
+            {
+                arr[wordIndex] = word;
+
+                if (wordIndex < lastWordIndex)
+                {
+                    word = arr[++wordIndex];
+                }
+
+                bitOffset = 0;
+            }
+            else
+            {
+                arr[wordIndex] = word;
+                int overflowBits = nextBitOffset - 64;
+                word = arr[++wordIndex] >>> overflowBits << overflowBits | value >>> (64 - bitOffset);
+                bitOffset = overflowBits;
+            }
+        }
+
+        arr[wordIndex] = word;
+    }
+
+    /**
+     * Copies all the entries from this array to the other array,
+     * which may use a different entry width. The arrays must have the same size.
+     */
+    public void copyTo(LitematicaBitArray other)
+    {
+        Validate.isTrue(other.arraySize == this.arraySize, "Mismatched bit array sizes");
+
+        final long size = this.arraySize;
+        final int[] buffer = new int[(int) Math.min(BULK_BUFFER_SIZE, size)];
+
+        for (long index = 0; index < size; index += buffer.length)
+        {
+            int count = (int) Math.min(buffer.length, size - index);
+            this.getRange(index, buffer, 0, count);
+            other.setRange(index, buffer, 0, count);
+        }
+    }
+
+    /**
+     * Counts the number of times each value appears in this array,
+     * by walking the backing long array one word at a time.
+     * @return an array indexed by the entry value
+     */
     public long[] getValueCounts()
     {
         long[] counts = new long[(int) this.maxEntryValue + 1];
         final long size = this.arraySize;
 
+        if (size <= 0)
+        {
+            return counts;
+        }
+
+        final long[] arr = this.longArray;
+        final int bits = this.bitsPerEntry;
+        final long mask = this.maxEntryValue;
+        final int lastWordIndex = arr.length - 1;
+        int wordIndex = 0;
+        int bitOffset = 0;
+        long word = arr[0];
+
         for (long i = 0; i < size; ++i)
         {
-            ++counts[this.getAt(i)];
+            int nextBitOffset = bitOffset + bits;
+
+            if (nextBitOffset < 64)
+            {
+                ++counts[(int) (word >>> bitOffset & mask)];
+                bitOffset = nextBitOffset;
+            }
+            else if (nextBitOffset == 64)
+            {
+                ++counts[(int) (word >>> bitOffset & mask)];
+                word = wordIndex < lastWordIndex ? arr[++wordIndex] : 0L;
+                bitOffset = 0;
+            }
+            else
+            {
+                long nextWord = arr[++wordIndex];
+                ++counts[(int) ((word >>> bitOffset | nextWord << (64 - bitOffset)) & mask)];
+                word = nextWord;
+                bitOffset = nextBitOffset - 64;
+            }
         }
 
         return counts;
     }
 
+    /**
+     * Replaces all the entries with the value <b>oldValue</b> in the given range with <b>newValue</b>.
+     * The range is scanned word by word without decoding the entries into a separate buffer,
+     * and only the words containing matching entries are written back.
+     * @return the number of replaced entries
+     */
+    public long replaceValues(long startIndex, long count, int oldValue, int newValue)
+    {
+        if (startIndex < 0 || count < 0 || startIndex + count > this.arraySize)
+        {
+            throw new IndexOutOfBoundsException("Bit array range [" + startIndex + ", " + (startIndex + count) +
+                                                ") is out of bounds for size " + this.arraySize);
+        }
+
+        Validate.inclusiveBetween(0L, this.maxEntryValue, (long) newValue);
+
+        if (count == 0 || oldValue == newValue)
+        {
+            return 0;
+        }
+
+        final long[] arr = this.longArray;
+        final int bits = this.bitsPerEntry;
+        final long mask = this.maxEntryValue;
+        final long oldBits = (long) oldValue & mask;
+        final long newBits = (long) newValue & mask;
+        final long startOffset = startIndex * (long) bits;
+        int wordIndex = (int) (startOffset >> 6);
+        int bitOffset = (int) (startOffset & 0x3F);
+        long replaced = 0;
+
+        for (long i = 0; i < count; ++i)
+        {
+            int nextBitOffset = bitOffset + bits;
+
+            if (nextBitOffset <= 64)
+            {
+                long word = arr[wordIndex];
+
+                if ((word >>> bitOffset & mask) == oldBits)
+                {
+                    arr[wordIndex] = word & ~(mask << bitOffset) | newBits << bitOffset;
+                    ++replaced;
+                }
+
+                if (nextBitOffset == 64)
+                {
+                    ++wordIndex;
+                    bitOffset = 0;
+                }
+                else
+                {
+                    bitOffset = nextBitOffset;
+                }
+            }
+            else
+            {
+                long word = arr[wordIndex];
+                long nextWord = arr[wordIndex + 1];
+
+                if (((word >>> bitOffset | nextWord << (64 - bitOffset)) & mask) == oldBits)
+                {
+                    int overflowBits = nextBitOffset - 64;
+                    arr[wordIndex] = word & ~(mask << bitOffset) | newBits << bitOffset;
+                    arr[wordIndex + 1] = nextWord >>> overflowBits << overflowBits | newBits >>> (64 - bitOffset);
+                    ++replaced;
+                }
+
+                ++wordIndex;
+                bitOffset = nextBitOffset - 64;
+            }
+        }
+
+        return replaced;
+    }
+
+    protected void validateRange(long startIndex, int count)
+    {
+        if (startIndex < 0 || count < 0 || startIndex + count > this.arraySize)
+        {
+            throw new IndexOutOfBoundsException("Bit array range [" + startIndex + ", " + (startIndex + count) +
+                                                ") is out of bounds for size " + this.arraySize);
+        }
+    }
+
     public long[] getBackingLongArray()
     {
         return this.longArray;
@@ -98,6 +98,34 @@ public abstract class LitematicaBlockStateContainerBase implements ILitematicaBl
         return map;
     }
 
+    @Override
+    public long replaceAll(IBlockState stateOriginal, IBlockState stateNew, Vec3i start, Vec3i end)
+    {
+        if (stateOriginal == stateNew)
+        {
+            return 0;
+        }
+
+        long count = 0;
+
+        for (int y = start.getY(); y <= end.getY(); ++y)
+        {
+            for (int z = start.getZ(); z <= end.getZ(); ++z)
+            {
+                for (int x = start.getX(); x <= end.getX(); ++x)
+                {
+                    if (this.getBlockState(x, y, z) == stateOriginal)
+                    {
+                        this.setBlockState(x, y, z, stateNew);
+                        ++count;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
     protected void setBlockCounts(long[] blockCounts)
     {
         final int length = blockCounts.length;
@@ -1,7 +1,9 @@
 package litematica.schematic.container;
 
+import java.util.Arrays;
 import javax.annotation.Nullable;
 import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
@@ -82,6 +84,120 @@ public class LitematicaBlockStateContainerFull extends LitematicaBlockStateConta
         this.hasSetBlockCounts = false; // Force a re-count when next queried
     }
 
+    /**
+     * Replaces the given state within the given range.
+     * If the range covers the whole container and the new state is not yet in the palette,
+     * then this is just a palette mapping change, and the backing array is not touched at all.
+     * Otherwise the matching palette IDs are replaced in the backing array row by row.
+     * If the new state is already in the palette, then the old IDs are merged into its existing ID,
+     * so that the palette never ends up with several IDs for the same state.
+     * The block counts are updated by the replaced amounts instead of forcing a re-count.
+     */
+    @Override
+    public long replaceAll(IBlockState stateOriginal, IBlockState stateNew, Vec3i start, Vec3i end)
+    {
+        if (stateOriginal == stateNew)
+        {
+            return 0;
+        }
+
+        IntArrayList oldIds = this.getIdsForState(stateOriginal);
+
+        if (oldIds.isEmpty())
+        {
+            return 0;
+        }
+
+        this.calculateBlockCountsIfNeeded();
+
+        boolean wholeContainer = start.getX() == 0 && start.getY() == 0 && start.getZ() == 0 &&
+                                 end.getX() == this.sizeX - 1 && end.getY() == this.sizeY - 1 && end.getZ() == this.sizeZ - 1;
+
+        IntArrayList existingNewIds = this.getIdsForState(stateNew);
+
+        // ID 0 is always reserved for air, so it can't be remapped.
+        // Remapping to a state that is already in the palette would create a duplicate ID for it.
+        if (wholeContainer && oldIds.size() == 1 && oldIds.getInt(0) != 0 && existingNewIds.isEmpty())
+        {
+            int oldId = oldIds.getInt(0);
+
+            // This changes the palette's mapping version, which invalidates
+            // any states cached per palette ID, see SubRegionTransform
+            if (this.palette.overrideMapping(oldId, stateNew))
+            {
+                // The counts stay valid, as they are per ID, not per state
+                return oldId < this.blockCounts.length ? this.blockCounts[oldId] : 0;
+            }
+        }
+
+        // Note: This may resize the palette and the storage
+        int newId = existingNewIds.isEmpty() ? this.palette.idFor(stateNew) : existingNewIds.getInt(0);
+        long total = 0;
+
+        if (newId >= this.blockCounts.length)
+        {
+            this.blockCounts = Arrays.copyOf(this.blockCounts, newId + 1);
+        }
+
+        for (int oldId : oldIds)
+        {
+            if (oldId == newId)
+            {
+                continue;
+            }
+
+            long count = 0;
+
+            if (wholeContainer)
+            {
+                count = this.storage.replaceValues(0, this.totalVolume, oldId, newId);
+            }
+            else
+            {
+                final long rowLength = end.getX() - start.getX() + 1;
+
+                for (int y = start.getY(); y <= end.getY(); ++y)
+                {
+                    for (int z = start.getZ(); z <= end.getZ(); ++z)
+                    {
+                        count += this.storage.replaceValues(this.getIndex(start.getX(), y, z), rowLength, oldId, newId);
+                    }
+                }
+            }
+
+            if (oldId < this.blockCounts.length)
+            {
+                this.blockCounts[oldId] -= count;
+            }
+
+            this.blockCounts[newId] += count;
+            total += count;
+        }
+
+        return total;
+    }
+
+    /**
+     * @return all the palette IDs that map to the given state. Unused IDs count as air.
+     */
+    protected IntArrayList getIdsForState(IBlockState state)
+    {
+        IntArrayList ids = new IntArrayList();
+        final int paletteSize = this.palette.getPaletteSize();
+
+        for (int id = 0; id < paletteSize; ++id)
+        {
+            IBlockState paletteState = this.palette.getBlockState(id);
+
+            if (paletteState == state || (paletteState == null && state == AIR_BLOCK_STATE))
+            {
+                ids.add(id);
+            }
+        }
+
+        return ids;
+    }
+
     @Override
     public int onResize(int bits, IBlockState state, ILitematicaBlockStatePalette oldPalette)
     {
@@ -112,13 +228,7 @@ public class LitematicaBlockStateContainerFull extends LitematicaBlockStateConta
         // Copy over the full old palette mapping
         this.palette.setMapping(oldPalette.getMapping());
 
-        final long size = oldArray.size();
-
-        for (long index = 0; index < size; ++index)
-        {
-            newArray.setAt(index, oldArray.getAt(index));
-        }
-
+        oldArray.copyTo(newArray);
         this.storage = newArray;
 
         return this.palette.idFor(state);
@@ -129,6 +239,111 @@ public class LitematicaBlockStateContainerFull extends LitematicaBlockStateConta
         return ((long) y * this.sizeLayer) + (long) z * (long) this.sizeX + (long) x;
     }
 
+    /**
+     * Decodes the palette IDs of the whole X-row at the given y and z coordinates
+     * into the provided array, which must have a length of at least the container's x-size.
+     */
+    public void getRowIds(int y, int z, int[] ids)
+    {
+        this.storage.getRange(this.getIndex(0, y, z), ids, 0, this.sizeX);
+    }
+
+    /**
+     * Decodes <b>count</b> palette IDs of the X-row at the given y and z coordinates, starting from
+     * the given x coordinate, into the provided array, starting from the given offset.
+     */
+    public void getIds(int x, int y, int z, int[] ids, int offset, int count)
+    {
+        this.storage.getRange(this.getIndex(x, y, z), ids, offset, count);
+    }
+
+    /**
+     * Encodes the palette IDs of the whole X-row at the given y and z coordinates
+     * from the provided array. The IDs must already exist in the palette.
+     */
+    public void setRowIds(int y, int z, int[] ids)
+    {
+        this.storage.setRange(this.getIndex(0, y, z), ids, 0, this.sizeX);
+        this.hasSetBlockCounts = false; // Force a re-count when next queried
+    }
+
+    /**
+     * Encodes <b>count</b> palette IDs from the provided array, starting from the given offset,
+     * into the X-row at the given y and z coordinates, starting from the given x coordinate.
+     * The IDs must already exist in the palette.
+     */
+    public void setIds(int x, int y, int z, int[] ids, int offset, int count)
+    {
+        this.storage.setRange(this.getIndex(x, y, z), ids, offset, count);
+        this.hasSetBlockCounts = false; // Force a re-count when next queried
+    }
+
+    /**
+     * Decodes the palette IDs of the 16x16x16 section at the given section coordinates
+     * into the provided array, which must have a length of at least 4096.
+     * The array is indexed as {@code y << 8 | z << 4 | x}.
+     * Positions in the section that are outside the container are set to 0 (air).
+     */
+    public void getSectionIds(int sectionX, int sectionY, int sectionZ, int[] ids)
+    {
+        final int startX = sectionX << 4;
+        final int startY = sectionY << 4;
+        final int startZ = sectionZ << 4;
+        final int width = Math.max(0, Math.min(16, this.sizeX - startX));
+        final int height = Math.max(0, Math.min(16, this.sizeY - startY));
+        final int length = Math.max(0, Math.min(16, this.sizeZ - startZ));
+
+        if (width < 16 || height < 16 || length < 16)
+        {
+            Arrays.fill(ids, 0, 4096, 0);
+        }
+
+        for (int y = 0; y < height; ++y)
+        {
+            for (int z = 0; z < length; ++z)
+            {
+                long index = this.getIndex(startX, startY + y, startZ + z);
+                this.storage.getRange(index, ids, (y << 8) | (z << 4), width);
+            }
+        }
+    }
+
+    /**
+     * Encodes the palette IDs of the 16x16x16 section at the given section coordinates
+     * from the provided array, which is indexed as {@code y << 8 | z << 4 | x}.
+     * Positions in the section that are outside the container are ignored.
+     * The IDs must already exist in the palette.
+     */
+    public void setSectionIds(int sectionX, int sectionY, int sectionZ, int[] ids)
+    {
+        final int startX = sectionX << 4;
+        final int startY = sectionY << 4;
+        final int startZ = sectionZ << 4;
+        final int width = Math.max(0, Math.min(16, this.sizeX - startX));
+        final int height = Math.max(0, Math.min(16, this.sizeY - startY));
+        final int length = Math.max(0, Math.min(16, this.sizeZ - startZ));
+
+        for (int y = 0; y < height; ++y)
+        {
+            for (int z = 0; z < length; ++z)
+            {
+                long index = this.getIndex(startX, startY + y, startZ + z);
+                this.storage.setRange(index, ids, (y << 8) | (z << 4), width);
+            }
+        }
+
+        this.hasSetBlockCounts = false; // Force a re-count when next queried
+    }
+
+    /**
+     * @return the palette ID counts, calculated from the backing array in one pass.
+     * The array is indexed by the palette ID.
+     */
+    public long[] getPaletteIdCounts()
+    {
+        return this.storage.getValueCounts();
+    }
+
     public long[] getBackingLongArray()
     {
         return this.storage.getBackingLongArray();
@@ -149,9 +364,17 @@ public class LitematicaBlockStateContainerFull extends LitematicaBlockStateConta
         PacketBuffer buf = new PacketBuffer(Unpooled.wrappedBuffer(arr));
         buf.writerIndex(0);
 
-        for (int i = 0; i < volume; ++i)
+        final int[] ids = new int[(int) Math.min(LitematicaBitArray.BULK_BUFFER_SIZE, volume)];
+
+        for (long index = 0; index < volume; index += ids.length)
         {
-            buf.writeVarInt(this.storage.getAt(i));
+            int count = (int) Math.min(ids.length, volume - index);
+            this.storage.getRange(index, ids, 0, count);
+
+            for (int i = 0; i < count; ++i)
+            {
+                buf.writeVarInt(ids[i]);
+            }
         }
 
         return arr;
@@ -182,12 +405,20 @@ public class LitematicaBlockStateContainerFull extends LitematicaBlockStateConta
         LitematicaBitArray bitArray = new LitematicaBitArray(bits, volume);
         PacketBuffer buf = new PacketBuffer(Unpooled.wrappedBuffer(blockStates));
         long[] blockCounts = new long[1 << bits];
+        final int[] ids = new int[Math.min(LitematicaBitArray.BULK_BUFFER_SIZE, volume)];
 
-        for (int i = 0; i < volume; ++i)
+        for (int index = 0; index < volume; index += ids.length)
         {
-            int id = buf.readVarInt();
-            bitArray.setAt(i, id);
-            ++blockCounts[id];
+            int count = Math.min(ids.length, volume - index);
+
+            for (int i = 0; i < count; ++i)
+            {
+                int id = buf.readVarInt();
+                ids[i] = id;
+                ++blockCounts[id];
+            }
+
+            bitArray.setRange(index, ids, 0, count);
         }
 
         return new SpongeBlockstateConverterResults(bitArray.getBackingLongArray(), blockCounts);
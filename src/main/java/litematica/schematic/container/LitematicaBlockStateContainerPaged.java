@@ -0,0 +1,697 @@
+package litematica.schematic.container;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nullable;
+
+import net.minecraft.block.state.IBlockState;
+
+import malilib.util.FileUtils;
+import malilib.util.position.Vec3i;
+import litematica.Litematica;
+import litematica.util.LitematicaDirectories;
+
+/**
+ * A block state container that keeps the block data in a memory-mapped temporary file,
+ * instead of on the heap. Only the palette is kept on the heap.
+ * The data is stored in 16x16x16 section sized pages, each of which is packed
+ * with the container's entry bit width, so that reading the blocks of one chunk
+ * only touches the pages of that chunk. The operating system then pages the data
+ * in and out as needed, so the memory use doesn't scale with the size of the schematic.
+ * The containers should be closed via {@link #close()} when they are no longer needed.
+ * The page files of containers that become unreachable without being closed are closed
+ * the next time a page file is created. As the mapped regions can't be unmapped explicitly,
+ * the files that can't be deleted while they are still mapped (on Windows) are deleted
+ * on later attempts, once the mapped buffers have been garbage collected.
+ * The containers can be read from worker threads while being closed on the main thread,
+ * in which case the reads that happen after the close just return air.
+ */
+public class LitematicaBlockStateContainerPaged extends LitematicaBlockStateContainerBase implements IPaletteResizeHandler, Closeable
+{
+    public static final int PAGE_SIZE = 16;
+    public static final int PAGE_VOLUME = PAGE_SIZE * PAGE_SIZE * PAGE_SIZE;
+
+    private static final ReferenceQueue<LitematicaBlockStateContainerPaged> UNREACHABLE_CONTAINERS = new ReferenceQueue<>();
+    private static final Set<PageFileCleanup> PAGE_FILE_CLEANUPS = new HashSet<>();
+    private static final List<Path> PENDING_DELETES = new ArrayList<>();
+    private static boolean hasDeletedStaleFiles;
+
+    protected final int pageCountX;
+    protected final int pageCountY;
+    protected final int pageCountZ;
+    protected final int pageCount;
+    protected final PageFileCleanup cleanup;
+    @Nullable protected volatile PageFile pageFile;
+
+    protected LitematicaBlockStateContainerPaged(Vec3i size, int bits) throws IOException
+    {
+        super(size, bits);
+
+        this.pageCountX = (this.sizeX + PAGE_SIZE - 1) >> 4;
+        this.pageCountY = (this.sizeY + PAGE_SIZE - 1) >> 4;
+        this.pageCountZ = (this.sizeZ + PAGE_SIZE - 1) >> 4;
+        this.pageCount = this.pageCountX * this.pageCountY * this.pageCountZ;
+        this.pageFile = new PageFile(this.bits, this.pageCount);
+        this.cleanup = new PageFileCleanup(this, this.pageFile);
+    }
+
+    @Override
+    protected void setBits(int bitsIn)
+    {
+        if (bitsIn != this.bits)
+        {
+            this.bits = Math.max(2, bitsIn);
+            this.palette = createPalette(this.bits, this);
+
+            // Always reserve ID 0 for air, so that the empty pages are all air
+            this.palette.idFor(AIR_BLOCK_STATE);
+        }
+    }
+
+    @Override
+    public IBlockState getBlockState(int x, int y, int z)
+    {
+        PageFile pageFile = this.pageFile;
+
+        if (pageFile == null)
+        {
+            return AIR_BLOCK_STATE;
+        }
+
+        int id = pageFile.getAt(this.getPageIndex(x >> 4, y >> 4, z >> 4), getIndexInPage(x, y, z));
+        IBlockState state = this.palette.getBlockState(id);
+
+        return state == null ? AIR_BLOCK_STATE : state;
+    }
+
+    @Override
+    public void setBlockState(int x, int y, int z, IBlockState state)
+    {
+        if (this.pageFile == null)
+        {
+            return;
+        }
+
+        // Note: the palette resize may replace the page file
+        int id = this.palette.idFor(state);
+        PageFile pageFile = this.pageFile;
+
+        if (pageFile == null)
+        {
+            return;
+        }
+
+        pageFile.setAt(this.getPageIndex(x >> 4, y >> 4, z >> 4), getIndexInPage(x, y, z), id);
+        this.hasSetBlockCounts = false; // Force a re-count when next queried
+    }
+
+    @Override
+    public int onResize(int bits, IBlockState state, ILitematicaBlockStatePalette oldPalette)
+    {
+        PageFile oldFile = this.pageFile;
+
+        if (oldFile != null)
+        {
+            try
+            {
+                PageFile newFile = new PageFile(bits, this.pageCount);
+                int[] ids = new int[PAGE_VOLUME];
+
+                for (int page = 0; page < this.pageCount; ++page)
+                {
+                    oldFile.readPageIds(page, ids);
+                    newFile.writePageIds(page, ids);
+                }
+
+                this.pageFile = newFile;
+                this.cleanup.setPageFile(newFile);
+                oldFile.close();
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException("Failed to resize the paged block storage", e);
+            }
+        }
+
+        // This creates the new palette with the increased size
+        this.setBits(bits);
+        // Copy over the full old palette mapping
+        this.palette.setMapping(oldPalette.getMapping());
+
+        return this.palette.idFor(state);
+    }
+
+    /**
+     * Decodes the palette IDs of the 16x16x16 page at the given section coordinates
+     * into the provided array, which must have a length of at least 4096.
+     * The array is indexed as {@code y << 8 | z << 4 | x}.
+     * Positions in the page that are outside the container are 0 (air).
+     */
+    public void getSectionIds(int sectionX, int sectionY, int sectionZ, int[] ids)
+    {
+        PageFile pageFile = this.pageFile;
+
+        if (pageFile != null)
+        {
+            pageFile.readPageIds(this.getPageIndex(sectionX, sectionY, sectionZ), ids);
+        }
+    }
+
+    protected int getPageIndex(int pageX, int pageY, int pageZ)
+    {
+        return (pageY * this.pageCountZ + pageZ) * this.pageCountX + pageX;
+    }
+
+    protected static int getIndexInPage(int x, int y, int z)
+    {
+        return ((y & 0xF) << 8) | ((z & 0xF) << 4) | (x & 0xF);
+    }
+
+    protected int getVolumeOutsideContainer(int pageX, int pageY, int pageZ)
+    {
+        int width = Math.min(PAGE_SIZE, this.sizeX - (pageX << 4));
+        int height = Math.min(PAGE_SIZE, this.sizeY - (pageY << 4));
+        int length = Math.min(PAGE_SIZE, this.sizeZ - (pageZ << 4));
+
+        return PAGE_VOLUME - width * height * length;
+    }
+
+    @Override
+    protected void calculateBlockCountsIfNeeded()
+    {
+        PageFile pageFile = this.pageFile;
+
+        if (this.hasSetBlockCounts == false && pageFile != null)
+        {
+            long[] counts = new long[1 << this.bits];
+            int[] ids = new int[PAGE_VOLUME];
+
+            for (int pageY = 0; pageY < this.pageCountY; ++pageY)
+            {
+                for (int pageZ = 0; pageZ < this.pageCountZ; ++pageZ)
+                {
+                    for (int pageX = 0; pageX < this.pageCountX; ++pageX)
+                    {
+                        pageFile.readPageIds(this.getPageIndex(pageX, pageY, pageZ), ids);
+
+                        for (int i = 0; i < PAGE_VOLUME; ++i)
+                        {
+                            ++counts[ids[i]];
+                        }
+
+                        // The parts of the edge pages that are outside the container are always air (ID 0)
+                        counts[0] -= this.getVolumeOutsideContainer(pageX, pageY, pageZ);
+                    }
+                }
+            }
+
+            this.setBlockCounts(counts);
+        }
+    }
+
+    /**
+     * Creates a copy of this container. If the copy can't be created in a new
+     * temporary file, then the copy is created as a regular on-heap container.
+     */
+    @Override
+    public ILitematicaBlockStateContainer copy()
+    {
+        PageFile pageFile = this.pageFile;
+
+        if (pageFile == null)
+        {
+            return new LitematicaBlockStateContainerFull(this.size);
+        }
+
+        try
+        {
+            LitematicaBlockStateContainerPaged copy = new LitematicaBlockStateContainerPaged(this.size, this.bits);
+            long[] words = new long[pageFile.pageWords];
+
+            copy.palette = this.palette.copy(copy);
+
+            for (int page = 0; page < this.pageCount; ++page)
+            {
+                pageFile.readPage(page, words);
+                copy.pageFile.writePage(page, words);
+            }
+
+            return copy;
+        }
+        catch (IOException e)
+        {
+            Litematica.LOGGER.warn("Failed to create a paged block storage copy, falling back to an in-memory copy", e);
+            return this.toFullContainer();
+        }
+    }
+
+    /**
+     * Converts this container to the flat on-heap format used in the schematic files
+     */
+    public LitematicaBlockStateContainerFull toFullContainer()
+    {
+        LitematicaBlockStateContainerFull container = new LitematicaBlockStateContainerFull(this.size, this.bits, null);
+        container.palette.setMapping(this.palette.getMapping());
+
+        PageFile pageFile = this.pageFile;
+
+        if (pageFile != null)
+        {
+            int[] ids = new int[PAGE_VOLUME];
+
+            for (int pageY = 0; pageY < this.pageCountY; ++pageY)
+            {
+                for (int pageZ = 0; pageZ < this.pageCountZ; ++pageZ)
+                {
+                    for (int pageX = 0; pageX < this.pageCountX; ++pageX)
+                    {
+                        pageFile.readPageIds(this.getPageIndex(pageX, pageY, pageZ), ids);
+                        container.setSectionIds(pageX, pageY, pageZ, ids);
+                    }
+                }
+            }
+        }
+
+        return container;
+    }
+
+    /**
+     * Closes and deletes the backing file. After this the container will only return air.
+     * This waits for any reads that are in progress on other threads to finish first.
+     */
+    @Override
+    public void close()
+    {
+        PageFile pageFile = this.pageFile;
+        this.pageFile = null;
+        this.cleanup.setPageFile(null);
+
+        if (pageFile != null)
+        {
+            pageFile.close();
+        }
+
+        retryPendingDeletes();
+    }
+
+    /**
+     * Creates a paged container with the contents of the given flat container.
+     * The data is written to a new temporary file one page at a time.
+     */
+    public static LitematicaBlockStateContainerPaged fromFullContainer(LitematicaBlockStateContainerFull fullContainer) throws IOException
+    {
+        LitematicaBlockStateContainerPaged container = new LitematicaBlockStateContainerPaged(fullContainer.getSize(), fullContainer.bits);
+        container.palette.setMapping(fullContainer.getPalette().getMapping());
+        int[] ids = new int[PAGE_VOLUME];
+
+        for (int pageY = 0; pageY < container.pageCountY; ++pageY)
+        {
+            for (int pageZ = 0; pageZ < container.pageCountZ; ++pageZ)
+            {
+                for (int pageX = 0; pageX < container.pageCountX; ++pageX)
+                {
+                    fullContainer.getSectionIds(pageX, pageY, pageZ, ids);
+                    container.pageFile.writePageIds(container.getPageIndex(pageX, pageY, pageZ), ids);
+                }
+            }
+        }
+
+        return container;
+    }
+
+    protected static Path createTempFile() throws IOException
+    {
+        Path dir = LitematicaDirectories.getPagedStorageDirectory();
+
+        if (FileUtils.createDirectoriesIfMissing(dir) == false)
+        {
+            throw new IOException("Failed to create the directory '" + dir.toAbsolutePath() + "'");
+        }
+
+        deleteStaleFiles(dir);
+        closeUnreachablePageFiles();
+        retryPendingDeletes();
+
+        Path file = Files.createTempFile(dir, "region_", ".tmp");
+        file.toFile().deleteOnExit();
+
+        return file;
+    }
+
+    /**
+     * Deletes any left over temporary files from a previous session, for example after a crash
+     */
+    private static synchronized void deleteStaleFiles(Path dir)
+    {
+        if (hasDeletedStaleFiles)
+        {
+            return;
+        }
+
+        hasDeletedStaleFiles = true;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "region_*.tmp"))
+        {
+            for (Path file : stream)
+            {
+                try
+                {
+                    Files.deleteIfExists(file);
+                }
+                catch (IOException ignore) {}
+            }
+        }
+        catch (IOException e)
+        {
+            Litematica.LOGGER.warn("Failed to clean up the paged block storage directory '{}'", dir.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Closes the page files of any containers that have been garbage collected without being closed
+     */
+    private static void closeUnreachablePageFiles()
+    {
+        Reference<? extends LitematicaBlockStateContainerPaged> ref;
+
+        while ((ref = UNREACHABLE_CONTAINERS.poll()) != null)
+        {
+            PageFileCleanup cleanup = (PageFileCleanup) ref;
+            PageFile pageFile = cleanup.getPageFile();
+
+            synchronized (PAGE_FILE_CLEANUPS)
+            {
+                PAGE_FILE_CLEANUPS.remove(cleanup);
+            }
+
+            if (pageFile != null)
+            {
+                pageFile.close();
+            }
+        }
+    }
+
+    /**
+     * Tries to delete the closed page files that couldn't be deleted yet because they were still mapped
+     */
+    private static void retryPendingDeletes()
+    {
+        synchronized (PENDING_DELETES)
+        {
+            Iterator<Path> iter = PENDING_DELETES.iterator();
+
+            while (iter.hasNext())
+            {
+                try
+                {
+                    Files.deleteIfExists(iter.next());
+                    iter.remove();
+                }
+                catch (IOException ignore) {}
+            }
+        }
+    }
+
+    /**
+     * Tracks the current page file of a container, so that the file
+     * can be closed if the container becomes unreachable without being closed.
+     */
+    protected static class PageFileCleanup extends PhantomReference<LitematicaBlockStateContainerPaged>
+    {
+        @Nullable protected volatile PageFile pageFile;
+
+        protected PageFileCleanup(LitematicaBlockStateContainerPaged container, PageFile pageFile)
+        {
+            super(container, UNREACHABLE_CONTAINERS);
+
+            this.pageFile = pageFile;
+
+            synchronized (PAGE_FILE_CLEANUPS)
+            {
+                PAGE_FILE_CLEANUPS.add(this);
+            }
+        }
+
+        @Nullable
+        protected PageFile getPageFile()
+        {
+            return this.pageFile;
+        }
+
+        protected void setPageFile(@Nullable PageFile pageFile)
+        {
+            this.pageFile = pageFile;
+        }
+    }
+
+    /**
+     * The memory-mapped file that stores the bit packed pages of one container.
+     * Files larger than {@link #MAX_MAPPING_BYTES} are mapped in several parts,
+     * with each page being fully inside one mapping.
+     * All the accesses hold the read lock, and closing the file takes the write lock,
+     * so that the mappings are not released while another thread is still using them.
+     * The accesses after the file has been closed read as air and ignore the writes.
+     */
+    protected static class PageFile
+    {
+        protected static final long MAX_MAPPING_BYTES = 1L << 30;
+
+        protected final Path file;
+        protected final FileChannel channel;
+        protected final ByteBuffer[] mappings;
+        protected final int bits;
+        protected final long mask;
+        protected final int pageWords;
+        protected final int pageBytes;
+        protected final int pagesPerMapping;
+        protected final LitematicaBitArray pageArray;
+        protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+        protected boolean closed;
+
+        protected PageFile(int bits, int pageCount) throws IOException
+        {
+            this.bits = bits;
+            this.mask = (1L << bits) - 1L;
+            this.pageWords = PAGE_VOLUME * bits / 64;
+            this.pageBytes = this.pageWords * 8;
+            this.pagesPerMapping = (int) (MAX_MAPPING_BYTES / this.pageBytes);
+            this.pageArray = new LitematicaBitArray(bits, PAGE_VOLUME);
+            this.file = createTempFile();
+            this.channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            try
+            {
+                final int mappingCount = (pageCount + this.pagesPerMapping - 1) / this.pagesPerMapping;
+                this.mappings = new ByteBuffer[mappingCount];
+
+                // The mapped regions are zero filled, so all the pages start out as air
+                for (int i = 0; i < mappingCount; ++i)
+                {
+                    long start = (long) i * this.pagesPerMapping * this.pageBytes;
+                    long length = (long) Math.min(this.pagesPerMapping, pageCount - i * this.pagesPerMapping) * this.pageBytes;
+                    this.mappings[i] = this.channel.map(FileChannel.MapMode.READ_WRITE, start, length).order(ByteOrder.nativeOrder());
+                }
+            }
+            catch (IOException e)
+            {
+                this.close();
+                throw e;
+            }
+        }
+
+        protected int getAt(int page, int index)
+        {
+            this.lock.readLock().lock();
+
+            try
+            {
+                return this.closed ? 0 : this.getAtUnlocked(page, index);
+            }
+            finally
+            {
+                this.lock.readLock().unlock();
+            }
+        }
+
+        protected int getAtUnlocked(int page, int index)
+        {
+            ByteBuffer buf = this.mappings[page / this.pagesPerMapping];
+            int base = (page % this.pagesPerMapping) * this.pageBytes;
+            int startBit = index * this.bits;
+            int wordOffset = base + ((startBit >> 6) << 3);
+            int bitOffset = startBit & 0x3F;
+            long word = buf.getLong(wordOffset);
+
+            if (bitOffset + this.bits <= 64)
+            {
+                return (int) (word >>> bitOffset & this.mask);
+            }
+
+            long nextWord = buf.getLong(wordOffset + 8);
+            return (int) ((word >>> bitOffset | nextWord << (64 - bitOffset)) & this.mask);
+        }
+
+        protected void setAt(int page, int index, int value)
+        {
+            this.lock.readLock().lock();
+
+            try
+            {
+                if (this.closed == false)
+                {
+                    this.setAtUnlocked(page, index, value);
+                }
+            }
+            finally
+            {
+                this.lock.readLock().unlock();
+            }
+        }
+
+        protected void setAtUnlocked(int page, int index, int value)
+        {
+            ByteBuffer buf = this.mappings[page / this.pagesPerMapping];
+            int base = (page % this.pagesPerMapping) * this.pageBytes;
+            int startBit = index * this.bits;
+            int wordOffset = base + ((startBit >> 6) << 3);
+            int bitOffset = startBit & 0x3F;
+            long val = (long) value & this.mask;
+            long word = buf.getLong(wordOffset);
+
+            buf.putLong(wordOffset, word & ~(this.mask << bitOffset) | val << bitOffset);
+
+            if (bitOffset + this.bits > 64)
+            {
+                int endBits = bitOffset + this.bits - 64;
+                long nextWord = buf.getLong(wordOffset + 8);
+                buf.putLong(wordOffset + 8, nextWord >>> endBits << endBits | val >>> (64 - bitOffset));
+            }
+        }
+
+        protected void readPage(int page, long[] words)
+        {
+            this.lock.readLock().lock();
+
+            try
+            {
+                if (this.closed)
+                {
+                    Arrays.fill(words, 0, this.pageWords, 0L);
+                    return;
+                }
+
+                ByteBuffer buf = this.mappings[page / this.pagesPerMapping];
+                int offset = (page % this.pagesPerMapping) * this.pageBytes;
+
+                for (int i = 0; i < this.pageWords; ++i, offset += 8)
+                {
+                    words[i] = buf.getLong(offset);
+                }
+            }
+            finally
+            {
+                this.lock.readLock().unlock();
+            }
+        }
+
+        protected void writePage(int page, long[] words)
+        {
+            this.lock.readLock().lock();
+
+            try
+            {
+                if (this.closed)
+                {
+                    return;
+                }
+
+                ByteBuffer buf = this.mappings[page / this.pagesPerMapping];
+                int offset = (page % this.pagesPerMapping) * this.pageBytes;
+
+                for (int i = 0; i < this.pageWords; ++i, offset += 8)
+                {
+                    buf.putLong(offset, words[i]);
+                }
+            }
+            finally
+            {
+                this.lock.readLock().unlock();
+            }
+        }
+
+        protected synchronized void readPageIds(int page, int[] ids)
+        {
+            this.readPage(page, this.pageArray.getBackingLongArray());
+            this.pageArray.getRange(0, ids, 0, PAGE_VOLUME);
+        }
+
+        protected synchronized void writePageIds(int page, int[] ids)
+        {
+            this.pageArray.setRange(0, ids, 0, PAGE_VOLUME);
+            this.writePage(page, this.pageArray.getBackingLongArray());
+        }
+
+        protected void close()
+        {
+            this.lock.writeLock().lock();
+
+            try
+            {
+                if (this.closed)
+                {
+                    return;
+                }
+
+                this.closed = true;
+
+                try
+                {
+                    this.channel.close();
+                }
+                catch (IOException ignore) {}
+
+                // Closing the channel doesn't release the mapped regions, they are only
+                // released once the buffers have been garbage collected
+                if (this.mappings != null)
+                {
+                    Arrays.fill(this.mappings, null);
+                }
+            }
+            finally
+            {
+                this.lock.writeLock().unlock();
+            }
+
+            try
+            {
+                Files.deleteIfExists(this.file);
+            }
+            catch (IOException ignore)
+            {
+                // The file may still be mapped on some platforms, try again later
+                synchronized (PENDING_DELETES)
+                {
+                    PENDING_DELETES.add(this.file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package litematica.schematic.container;
+
+import java.util.Arrays;
+
+import net.minecraft.block.state.IBlockState;
+
+import malilib.util.position.Vec3i;
+
+/**
+ * A block state container that stores the blocks in 16x16x16 sections,
+ * where each section has its own palette and backing array.
+ * Sections that only contain one block state (for example all air) don't
+ * allocate any storage, they only reference the shared block state instance,
+ * until a different block state is written into them.
+ */
+public class LitematicaBlockStateContainerSectioned extends LitematicaBlockStateContainerBase
+{
+    public static final int SECTION_SIZE = 16;
+    public static final int SECTION_VOLUME = SECTION_SIZE * SECTION_SIZE * SECTION_SIZE;
+
+    protected final int sectionCountX;
+    protected final int sectionCountY;
+    protected final int sectionCountZ;
+    /** The allocated sections, or null for sections that only contain the state in {@link #uniformStates} */
+    protected final LitematicaBlockStateContainerFull[] sections;
+    /** The block state of each section that hasn't been allocated */
+    protected final IBlockState[] uniformStates;
+
+    public LitematicaBlockStateContainerSectioned(Vec3i size)
+    {
+        super(size);
+
+        this.sectionCountX = (this.sizeX + SECTION_SIZE - 1) >> 4;
+        this.sectionCountY = (this.sizeY + SECTION_SIZE - 1) >> 4;
+        this.sectionCountZ = (this.sizeZ + SECTION_SIZE - 1) >> 4;
+
+        final int sectionCount = this.sectionCountX * this.sectionCountY * this.sectionCountZ;
+        this.sections = new LitematicaBlockStateContainerFull[sectionCount];
+        this.uniformStates = new IBlockState[sectionCount];
+        Arrays.fill(this.uniformStates, AIR_BLOCK_STATE);
+
+        // The palette of the whole container is just the union of all the states
+        // in all the sections. It's used for the block counts and for the palette getter.
+        this.palette = new VanillaStructurePalette();
+        this.palette.idFor(AIR_BLOCK_STATE);
+    }
+
+    @Override
+    public IBlockState getBlockState(int x, int y, int z)
+    {
+        int sectionIndex = this.getSectionIndex(x >> 4, y >> 4, z >> 4);
+        LitematicaBlockStateContainerFull section = this.sections[sectionIndex];
+
+        if (section == null)
+        {
+            return this.uniformStates[sectionIndex];
+        }
+
+        return section.getBlockState(x & 0xF, y & 0xF, z & 0xF);
+    }
+
+    @Override
+    public void setBlockState(int x, int y, int z, IBlockState state)
+    {
+        int sectionIndex = this.getSectionIndex(x >> 4, y >> 4, z >> 4);
+        LitematicaBlockStateContainerFull section = this.sections[sectionIndex];
+
+        if (section == null)
+        {
+            if (this.uniformStates[sectionIndex] == state)
+            {
+                return;
+            }
+
+            section = this.allocateSection(x >> 4, y >> 4, z >> 4, sectionIndex);
+        }
+
+        this.palette.idFor(state);
+        section.setBlockState(x & 0xF, y & 0xF, z & 0xF, state);
+        this.hasSetBlockCounts = false; // Force a re-count when next queried
+    }
+
+    /**
+     * @return the number of sections that have their own storage allocated
+     */
+    public int getAllocatedSectionCount()
+    {
+        int count = 0;
+
+        for (LitematicaBlockStateContainerFull section : this.sections)
+        {
+            if (section != null)
+            {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+    protected int getSectionIndex(int sectionX, int sectionY, int sectionZ)
+    {
+        return (sectionY * this.sectionCountZ + sectionZ) * this.sectionCountX + sectionX;
+    }
+
+    protected Vec3i getSectionSize(int sectionX, int sectionY, int sectionZ)
+    {
+        return new Vec3i(Math.min(SECTION_SIZE, this.sizeX - (sectionX << 4)),
+                         Math.min(SECTION_SIZE, this.sizeY - (sectionY << 4)),
+                         Math.min(SECTION_SIZE, this.sizeZ - (sectionZ << 4)));
+    }
+
+    protected LitematicaBlockStateContainerFull allocateSection(int sectionX, int sectionY, int sectionZ, int sectionIndex)
+    {
+        LitematicaBlockStateContainerFull section = new LitematicaBlockStateContainerFull(this.getSectionSize(sectionX, sectionY, sectionZ));
+        IBlockState uniformState = this.uniformStates[sectionIndex];
+
+        if (uniformState != AIR_BLOCK_STATE)
+        {
+            int[] ids = new int[SECTION_VOLUME];
+            Arrays.fill(ids, section.getPalette().idFor(uniformState));
+            section.setSectionIds(0, 0, 0, ids);
+        }
+
+        this.sections[sectionIndex] = section;
+        this.uniformStates[sectionIndex] = null;
+
+        return section;
+    }
+
+    @Override
+    protected void calculateBlockCountsIfNeeded()
+    {
+        if (this.hasSetBlockCounts == false)
+        {
+            long[] counts = new long[this.palette.getPaletteSize()];
+
+            for (int sectionY = 0; sectionY < this.sectionCountY; ++sectionY)
+            {
+                for (int sectionZ = 0; sectionZ < this.sectionCountZ; ++sectionZ)
+                {
+                    for (int sectionX = 0; sectionX < this.sectionCountX; ++sectionX)
+                    {
+                        int sectionIndex = this.getSectionIndex(sectionX, sectionY, sectionZ);
+                        LitematicaBlockStateContainerFull section = this.sections[sectionIndex];
+
+                        if (section == null)
+                        {
+                            Vec3i size = this.getSectionSize(sectionX, sectionY, sectionZ);
+                            int id = this.palette.idFor(this.uniformStates[sectionIndex]);
+                            counts[id] += (long) size.getX() * (long) size.getY() * (long) size.getZ();
+                        }
+                        else
+                        {
+                            ILitematicaBlockStatePalette sectionPalette = section.getPalette();
+                            long[] sectionCounts = section.getPaletteIdCounts();
+
+                            for (int sectionId = 0; sectionId < sectionCounts.length; ++sectionId)
+                            {
+                                IBlockState state = sectionPalette.getBlockState(sectionId);
+
+                                if (sectionCounts[sectionId] > 0 && state != null)
+                                {
+                                    counts[this.palette.idFor(state)] += sectionCounts[sectionId];
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            this.setBlockCounts(counts);
+        }
+    }
+
+    @Override
+    public LitematicaBlockStateContainerSectioned copy()
+    {
+        LitematicaBlockStateContainerSectioned copy = new LitematicaBlockStateContainerSectioned(this.size);
+
+        copy.palette = this.palette.copy(null);
+        System.arraycopy(this.uniformStates, 0, copy.uniformStates, 0, this.uniformStates.length);
+
+        for (int i = 0; i < this.sections.length; ++i)
+        {
+            if (this.sections[i] != null)
+            {
+                copy.sections[i] = this.sections[i].copy();
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * Converts this container to the flat format used in the schematic files
+     */
+    public LitematicaBlockStateContainerFull toFullContainer()
+    {
+        // Don't re-use IDs in the middle of the conversion, the section data is only written after the re-mapping
+        LitematicaBlockStateContainerFull container = new LitematicaBlockStateContainerFull(this.size, false);
+        ILitematicaBlockStatePalette fullPalette = container.getPalette();
+        final int[] ids = new int[SECTION_VOLUME];
+
+        for (int sectionY = 0; sectionY < this.sectionCountY; ++sectionY)
+        {
+            for (int sectionZ = 0; sectionZ < this.sectionCountZ; ++sectionZ)
+            {
+                for (int sectionX = 0; sectionX < this.sectionCountX; ++sectionX)
+                {
+                    int sectionIndex = this.getSectionIndex(sectionX, sectionY, sectionZ);
+                    LitematicaBlockStateContainerFull section = this.sections[sectionIndex];
+
+                    if (section == null)
+                    {
+                        IBlockState state = this.uniformStates[sectionIndex];
+
+                        // The full container is already filled with air (ID 0)
+                        if (state == AIR_BLOCK_STATE)
+                        {
+                            continue;
+                        }
+
+                        Arrays.fill(ids, fullPalette.idFor(state));
+                    }
+                    else
+                    {
+                        ILitematicaBlockStatePalette sectionPalette = section.getPalette();
+                        int[] idMap = new int[sectionPalette.getPaletteSize()];
+
+                        for (int sectionId = 0; sectionId < idMap.length; ++sectionId)
+                        {
+                            IBlockState state = sectionPalette.getBlockState(sectionId);
+                            idMap[sectionId] = fullPalette.idFor(state != null ? state : AIR_BLOCK_STATE);
+                        }
+
+                        section.getSectionIds(0, 0, 0, ids);
+
+                        for (int i = 0; i < SECTION_VOLUME; ++i)
+                        {
+                            int sectionId = ids[i];
+                            ids[i] = sectionId < idMap.length ? idMap[sectionId] : 0;
+                        }
+                    }
+
+                    container.setSectionIds(sectionX, sectionY, sectionZ, ids);
+                }
+            }
+        }
+
+        return container;
+    }
+
+    /**
+     * Creates a sectioned container with the contents of the given flat container
+     */
+    public static LitematicaBlockStateContainerSectioned fromFullContainer(LitematicaBlockStateContainerFull fullContainer)
+    {
+        LitematicaBlockStateContainerSectioned container = new LitematicaBlockStateContainerSectioned(fullContainer.getSize());
+        ILitematicaBlockStatePalette fullPalette = fullContainer.getPalette();
+        final int fullPaletteSize = fullPalette.getPaletteSize();
+        final int[] ids = new int[SECTION_VOLUME];
+        // The ID map is valid for the section whose index (+ 1) matches the stamp value
+        final int[] idMap = new int[fullPaletteSize];
+        final int[] idMapStamps = new int[fullPaletteSize];
+
+        for (int id = 0; id < fullPaletteSize; ++id)
+        {
+            IBlockState state = fullPalette.getBlockState(id);
+            container.palette.idFor(state != null ? state : AIR_BLOCK_STATE);
+        }
+
+        for (int sectionY = 0; sectionY < container.sectionCountY; ++sectionY)
+        {
+            for (int sectionZ = 0; sectionZ < container.sectionCountZ; ++sectionZ)
+            {
+                for (int sectionX = 0; sectionX < container.sectionCountX; ++sectionX)
+                {
+                    int sectionIndex = container.getSectionIndex(sectionX, sectionY, sectionZ);
+                    Vec3i sectionSize = container.getSectionSize(sectionX, sectionY, sectionZ);
+                    final int width = sectionSize.getX();
+                    final int height = sectionSize.getY();
+                    final int length = sectionSize.getZ();
+                    final int firstId = getSectionIdsAndCheckUniform(fullContainer, sectionX, sectionY, sectionZ,
+                                                                     width, height, length, ids);
+
+                    if (firstId >= 0)
+                    {
+                        IBlockState state = fullPalette.getBlockState(firstId);
+                        container.uniformStates[sectionIndex] = state != null ? state : AIR_BLOCK_STATE;
+                        continue;
+                    }
+
+                    // Don't re-use IDs in the middle of the conversion, the section data is only written after the re-mapping
+                    LitematicaBlockStateContainerFull section = new LitematicaBlockStateContainerFull(sectionSize, false);
+                    ILitematicaBlockStatePalette sectionPalette = section.getPalette();
+                    final int stamp = sectionIndex + 1;
+
+                    for (int y = 0; y < height; ++y)
+                    {
+                        for (int z = 0; z < length; ++z)
+                        {
+                            int rowStart = (y << 8) | (z << 4);
+
+                            for (int i = rowStart; i < rowStart + width; ++i)
+                            {
+                                // Treat any stale out-of-palette IDs as air
+                                int id = ids[i] < fullPaletteSize ? ids[i] : 0;
+
+                                if (idMapStamps[id] != stamp)
+                                {
+                                    IBlockState state = fullPalette.getBlockState(id);
+                                    idMap[id] = sectionPalette.idFor(state != null ? state : AIR_BLOCK_STATE);
+                                    idMapStamps[id] = stamp;
+                                }
+
+                                ids[i] = idMap[id];
+                            }
+                        }
+                    }
+
+                    section.setSectionIds(0, 0, 0, ids);
+                    section.checkForFreedIds = true;
+                    container.sections[sectionIndex] = section;
+                    container.uniformStates[sectionIndex] = null;
+                }
+            }
+        }
+
+        return container;
+    }
+
+    /**
+     * Reads the IDs of the given section into the provided array.
+     * @return the single ID that the section consists of, or -1 if the section has more than one ID
+     */
+    protected static int getSectionIdsAndCheckUniform(LitematicaBlockStateContainerFull fullContainer,
+                                                      int sectionX, int sectionY, int sectionZ,
+                                                      int width, int height, int length, int[] ids)
+    {
+        fullContainer.getSectionIds(sectionX, sectionY, sectionZ, ids);
+
+        final int firstId = ids[0];
+
+        for (int y = 0; y < height; ++y)
+        {
+            for (int z = 0; z < length; ++z)
+            {
+                int rowStart = (y << 8) | (z << 4);
+
+                for (int i = rowStart; i < rowStart + width; ++i)
+                {
+                    if (ids[i] != firstId)
+                    {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        return firstId;
+    }
+}
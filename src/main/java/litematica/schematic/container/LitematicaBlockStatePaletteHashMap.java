@@ -12,6 +12,7 @@ public class LitematicaBlockStatePaletteHashMap implements ILitematicaBlockState
     protected final IntIdentityHashBiMap<IBlockState> statePaletteMap;
     protected final IPaletteResizeHandler paletteResizer;
     protected final int bits;
+    protected int mappingVersion;
 
     public LitematicaBlockStatePaletteHashMap(int bitsIn, IPaletteResizeHandler paletteResizer)
     {
@@ -76,6 +77,8 @@ public class LitematicaBlockStatePaletteHashMap implements ILitematicaBlockState
             this.statePaletteMap.add(list.get(id));
         }
 
+        ++this.mappingVersion;
+
         return true;
     }
 
@@ -95,6 +98,12 @@ public class LitematicaBlockStatePaletteHashMap implements ILitematicaBlockState
         return false;
     }
 
+    @Override
+    public int getMappingVersion()
+    {
+        return this.mappingVersion;
+    }
+
     @Override
     public LitematicaBlockStatePaletteHashMap copy(IPaletteResizeHandler resizeHandler)
     {
@@ -12,6 +12,7 @@ public class LitematicaBlockStatePaletteLinear implements ILitematicaBlockStateP
     private final IPaletteResizeHandler paletteResizer;
     private final int bits;
     private int currentSize;
+    private int mappingVersion;
 
     public LitematicaBlockStatePaletteLinear(int bitsIn, IPaletteResizeHandler paletteResizer)
     {
@@ -84,6 +85,7 @@ public class LitematicaBlockStatePaletteLinear implements ILitematicaBlockStateP
             }
 
             this.currentSize = size;
+            ++this.mappingVersion;
 
             return true;
         }
@@ -97,12 +99,19 @@ public class LitematicaBlockStatePaletteLinear implements ILitematicaBlockStateP
         if (id >= 0 && id < this.states.length)
         {
             this.states[id] = state;
+            ++this.mappingVersion;
             return true;
         }
 
         return false;
     }
 
+    @Override
+    public int getMappingVersion()
+    {
+        return this.mappingVersion;
+    }
+
     @Override
     public LitematicaBlockStatePaletteLinear copy(IPaletteResizeHandler resizeHandler)
     {
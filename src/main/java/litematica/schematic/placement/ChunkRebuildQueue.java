@@ -0,0 +1,221 @@
+package litematica.schematic.placement;
+
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+
+import net.minecraft.client.renderer.culling.ICamera;
+import net.minecraft.util.math.AxisAlignedBB;
+
+import malilib.util.position.ChunkPos;
+import malilib.util.position.PositionUtils;
+
+/**
+ * The queue of schematic chunks waiting to be (re-)built into the schematic world.
+ * The chunks are handed out in priority order, so that the chunks that are inside
+ * the view frustum are built first, and within both groups the chunks closest
+ * to the camera are built first. The order is only re-sorted when the queue changes,
+ * when the camera moves to another chunk, or periodically to follow the camera rotation.
+ * This also keeps track of some throughput statistics for the debug screen.
+ */
+public class ChunkRebuildQueue
+{
+    protected static final int RESORT_INTERVAL_TICKS = 10;
+    protected static final long OUTSIDE_FRUSTUM_PRIORITY = 1L << 62;
+
+    protected final LongOpenHashSet pendingChunks = new LongOpenHashSet();
+    protected long[] orderedChunks = new long[0];
+    protected long[] sortKeys = new long[0];
+    protected int orderedChunkCount;
+    protected int nextIndex;
+    protected boolean needsSorting;
+    protected long lastSortCameraChunk = Long.MIN_VALUE;
+    protected int ticksSinceSort;
+
+    protected int processedThisTick;
+    protected int processedLastTick;
+    protected long tickStartTime;
+    protected long usedNanosLastTick;
+    protected int processedThisSecond;
+    protected int processedPerSecond;
+    protected long secondStartTime;
+
+    public boolean isEmpty()
+    {
+        return this.pendingChunks.isEmpty();
+    }
+
+    public int size()
+    {
+        return this.pendingChunks.size();
+    }
+
+    public boolean contains(long chunkPosLong)
+    {
+        return this.pendingChunks.contains(chunkPosLong);
+    }
+
+    public void add(long chunkPosLong)
+    {
+        if (this.pendingChunks.add(chunkPosLong))
+        {
+            this.needsSorting = true;
+        }
+    }
+
+    public void addAll(LongSet chunks)
+    {
+        if (this.pendingChunks.addAll(chunks))
+        {
+            this.needsSorting = true;
+        }
+    }
+
+    public void remove(long chunkPosLong)
+    {
+        // The ordered array is not touched here, removed chunks are just skipped
+        this.pendingChunks.remove(chunkPosLong);
+    }
+
+    public void clear()
+    {
+        this.pendingChunks.clear();
+        this.orderedChunkCount = 0;
+        this.nextIndex = 0;
+        this.needsSorting = false;
+    }
+
+    /**
+     * Prepares the queue for processing chunks during the current tick,
+     * by re-sorting the queue if needed.
+     * @param cameraX the camera x-position
+     * @param cameraZ the camera z-position
+     * @param camera the current view frustum, or null if it is not available
+     */
+    public void startTick(double cameraX, double cameraZ, @Nullable ICamera camera)
+    {
+        this.tickStartTime = System.nanoTime();
+        this.processedThisTick = 0;
+
+        int cameraChunkX = ((int) Math.floor(cameraX)) >> 4;
+        int cameraChunkZ = ((int) Math.floor(cameraZ)) >> 4;
+        long cameraChunk = ChunkPos.asLong(cameraChunkX, cameraChunkZ);
+
+        if (this.needsSorting ||
+            cameraChunk != this.lastSortCameraChunk ||
+            ++this.ticksSinceSort >= RESORT_INTERVAL_TICKS)
+        {
+            this.sort(cameraChunkX, cameraChunkZ, camera);
+            this.lastSortCameraChunk = cameraChunk;
+            this.ticksSinceSort = 0;
+            this.needsSorting = false;
+        }
+        else
+        {
+            // Start from the highest priority chunks again, the chunks that
+            // couldn't be built yet during the previous tick are still in the queue
+            this.nextIndex = 0;
+        }
+    }
+
+    /**
+     * @return the next pending chunk in the priority order, or {@code Long.MIN_VALUE}
+     *         if there are no more pending chunks to process during this tick
+     */
+    public long next()
+    {
+        while (this.nextIndex < this.orderedChunkCount)
+        {
+            long chunkPosLong = this.orderedChunks[this.nextIndex++];
+
+            if (this.pendingChunks.contains(chunkPosLong))
+            {
+                return chunkPosLong;
+            }
+        }
+
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Removes the given chunk from the queue, and counts it as processed
+     */
+    public void onChunkProcessed(long chunkPosLong)
+    {
+        if (this.pendingChunks.remove(chunkPosLong))
+        {
+            ++this.processedThisTick;
+            ++this.processedThisSecond;
+        }
+    }
+
+    public void endTick()
+    {
+        long currentTime = System.nanoTime();
+
+        this.processedLastTick = this.processedThisTick;
+        this.usedNanosLastTick = currentTime - this.tickStartTime;
+
+        if (currentTime - this.secondStartTime >= 1000000000L)
+        {
+            this.processedPerSecond = this.processedThisSecond;
+            this.processedThisSecond = 0;
+            this.secondStartTime = currentTime;
+        }
+    }
+
+    public String getDebugInfo()
+    {
+        return String.format("Chunk rebuilds - Q: %d, last tick: %d in %.2f ms, rate: %d/s",
+                             this.pendingChunks.size(), this.processedLastTick,
+                             (double) this.usedNanosLastTick / 1000000.0, this.processedPerSecond);
+    }
+
+    protected void sort(int cameraChunkX, int cameraChunkZ, @Nullable ICamera camera)
+    {
+        final int count = this.pendingChunks.size();
+
+        if (this.orderedChunks.length < count)
+        {
+            this.orderedChunks = new long[count];
+            this.sortKeys = new long[count];
+        }
+
+        final long[] chunks = this.orderedChunks;
+        final long[] keys = this.sortKeys;
+        int i = 0;
+
+        for (long chunkPosLong : this.pendingChunks)
+        {
+            int chunkX = PositionUtils.getChunkPosX(chunkPosLong);
+            int chunkZ = PositionUtils.getChunkPosZ(chunkPosLong);
+            long dx = chunkX - cameraChunkX;
+            long dz = chunkZ - cameraChunkZ;
+            long key = dx * dx + dz * dz;
+
+            if (camera != null && isChunkInFrustum(camera, chunkX, chunkZ) == false)
+            {
+                key += OUTSIDE_FRUSTUM_PRIORITY;
+            }
+
+            chunks[i] = chunkPosLong;
+            keys[i] = key;
+            ++i;
+        }
+
+        it.unimi.dsi.fastutil.Arrays.quickSort(0, count, (a, b) -> Long.compare(keys[a], keys[b]), (a, b) -> {
+            long tmp = keys[a]; keys[a] = keys[b]; keys[b] = tmp;
+            tmp = chunks[a]; chunks[a] = chunks[b]; chunks[b] = tmp;
+        });
+
+        this.orderedChunkCount = count;
+        this.nextIndex = 0;
+    }
+
+    protected static boolean isChunkInFrustum(ICamera camera, int chunkX, int chunkZ)
+    {
+        double x = chunkX << 4;
+        double z = chunkZ << 4;
+        return camera.isBoundingBoxInFrustum(new AxisAlignedBB(x, 0, z, x + 16, 256, z + 16));
+    }
+}
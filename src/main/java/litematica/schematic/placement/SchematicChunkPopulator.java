@@ -0,0 +1,193 @@
+package litematica.schematic.placement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.apache.commons.lang3.tuple.Pair;
+
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import malilib.util.position.ChunkPos;
+import malilib.util.position.PositionUtils;
+import litematica.Litematica;
+import litematica.schematic.util.SchematicPlacingUtils;
+import litematica.schematic.util.SchematicPlacingUtils.PendingBlockEntity;
+
+/**
+ * Populates the block storage arrays of the schematic world chunks on worker threads.
+ * The placement data and the blocks are copied into immutable {@link SubRegionChunkSnapshot}s
+ * on the main thread when the chunk is submitted, so the worker threads only read those snapshots,
+ * and write into detached block storage arrays.
+ * These are then swapped into the schematic world chunks on the main thread
+ * by the {@link SchematicPlacementManager}, if the placement data hasn't changed in the meantime.
+ * If a chunk is submitted again while the previous population is still running,
+ * then the previous result is discarded.
+ */
+public class SchematicChunkPopulator
+{
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(getThreadCount(),
+            new ThreadFactoryBuilder().setNameFormat("Litematica Chunk Populator %d").setDaemon(true).build());
+
+    protected final Long2ObjectOpenHashMap<CompletableFuture<PopulatedChunk>> pendingChunks = new Long2ObjectOpenHashMap<>();
+    protected final Queue<Pair<Long, CompletableFuture<PopulatedChunk>>> completedChunks = new ConcurrentLinkedQueue<>();
+
+    public boolean isEmpty()
+    {
+        return this.pendingChunks.isEmpty();
+    }
+
+    public int size()
+    {
+        return this.pendingChunks.size();
+    }
+
+    public boolean isPending(long chunkPosLong)
+    {
+        return this.pendingChunks.containsKey(chunkPosLong);
+    }
+
+    /**
+     * Starts populating the given chunk from the given placements on a worker thread.
+     * Any previous still running population of the same chunk will be discarded.
+     * This must be called on the main thread.
+     */
+    public void submit(long chunkPosLong, List<SchematicPlacement> placements)
+    {
+        final List<SubRegionChunkSnapshot> snapshots = captureSnapshots(chunkPosLong, placements, true);
+        CompletableFuture<PopulatedChunk> future = CompletableFuture.supplyAsync(() -> populateChunk(chunkPosLong, snapshots), EXECUTOR);
+        CompletableFuture<PopulatedChunk> oldFuture = this.pendingChunks.put(chunkPosLong, future);
+        future.whenComplete((result, error) -> this.completedChunks.add(Pair.of(chunkPosLong, future)));
+
+        if (oldFuture != null)
+        {
+            oldFuture.cancel(false);
+        }
+    }
+
+    public void cancel(long chunkPosLong)
+    {
+        CompletableFuture<PopulatedChunk> future = this.pendingChunks.remove(chunkPosLong);
+
+        if (future != null)
+        {
+            future.cancel(false);
+        }
+    }
+
+    public void clear()
+    {
+        for (CompletableFuture<PopulatedChunk> future : this.pendingChunks.values())
+        {
+            future.cancel(false);
+        }
+
+        this.pendingChunks.clear();
+        this.completedChunks.clear();
+    }
+
+    /**
+     * Removes and returns the next finished chunk population, if any.
+     * Failed populations are logged and returned with a null block storage array,
+     * so that the caller can fall back to populating the chunk on the main thread.
+     */
+    @Nullable
+    public PopulatedChunk pollCompleted()
+    {
+        Pair<Long, CompletableFuture<PopulatedChunk>> entry;
+
+        while ((entry = this.completedChunks.poll()) != null)
+        {
+            long chunkPosLong = entry.getLeft();
+            CompletableFuture<PopulatedChunk> future = entry.getRight();
+
+            // Skip any cancelled or superseded populations
+            if (this.pendingChunks.get(chunkPosLong) != future)
+            {
+                continue;
+            }
+
+            this.pendingChunks.remove(chunkPosLong);
+
+            try
+            {
+                return future.join();
+            }
+            catch (Exception e)
+            {
+                Litematica.LOGGER.warn("Failed to populate the schematic chunk at [{}, {}] off-thread",
+                                       PositionUtils.getChunkPosX(chunkPosLong), PositionUtils.getChunkPosZ(chunkPosLong), e);
+                return new PopulatedChunk(chunkPosLong, null, new ArrayList<>(), Collections.emptyList());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Captures the placement data of all the enabled placements within the given chunk.
+     * This must be called on the main thread.
+     * @param copyBlocks if false, then the snapshots can only be used for checking whether the placement data has changed
+     */
+    public static List<SubRegionChunkSnapshot> captureSnapshots(long chunkPosLong, List<SchematicPlacement> placements, boolean copyBlocks)
+    {
+        ChunkPos chunkPos = new ChunkPos(PositionUtils.getChunkPosX(chunkPosLong), PositionUtils.getChunkPosZ(chunkPosLong));
+        List<SubRegionChunkSnapshot> snapshots = new ArrayList<>();
+
+        for (SchematicPlacement placement : placements)
+        {
+            if (placement.isEnabled() && placement.isSchematicLoaded())
+            {
+                SchematicPlacingUtils.getSubRegionChunkSnapshots(placement, chunkPos, snapshots, copyBlocks);
+            }
+        }
+
+        return snapshots;
+    }
+
+    protected static PopulatedChunk populateChunk(long chunkPosLong, List<SubRegionChunkSnapshot> snapshots)
+    {
+        ExtendedBlockStorage[] storages = new ExtendedBlockStorage[16];
+        List<PendingBlockEntity> blockEntities = new ArrayList<>();
+
+        for (SubRegionChunkSnapshot snapshot : snapshots)
+        {
+            SchematicPlacingUtils.placeBlocksWithinChunkToStorage(storages, blockEntities, snapshot);
+        }
+
+        SchematicPlacingUtils.releaseEmptyStorages(storages);
+
+        return new PopulatedChunk(chunkPosLong, storages, blockEntities, snapshots);
+    }
+
+    private static int getThreadCount()
+    {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public static class PopulatedChunk
+    {
+        public final long chunkPosLong;
+        /** The populated block storage array, or null if the population failed */
+        @Nullable public final ExtendedBlockStorage[] storages;
+        public final List<PendingBlockEntity> blockEntities;
+        /** The placement data that the chunk was populated from */
+        public final List<SubRegionChunkSnapshot> snapshots;
+
+        public PopulatedChunk(long chunkPosLong, @Nullable ExtendedBlockStorage[] storages,
+                              List<PendingBlockEntity> blockEntities, List<SubRegionChunkSnapshot> snapshots)
+        {
+            this.chunkPosLong = chunkPosLong;
+            this.storages = storages;
+            this.blockEntities = blockEntities;
+            this.snapshots = snapshots;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.JsonArray;
@@ -40,6 +41,7 @@ public class SchematicPlacement extends BasePlacement
 
     protected final Map<String, SubRegionPlacement> subRegionPlacements = new HashMap<>();
     protected final Map<String, SubRegionPlacement> modifiedSubRegions = new HashMap<>();
+    protected final Map<String, SubRegionTransform> subRegionTransforms = new ConcurrentHashMap<>();
 
     @Nullable protected Path schematicFile;
     @Nullable protected ISchematic schematic;
@@ -296,6 +298,28 @@ public class SchematicPlacement extends BasePlacement
         return this.subRegionPlacements.get(areaName);
     }
 
+    /**
+     * Returns the cached rotation and mirror transform of the given sub-region,
+     * re-creating it if the rotation or mirror values have changed since it was created.
+     */
+    public SubRegionTransform getSubRegionTransform(SubRegionPlacement placement)
+    {
+        SubRegionTransform transform = this.subRegionTransforms.get(placement.getName());
+
+        if (transform == null || transform.matches(this, placement) == false)
+        {
+            transform = new SubRegionTransform(this, placement);
+            this.subRegionTransforms.put(placement.getName(), transform);
+        }
+
+        return transform;
+    }
+
+    public void invalidateSubRegionTransforms()
+    {
+        this.subRegionTransforms.clear();
+    }
+
     public List<SubRegionPlacement> getAllSubRegions()
     {
         return new ArrayList<>(this.subRegionPlacements.values());
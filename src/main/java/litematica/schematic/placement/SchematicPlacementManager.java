@@ -15,13 +15,14 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
 
 import net.minecraft.client.multiplayer.WorldClient;
+import net.minecraft.client.renderer.culling.ICamera;
 import net.minecraft.entity.Entity;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
 
 import malilib.config.value.LayerMode;
 import malilib.listener.EventListener;
@@ -55,7 +56,6 @@ import litematica.util.PositionUtils;
 import litematica.util.RayTraceUtils;
 import litematica.util.RayTraceUtils.RayTraceWrapper;
 import litematica.util.RayTraceUtils.RayTraceWrapper.HitType;
-import litematica.util.value.ReplaceBehavior;
 import litematica.world.WorldSchematic;
 
 public class SchematicPlacementManager
@@ -66,7 +66,8 @@ public class SchematicPlacementManager
     protected final Long2ObjectOpenHashMap<List<SchematicPlacement>> placementsTouchingChunk = new Long2ObjectOpenHashMap<>();
     protected final ArrayListMultimap<ChunkSectionPos, PlacementPart> touchedVolumesInSubChunk = ArrayListMultimap.create();
 
-    protected final LongSet chunksToRebuild = new LongOpenHashSet();
+    protected final ChunkRebuildQueue chunksToRebuild = new ChunkRebuildQueue();
+    protected final SchematicChunkPopulator chunkPopulator = new SchematicChunkPopulator();
     protected final LongSet chunksToUnload = new LongOpenHashSet();
     protected final LongSet chunksPreChange = new LongOpenHashSet();
 
@@ -93,6 +94,7 @@ public class SchematicPlacementManager
         this.touchedVolumesInSubChunk.clear();
         this.chunksPreChange.clear();
         this.chunksToRebuild.clear();
+        this.chunkPopulator.clear();
         this.chunksToUnload.clear();
 
         SchematicHolder.getInstance().clearLoadedSchematics();
@@ -100,12 +102,18 @@ public class SchematicPlacementManager
 
     public boolean hasPendingRebuilds()
     {
-        return this.chunksToRebuild.isEmpty() == false;
+        return this.chunksToRebuild.isEmpty() == false || this.chunkPopulator.isEmpty() == false;
     }
 
     public boolean hasPendingRebuildForChunk(int chunkX, int chunkZ)
     {
-        return this.chunksToRebuild.contains(ChunkPos.asLong(chunkX, chunkZ));
+        long chunkPosLong = ChunkPos.asLong(chunkX, chunkZ);
+        return this.chunksToRebuild.contains(chunkPosLong) || this.chunkPopulator.isPending(chunkPosLong);
+    }
+
+    public String getChunkRebuildDebugInfo()
+    {
+        return this.chunksToRebuild.getDebugInfo() + ", populating: " + this.chunkPopulator.size();
     }
 
     public void addRebuildListener(EventListener listener)
@@ -131,6 +139,7 @@ public class SchematicPlacementManager
             {
                 for (long chunkPosLong : this.chunksToUnload)
                 {
+                    this.chunkPopulator.cancel(chunkPosLong);
                     this.unloadSchematicChunk(schematicWorld, chunkPosLong);
                 }
             }
@@ -139,83 +148,203 @@ public class SchematicPlacementManager
         }
 
         //System.out.printf("processQueuedChunks, size: %d\n", this.chunksToRebuild.size());
-        if (this.chunksToRebuild.isEmpty() == false)
+        if (this.chunksToRebuild.isEmpty() == false || this.chunkPopulator.isEmpty() == false)
         {
             WorldClient clientWorld = GameWrap.getClientWorld();
 
             if (clientWorld == null)
             {
                 this.chunksToRebuild.clear();
+                this.chunkPopulator.clear();
                 return true;
             }
 
             WorldSchematic schematicWorld = this.worldSupplier.get();
-            LongIterator it = this.chunksToRebuild.iterator();
+            Entity cameraEntity = GameWrap.getCameraEntity();
+            ICamera camera = LitematicaRenderer.getInstance().getWorldRenderer().getLastCamera();
+            final boolean offThread = Configs.Generic.OFF_THREAD_CHUNK_POPULATION.getBooleanValue();
+            final long timeBudget = Configs.Generic.CHUNK_REBUILD_TIME_BUDGET.getIntegerValue() * 1000000L;
+            final long startTime = System.nanoTime();
+
+            if (cameraEntity != null)
+            {
+                this.chunksToRebuild.startTick(EntityWrap.getX(cameraEntity), EntityWrap.getZ(cameraEntity), camera);
+            }
+            else
+            {
+                this.chunksToRebuild.startTick(0.0, 0.0, null);
+            }
+
+            // First swap in the chunks that have been populated on the worker threads
+            this.applyPopulatedChunks(schematicWorld, clientWorld, startTime, timeBudget);
 
-            while (it.hasNext())
+            while (System.nanoTime() - startTime < timeBudget)
             {
-                if ((System.nanoTime() - DataManager.getClientTickStartTime()) >= 50000000L)
+                long chunkPosLong = this.chunksToRebuild.next();
+
+                if (chunkPosLong == Long.MIN_VALUE)
                 {
                     break;
                 }
 
-                long chunkPosLong = it.next();
-
                 if (this.placementsTouchingChunk.containsKey(chunkPosLong) == false)
                 {
-                    it.remove();
+                    this.chunksToRebuild.remove(chunkPosLong);
                     continue;
                 }
 
                 int chunkX = malilib.util.position.PositionUtils.getChunkPosX(chunkPosLong);
                 int chunkZ = malilib.util.position.PositionUtils.getChunkPosZ(chunkPosLong);
 
-                if (Configs.Generic.LOAD_ENTIRE_SCHEMATICS.getBooleanValue() ||
-                    WorldWrap.isClientChunkLoaded(chunkX, chunkZ, clientWorld))
+                if (offThread)
                 {
-                    // Wipe the old chunk if it exists
-                    if (WorldWrap.isClientChunkLoaded(chunkX, chunkZ, schematicWorld))
+                    // The old chunk contents are kept until the new contents are ready to be swapped in
+                    if (this.shouldLoadSchematicChunk(chunkX, chunkZ, clientWorld) ||
+                        WorldWrap.isClientChunkLoaded(chunkX, chunkZ, schematicWorld))
                     {
-                        //System.out.printf("wiping chunk at %s\n", pos);
-                        this.unloadSchematicChunk(schematicWorld, chunkX, chunkZ);
+                        this.chunkPopulator.submit(chunkPosLong, this.placementsTouchingChunk.get(chunkPosLong));
+                        this.chunksToRebuild.onChunkProcessed(chunkPosLong);
                     }
 
-                    //System.out.printf("loading chunk at %s\n", pos);
-                    WorldWrap.loadClientChunk(chunkX, chunkZ, schematicWorld);
+                    continue;
                 }
 
+                this.reloadSchematicChunkIfNeeded(schematicWorld, clientWorld, chunkX, chunkZ);
+
                 if (WorldWrap.isClientChunkLoaded(chunkX, chunkZ, schematicWorld))
                 {
                     //System.out.printf("placing at %s\n", pos);
-                    List<SchematicPlacement> placements = this.placementsTouchingChunk.get(chunkPosLong);
-
-                    if (placements != null)
-                    {
-                        for (SchematicPlacement placement : placements)
-                        {
-                            if (placement.isEnabled() && placement.isSchematicLoaded())
-                            {
-                                SchematicPlacingUtils.placeToWorldWithinChunk(placement, new ChunkPos(chunkX, chunkZ),
-                                                                              schematicWorld, ReplaceBehavior.ALL, false);
-                            }
-                        }
-
-                        schematicWorld.markBlockRangeForRenderUpdate( chunkX << 4      ,   0,  chunkZ << 4,
-                                                                     (chunkX << 4) + 15, 256, (chunkZ << 4) + 15);
-                    }
-
-                    it.remove();
+                    this.placeSchematicChunk(schematicWorld, chunkPosLong);
+                    this.chunksToRebuild.onChunkProcessed(chunkPosLong);
                 }
             }
 
+            this.chunksToRebuild.endTick();
+
             LitematicaRenderer.getInstance().getWorldRenderer().markNeedsUpdate();
 
-            return this.chunksToRebuild.isEmpty();
+            return this.chunksToRebuild.isEmpty() && this.chunkPopulator.isEmpty();
         }
 
         return false;
     }
 
+    protected boolean shouldLoadSchematicChunk(int chunkX, int chunkZ, WorldClient clientWorld)
+    {
+        return Configs.Generic.LOAD_ENTIRE_SCHEMATICS.getBooleanValue() ||
+               WorldWrap.isClientChunkLoaded(chunkX, chunkZ, clientWorld);
+    }
+
+    /**
+     * Wipes the old schematic chunk, if it exists, and loads a new empty chunk in its place,
+     * if the schematic chunk should be loaded or is already loaded.
+     * The existing chunks are always reloaded, because the blocks are written directly
+     * into the block storage arrays, which would leave the old block entities in place.
+     */
+    protected void reloadSchematicChunkIfNeeded(WorldSchematic schematicWorld, WorldClient clientWorld, int chunkX, int chunkZ)
+    {
+        if (this.shouldLoadSchematicChunk(chunkX, chunkZ, clientWorld) ||
+            WorldWrap.isClientChunkLoaded(chunkX, chunkZ, schematicWorld))
+        {
+            // Wipe the old chunk if it exists
+            if (WorldWrap.isClientChunkLoaded(chunkX, chunkZ, schematicWorld))
+            {
+                //System.out.printf("wiping chunk at %s\n", pos);
+                this.unloadSchematicChunk(schematicWorld, chunkX, chunkZ);
+            }
+
+            //System.out.printf("loading chunk at %s\n", pos);
+            WorldWrap.loadClientChunk(chunkX, chunkZ, schematicWorld);
+        }
+    }
+
+    /**
+     * Places all the placements touching the given chunk into the schematic world on the main thread.
+     * The chunk must have just been (re-)loaded, as the blocks are written directly into its block storage arrays.
+     */
+    protected void placeSchematicChunk(WorldSchematic schematicWorld, long chunkPosLong)
+    {
+        List<SchematicPlacement> placements = this.placementsTouchingChunk.get(chunkPosLong);
+
+        if (placements != null)
+        {
+            int chunkX = malilib.util.position.PositionUtils.getChunkPosX(chunkPosLong);
+            int chunkZ = malilib.util.position.PositionUtils.getChunkPosZ(chunkPosLong);
+            Chunk chunk = schematicWorld.getChunk(chunkX, chunkZ);
+
+            SchematicPlacingUtils.placeToChunkDirect(placements, chunk, schematicWorld);
+
+            schematicWorld.markBlockRangeForRenderUpdate( chunkX << 4      ,   0,  chunkZ << 4,
+                                                         (chunkX << 4) + 15, 256, (chunkZ << 4) + 15);
+        }
+    }
+
+    /**
+     * Swaps the block storage arrays populated on the worker threads into the
+     * schematic world chunks, and creates the block entities and entities for them.
+     * If the population failed, then the chunk is placed on the main thread instead.
+     * If the placement data has changed since the population was submitted,
+     * then the result is dropped and the chunk is queued for a rebuild.
+     */
+    protected void applyPopulatedChunks(WorldSchematic schematicWorld, WorldClient clientWorld, long startTime, long timeBudget)
+    {
+        SchematicChunkPopulator.PopulatedChunk populatedChunk;
+
+        while (System.nanoTime() - startTime < timeBudget &&
+               (populatedChunk = this.chunkPopulator.pollCompleted()) != null)
+        {
+            long chunkPosLong = populatedChunk.chunkPosLong;
+            List<SchematicPlacement> placements = this.placementsTouchingChunk.get(chunkPosLong);
+
+            if (placements == null)
+            {
+                continue;
+            }
+
+            // The old chunk contents are kept until the chunk has been re-populated with the current placement data
+            if (populatedChunk.storages != null &&
+                populatedChunk.snapshots.equals(SchematicChunkPopulator.captureSnapshots(chunkPosLong, placements, false)) == false)
+            {
+                this.chunksToRebuild.add(chunkPosLong);
+                continue;
+            }
+
+            int chunkX = malilib.util.position.PositionUtils.getChunkPosX(chunkPosLong);
+            int chunkZ = malilib.util.position.PositionUtils.getChunkPosZ(chunkPosLong);
+
+            this.reloadSchematicChunkIfNeeded(schematicWorld, clientWorld, chunkX, chunkZ);
+
+            if (WorldWrap.isClientChunkLoaded(chunkX, chunkZ, schematicWorld) == false)
+            {
+                continue;
+            }
+
+            if (populatedChunk.storages == null)
+            {
+                this.placeSchematicChunk(schematicWorld, chunkPosLong);
+                continue;
+            }
+
+            ChunkPos chunkPos = new ChunkPos(chunkX, chunkZ);
+            Chunk chunk = schematicWorld.getChunk(chunkX, chunkZ);
+            chunk.setStorageArrays(populatedChunk.storages);
+            chunk.markDirty();
+
+            SchematicPlacingUtils.createPendingBlockEntities(schematicWorld, populatedChunk.blockEntities);
+
+            for (SchematicPlacement placement : placements)
+            {
+                if (placement.isEnabled() && placement.isSchematicLoaded())
+                {
+                    SchematicPlacingUtils.placeEntitiesToWorldWithinChunk(placement, chunkPos, schematicWorld);
+                }
+            }
+
+            schematicWorld.markBlockRangeForRenderUpdate( chunkX << 4      ,   0,  chunkZ << 4,
+                                                         (chunkX << 4) + 15, 256, (chunkZ << 4) + 15);
+        }
+    }
+
     public void onClientChunkUnload(int chunkX, int chunkZ)
     {
         if (Configs.Generic.LOAD_ENTIRE_SCHEMATICS.getBooleanValue() == false)
@@ -224,6 +353,7 @@ public class SchematicPlacementManager
 
             if (schematicWorld != null)
             {
+                this.chunkPopulator.cancel(ChunkPos.asLong(chunkX, chunkZ));
                 this.unloadSchematicChunk(schematicWorld, chunkX, chunkZ);
                 this.chunksToRebuild.add(ChunkPos.asLong(chunkX, chunkZ));
             }
@@ -740,6 +870,7 @@ public class SchematicPlacementManager
 
         this.onPrePlacementChange(placement);
         placement.setRotation(rotation);
+        placement.invalidateSubRegionTransforms();
         this.onPlacementModified(placement);
     }
 
@@ -758,6 +889,7 @@ public class SchematicPlacementManager
 
         this.onPrePlacementChange(placement);
         placement.setMirror(mirror);
+        placement.invalidateSubRegionTransforms();
         this.onPlacementModified(placement);
     }
 
@@ -811,11 +943,13 @@ public class SchematicPlacementManager
     public void setSubRegionRotation(SchematicPlacement placement, String regionName, BlockRotation rotation)
     {
         this.modifyPlacementRegion(placement, regionName, reg -> reg.rotation = rotation, true);
+        placement.invalidateSubRegionTransforms();
     }
 
     public void setSubRegionMirror(SchematicPlacement placement, String regionName, BlockMirror mirror)
     {
         this.modifyPlacementRegion(placement, regionName, reg -> reg.mirror = mirror, true);
+        placement.invalidateSubRegionTransforms();
     }
 
     public void resetSubRegionToSchematicValues(SchematicPlacement placement, String regionName)
@@ -966,6 +1100,8 @@ public class SchematicPlacementManager
         {
             if (placement.getSchematic() == schematic)
             {
+                // The schematic's contents have changed, so don't re-use any cached transformed states
+                placement.invalidateSubRegionTransforms();
                 this.markChunksForRebuild(placement);
             }
         }
@@ -984,6 +1120,15 @@ public class SchematicPlacementManager
         //System.out.printf("rebuilding %d chunks: %s\n", chunks.size(), chunks);
         this.chunksToRebuild.addAll(chunks);
 
+        // Discard any populations still running with the old placement data
+        if (this.chunkPopulator.isEmpty() == false)
+        {
+            for (long chunkPosLong : chunks)
+            {
+                this.chunkPopulator.cancel(chunkPosLong);
+            }
+        }
+
         for (EventListener listener : this.rebuildListeners)
         {
             listener.onEvent();
@@ -993,6 +1138,7 @@ public class SchematicPlacementManager
     public void markChunkForRebuild(long chunkPosLong)
     {
         this.chunksToRebuild.add(chunkPosLong);
+        this.chunkPopulator.cancel(chunkPosLong);
     }
 
     public boolean changeSelection(World world, Entity cameraEntity, int maxDistance)
@@ -0,0 +1,229 @@
+package litematica.schematic.placement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.nbt.NBTTagCompound;
+
+import malilib.util.game.wrap.NbtWrap;
+import malilib.util.position.BlockPos;
+import malilib.util.position.IntBoundingBox;
+import litematica.schematic.container.ILitematicaBlockStateContainer;
+import litematica.schematic.container.LitematicaBlockStateContainerFull;
+
+/**
+ * The placement data of one sub-region within one chunk, captured on the main thread.
+ * The block states and the block entity data within the chunk are copied into the snapshot,
+ * so that the blocks can be placed from this data on a worker thread, without reading
+ * the live block state container or block entity map, which may be edited in the meantime.
+ * Two snapshots are equal if they were captured from the same container
+ * with the same transform and world position.
+ */
+public class SubRegionChunkSnapshot
+{
+    protected static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    public final String regionName;
+    /** The source container, only used for checking whether the placement data has changed */
+    public final ILitematicaBlockStateContainer container;
+    /** The source block entity map, only used for checking whether the placement data has changed */
+    public final Map<BlockPos, NBTTagCompound> blockEntityMap;
+    public final SubRegionTransform transform;
+    /** The range of the container within the chunk, in the container's own untransformed coordinates */
+    public final IntBoundingBox range;
+    /** The world position of the container's (0, 0, 0) position */
+    public final BlockPos containerOrigin;
+    protected final int width;
+    protected final int length;
+    /** The ids of the blocks within the range, or null if the blocks were not copied */
+    @Nullable protected final int[] ids;
+    /** The transformed block states by the ids, with structure voids as null */
+    @Nullable protected final IBlockState[] states;
+    /** Copies of the block entity data within the range, by their container positions */
+    protected final Map<BlockPos, NBTTagCompound> blockEntities;
+
+    /**
+     * @param copyBlocks if false, then the blocks are not copied, and the snapshot
+     *                   can only be used for checking whether the placement data has changed
+     */
+    public SubRegionChunkSnapshot(String regionName, ILitematicaBlockStateContainer container,
+                                  Map<BlockPos, NBTTagCompound> blockEntityMap, SubRegionTransform transform,
+                                  IntBoundingBox range, BlockPos containerOrigin, boolean copyBlocks)
+    {
+        this.regionName = regionName;
+        this.container = container;
+        this.blockEntityMap = blockEntityMap;
+        this.transform = transform;
+        this.range = range;
+        this.containerOrigin = containerOrigin;
+        this.width = range.maxX - range.minX + 1;
+        this.length = range.maxZ - range.minZ + 1;
+
+        if (copyBlocks)
+        {
+            this.ids = new int[this.width * this.length * (range.maxY - range.minY + 1)];
+            this.states = this.copyBlocks(container, transform, range, this.ids);
+            this.blockEntities = copyBlockEntities(blockEntityMap, range, this.ids.length);
+        }
+        else
+        {
+            this.ids = null;
+            this.states = null;
+            this.blockEntities = new HashMap<>();
+        }
+    }
+
+    /**
+     * @return the transformed block state at the given container position within the range,
+     *         or null if the position has a structure void
+     */
+    @Nullable
+    public IBlockState getBlockState(int x, int y, int z)
+    {
+        int index = ((y - this.range.minY) * this.length + (z - this.range.minZ)) * this.width + (x - this.range.minX);
+        int id = this.ids[index];
+
+        return id < this.states.length ? this.states[id] : AIR;
+    }
+
+    public boolean hasBlockEntities()
+    {
+        return this.blockEntities.isEmpty() == false;
+    }
+
+    @Nullable
+    public NBTTagCompound getBlockEntityData(BlockPos pos)
+    {
+        return this.blockEntities.get(pos);
+    }
+
+    protected IBlockState[] copyBlocks(ILitematicaBlockStateContainer container, SubRegionTransform transform,
+                                       IntBoundingBox range, int[] ids)
+    {
+        int index = 0;
+
+        if (container instanceof LitematicaBlockStateContainerFull)
+        {
+            LitematicaBlockStateContainerFull fullContainer = (LitematicaBlockStateContainerFull) container;
+
+            for (int y = range.minY; y <= range.maxY; ++y)
+            {
+                for (int z = range.minZ; z <= range.maxZ; ++z, index += this.width)
+                {
+                    fullContainer.getIds(range.minX, y, z, ids, index, this.width);
+                }
+            }
+
+            // The returned array is replaced, not modified, when the palette changes
+            return transform.getTransformedPaletteStates(container.getPalette());
+        }
+
+        Object2IntOpenHashMap<IBlockState> stateIds = new Object2IntOpenHashMap<>();
+        List<IBlockState> states = new ArrayList<>();
+        stateIds.defaultReturnValue(-1);
+
+        for (int y = range.minY; y <= range.maxY; ++y)
+        {
+            for (int z = range.minZ; z <= range.maxZ; ++z)
+            {
+                for (int x = range.minX; x <= range.maxX; ++x, ++index)
+                {
+                    IBlockState state = transform.getTransformedState(container.getBlockState(x, y, z));
+                    int id = stateIds.getInt(state);
+
+                    if (id == -1)
+                    {
+                        id = states.size();
+                        states.add(state);
+                        stateIds.put(state, id);
+                    }
+
+                    ids[index] = id;
+                }
+            }
+        }
+
+        return states.toArray(new IBlockState[0]);
+    }
+
+    protected static Map<BlockPos, NBTTagCompound> copyBlockEntities(Map<BlockPos, NBTTagCompound> blockEntityMap,
+                                                                     IntBoundingBox range, int volume)
+    {
+        Map<BlockPos, NBTTagCompound> blockEntities = new HashMap<>();
+
+        if (blockEntityMap.size() <= volume)
+        {
+            for (Map.Entry<BlockPos, NBTTagCompound> entry : blockEntityMap.entrySet())
+            {
+                BlockPos pos = entry.getKey();
+
+                if (pos.getX() >= range.minX && pos.getX() <= range.maxX &&
+                    pos.getY() >= range.minY && pos.getY() <= range.maxY &&
+                    pos.getZ() >= range.minZ && pos.getZ() <= range.maxZ)
+                {
+                    blockEntities.put(pos, NbtWrap.copy(entry.getValue()));
+                }
+            }
+        }
+        else
+        {
+            BlockPos.MutBlockPos posMutable = new BlockPos.MutBlockPos();
+
+            for (int y = range.minY; y <= range.maxY; ++y)
+            {
+                for (int z = range.minZ; z <= range.maxZ; ++z)
+                {
+                    for (int x = range.minX; x <= range.maxX; ++x)
+                    {
+                        posMutable.set(x, y, z);
+                        NBTTagCompound nbt = blockEntityMap.get(posMutable);
+
+                        if (nbt != null)
+                        {
+                            blockEntities.put(new BlockPos(x, y, z), NbtWrap.copy(nbt));
+                        }
+                    }
+                }
+            }
+        }
+
+        return blockEntities;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) { return true; }
+        if (o == null || this.getClass() != o.getClass()) { return false; }
+
+        SubRegionChunkSnapshot other = (SubRegionChunkSnapshot) o;
+
+        return this.container == other.container &&
+               this.blockEntityMap == other.blockEntityMap &&
+               this.transform == other.transform &&
+               this.regionName.equals(other.regionName) &&
+               this.containerOrigin.equals(other.containerOrigin) &&
+               this.range.minX == other.range.minX &&
+               this.range.minY == other.range.minY &&
+               this.range.minZ == other.range.minZ &&
+               this.range.maxX == other.range.maxX &&
+               this.range.maxY == other.range.maxY &&
+               this.range.maxZ == other.range.maxZ;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = this.regionName.hashCode();
+        result = 31 * result + System.identityHashCode(this.container);
+        result = 31 * result + System.identityHashCode(this.transform);
+        result = 31 * result + this.containerOrigin.hashCode();
+        return result;
+    }
+}
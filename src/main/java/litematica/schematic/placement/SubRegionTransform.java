@@ -0,0 +1,183 @@
+package litematica.schematic.placement;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+
+import malilib.util.position.BlockMirror;
+import malilib.util.position.BlockPos;
+import malilib.util.position.BlockRotation;
+import litematica.schematic.container.ILitematicaBlockStateContainer;
+import litematica.schematic.container.ILitematicaBlockStatePalette;
+import litematica.schematic.container.LitematicaBlockStateContainerFull;
+import litematica.util.PositionUtils;
+
+/**
+ * The combined rotation and mirror transform of one sub-region of a placement.
+ * This caches the final transformed block state for each palette id of the sub-region's
+ * block state container, and the position transform as integer strides, so that
+ * placing the blocks doesn't need to transform each block state and position separately.
+ * The instances are cached per sub-region in the {@link SchematicPlacement},
+ * and they are invalidated when the rotation or mirror of the placement or the sub-region changes.
+ * The per palette id states are additionally re-created when the palette's mapping changes.
+ */
+public class SubRegionTransform
+{
+    protected static final IBlockState STRUCTURE_VOID = Blocks.STRUCTURE_VOID.getDefaultState();
+    protected static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    public final BlockMirror mirrorMain;
+    public final BlockMirror mirrorSub;
+    public final BlockRotation rotationCombined;
+    protected final BlockRotation placementRotation;
+    protected final BlockMirror placementMirror;
+    protected final BlockRotation subRegionRotation;
+    protected final BlockMirror subRegionMirror;
+
+    /** The world x and z offsets for one step along the container's x-axis */
+    public final int xStrideX;
+    public final int xStrideZ;
+    /** The world x and z offsets for one step along the container's z-axis */
+    public final int zStrideX;
+    public final int zStrideZ;
+
+    protected final Map<IBlockState, IBlockState> transformedStates = new ConcurrentHashMap<>();
+    @Nullable protected ILitematicaBlockStatePalette cachedPalette;
+    protected int cachedPaletteVersion;
+    protected IBlockState[] cachedPaletteStates = new IBlockState[0];
+
+    public SubRegionTransform(SchematicPlacement schematicPlacement, SubRegionPlacement placement)
+    {
+        this.placementRotation = schematicPlacement.getRotation();
+        this.placementMirror = schematicPlacement.getMirror();
+        this.subRegionRotation = placement.getRotation();
+        this.subRegionMirror = placement.getMirror();
+
+        this.mirrorMain = this.placementMirror;
+        this.rotationCombined = this.placementRotation.add(this.subRegionRotation);
+        BlockMirror mirrorSub = this.subRegionMirror;
+
+        if (mirrorSub != BlockMirror.NONE &&
+            (this.placementRotation == BlockRotation.CW_90 ||
+             this.placementRotation == BlockRotation.CCW_90))
+        {
+            mirrorSub = mirrorSub == BlockMirror.X ? BlockMirror.Z : BlockMirror.X;
+        }
+
+        this.mirrorSub = mirrorSub;
+
+        // The position transform is linear, so the strides are just the transformed unit vectors
+        BlockPos xStride = PositionUtils.getTransformedPlacementPosition(new BlockPos(1, 0, 0), schematicPlacement, placement);
+        BlockPos zStride = PositionUtils.getTransformedPlacementPosition(new BlockPos(0, 0, 1), schematicPlacement, placement);
+        this.xStrideX = xStride.getX();
+        this.xStrideZ = xStride.getZ();
+        this.zStrideX = zStride.getX();
+        this.zStrideZ = zStride.getZ();
+    }
+
+    /**
+     * @return true if this transform was created for the current rotation and mirror
+     *         values of the given placement and sub-region placement
+     */
+    public boolean matches(SchematicPlacement schematicPlacement, SubRegionPlacement placement)
+    {
+        return this.placementRotation == schematicPlacement.getRotation() &&
+               this.placementMirror == schematicPlacement.getMirror() &&
+               this.subRegionRotation == placement.getRotation() &&
+               this.subRegionMirror == placement.getMirror();
+    }
+
+    /**
+     * @return the transformed state of the given state, or null if the state is a structure void
+     */
+    @Nullable
+    public IBlockState getTransformedState(IBlockState state)
+    {
+        if (state == STRUCTURE_VOID)
+        {
+            return null;
+        }
+
+        IBlockState transformed = this.transformedStates.get(state);
+
+        if (transformed == null)
+        {
+            transformed = this.transformState(state);
+            this.transformedStates.put(state, transformed);
+        }
+
+        return transformed;
+    }
+
+    /**
+     * Returns the transformed states of the given palette, indexed by the palette id.
+     * Structure voids are mapped to null, and any missing palette entries to air.
+     * The returned array must not be modified.
+     */
+    public synchronized IBlockState[] getTransformedPaletteStates(ILitematicaBlockStatePalette palette)
+    {
+        final int size = palette.getPaletteSize();
+
+        final int version = palette.getMappingVersion();
+
+        if (palette != this.cachedPalette ||
+            version != this.cachedPaletteVersion ||
+            size != this.cachedPaletteStates.length)
+        {
+            IBlockState[] states = new IBlockState[size];
+
+            for (int id = 0; id < size; ++id)
+            {
+                IBlockState state = palette.getBlockState(id);
+                states[id] = state != null ? this.getTransformedState(state) : AIR;
+            }
+
+            this.cachedPalette = palette;
+            this.cachedPaletteVersion = version;
+            this.cachedPaletteStates = states;
+        }
+
+        return this.cachedPaletteStates;
+    }
+
+    /**
+     * Reads the transformed states of the given x-range of the container's x-row
+     * at the given y and z coordinates into the output array, indexed by the x coordinate.
+     * Structure voids are set to null, and any ids missing from the palette to air.
+     * @param idBuffer a temporary array, which must have a length of at least endX + 1
+     */
+    public void getTransformedRow(ILitematicaBlockStateContainer container, int y, int z,
+                                  int startX, int endX, int[] idBuffer, IBlockState[] out)
+    {
+        if (container instanceof LitematicaBlockStateContainerFull)
+        {
+            IBlockState[] states = this.getTransformedPaletteStates(container.getPalette());
+            ((LitematicaBlockStateContainerFull) container).getIds(startX, y, z, idBuffer, startX, endX - startX + 1);
+
+            for (int x = startX; x <= endX; ++x)
+            {
+                int id = idBuffer[x];
+                out[x] = id < states.length ? states[id] : AIR;
+            }
+        }
+        else
+        {
+            for (int x = startX; x <= endX; ++x)
+            {
+                out[x] = this.getTransformedState(container.getBlockState(x, y, z));
+            }
+        }
+    }
+
+    protected IBlockState transformState(IBlockState state)
+    {
+        if (this.mirrorMain != BlockMirror.NONE) { state = state.withMirror(this.mirrorMain.getVanillaMirror()); }
+        if (this.mirrorSub != BlockMirror.NONE)  { state = state.withMirror(this.mirrorSub.getVanillaMirror()); }
+        if (this.rotationCombined != BlockRotation.NONE) { state = state.withRotation(this.rotationCombined.getVanillaRotation()); }
+
+        return state;
+    }
+}
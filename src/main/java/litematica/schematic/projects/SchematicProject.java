@@ -4,6 +4,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 import com.google.gson.JsonArray;
@@ -18,6 +19,7 @@ import malilib.util.data.json.JsonUtils;
 import malilib.util.game.wrap.GameWrap;
 import malilib.util.position.BlockPos;
 import malilib.util.position.Vec3i;
+import litematica.config.Configs;
 import litematica.data.DataManager;
 import litematica.scheduler.TaskScheduler;
 import litematica.schematic.ISchematic;
@@ -36,6 +38,7 @@ public class SchematicProject
 {
     private final List<SchematicVersion> versions = new ArrayList<>();
     private final Path directory;
+    private final SchematicVersionStore versionStore;
     private Path projectFile;
     private BlockPos origin = BlockPos.ORIGIN;
     private String projectName = "unnamed";
@@ -54,6 +57,7 @@ public class SchematicProject
     {
         this.directory = directory;
         this.projectFile = projectFile;
+        this.versionStore = new SchematicVersionStore(directory);
     }
 
     public Path getDirectory()
@@ -206,7 +210,7 @@ public class SchematicProject
             {
                 this.removeCurrentPlacement();
 
-                LitematicaSchematic schematic = LitematicaSchematic.createFromFile(this.directory, version.getFileName());
+                LitematicaSchematic schematic = this.loadVersionSchematic(version);
 
                 if (schematic != null)
                 {
@@ -235,6 +239,20 @@ public class SchematicProject
         }
     }
 
+    @Nullable
+    private LitematicaSchematic loadVersionSchematic(SchematicVersion version)
+    {
+        String fileName = version.getFileName();
+
+        // Versions saved before the delta storage was enabled are full schematic files
+        if (this.versionStore.hasVersion(fileName))
+        {
+            return this.versionStore.readVersion(fileName);
+        }
+
+        return LitematicaSchematic.createFromFile(this.directory, fileName);
+    }
+
     public void pasteToWorld()
     {
         if (this.currentPlacement != null)
@@ -342,18 +360,35 @@ public class SchematicProject
     {
         SchematicCreationUtils.setSchematicMetadataOnCreation(schematic, name);
 
-        if (schematic.writeToFile(this.directory, fileName, false))
-        {
-            int versionNumber = this.versions.size() + 1;
-            SchematicVersion version = new SchematicVersion(this, name, fileName, areaOffset,
-                                                            versionNumber, System.currentTimeMillis());
-            this.versions.add(version);
-            this.switchVersion(this.versions.size() - 1, true);
-            this.cacheCurrentAreaFromPlacement();
-            this.saveInProgress = false;
+        CompletableFuture<Boolean> future;
 
-            MessageDispatcher.success("litematica.message.schematic_projects.version_saved", version, name);
+        if (Configs.Generic.PROJECT_VERSION_DELTA_STORAGE.getBooleanValue())
+        {
+            SchematicVersion parent = this.getCurrentVersion();
+            String parentFileName = parent != null ? parent.getFileName() : null;
+            future = this.versionStore.writeVersionAsync(schematic.toTag(), fileName, parentFileName);
+        }
+        else
+        {
+            future = schematic.writeToFileAsync(this.directory, fileName, false);
         }
+
+        future.thenAccept(success ->
+        {
+            if (success)
+            {
+                int versionNumber = this.versions.size() + 1;
+                SchematicVersion version = new SchematicVersion(this, name, fileName, areaOffset,
+                                                                versionNumber, System.currentTimeMillis());
+                this.versions.add(version);
+                this.switchVersion(this.versions.size() - 1, true);
+                this.cacheCurrentAreaFromPlacement();
+
+                MessageDispatcher.success("litematica.message.schematic_projects.version_saved", version, name);
+            }
+
+            this.saveInProgress = false;
+        });
     }
 
     private String getNextFileName()
@@ -368,7 +403,7 @@ public class SchematicProject
             String name = nameBase + String.format("%05d", version);
             Path file = this.directory.resolve(name + LitematicaSchematic.FILE_NAME_EXTENSION);
 
-            if (Files.exists(file) == false)
+            if (Files.exists(file) == false && this.versionStore.hasVersion(name) == false)
             {
                 return name;
             }
@@ -379,6 +414,28 @@ public class SchematicProject
         return nameBase + "error";
     }
 
+    /**
+     * Deletes the versions of this project that are stored in the version store,
+     * along with their sections that are not used by any other versions
+     */
+    public void deleteStoredVersions()
+    {
+        List<String> fileNames = new ArrayList<>();
+
+        for (SchematicVersion version : this.versions)
+        {
+            if (this.versionStore.hasVersion(version.getFileName()))
+            {
+                fileNames.add(version.getFileName());
+            }
+        }
+
+        if (fileNames.isEmpty() == false)
+        {
+            this.versionStore.deleteVersionsAsync(fileNames);
+        }
+    }
+
     public void clear()
     {
         this.origin = BlockPos.ORIGIN;
@@ -0,0 +1,754 @@
+package litematica.schematic.projects;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.apache.commons.lang3.tuple.Pair;
+
+import net.minecraft.init.Blocks;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagLongArray;
+import net.minecraft.nbt.NBTTagString;
+import net.minecraft.nbt.NBTUtil;
+
+import malilib.mixin.access.NBTTagLongArrayMixin;
+import malilib.overlay.message.MessageDispatcher;
+import malilib.util.data.Constants;
+import malilib.util.game.wrap.GameWrap;
+import malilib.util.game.wrap.NbtWrap;
+import malilib.util.nbt.NbtUtils;
+import malilib.util.position.BlockPos;
+import litematica.Litematica;
+import litematica.schematic.LitematicaSchematic;
+import litematica.schematic.SchematicType;
+import litematica.schematic.container.LitematicaBitArray;
+
+/**
+ * Stores the versions of a schematic project as content-addressed 16x16x16 sections.
+ * Each version is stored as a small manifest file, which is the normal Litematica
+ * schematic tag, except that the block states and block entities of each sub-region
+ * are replaced by a list of section hashes. The sections themselves are stored in
+ * separate files named by the hash of their contents, so the sections that did not
+ * change since the parent version (or any other version) are only stored once,
+ * and saving a new version only writes the sections that changed.
+ * When switching versions, only the sections that are not used by the
+ * previously loaded version need to be read from disk. The whole schematic is
+ * still reconstructed and placed again, so this only saves the disk reads.
+ * The sections of the previously loaded version are only softly referenced,
+ * so that they don't need to stay in memory next to the schematic itself.
+ * When versions are deleted, the sections that are no longer referenced
+ * by any of the remaining versions in the store are deleted as well.
+ */
+public class SchematicVersionStore
+{
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Litematica Version Store %d").setDaemon(true).build());
+    public static final int STORE_FORMAT_VERSION = 1;
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+    protected final Path versionDirectory;
+    protected final Path sectionDirectory;
+    /** The decoded sections of the most recently loaded version, by their hash */
+    protected Map<String, SoftReference<SectionData>> loadedSections = new HashMap<>();
+
+    public SchematicVersionStore(Path projectDirectory)
+    {
+        Path storeDirectory = projectDirectory.resolve("version_store");
+        this.versionDirectory = storeDirectory.resolve("versions");
+        this.sectionDirectory = storeDirectory.resolve("sections");
+    }
+
+    public boolean hasVersion(String fileName)
+    {
+        return Files.exists(this.getVersionFile(fileName));
+    }
+
+    protected Path getVersionFile(String fileName)
+    {
+        return this.versionDirectory.resolve(fileName + ".nbt");
+    }
+
+    protected Path getSectionFile(String hash)
+    {
+        return this.sectionDirectory.resolve(hash.substring(0, 2)).resolve(hash + ".nbt");
+    }
+
+    /**
+     * Stores the given schematic tag as a new version on a background thread.
+     * The tag is modified by this method, and it must not be used after this call.
+     * @return a future that is completed on the client thread once the write has finished,
+     *         with the value true on success and false on failure
+     */
+    public CompletableFuture<Boolean> writeVersionAsync(NBTTagCompound schematicTag, String fileName, @Nullable String parentFileName)
+    {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        EXECUTOR.execute(() ->
+        {
+            boolean success = false;
+
+            try
+            {
+                this.writeVersion(schematicTag, fileName, parentFileName);
+                success = true;
+            }
+            catch (Exception e)
+            {
+                Litematica.LOGGER.warn("Failed to store the schematic project version '{}'", fileName, e);
+            }
+
+            final boolean finalSuccess = success;
+
+            GameWrap.getClient().addScheduledTask(() ->
+            {
+                if (finalSuccess == false)
+                {
+                    MessageDispatcher.error("litematica.error.schematic_write_to_file_failed.exception",
+                                            this.getVersionFile(fileName).toAbsolutePath().toString());
+                }
+
+                result.complete(finalSuccess);
+            });
+        });
+
+        return result;
+    }
+
+    /**
+     * Deletes the given versions on a background thread, followed by
+     * all the sections that are no longer referenced by any of the remaining versions.
+     * The store may be shared by several projects in the same directory,
+     * so the references of all the versions in the store are counted.
+     */
+    public void deleteVersionsAsync(Collection<String> fileNames)
+    {
+        final List<String> list = new ArrayList<>(fileNames);
+
+        EXECUTOR.execute(() ->
+        {
+            try
+            {
+                this.deleteVersions(list);
+            }
+            catch (Exception e)
+            {
+                Litematica.LOGGER.warn("Failed to delete the schematic project versions {}", list, e);
+            }
+        });
+    }
+
+    protected void deleteVersions(List<String> fileNames) throws IOException
+    {
+        if (Files.isDirectory(this.versionDirectory) == false)
+        {
+            return;
+        }
+
+        Object2IntOpenHashMap<String> referenceCounts = new Object2IntOpenHashMap<>();
+        List<Path> versionFiles;
+
+        try (Stream<Path> stream = Files.list(this.versionDirectory))
+        {
+            versionFiles = stream.filter(file -> file.getFileName().toString().endsWith(".nbt")).collect(Collectors.toList());
+        }
+
+        // If any of the manifests can't be read, then this throws and nothing gets deleted,
+        // as the sections of the unreadable manifest might otherwise get deleted
+        for (Path file : versionFiles)
+        {
+            for (String hash : readSectionHashes(file))
+            {
+                referenceCounts.addTo(hash, 1);
+            }
+        }
+
+        int deletedSections = 0;
+
+        for (String fileName : fileNames)
+        {
+            Path file = this.getVersionFile(fileName);
+
+            if (Files.exists(file) == false)
+            {
+                continue;
+            }
+
+            List<String> hashes = readSectionHashes(file);
+            Files.delete(file);
+
+            for (String hash : hashes)
+            {
+                if (referenceCounts.addTo(hash, -1) == 1 &&
+                    Files.deleteIfExists(this.getSectionFile(hash)))
+                {
+                    ++deletedSections;
+                }
+            }
+        }
+
+        Litematica.printDebug("Deleted %d project versions and %d unreferenced sections", fileNames.size(), deletedSections);
+    }
+
+    /**
+     * @return the section hashes of all the regions of the given version manifest,
+     *         including any duplicates
+     */
+    protected static List<String> readSectionHashes(Path versionFile) throws IOException
+    {
+        NBTTagCompound regionsTag = NbtWrap.getCompound(readCompressed(versionFile), "Regions");
+        List<String> hashes = new ArrayList<>();
+
+        for (String regionName : NbtWrap.getKeys(regionsTag))
+        {
+            NBTTagList sectionsTag = NbtWrap.getList(NbtWrap.getCompound(regionsTag, regionName), "Sections", Constants.NBT.TAG_STRING);
+
+            for (int i = 0; i < NbtWrap.getListSize(sectionsTag); ++i)
+            {
+                hashes.add(sectionsTag.getStringTagAt(i));
+            }
+        }
+
+        return hashes;
+    }
+
+    protected void writeVersion(NBTTagCompound rootTag, String fileName, @Nullable String parentFileName) throws IOException
+    {
+        long startTime = System.nanoTime();
+        NBTTagCompound regionsTag = NbtWrap.getCompound(rootTag, "Regions");
+        int totalSections = 0;
+        int writtenSections = 0;
+
+        for (String regionName : NbtWrap.getKeys(regionsTag))
+        {
+            NBTTagCompound regionTag = NbtWrap.getCompound(regionsTag, regionName);
+            BlockPos regionSize = NbtUtils.readBlockPos(NbtWrap.getCompound(regionTag, "Size"));
+            NBTBase blockStatesTag = NbtWrap.getTag(regionTag, "BlockStates");
+
+            if (regionSize == null || blockStatesTag == null || NbtWrap.getTypeId(blockStatesTag) != Constants.NBT.TAG_LONG_ARRAY)
+            {
+                continue;
+            }
+
+            RegionLayout layout = new RegionLayout(regionSize);
+            NBTTagList paletteTag = NbtWrap.getListOfCompounds(regionTag, "BlockStatePalette");
+            final int paletteSize = NbtWrap.getListSize(paletteTag);
+            long[] blockStates = ((NBTTagLongArrayMixin) blockStatesTag).getArray();
+            LitematicaBitArray regionArray = new LitematicaBitArray(getBits(paletteSize), layout.volume, blockStates);
+            NBTTagList[] sectionBlockEntities = this.getBlockEntitiesBySection(NbtWrap.getListOfCompounds(regionTag, "TileEntities"), layout);
+
+            NBTTagList sectionsTag = new NBTTagList();
+            int[] regionToLocal = new int[paletteSize];
+            int[] ids = new int[4096];
+            Arrays.fill(regionToLocal, -1);
+
+            for (int sectionIndex = 0; sectionIndex < layout.sectionCount; ++sectionIndex)
+            {
+                NBTTagCompound sectionTag = this.createSectionTag(sectionIndex, layout, regionArray, paletteTag,
+                                                                  regionToLocal, ids, sectionBlockEntities[sectionIndex]);
+                byte[] data = toBytes(sectionTag);
+                String hash = getHash(data);
+                Path file = this.getSectionFile(hash);
+
+                if (Files.exists(file) == false)
+                {
+                    writeCompressedAtomically(data, file);
+                    ++writtenSections;
+                }
+
+                NbtWrap.addTag(sectionsTag, new NBTTagString(hash));
+                ++totalSections;
+            }
+
+            regionTag.removeTag("BlockStatePalette");
+            regionTag.removeTag("BlockStates");
+            regionTag.removeTag("TileEntities");
+            NbtWrap.putTag(regionTag, "Sections", sectionsTag);
+        }
+
+        NbtWrap.putInt(rootTag, "StoreFormatVersion", STORE_FORMAT_VERSION);
+
+        if (parentFileName != null)
+        {
+            NbtWrap.putString(rootTag, "Parent", parentFileName);
+        }
+
+        writeCompressedAtomically(toBytes(rootTag), this.getVersionFile(fileName));
+
+        Litematica.printDebug("Stored project version '%s' with %d sections, of which %d were new, in %.2f ms",
+                              fileName, totalSections, writtenSections, (System.nanoTime() - startTime) / 1000000.0);
+    }
+
+    /**
+     * Splits the block entities by section. The block entities of each section are sorted
+     * by their position, so that identical sections always produce identical data.
+     */
+    protected NBTTagList[] getBlockEntitiesBySection(NBTTagList blockEntities, RegionLayout layout)
+    {
+        NBTTagList[] lists = new NBTTagList[layout.sectionCount];
+        List<Pair<Long, NBTTagCompound>> sorted = new ArrayList<>();
+        final int count = NbtWrap.getListSize(blockEntities);
+
+        for (int i = 0; i < count; ++i)
+        {
+            NBTTagCompound tag = NbtWrap.getCompoundAt(blockEntities, i);
+            BlockPos pos = NbtUtils.readBlockPos(tag);
+
+            if (pos != null && layout.getSectionIndex(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4) >= 0)
+            {
+                sorted.add(Pair.of(layout.getIndex(pos.getX(), pos.getY(), pos.getZ()), tag));
+            }
+        }
+
+        sorted.sort(Comparator.comparingLong(Pair::getLeft));
+
+        for (Pair<Long, NBTTagCompound> pair : sorted)
+        {
+            BlockPos pos = NbtUtils.readBlockPos(pair.getRight());
+            int sectionIndex = layout.getSectionIndex(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+
+            if (lists[sectionIndex] == null)
+            {
+                lists[sectionIndex] = new NBTTagList();
+            }
+
+            NbtWrap.addTag(lists[sectionIndex], pair.getRight());
+        }
+
+        return lists;
+    }
+
+    /**
+     * Creates the tag for one section, with its own palette in the order of first occurrence,
+     * so that identical section contents always produce identical data.
+     */
+    protected NBTTagCompound createSectionTag(int sectionIndex, RegionLayout layout, LitematicaBitArray regionArray,
+                                              NBTTagList regionPalette, int[] regionToLocal, int[] ids,
+                                              @Nullable NBTTagList blockEntities)
+    {
+        SectionBounds bounds = layout.getSectionBounds(sectionIndex);
+        final int count = bounds.getVolume();
+        NBTTagList localPalette = new NBTTagList();
+        List<NBTTagCompound> localStates = new ArrayList<>();
+
+        for (int y = 0; y < bounds.height; ++y)
+        {
+            for (int z = 0; z < bounds.length; ++z)
+            {
+                long regionIndex = layout.getIndex(bounds.minX, bounds.minY + y, bounds.minZ + z);
+                regionArray.getRange(regionIndex, ids, (y * bounds.length + z) * bounds.width, bounds.width);
+            }
+        }
+
+        for (int i = 0; i < count; ++i)
+        {
+            int regionId = ids[i];
+            int localId = regionToLocal[regionId];
+
+            if (localId == -1)
+            {
+                localId = localStates.size();
+                regionToLocal[regionId] = localId;
+                localStates.add(NbtWrap.getCompoundAt(regionPalette, regionId));
+            }
+
+            ids[i] = localId;
+        }
+
+        LitematicaBitArray sectionArray = new LitematicaBitArray(getBits(localStates.size()), count);
+        sectionArray.setRange(0, ids, 0, count);
+
+        for (NBTTagCompound stateTag : localStates)
+        {
+            NbtWrap.addTag(localPalette, stateTag);
+        }
+
+        // Reset the mapping array for the next section
+        Arrays.fill(regionToLocal, -1);
+
+        NBTTagCompound tag = new NBTTagCompound();
+        NbtWrap.putTag(tag, "Palette", localPalette);
+        NbtWrap.putTag(tag, "BlockStates", new NBTTagLongArray(sectionArray.getBackingLongArray()));
+
+        if (blockEntities != null)
+        {
+            NbtWrap.putTag(tag, "TileEntities", blockEntities);
+        }
+
+        return tag;
+    }
+
+    /**
+     * Reconstructs the given version from its manifest and the section files.
+     * The sections that were also used by the previously read version are reused
+     * from memory, if they haven't been garbage collected yet, and only the other sections are read from disk.
+     * @return the reconstructed schematic, or null on failure
+     */
+    @Nullable
+    public LitematicaSchematic readVersion(String fileName)
+    {
+        Path versionFile = this.getVersionFile(fileName);
+        Map<String, SectionData> newLoadedSections = new HashMap<>();
+        long startTime = System.nanoTime();
+        int readSections = 0;
+
+        try
+        {
+            NBTTagCompound rootTag = readCompressed(versionFile);
+            NBTTagCompound regionsTag = NbtWrap.getCompound(rootTag, "Regions");
+
+            for (String regionName : NbtWrap.getKeys(regionsTag))
+            {
+                NBTTagCompound regionTag = NbtWrap.getCompound(regionsTag, regionName);
+                BlockPos regionSize = NbtUtils.readBlockPos(NbtWrap.getCompound(regionTag, "Size"));
+                NBTTagList sectionsTag = NbtWrap.getList(regionTag, "Sections", Constants.NBT.TAG_STRING);
+
+                if (regionSize == null)
+                {
+                    continue;
+                }
+
+                RegionLayout layout = new RegionLayout(regionSize);
+                SectionData[] sections = new SectionData[layout.sectionCount];
+
+                if (NbtWrap.getListSize(sectionsTag) != layout.sectionCount)
+                {
+                    throw new IOException("Invalid section count in region '" + regionName + "'");
+                }
+
+                for (int i = 0; i < layout.sectionCount; ++i)
+                {
+                    String hash = sectionsTag.getStringTagAt(i);
+                    SectionData section = newLoadedSections.get(hash);
+
+                    if (section == null)
+                    {
+                        SoftReference<SectionData> ref = this.loadedSections.get(hash);
+                        section = ref != null ? ref.get() : null;
+
+                        if (section == null)
+                        {
+                            section = SectionData.fromTag(readCompressed(this.getSectionFile(hash)));
+                            ++readSections;
+                        }
+
+                        newLoadedSections.put(hash, section);
+                    }
+
+                    sections[i] = section;
+                }
+
+                this.restoreRegionData(regionTag, layout, sections);
+            }
+
+            rootTag.removeTag("StoreFormatVersion");
+            rootTag.removeTag("Parent");
+
+            LitematicaSchematic schematic = SchematicType.LITEMATICA.createSchematic(null);
+
+            if (schematic.fromTag(rootTag) == false)
+            {
+                return null;
+            }
+
+            Map<String, SoftReference<SectionData>> loadedSections = new HashMap<>();
+
+            for (Map.Entry<String, SectionData> entry : newLoadedSections.entrySet())
+            {
+                loadedSections.put(entry.getKey(), new SoftReference<>(entry.getValue()));
+            }
+
+            this.loadedSections = loadedSections;
+
+            Litematica.printDebug("Read project version '%s' with %d sections, of which %d were read from disk, in %.2f ms",
+                                  fileName, newLoadedSections.size(), readSections, (System.nanoTime() - startTime) / 1000000.0);
+
+            return schematic;
+        }
+        catch (Exception e)
+        {
+            Litematica.LOGGER.warn("Failed to read the schematic project version '{}'", fileName, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Puts the block state palette, block states and block entities
+     * of the region back into the region tag, from the given sections
+     */
+    protected void restoreRegionData(NBTTagCompound regionTag, RegionLayout layout, SectionData[] sections)
+    {
+        NBTTagList paletteTag = new NBTTagList();
+        Map<NBTTagCompound, Integer> paletteIds = new HashMap<>();
+        int[][] localToRegion = new int[sections.length][];
+
+        // Always use ID 0 for air, like the block state containers do
+        NBTTagCompound airTag = NBTUtil.writeBlockState(new NBTTagCompound(), Blocks.AIR.getDefaultState());
+        paletteIds.put(airTag, 0);
+        NbtWrap.addTag(paletteTag, airTag);
+
+        for (int sectionIndex = 0; sectionIndex < sections.length; ++sectionIndex)
+        {
+            List<NBTTagCompound> palette = sections[sectionIndex].palette;
+            int[] map = new int[palette.size()];
+
+            for (int localId = 0; localId < map.length; ++localId)
+            {
+                NBTTagCompound stateTag = palette.get(localId);
+                Integer id = paletteIds.get(stateTag);
+
+                if (id == null)
+                {
+                    id = paletteIds.size();
+                    paletteIds.put(stateTag, id);
+                    NbtWrap.addTag(paletteTag, stateTag.copy());
+                }
+
+                map[localId] = id;
+            }
+
+            localToRegion[sectionIndex] = map;
+        }
+
+        LitematicaBitArray regionArray = new LitematicaBitArray(getBits(paletteIds.size()), layout.volume);
+        NBTTagList blockEntities = new NBTTagList();
+        int[] ids = new int[4096];
+
+        for (int sectionIndex = 0; sectionIndex < sections.length; ++sectionIndex)
+        {
+            SectionData section = sections[sectionIndex];
+            SectionBounds bounds = layout.getSectionBounds(sectionIndex);
+            final int count = bounds.getVolume();
+            final int[] map = localToRegion[sectionIndex];
+
+            new LitematicaBitArray(getBits(section.palette.size()), count, section.blockStates).getRange(0, ids, 0, count);
+
+            for (int i = 0; i < count; ++i)
+            {
+                ids[i] = map[ids[i]];
+            }
+
+            for (int y = 0; y < bounds.height; ++y)
+            {
+                for (int z = 0; z < bounds.length; ++z)
+                {
+                    long regionIndex = layout.getIndex(bounds.minX, bounds.minY + y, bounds.minZ + z);
+                    regionArray.setRange(regionIndex, ids, (y * bounds.length + z) * bounds.width, bounds.width);
+                }
+            }
+
+            // The block entity tags get modified when reading the schematic, so copy them
+            for (int i = 0; i < NbtWrap.getListSize(section.blockEntities); ++i)
+            {
+                NbtWrap.addTag(blockEntities, NbtWrap.getCompoundAt(section.blockEntities, i).copy());
+            }
+        }
+
+        regionTag.removeTag("Sections");
+        NbtWrap.putTag(regionTag, "BlockStatePalette", paletteTag);
+        NbtWrap.putTag(regionTag, "BlockStates", new NBTTagLongArray(regionArray.getBackingLongArray()));
+        NbtWrap.putTag(regionTag, "TileEntities", blockEntities);
+    }
+
+    protected static int getBits(int paletteSize)
+    {
+        return Math.max(2, Integer.SIZE - Integer.numberOfLeadingZeros(paletteSize - 1));
+    }
+
+    protected static byte[] toBytes(NBTTagCompound tag) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        try (DataOutputStream dos = new DataOutputStream(bos))
+        {
+            CompressedStreamTools.write(tag, dos);
+        }
+
+        return bos.toByteArray();
+    }
+
+    protected static String getHash(byte[] data)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+            char[] chars = new char[digest.length * 2];
+
+            for (int i = 0; i < digest.length; ++i)
+            {
+                chars[i * 2] = HEX_CHARS[(digest[i] >> 4) & 0xF];
+                chars[i * 2 + 1] = HEX_CHARS[digest[i] & 0xF];
+            }
+
+            return new String(chars);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // Every Java implementation is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected static void writeCompressedAtomically(byte[] data, Path file) throws IOException
+    {
+        Files.createDirectories(file.getParent());
+        Path tmpFile = file.resolveSibling(file.getFileName().toString() + ".tmp");
+
+        try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(tmpFile), 65536))
+        {
+            os.write(data);
+        }
+
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    protected static NBTTagCompound readCompressed(Path file) throws IOException
+    {
+        try (InputStream is = Files.newInputStream(file))
+        {
+            return CompressedStreamTools.readCompressed(is);
+        }
+    }
+
+    protected static class RegionLayout
+    {
+        protected final int sizeX;
+        protected final int sizeY;
+        protected final int sizeZ;
+        protected final int sectionsX;
+        protected final int sectionsY;
+        protected final int sectionsZ;
+        protected final int sectionCount;
+        protected final long volume;
+
+        protected RegionLayout(BlockPos regionSize)
+        {
+            this.sizeX = Math.abs(regionSize.getX());
+            this.sizeY = Math.abs(regionSize.getY());
+            this.sizeZ = Math.abs(regionSize.getZ());
+            this.sectionsX = (this.sizeX + 15) >> 4;
+            this.sectionsY = (this.sizeY + 15) >> 4;
+            this.sectionsZ = (this.sizeZ + 15) >> 4;
+            this.sectionCount = this.sectionsX * this.sectionsY * this.sectionsZ;
+            this.volume = (long) this.sizeX * (long) this.sizeY * (long) this.sizeZ;
+        }
+
+        protected int getSectionIndex(int sectionX, int sectionY, int sectionZ)
+        {
+            if (sectionX < 0 || sectionY < 0 || sectionZ < 0 ||
+                sectionX >= this.sectionsX || sectionY >= this.sectionsY || sectionZ >= this.sectionsZ)
+            {
+                return -1;
+            }
+
+            return (sectionY * this.sectionsZ + sectionZ) * this.sectionsX + sectionX;
+        }
+
+        protected long getIndex(int x, int y, int z)
+        {
+            return ((long) y * this.sizeZ + z) * this.sizeX + x;
+        }
+
+        protected SectionBounds getSectionBounds(int sectionIndex)
+        {
+            int sectionX = sectionIndex % this.sectionsX;
+            int sectionZ = (sectionIndex / this.sectionsX) % this.sectionsZ;
+            int sectionY = sectionIndex / (this.sectionsX * this.sectionsZ);
+            int minX = sectionX << 4;
+            int minY = sectionY << 4;
+            int minZ = sectionZ << 4;
+
+            return new SectionBounds(minX, minY, minZ,
+                                     Math.min(16, this.sizeX - minX),
+                                     Math.min(16, this.sizeY - minY),
+                                     Math.min(16, this.sizeZ - minZ));
+        }
+    }
+
+    protected static class SectionBounds
+    {
+        protected final int minX;
+        protected final int minY;
+        protected final int minZ;
+        protected final int width;
+        protected final int height;
+        protected final int length;
+
+        protected SectionBounds(int minX, int minY, int minZ, int width, int height, int length)
+        {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.width = width;
+            this.height = height;
+            this.length = length;
+        }
+
+        protected int getVolume()
+        {
+            return this.width * this.height * this.length;
+        }
+    }
+
+    protected static class SectionData
+    {
+        protected final List<NBTTagCompound> palette;
+        protected final long[] blockStates;
+        protected final NBTTagList blockEntities;
+
+        protected SectionData(List<NBTTagCompound> palette, long[] blockStates, NBTTagList blockEntities)
+        {
+            this.palette = palette;
+            this.blockStates = blockStates;
+            this.blockEntities = blockEntities;
+        }
+
+        protected static SectionData fromTag(NBTTagCompound tag) throws IOException
+        {
+            NBTTagList paletteTag = NbtWrap.getListOfCompounds(tag, "Palette");
+            NBTBase blockStatesTag = NbtWrap.getTag(tag, "BlockStates");
+            List<NBTTagCompound> palette = new ArrayList<>();
+
+            if (blockStatesTag == null || NbtWrap.getTypeId(blockStatesTag) != Constants.NBT.TAG_LONG_ARRAY)
+            {
+                throw new IOException("Missing block states in a stored section");
+            }
+
+            for (int i = 0; i < NbtWrap.getListSize(paletteTag); ++i)
+            {
+                palette.add(NbtWrap.getCompoundAt(paletteTag, i));
+            }
+
+            long[] blockStates = ((NBTTagLongArrayMixin) blockStatesTag).getArray();
+
+            return new SectionData(palette, blockStates, NbtWrap.getListOfCompounds(tag, "TileEntities"));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package litematica.schematic.util;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.chunk.Chunk;
+
+import malilib.util.position.BlockPos;
+import malilib.util.position.IntBoundingBox;
+import litematica.util.PositionUtils;
+
+/**
+ * The differences between the schematic world and a real world within one chunk.
+ * The positions are stored as a compact list of chunk-relative positions in the
+ * {@link PositionUtils#packChunkRelativePosition(int, int, int)} format, along with
+ * the target (schematic) state of each position. Only the positions where
+ * the world state differs from the schematic state are included.
+ */
+public class ChunkDelta
+{
+    protected static final IBlockState STRUCTURE_VOID = Blocks.STRUCTURE_VOID.getDefaultState();
+
+    protected final int[] positions;
+    protected final IBlockState[] targetStates;
+    protected final int count;
+
+    protected ChunkDelta(int[] positions, IBlockState[] targetStates, int count)
+    {
+        this.positions = positions;
+        this.targetStates = targetStates;
+        this.count = count;
+    }
+
+    /**
+     * @return the number of changed positions
+     */
+    public int size()
+    {
+        return this.count;
+    }
+
+    public int getRelativePositionAt(int index)
+    {
+        return this.positions[index];
+    }
+
+    public IBlockState getTargetStateAt(int index)
+    {
+        return this.targetStates[index];
+    }
+
+    /**
+     * Builds the delta of the given boxes within a chunk incrementally, one y-layer of a box at a time,
+     * so that the comparison can be spread over several ticks within a time budget.
+     * The chunks are passed in on each call, as they may have been re-fetched between the calls.
+     */
+    public static class Builder
+    {
+        protected final List<IntBoundingBox> boxes;
+        protected final BlockPos.MutBlockPos mutablePos = new BlockPos.MutBlockPos();
+        protected int[] positions = new int[256];
+        protected IBlockState[] states = new IBlockState[256];
+        protected int count;
+        protected int boxIndex;
+        protected int nextY = Integer.MIN_VALUE;
+
+        /**
+         * @param boxes the world coordinate boxes within the chunk to compare
+         */
+        public Builder(List<IntBoundingBox> boxes)
+        {
+            this.boxes = boxes;
+        }
+
+        /**
+         * Compares the remaining positions until the given System.nanoTime() deadline is reached.
+         * At least one y-layer is compared on each call, so that the building always progresses.
+         * @param schematicChunk the schematic world chunk
+         * @param worldChunk the real world chunk
+         * @return the finished delta, or null if the deadline was reached before all the positions were compared
+         */
+        @Nullable
+        public ChunkDelta build(Chunk schematicChunk, Chunk worldChunk, long deadline)
+        {
+            while (this.boxIndex < this.boxes.size())
+            {
+                IntBoundingBox bb = this.boxes.get(this.boxIndex);
+                int y = Math.max(this.nextY, bb.minY);
+
+                this.compareLayer(bb, y, schematicChunk, worldChunk);
+
+                if (y >= bb.maxY)
+                {
+                    ++this.boxIndex;
+                    this.nextY = Integer.MIN_VALUE;
+                }
+                else
+                {
+                    this.nextY = y + 1;
+                }
+
+                if (this.boxIndex < this.boxes.size() && System.nanoTime() >= deadline)
+                {
+                    return null;
+                }
+            }
+
+            return this.createDelta();
+        }
+
+        protected ChunkDelta createDelta()
+        {
+            return new ChunkDelta(this.positions, this.states, this.count);
+        }
+
+        protected void compareLayer(IntBoundingBox bb, int y, Chunk schematicChunk, Chunk worldChunk)
+        {
+            BlockPos.MutBlockPos mutablePos = this.mutablePos;
+
+            for (int z = bb.minZ; z <= bb.maxZ; ++z)
+            {
+                for (int x = bb.minX; x <= bb.maxX; ++x)
+                {
+                    mutablePos.set(x, y, z);
+                    IBlockState schematicState = schematicChunk.getBlockState(mutablePos);
+                    IBlockState worldState = worldChunk.getBlockState(mutablePos).getActualState(worldChunk.getWorld(), mutablePos);
+
+                    // A plain state comparison, so that this doesn't depend on any of the verifier's
+                    // or the rendering's options, such as ignoring the existing fluids
+                    if (schematicState == null || schematicState == STRUCTURE_VOID || schematicState == worldState)
+                    {
+                        continue;
+                    }
+
+                    if (this.count >= this.positions.length)
+                    {
+                        this.positions = Arrays.copyOf(this.positions, this.positions.length * 2);
+                        this.states = Arrays.copyOf(this.states, this.states.length * 2);
+                    }
+
+                    this.positions[this.count] = PositionUtils.packChunkRelativePosition(x, y, z);
+                    this.states[this.count] = schematicState;
+                    ++this.count;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package litematica.schematic.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.init.Blocks;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+
+import malilib.util.data.EnabledCondition;
+import malilib.util.nbt.NbtUtils;
+import malilib.util.position.BlockMirror;
+import malilib.util.position.BlockPos;
+import malilib.util.position.BlockRotation;
+import malilib.util.position.ChunkPos;
+import malilib.util.position.IntBoundingBox;
+import malilib.util.position.Vec3d;
+import litematica.Litematica;
+import litematica.schematic.EntityInfo;
+import litematica.schematic.ISchematic;
+import litematica.schematic.ISchematicRegion;
+import litematica.schematic.placement.SchematicPlacement;
+import litematica.schematic.placement.SubRegionChunkSnapshot;
+import litematica.schematic.placement.SubRegionPlacement;
+import litematica.schematic.placement.SubRegionTransform;
+import litematica.schematic.util.SchematicPlacingUtils.PendingBlockEntity;
+import litematica.util.EntityUtils;
+import litematica.util.PositionUtils;
+import litematica.util.WorldUtils;
+import litematica.util.value.ReplaceBehavior;
+
+/**
+ * The prepared paste data of one chunk, for pasting the schematic placements in single player.
+ * The payload is created by {@link #create(ChunkPos, List, ChunkDelta)} on the thread that owns
+ * the placements, which captures the placement data of the sub-regions and adds the entities
+ * with their final world positions, and copies the blocks and block entity data of the sub-regions within the chunk.
+ * The blocks are then added on a worker thread by {@link #prepare()}, which only reads the copied data. The blocks are the transformed
+ * block states in placement order, with copies of the block entity NBT data with the world positions
+ * already set. The payload is then applied to the world, possibly over several ticks,
+ * by calling {@link #apply(World, ReplaceBehavior, long)} until it returns true.
+ */
+public class ChunkPastePayload
+{
+    protected static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    public final ChunkPos chunkPos;
+    @Nullable protected final ChunkDelta delta;
+    protected final List<SubRegionChunkSnapshot> snapshots = new ArrayList<>();
+    protected int[] positions = new int[1024];
+    protected IBlockState[] states = new IBlockState[1024];
+    protected int blockCount;
+    protected final Int2ObjectOpenHashMap<PendingBlockEntity> blockEntities = new Int2ObjectOpenHashMap<>();
+    protected final List<PendingEntity> entities = new ArrayList<>();
+    protected int nextIndex;
+    protected int placedBlockCount;
+
+    protected ChunkPastePayload(ChunkPos chunkPos, @Nullable ChunkDelta delta)
+    {
+        this.chunkPos = chunkPos;
+        this.delta = delta;
+    }
+
+    public int getBlockCount()
+    {
+        return this.blockCount;
+    }
+
+    /**
+     * @return the number of blocks that have been set in the world by the {@link #apply} calls so far
+     */
+    public int getPlacedBlockCount()
+    {
+        return this.placedBlockCount;
+    }
+
+    /**
+     * Creates the paste payload of the given placements within the given chunk.
+     * This reads the placements, so it must not be called from a worker thread.
+     * The blocks are added afterwards by {@link #prepare()}.
+     * @param delta if not null, then only the changed positions of this delta are included
+     */
+    public static ChunkPastePayload create(ChunkPos chunkPos, List<SchematicPlacement> placements, @Nullable ChunkDelta delta)
+    {
+        ChunkPastePayload payload = new ChunkPastePayload(chunkPos, delta);
+
+        for (SchematicPlacement schematicPlacement : placements)
+        {
+            ISchematic schematic = schematicPlacement.getSchematic();
+            Set<String> regionsTouchingChunk = PositionUtils.getSubRegionNamesTouchingChunk(chunkPos.x, chunkPos.z, schematicPlacement.getSubRegionBoxes(EnabledCondition.ENABLED));
+            BlockPos origin = schematicPlacement.getPosition();
+
+            for (String regionName : regionsTouchingChunk)
+            {
+                SubRegionPlacement placement = schematicPlacement.getSubRegion(regionName);
+                ISchematicRegion region = schematic.getSchematicRegion(regionName);
+
+                if (region == null || placement == null || placement.isEnabled() == false)
+                {
+                    continue;
+                }
+
+                SubRegionChunkSnapshot snapshot = SchematicPlacingUtils.getSubRegionChunkSnapshot(chunkPos, regionName, region, origin,
+                                                                                                  schematicPlacement, placement, true);
+
+                if (snapshot != null)
+                {
+                    payload.snapshots.add(snapshot);
+                }
+                else
+                {
+                    Litematica.LOGGER.warn("Invalid/missing schematic data in schematic '{}' for sub-region '{}'", schematic.getMetadata().getName(), regionName);
+                }
+
+                if (schematicPlacement.ignoreEntities() == false && placement.ignoreEntities() == false)
+                {
+                    payload.addEntities(region, origin, schematicPlacement, placement);
+                }
+            }
+        }
+
+        return payload;
+    }
+
+    /**
+     * Adds the blocks of the captured sub-regions to this payload.
+     * This doesn't access any world or placement, so it is safe to call from a worker thread.
+     */
+    public ChunkPastePayload prepare()
+    {
+        for (SubRegionChunkSnapshot snapshot : this.snapshots)
+        {
+            if (this.delta != null)
+            {
+                this.addDeltaBlocks(snapshot, this.delta);
+            }
+            else
+            {
+                this.addBlocks(snapshot);
+            }
+        }
+
+        this.snapshots.clear();
+
+        return this;
+    }
+
+    protected void addBlocks(SubRegionChunkSnapshot snapshot)
+    {
+        IntBoundingBox range = snapshot.range;
+        BlockPos.MutBlockPos posMutable = new BlockPos.MutBlockPos();
+        SubRegionTransform transform = snapshot.transform;
+
+        BlockPos containerOrigin = snapshot.containerOrigin;
+        final int baseX = containerOrigin.getX();
+        final int baseY = containerOrigin.getY();
+        final int baseZ = containerOrigin.getZ();
+        final int xStrideX = transform.xStrideX;
+        final int xStrideZ = transform.xStrideZ;
+        final int zStrideX = transform.zStrideX;
+        final int zStrideZ = transform.zStrideZ;
+        final boolean hasBlockEntities = snapshot.hasBlockEntities();
+
+        for (int y = range.minY; y <= range.maxY; ++y)
+        {
+            final int posY = baseY + y;
+
+            if (posY < 0 || posY > 255)
+            {
+                continue;
+            }
+
+            for (int z = range.minZ; z <= range.maxZ; ++z)
+            {
+                final int rowX = baseX + z * zStrideX;
+                final int rowZ = baseZ + z * zStrideZ;
+
+                for (int x = range.minX; x <= range.maxX; ++x)
+                {
+                    IBlockState state = snapshot.getBlockState(x, y, z);
+
+                    // Structure void
+                    if (state == null)
+                    {
+                        continue;
+                    }
+
+                    final int posX = rowX + x * xStrideX;
+                    final int posZ = rowZ + x * xStrideZ;
+                    final int index = this.addBlock(PositionUtils.packChunkRelativePosition(posX, posY, posZ), state);
+
+                    if (hasBlockEntities)
+                    {
+                        posMutable.set(x, y, z);
+                        this.addBlockEntity(index, snapshot.getBlockEntityData(posMutable), posX, posY, posZ, state, transform);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the blocks of the captured sub-region at the changed positions of the given delta.
+     * The world positions of the delta are inverse transformed into the container's coordinates,
+     * so that only the changed positions are visited, instead of the whole range within the chunk.
+     */
+    protected void addDeltaBlocks(SubRegionChunkSnapshot snapshot, ChunkDelta delta)
+    {
+        IntBoundingBox range = snapshot.range;
+        BlockPos.MutBlockPos posMutable = new BlockPos.MutBlockPos();
+        SubRegionTransform transform = snapshot.transform;
+
+        BlockPos containerOrigin = snapshot.containerOrigin;
+        final int baseX = containerOrigin.getX();
+        final int baseY = containerOrigin.getY();
+        final int baseZ = containerOrigin.getZ();
+        final int xStrideX = transform.xStrideX;
+        final int xStrideZ = transform.xStrideZ;
+        final int zStrideX = transform.zStrideX;
+        final int zStrideZ = transform.zStrideZ;
+        final int chunkBaseX = this.chunkPos.x << 4;
+        final int chunkBaseZ = this.chunkPos.z << 4;
+        final boolean hasBlockEntities = snapshot.hasBlockEntities();
+        final int count = delta.size();
+
+        for (int i = 0; i < count; ++i)
+        {
+            final int relPos = delta.getRelativePositionAt(i);
+            final int posX = chunkBaseX + PositionUtils.getChunkRelativeX(relPos);
+            final int posY = PositionUtils.getChunkRelativeY(relPos);
+            final int posZ = chunkBaseZ + PositionUtils.getChunkRelativeZ(relPos);
+            final int offX = posX - baseX;
+            final int offZ = posZ - baseZ;
+
+            // The strides are orthonormal, so the inverse transform is just the transpose
+            final int x = offX * xStrideX + offZ * xStrideZ;
+            final int y = posY - baseY;
+            final int z = offX * zStrideX + offZ * zStrideZ;
+
+            if (x < range.minX || x > range.maxX ||
+                y < range.minY || y > range.maxY ||
+                z < range.minZ || z > range.maxZ)
+            {
+                continue;
+            }
+
+            IBlockState state = snapshot.getBlockState(x, y, z);
+
+            // Structure void
+            if (state == null)
+            {
+                continue;
+            }
+
+            final int index = this.addBlock(relPos, state);
+
+            if (hasBlockEntities)
+            {
+                posMutable.set(x, y, z);
+                this.addBlockEntity(index, snapshot.getBlockEntityData(posMutable), posX, posY, posZ, state, transform);
+            }
+        }
+    }
+
+    protected void addBlockEntity(int index, @Nullable NBTTagCompound teNBT, int posX, int posY, int posZ,
+                                  IBlockState state, SubRegionTransform transform)
+    {
+        if (teNBT != null)
+        {
+            // The data is already a copy made when the snapshot was captured
+            BlockPos pos = new BlockPos(posX, posY, posZ);
+            NbtUtils.putVec3i(teNBT, pos);
+            this.blockEntities.put(index, new PendingBlockEntity(pos, state, teNBT, transform.mirrorMain,
+                                                                 transform.mirrorSub, transform.rotationCombined));
+        }
+    }
+
+    protected int addBlock(int relPos, IBlockState state)
+    {
+        if (this.blockCount >= this.positions.length)
+        {
+            this.positions = Arrays.copyOf(this.positions, this.positions.length * 2);
+            this.states = Arrays.copyOf(this.states, this.states.length * 2);
+        }
+
+        int index = this.blockCount++;
+        this.positions[index] = relPos;
+        this.states[index] = state;
+
+        return index;
+    }
+
+    protected void addEntities(ISchematicRegion region, BlockPos origin, SchematicPlacement schematicPlacement, SubRegionPlacement placement)
+    {
+        List<EntityInfo> entityList = region.getEntityList();
+
+        if (entityList == null || entityList.isEmpty())
+        {
+            return;
+        }
+
+        BlockPos regionPos = placement.getPosition();
+        BlockPos regionPosRelTransformed = PositionUtils.getTransformedBlockPos(regionPos, schematicPlacement.getMirror(), schematicPlacement.getRotation());
+        SubRegionTransform transform = schematicPlacement.getSubRegionTransform(placement);
+        final int offX = regionPosRelTransformed.getX() + origin.getX();
+        final int offY = regionPosRelTransformed.getY() + origin.getY();
+        final int offZ = regionPosRelTransformed.getZ() + origin.getZ();
+        final double minX = (this.chunkPos.x << 4);
+        final double minZ = (this.chunkPos.z << 4);
+        final double maxX = (this.chunkPos.x << 4) + 16;
+        final double maxZ = (this.chunkPos.z << 4) + 16;
+
+        for (EntityInfo info : entityList)
+        {
+            Vec3d pos = info.pos;
+            pos = PositionUtils.getTransformedPosition(pos, schematicPlacement.getMirror(), schematicPlacement.getRotation());
+            pos = PositionUtils.getTransformedPosition(pos, placement.getMirror(), placement.getRotation());
+            double x = pos.x + offX;
+            double y = pos.y + offY;
+            double z = pos.z + offZ;
+
+            if (x >= minX && x < maxX && z >= minZ && z < maxZ)
+            {
+                this.entities.add(new PendingEntity(info.nbt, x, y, z, transform.rotationCombined, transform.mirrorMain, transform.mirrorSub));
+            }
+        }
+    }
+
+    /**
+     * Sets the remaining blocks of this payload into the world, until the given
+     * System.nanoTime() deadline is reached. The entities are spawned once all the
+     * blocks have been set.
+     * @return true if the payload has been fully applied
+     */
+    public boolean apply(World world, ReplaceBehavior replace, long deadline)
+    {
+        final IBlockState barrier = Blocks.BARRIER.getDefaultState();
+        final int baseX = this.chunkPos.x << 4;
+        final int baseZ = this.chunkPos.z << 4;
+
+        try
+        {
+            WorldUtils.setShouldPreventBlockUpdates(world, true);
+
+            while (this.nextIndex < this.blockCount)
+            {
+                if ((this.nextIndex % DEADLINE_CHECK_INTERVAL) == 0 && this.nextIndex > 0 && System.nanoTime() >= deadline)
+                {
+                    return false;
+                }
+
+                final int index = this.nextIndex++;
+                final int relPos = this.positions[index];
+                IBlockState state = this.states[index];
+                BlockPos pos = new BlockPos(baseX + PositionUtils.getChunkRelativeX(relPos), PositionUtils.getChunkRelativeY(relPos),
+                                            baseZ + PositionUtils.getChunkRelativeZ(relPos));
+                IBlockState stateOld = world.getBlockState(pos).getActualState(world, pos);
+
+                if ((replace == ReplaceBehavior.NONE && stateOld.getMaterial() != Material.AIR) ||
+                    (replace == ReplaceBehavior.WITH_NON_AIR && state.getMaterial() == Material.AIR))
+                {
+                    continue;
+                }
+
+                TileEntity te = world.getTileEntity(pos);
+
+                if (te != null)
+                {
+                    if (te instanceof IInventory)
+                    {
+                        ((IInventory) te).clear();
+                    }
+
+                    world.setBlockState(pos, barrier, 0x14);
+                }
+
+                if (world.setBlockState(pos, state, 0x12))
+                {
+                    ++this.placedBlockCount;
+                    PendingBlockEntity entry = this.blockEntities.isEmpty() ? null : this.blockEntities.get(index);
+
+                    if (entry != null)
+                    {
+                        this.loadBlockEntity(world, entry);
+                    }
+                }
+            }
+
+            for (PendingEntity entry : this.entities)
+            {
+                Entity entity = EntityUtils.createEntityAndPassengersFromNbt(entry.nbt, world);
+
+                if (entity != null)
+                {
+                    SchematicPlacingUtils.rotateEntity(entity, entry.x, entry.y, entry.z, entry.rotation, entry.mirrorMain, entry.mirrorSub);
+                    EntityUtils.spawnEntityAndPassengersInWorld(entity, world);
+                }
+            }
+
+            this.entities.clear();
+        }
+        finally
+        {
+            WorldUtils.setShouldPreventBlockUpdates(world, false);
+        }
+
+        return true;
+    }
+
+    protected void loadBlockEntity(World world, PendingBlockEntity entry)
+    {
+        TileEntity te = world.getTileEntity(entry.pos);
+
+        if (te == null || entry.nbt == null)
+        {
+            return;
+        }
+
+        try
+        {
+            te.readFromNBT(entry.nbt);
+
+            if (entry.mirrorMain != BlockMirror.NONE) { te.mirror(entry.mirrorMain.getVanillaMirror()); }
+            if (entry.mirrorSub != BlockMirror.NONE)  { te.mirror(entry.mirrorSub.getVanillaMirror()); }
+            if (entry.rotation != BlockRotation.NONE) { te.rotate(entry.rotation.getVanillaRotation()); }
+        }
+        catch (Exception e)
+        {
+            Litematica.LOGGER.warn("Failed to load TileEntity data for {} @ {}", entry.state, entry.pos);
+        }
+    }
+
+    public static class PendingEntity
+    {
+        public final NBTTagCompound nbt;
+        public final double x;
+        public final double y;
+        public final double z;
+        public final BlockRotation rotation;
+        public final BlockMirror mirrorMain;
+        public final BlockMirror mirrorSub;
+
+        public PendingEntity(NBTTagCompound nbt, double x, double y, double z,
+                             BlockRotation rotation, BlockMirror mirrorMain, BlockMirror mirrorSub)
+        {
+            this.nbt = nbt;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.rotation = rotation;
+            this.mirrorMain = mirrorMain;
+            this.mirrorSub = mirrorSub;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package litematica.schematic.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.ChunkCache;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.World;
+
+import malilib.util.nbt.NbtUtils;
+import malilib.util.position.BlockPos;
+import malilib.util.position.IntBoundingBox;
+import litematica.Litematica;
+import litematica.schematic.container.ILitematicaBlockStateContainer;
+import litematica.schematic.container.LitematicaBlockStateContainerFull;
+
+/**
+ * Captures the blocks of one sub-region box from the world into a block state container.
+ * The box is split into chunk column aligned slabs, which are read on worker threads
+ * from {@link ChunkCache}s that are created on the calling thread, so that the worker
+ * threads never need to load or look up chunks via the world. Each slab is read into
+ * its own local palette, and the slabs are then merged into the container on the
+ * calling thread in order, while the following slabs are still being read.
+ * The block entities, and the actual states of blocks that have a block entity,
+ * are captured on the calling thread during the merge, as reading them may
+ * create the missing block entities in the world.
+ */
+public class RegionBlockCapture
+{
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(getThreadCount(),
+            new ThreadFactoryBuilder().setNameFormat("Litematica Region Capture %d").setDaemon(true).build());
+    private static final int MAX_PENDING_SLABS_PER_THREAD = 4;
+
+    /**
+     * Captures the blocks within the given world coordinate box into the given container,
+     * whose origin is at the minimum corner of the box.
+     * @param blockEntityMap the map to add the captured block entities to, using container relative positions
+     * @return the number of non-air blocks captured
+     */
+    public static long captureBlocks(World world, IntBoundingBox box,
+                                     ILitematicaBlockStateContainer container,
+                                     Map<BlockPos, NBTTagCompound> blockEntityMap)
+    {
+        List<IntBoundingBox> slabBoxes = getSlabBoxes(box);
+        ArrayDeque<CapturedSlab> pendingSlabs = new ArrayDeque<>();
+        final int maxPending = getThreadCount() * MAX_PENDING_SLABS_PER_THREAD;
+        long totalBlocks = 0;
+        int nextSlab = 0;
+
+        while (nextSlab < slabBoxes.size() || pendingSlabs.isEmpty() == false)
+        {
+            while (nextSlab < slabBoxes.size() && pendingSlabs.size() < maxPending)
+            {
+                pendingSlabs.add(submitSlab(world, slabBoxes.get(nextSlab++)));
+            }
+
+            CapturedSlab slab = pendingSlabs.poll();
+
+            if (slab != null)
+            {
+                totalBlocks += slab.finish(world, box, container, blockEntityMap);
+            }
+        }
+
+        return totalBlocks;
+    }
+
+    protected static CapturedSlab submitSlab(World world, IntBoundingBox slabBox)
+    {
+        final CapturedSlab slab = new CapturedSlab(slabBox);
+
+        // Create the cache here, so that all the chunk lookups and possible loading happen on this thread.
+        // The margin allows the actual state lookups to see the neighbor blocks outside the slab.
+        final ChunkCache cache = new ChunkCache(world,
+                                                new BlockPos(slabBox.minX - 1, slabBox.minY - 1, slabBox.minZ - 1),
+                                                new BlockPos(slabBox.maxX + 1, slabBox.maxY + 1, slabBox.maxZ + 1), 0);
+
+        slab.future = CompletableFuture.runAsync(() -> slab.read(cache), EXECUTOR);
+
+        return slab;
+    }
+
+    /**
+     * @return the chunk column aligned slabs of the given box
+     */
+    protected static List<IntBoundingBox> getSlabBoxes(IntBoundingBox box)
+    {
+        List<IntBoundingBox> list = new ArrayList<>();
+
+        for (int cz = box.minZ >> 4; cz <= (box.maxZ >> 4); ++cz)
+        {
+            for (int cx = box.minX >> 4; cx <= (box.maxX >> 4); ++cx)
+            {
+                list.add(new IntBoundingBox(Math.max(box.minX, cx << 4),        box.minY, Math.max(box.minZ, cz << 4),
+                                            Math.min(box.maxX, (cx << 4) + 15), box.maxY, Math.min(box.maxZ, (cz << 4) + 15)));
+            }
+        }
+
+        return list;
+    }
+
+    private static int getThreadCount()
+    {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    protected static class CapturedSlab
+    {
+        protected final IntBoundingBox box;
+        protected final int sizeX;
+        protected final int sizeZ;
+        protected final int[] ids;
+        protected final List<IBlockState> palette = new ArrayList<>();
+        protected final Object2IntOpenHashMap<IBlockState> paletteIds = new Object2IntOpenHashMap<>();
+        protected final IntArrayList blockEntityIndices = new IntArrayList();
+        protected CompletableFuture<Void> future;
+        protected long nonAirBlocks;
+
+        protected CapturedSlab(IntBoundingBox box)
+        {
+            this.box = box;
+            this.sizeX = box.maxX - box.minX + 1;
+            this.sizeZ = box.maxZ - box.minZ + 1;
+            this.ids = new int[this.sizeX * this.sizeZ * (box.maxY - box.minY + 1)];
+            this.paletteIds.defaultReturnValue(-1);
+        }
+
+        protected int getLocalId(IBlockState state)
+        {
+            int id = this.paletteIds.getInt(state);
+
+            if (id == -1)
+            {
+                id = this.palette.size();
+                this.palette.add(state);
+                this.paletteIds.put(state, id);
+            }
+
+            return id;
+        }
+
+        /**
+         * Reads the states of the slab. The actual states of the blocks
+         * that have a block entity are resolved later in {@link #finish}.
+         */
+        protected void read(IBlockAccess blockAccess)
+        {
+            BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos(0, 0, 0);
+            final IntBoundingBox box = this.box;
+            int index = 0;
+
+            this.palette.clear();
+            this.paletteIds.clear();
+            this.blockEntityIndices.clear();
+            this.nonAirBlocks = 0;
+
+            for (int y = box.minY; y <= box.maxY; ++y)
+            {
+                for (int z = box.minZ; z <= box.maxZ; ++z)
+                {
+                    for (int x = box.minX; x <= box.maxX; ++x)
+                    {
+                        posMutable.setPos(x, y, z);
+                        IBlockState state = blockAccess.getBlockState(posMutable);
+
+                        if (state.getBlock().hasTileEntity())
+                        {
+                            this.blockEntityIndices.add(index);
+                        }
+                        else
+                        {
+                            state = state.getActualState(blockAccess, posMutable);
+                        }
+
+                        if (state.getBlock() != Blocks.AIR)
+                        {
+                            ++this.nonAirBlocks;
+                        }
+
+                        this.ids[index++] = this.getLocalId(state);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Waits for the slab to be read, captures the block entities
+         * and merges the slab into the container.
+         * @return the number of non-air blocks in the slab
+         */
+        protected long finish(World world, IntBoundingBox regionBox,
+                              ILitematicaBlockStateContainer container,
+                              Map<BlockPos, NBTTagCompound> blockEntityMap)
+        {
+            try
+            {
+                this.future.join();
+            }
+            catch (Exception e)
+            {
+                Litematica.LOGGER.warn("Failed to capture the blocks of the area {} on a worker thread, reading it directly", this.box, e);
+                this.read(world);
+            }
+
+            this.captureBlockEntities(world, regionBox, blockEntityMap);
+
+            if (container instanceof LitematicaBlockStateContainerFull)
+            {
+                this.mergeIds((LitematicaBlockStateContainerFull) container, regionBox);
+            }
+            else
+            {
+                this.mergeStates(container, regionBox);
+            }
+
+            return this.nonAirBlocks;
+        }
+
+        protected void captureBlockEntities(World world, IntBoundingBox regionBox, Map<BlockPos, NBTTagCompound> blockEntityMap)
+        {
+            BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos(0, 0, 0);
+            final int layerSize = this.sizeX * this.sizeZ;
+            final int count = this.blockEntityIndices.size();
+
+            for (int i = 0; i < count; ++i)
+            {
+                final int index = this.blockEntityIndices.getInt(i);
+                final int x = this.box.minX + index % this.sizeX;
+                final int y = this.box.minY + index / layerSize;
+                final int z = this.box.minZ + (index % layerSize) / this.sizeX;
+
+                posMutable.setPos(x, y, z);
+                IBlockState state = world.getBlockState(posMutable).getActualState(world, posMutable);
+                this.ids[index] = this.getLocalId(state);
+
+                TileEntity te = world.getTileEntity(posMutable);
+
+                if (te != null)
+                {
+                    // TODO Add a TileEntity NBT cache from the Chunk packets, to get the original synced data (too)
+                    BlockPos pos = new BlockPos(x - regionBox.minX, y - regionBox.minY, z - regionBox.minZ);
+                    NBTTagCompound tag = te.writeToNBT(new NBTTagCompound());
+                    NbtUtils.putVec3i(tag, pos);
+                    blockEntityMap.put(pos, tag);
+                }
+            }
+        }
+
+        protected void mergeIds(LitematicaBlockStateContainerFull container, IntBoundingBox regionBox)
+        {
+            final int[] idMap = new int[this.palette.size()];
+            final int[] rowIds = new int[this.sizeX];
+            final int offsetX = this.box.minX - regionBox.minX;
+            int index = 0;
+
+            Arrays.fill(idMap, -1);
+
+            for (int y = this.box.minY; y <= this.box.maxY; ++y)
+            {
+                final int relY = y - regionBox.minY;
+
+                for (int z = this.box.minZ; z <= this.box.maxZ; ++z)
+                {
+                    final int relZ = z - regionBox.minZ;
+
+                    for (int x = 0; x < this.sizeX; ++x)
+                    {
+                        final int localId = this.ids[index++];
+                        int id = idMap[localId];
+
+                        if (id == -1)
+                        {
+                            // Note: This may resize the palette and the storage. The first position of each
+                            // state is written right away, so that its new ID is already in use if a later
+                            // resize looks for unused IDs to reuse, instead of it being handed out again.
+                            id = container.getPalette().idFor(this.palette.get(localId));
+                            idMap[localId] = id;
+                            rowIds[x] = id;
+                            container.setIds(offsetX + x, relY, relZ, rowIds, x, 1);
+                        }
+
+                        rowIds[x] = id;
+                    }
+
+                    container.setIds(offsetX, relY, relZ, rowIds, 0, this.sizeX);
+                }
+            }
+        }
+
+        protected void mergeStates(ILitematicaBlockStateContainer container, IntBoundingBox regionBox)
+        {
+            int index = 0;
+
+            for (int y = this.box.minY; y <= this.box.maxY; ++y)
+            {
+                for (int z = this.box.minZ; z <= this.box.maxZ; ++z)
+                {
+                    for (int x = this.box.minX; x <= this.box.maxX; ++x)
+                    {
+                        IBlockState state = this.palette.get(this.ids[index++]);
+                        container.setBlockState(x - regionBox.minX, y - regionBox.minY, z - regionBox.minZ, state);
+                    }
+                }
+            }
+        }
+    }
+}
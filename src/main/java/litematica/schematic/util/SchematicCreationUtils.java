@@ -297,7 +297,6 @@ public class SchematicCreationUtils
 
     private static void takeBlocksFromWorld(LitematicaSchematic schematic, World world, List<SelectionBox> boxes)
     {
-        BlockPos.MutableBlockPos posMutable = new BlockPos.MutableBlockPos(0, 0, 0);
         long totalBlocks = 0;
 
         for (SelectionBox box : boxes)
@@ -327,37 +326,9 @@ public class SchematicCreationUtils
             final int startY = minCorner.getY();
             final int startZ = minCorner.getZ();
 
-            for (int y = 0; y < sizeY; ++y)
-            {
-                for (int z = 0; z < sizeZ; ++z)
-                {
-                    for (int x = 0; x < sizeX; ++x)
-                    {
-                        posMutable.setPos(x + startX, y + startY, z + startZ);
-                        IBlockState state = world.getBlockState(posMutable).getActualState(world, posMutable);
-                        container.setBlockState(x, y, z, state);
-
-                        if (state.getBlock() != Blocks.AIR)
-                        {
-                            ++totalBlocks;
-                        }
-
-                        if (state.getBlock().hasTileEntity())
-                        {
-                            TileEntity te = world.getTileEntity(posMutable);
-
-                            if (te != null)
-                            {
-                                // TODO Add a TileEntity NBT cache from the Chunk packets, to get the original synced data (too)
-                                BlockPos pos = new BlockPos(x, y, z);
-                                NBTTagCompound tag = te.writeToNBT(new NBTTagCompound());
-                                NbtUtils.putVec3i(tag, pos);
-                                blockEntityMap.put(pos, tag);
-                            }
-                        }
-                    }
-                }
-            }
+            IntBoundingBox captureBox = new IntBoundingBox(startX, startY, startZ,
+                                                           startX + sizeX - 1, startY + sizeY - 1, startZ + sizeZ - 1);
+            totalBlocks += RegionBlockCapture.captureBlocks(world, captureBox, container, blockEntityMap);
 
             if (world instanceof WorldServer)
             {
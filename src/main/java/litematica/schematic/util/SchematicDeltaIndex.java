@@ -0,0 +1,63 @@
+package litematica.schematic.util;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import net.minecraft.world.chunk.Chunk;
+
+import malilib.util.position.ChunkPos;
+import malilib.util.position.IntBoundingBox;
+
+/**
+ * The per-chunk {@link ChunkDelta}s between the schematic world and a real world,
+ * used by the changed-blocks-only paste modes. The delta of a chunk is built
+ * when the chunk is first needed, within the time budget of the calling task,
+ * possibly over several ticks. After that the paste only needs to visit the
+ * changed positions, instead of the whole volume of the placements.
+ */
+public class SchematicDeltaIndex
+{
+    protected final Long2ObjectOpenHashMap<ChunkDelta> deltas = new Long2ObjectOpenHashMap<>();
+    protected final Long2ObjectOpenHashMap<ChunkDelta.Builder> builders = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Returns the existing delta of the given chunk, or continues building it
+     * from the given chunks until the given System.nanoTime() deadline.
+     * @return the delta, or null if it isn't finished yet
+     */
+    @Nullable
+    public ChunkDelta getOrBuild(ChunkPos pos, Chunk schematicChunk, Chunk worldChunk, List<IntBoundingBox> boxes, long deadline)
+    {
+        long chunkPosLong = ChunkPos.asLong(pos.x, pos.z);
+        ChunkDelta delta = this.deltas.get(chunkPosLong);
+
+        if (delta == null)
+        {
+            ChunkDelta.Builder builder = this.builders.get(chunkPosLong);
+
+            if (builder == null)
+            {
+                builder = new ChunkDelta.Builder(boxes);
+                this.builders.put(chunkPosLong, builder);
+            }
+
+            delta = builder.build(schematicChunk, worldChunk, deadline);
+
+            if (delta != null)
+            {
+                this.builders.remove(chunkPosLong);
+                this.deltas.put(chunkPosLong, delta);
+            }
+        }
+
+        return delta;
+    }
+
+    public void remove(ChunkPos pos)
+    {
+        long chunkPosLong = ChunkPos.asLong(pos.x, pos.z);
+        this.deltas.remove(chunkPosLong);
+        this.builders.remove(chunkPosLong);
+    }
+}
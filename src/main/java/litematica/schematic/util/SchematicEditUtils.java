@@ -647,20 +647,8 @@ public class SchematicEditUtils
             IBlockState stateOriginal = SchematicUtils.getUntransformedBlockState(stateOriginalIn, schematicPlacement, regionName);
             IBlockState stateNew = SchematicUtils.getUntransformedBlockState(stateNewIn, schematicPlacement, regionName);
 
-            for (int y = startY; y <= endY; ++y)
-            {
-                for (int z = startZ; z <= endZ; ++z)
-                {
-                    for (int x = startX; x <= endX; ++x)
-                    {
-                        if (container.getBlockState(x, y, z) == stateOriginal)
-                        {
-                            container.setBlockState(x, y, z, stateNew);
-                            totalBlocks += increment;
-                        }
-                    }
-                }
-            }
+            long replacedCount = container.replaceAll(stateOriginal, stateNew, containerStart, containerEnd);
+            totalBlocks += replacedCount * increment;
         }
 
         SchematicMetadata metadata = schematic.getMetadata();
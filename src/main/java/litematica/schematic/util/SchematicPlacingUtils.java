@@ -8,6 +8,8 @@ import javax.annotation.Nullable;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.tuple.Pair;
 
+import net.minecraft.block.Block;
+import net.minecraft.block.ITileEntityProvider;
 import net.minecraft.block.material.Material;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.Entity;
@@ -18,6 +20,8 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.NextTickListEntry;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
 
 import malilib.overlay.message.MessageDispatcher;
 import malilib.util.data.EnabledCondition;
@@ -45,7 +49,9 @@ import litematica.schematic.ISchematicRegion;
 import litematica.schematic.container.ILitematicaBlockStateContainer;
 import litematica.schematic.placement.SchematicPlacement;
 import litematica.schematic.placement.SchematicPlacementManager;
+import litematica.schematic.placement.SubRegionChunkSnapshot;
 import litematica.schematic.placement.SubRegionPlacement;
+import litematica.schematic.placement.SubRegionTransform;
 import litematica.selection.CornerDefinedBox;
 import litematica.util.EntityUtils;
 import litematica.util.PositionUtils;
@@ -113,7 +119,7 @@ public class SchematicPlacingUtils
                 if (GameWrap.isSinglePlayer())
                 {
                     TaskPasteSchematicPerChunkDirect task = new TaskPasteSchematicPerChunkDirect(placements, range, changedBlocksOnly);
-                    TaskScheduler.getInstanceServer().scheduleTask(task, 20);
+                    TaskScheduler.getInstanceServer().scheduleTask(task, 1);
                 }
                 else
                 {
@@ -226,16 +232,10 @@ public class SchematicPlacingUtils
         BlockPos.MutBlockPos posMutable = new BlockPos.MutBlockPos();
         ReplaceBehavior replace = Configs.Generic.PASTE_REPLACE_BEHAVIOR.getValue();
 
-        final BlockRotation rotationCombined = schematicPlacement.getRotation().add(placement.getRotation());
-        final BlockMirror mirrorMain = schematicPlacement.getMirror();
-        BlockMirror mirrorSub = placement.getMirror();
-
-        if (mirrorSub != BlockMirror.NONE &&
-            (schematicPlacement.getRotation() == BlockRotation.CW_90 ||
-             schematicPlacement.getRotation() == BlockRotation.CCW_90))
-        {
-            mirrorSub = mirrorSub == BlockMirror.Z ? BlockMirror.X : BlockMirror.Z;
-        }
+        SubRegionTransform transform = schematicPlacement.getSubRegionTransform(placement);
+        final BlockRotation rotationCombined = transform.rotationCombined;
+        final BlockMirror mirrorMain = transform.mirrorMain;
+        final BlockMirror mirrorSub = transform.mirrorSub;
 
         Vec3i containerStart = pair.getLeft();
         Vec3i containerEnd = pair.getRight();
@@ -246,29 +246,46 @@ public class SchematicPlacingUtils
         final int endY = containerEnd.getY();
         final int endZ = containerEnd.getZ();
 
+        BlockPos containerOrigin = getTransformedContainerOrigin(origin, regionPos, posMinRel, regionPosTransformed, schematicPlacement, placement);
+        final int baseX = containerOrigin.getX();
+        final int baseY = containerOrigin.getY();
+        final int baseZ = containerOrigin.getZ();
+        final int xStrideX = transform.xStrideX;
+        final int xStrideZ = transform.xStrideZ;
+        final int zStrideX = transform.zStrideX;
+        final int zStrideZ = transform.zStrideZ;
+        final boolean hasBlockEntities = tileMap.isEmpty() == false;
+        final int sizeX = Math.abs(container.getSize().getX());
+        final int[] idBuffer = new int[sizeX];
+        final IBlockState[] row = new IBlockState[sizeX];
+
         for (int y = startY; y <= endY; ++y)
         {
             for (int z = startZ; z <= endZ; ++z)
             {
+                transform.getTransformedRow(container, y, z, startX, endX, idBuffer, row);
+                final int rowX = baseX + z * zStrideX;
+                final int rowZ = baseZ + z * zStrideZ;
+
                 for (int x = startX; x <= endX; ++x)
                 {
-                    IBlockState state = container.getBlockState(x, y, z);
+                    IBlockState state = row[x];
 
-                    if (state.getBlock() == Blocks.STRUCTURE_VOID)
+                    // Structure void
+                    if (state == null)
                     {
                         continue;
                     }
 
-                    posMutable.set(x, y, z);
-                    NBTTagCompound teNBT = tileMap.get(posMutable);
+                    NBTTagCompound teNBT = null;
 
-                    posMutable.set(posMinRel.getX() + x - regionPos.getX(),
-                                   posMinRel.getY() + y - regionPos.getY(),
-                                   posMinRel.getZ() + z - regionPos.getZ());
-
-                    BlockPos pos = PositionUtils.getTransformedPlacementPosition(posMutable, schematicPlacement, placement);
-                    pos = pos.add(regionPosTransformed).add(origin);
+                    if (hasBlockEntities)
+                    {
+                        posMutable.set(x, y, z);
+                        teNBT = tileMap.get(posMutable);
+                    }
 
+                    BlockPos pos = new BlockPos(rowX + x * xStrideX, baseY + y, rowZ + x * xStrideZ);
                     IBlockState stateOld = world.getBlockState(pos).getActualState(world, pos);
 
                     if ((replace == ReplaceBehavior.NONE && stateOld.getMaterial() != Material.AIR) ||
@@ -277,10 +294,6 @@ public class SchematicPlacingUtils
                         continue;
                     }
 
-                    if (mirrorMain != BlockMirror.NONE) { state = state.withMirror(mirrorMain.getVanillaMirror()); }
-                    if (mirrorSub != BlockMirror.NONE)  { state = state.withMirror(mirrorSub.getVanillaMirror()); }
-                    if (rotationCombined != BlockRotation.NONE) { state = state.withRotation(rotationCombined.getVanillaRotation()); }
-
                     if (stateOld == state)
                     {
                         continue;
@@ -449,18 +462,22 @@ public class SchematicPlacingUtils
     public static boolean placeBlocksWithinChunk(World world, ChunkPos chunkPos, String regionName, ISchematicRegion region,
                                                  BlockPos origin, SchematicPlacement schematicPlacement, SubRegionPlacement placement, ReplaceBehavior replace, boolean notifyNeighbors)
     {
-        CornerDefinedBox box = schematicPlacement.getSubRegionBox(regionName, EnabledCondition.ENABLED);
-        IntBoundingBox bounds = box != null ? PositionUtils.getBoundsWithinChunkForBox(box, chunkPos.x, chunkPos.z) : null;
         ILitematicaBlockStateContainer container = region.getBlockStateContainer();
         Map<BlockPos, NBTTagCompound> blockEntityMap = region.getBlockEntityMap();
 
-        if (bounds == null || container == null || blockEntityMap == null)
+        if (container == null || blockEntityMap == null)
         {
             return false;
         }
 
         BlockPos regionPos = placement.getPosition();
         Vec3i regionSize = region.getSize();
+        IntBoundingBox range = getContainerRangeWithinChunk(chunkPos, regionName, regionSize, container.getSize(), origin, schematicPlacement, placement);
+
+        if (range == null)
+        {
+            return false;
+        }
 
         // These are the untransformed relative positions
         BlockPos posEndRel = (new BlockPos(PositionUtils.getRelativeEndPositionFromAreaSize(regionSize))).add(regionPos);
@@ -469,77 +486,60 @@ public class SchematicPlacingUtils
         // The transformed sub-region origin position
         BlockPos regionPosTransformed = PositionUtils.getTransformedBlockPos(regionPos, schematicPlacement.getMirror(), schematicPlacement.getRotation());
 
-        // The relative offset of the affected region's corners, to the sub-region's origin corner
-        BlockPos boxMinRel = new BlockPos(bounds.minX - origin.getX() - regionPosTransformed.getX(), 0, bounds.minZ - origin.getZ() - regionPosTransformed.getZ());
-        BlockPos boxMaxRel = new BlockPos(bounds.maxX - origin.getX() - regionPosTransformed.getX(), 0, bounds.maxZ - origin.getZ() - regionPosTransformed.getZ());
-
-        // Reverse transform that relative offset, to get the untransformed orientation's offsets
-        boxMinRel = PositionUtils.getReverseTransformedBlockPos(boxMinRel, placement.getMirror(), placement.getRotation());
-        boxMaxRel = PositionUtils.getReverseTransformedBlockPos(boxMaxRel, placement.getMirror(), placement.getRotation());
-
-        boxMinRel = PositionUtils.getReverseTransformedBlockPos(boxMinRel, schematicPlacement.getMirror(), schematicPlacement.getRotation());
-        boxMaxRel = PositionUtils.getReverseTransformedBlockPos(boxMaxRel, schematicPlacement.getMirror(), schematicPlacement.getRotation());
-
-        // Get the offset relative to the sub-region's minimum corner, instead of the origin corner (which can be at any corner)
-        boxMinRel = boxMinRel.subtract(posMinRel.subtract(regionPos));
-        boxMaxRel = boxMaxRel.subtract(posMinRel.subtract(regionPos));
-
-        BlockPos posMin = malilib.util.position.PositionUtils.getMinCorner(boxMinRel, boxMaxRel);
-        BlockPos posMax = malilib.util.position.PositionUtils.getMaxCorner(boxMinRel, boxMaxRel);
-
-        final int startX = posMin.getX();
-        final int startZ = posMin.getZ();
-        final int endX = posMax.getX();
-        final int endZ = posMax.getZ();
-
-        final int startY = 0;
-        final int endY = Math.abs(regionSize.getY()) - 1;
+        final int startX = range.minX;
+        final int startY = range.minY;
+        final int startZ = range.minZ;
+        final int endX = range.maxX;
+        final int endY = range.maxY;
+        final int endZ = range.maxZ;
         BlockPos.MutBlockPos posMutable = new BlockPos.MutBlockPos();
 
-        //System.out.printf("sx: %d, sy: %d, sz: %d => ex: %d, ey: %d, ez: %d\n", startX, startY, startZ, endX, endY, endZ);
-
-        if (startX < 0 || startZ < 0 || endX >= container.getSize().getX() || endZ >= container.getSize().getZ())
-        {
-            System.out.printf("DEBUG ============= OUT OF BOUNDS - region: %s, sx: %d, sz: %d, ex: %d, ez: %d - size x: %d z: %d =============\n",
-                    regionName, startX, startZ, endX, endZ, container.getSize().getX(), container.getSize().getZ());
-            return false;
-        }
-
-        final BlockRotation rotationCombined = schematicPlacement.getRotation().add(placement.getRotation());
-        final BlockMirror mirrorMain = schematicPlacement.getMirror();
+        SubRegionTransform transform = schematicPlacement.getSubRegionTransform(placement);
+        final BlockRotation rotationCombined = transform.rotationCombined;
+        final BlockMirror mirrorMain = transform.mirrorMain;
+        final BlockMirror mirrorSub = transform.mirrorSub;
         final IBlockState barrier = Blocks.BARRIER.getDefaultState();
-        BlockMirror mirrorSub = placement.getMirror();
 
-        if (mirrorSub != BlockMirror.NONE &&
-            (schematicPlacement.getRotation() == BlockRotation.CW_90 ||
-             schematicPlacement.getRotation() == BlockRotation.CCW_90))
-        {
-            mirrorSub = mirrorSub == BlockMirror.X ? BlockMirror.Z : BlockMirror.X;
-        }
+        BlockPos containerOrigin = getTransformedContainerOrigin(origin, regionPos, posMinRel, regionPosTransformed, schematicPlacement, placement);
+        final int baseX = containerOrigin.getX();
+        final int baseY = containerOrigin.getY();
+        final int baseZ = containerOrigin.getZ();
+        final int xStrideX = transform.xStrideX;
+        final int xStrideZ = transform.xStrideZ;
+        final int zStrideX = transform.zStrideX;
+        final int zStrideZ = transform.zStrideZ;
+        final boolean hasBlockEntities = blockEntityMap.isEmpty() == false;
+        final int sizeX = Math.abs(container.getSize().getX());
+        final int[] idBuffer = new int[sizeX];
+        final IBlockState[] row = new IBlockState[sizeX];
 
         for (int y = startY; y <= endY; ++y)
         {
             for (int z = startZ; z <= endZ; ++z)
             {
+                transform.getTransformedRow(container, y, z, startX, endX, idBuffer, row);
+                final int rowX = baseX + z * zStrideX;
+                final int rowZ = baseZ + z * zStrideZ;
+
                 for (int x = startX; x <= endX; ++x)
                 {
-                    IBlockState state = container.getBlockState(x, y, z);
+                    IBlockState state = row[x];
 
-                    if (state.getBlock() == Blocks.STRUCTURE_VOID)
+                    // Structure void
+                    if (state == null)
                     {
                         continue;
                     }
 
-                    posMutable.set(x, y, z);
-                    NBTTagCompound teNBT = blockEntityMap.get(posMutable);
-
-                    posMutable.set(posMinRel.getX() + x - regionPos.getX(),
-                                   posMinRel.getY() + y - regionPos.getY(),
-                                   posMinRel.getZ() + z - regionPos.getZ());
+                    NBTTagCompound teNBT = null;
 
-                    BlockPos pos = PositionUtils.getTransformedPlacementPosition(posMutable, schematicPlacement, placement);
-                    pos = pos.add(regionPosTransformed).add(origin);
+                    if (hasBlockEntities)
+                    {
+                        posMutable.set(x, y, z);
+                        teNBT = blockEntityMap.get(posMutable);
+                    }
 
+                    BlockPos pos = new BlockPos(rowX + x * xStrideX, baseY + y, rowZ + x * xStrideZ);
                     IBlockState stateOld = world.getBlockState(pos).getActualState(world, pos);
 
                     if ((replace == ReplaceBehavior.NONE && stateOld.getMaterial() != Material.AIR) ||
@@ -548,10 +548,6 @@ public class SchematicPlacingUtils
                         continue;
                     }
 
-                    if (mirrorMain != BlockMirror.NONE) { state = state.withMirror(mirrorMain.getVanillaMirror()); }
-                    if (mirrorSub != BlockMirror.NONE)  { state = state.withMirror(mirrorSub.getVanillaMirror()); }
-                    if (rotationCombined != BlockRotation.NONE) { state = state.withRotation(rotationCombined.getVanillaRotation()); }
-
                     TileEntity te = world.getTileEntity(pos);
 
                     if (te != null)
@@ -612,6 +608,373 @@ public class SchematicPlacingUtils
         return true;
     }
 
+    /**
+     * Places the blocks of all the enabled sub-regions of the placement that are within the given chunk
+     * into the provided detached block storage array, without accessing any world.
+     * The block entities of the placed blocks are added to the provided list,
+     * so that they can be created in the world afterwards.
+     * This always uses the {@link ReplaceBehavior#ALL} replace behavior.
+     */
+    public static void placeToStorageWithinChunk(SchematicPlacement schematicPlacement, ChunkPos chunkPos,
+                                                 ExtendedBlockStorage[] storages, List<PendingBlockEntity> blockEntities)
+    {
+        List<SubRegionChunkSnapshot> snapshots = new ArrayList<>();
+        getSubRegionChunkSnapshots(schematicPlacement, chunkPos, snapshots, true);
+
+        for (SubRegionChunkSnapshot snapshot : snapshots)
+        {
+            placeBlocksWithinChunkToStorage(storages, blockEntities, snapshot);
+        }
+    }
+
+    /**
+     * Captures the placement data of all the enabled sub-regions of the placement
+     * that are within the given chunk, and adds them to the provided list.
+     * This must be called on the main thread.
+     * @param copyBlocks if false, then the snapshots can only be used for checking whether the placement data has changed
+     */
+    public static void getSubRegionChunkSnapshots(SchematicPlacement schematicPlacement, ChunkPos chunkPos,
+                                                  List<SubRegionChunkSnapshot> snapshots, boolean copyBlocks)
+    {
+        ISchematic schematic = schematicPlacement.getSchematic();
+        Set<String> regionsTouchingChunk = PositionUtils.getSubRegionNamesTouchingChunk(chunkPos.x, chunkPos.z, schematicPlacement.getSubRegionBoxes(EnabledCondition.ENABLED));
+        BlockPos origin = schematicPlacement.getPosition();
+
+        for (String regionName : regionsTouchingChunk)
+        {
+            SubRegionPlacement placement = schematicPlacement.getSubRegion(regionName);
+            ISchematicRegion region = schematic.getSchematicRegion(regionName);
+
+            if (region != null && placement != null && placement.isEnabled())
+            {
+                SubRegionChunkSnapshot snapshot = getSubRegionChunkSnapshot(chunkPos, regionName, region, origin,
+                                                                                   schematicPlacement, placement, copyBlocks);
+
+                if (snapshot != null)
+                {
+                    snapshots.add(snapshot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Captures the placement data of the given sub-region within the given chunk.
+     * This reads the sub-region's block state container and block entity map, so it must be called on the main thread.
+     * @param copyBlocks if false, then the snapshot can only be used for checking whether the placement data has changed
+     */
+    @Nullable
+    public static SubRegionChunkSnapshot getSubRegionChunkSnapshot(ChunkPos chunkPos, String regionName, ISchematicRegion region, BlockPos origin,
+                                                                   SchematicPlacement schematicPlacement, SubRegionPlacement placement,
+                                                                   boolean copyBlocks)
+    {
+        ILitematicaBlockStateContainer container = region.getBlockStateContainer();
+        Map<BlockPos, NBTTagCompound> blockEntityMap = region.getBlockEntityMap();
+
+        if (container == null || blockEntityMap == null)
+        {
+            return null;
+        }
+
+        BlockPos regionPos = placement.getPosition();
+        Vec3i regionSize = region.getSize();
+        IntBoundingBox range = getContainerRangeWithinChunk(chunkPos, regionName, regionSize, container.getSize(), origin, schematicPlacement, placement);
+
+        if (range == null)
+        {
+            return null;
+        }
+
+        // These are the untransformed relative positions
+        BlockPos posEndRel = (new BlockPos(PositionUtils.getRelativeEndPositionFromAreaSize(regionSize))).add(regionPos);
+        BlockPos posMinRel = malilib.util.position.PositionUtils.getMinCorner(regionPos, posEndRel);
+
+        // The transformed sub-region origin position
+        BlockPos regionPosTransformed = PositionUtils.getTransformedBlockPos(regionPos, schematicPlacement.getMirror(), schematicPlacement.getRotation());
+
+        SubRegionTransform transform = schematicPlacement.getSubRegionTransform(placement);
+        BlockPos containerOrigin = getTransformedContainerOrigin(origin, regionPos, posMinRel, regionPosTransformed, schematicPlacement, placement);
+
+        return new SubRegionChunkSnapshot(regionName, container, blockEntityMap, transform, range, containerOrigin, copyBlocks);
+    }
+
+    /**
+     * Places the blocks of the given sub-region snapshot into the provided detached block storage array.
+     * This only reads the data copied into the snapshot,
+     * so it can be called from the chunk populator worker threads.
+     */
+    public static void placeBlocksWithinChunkToStorage(ExtendedBlockStorage[] storages, List<PendingBlockEntity> blockEntities,
+                                                       SubRegionChunkSnapshot snapshot)
+    {
+        IntBoundingBox range = snapshot.range;
+        BlockPos.MutBlockPos posMutable = new BlockPos.MutBlockPos();
+        SubRegionTransform transform = snapshot.transform;
+        final BlockRotation rotationCombined = transform.rotationCombined;
+        final BlockMirror mirrorMain = transform.mirrorMain;
+        final BlockMirror mirrorSub = transform.mirrorSub;
+
+        BlockPos containerOrigin = snapshot.containerOrigin;
+        final int baseX = containerOrigin.getX();
+        final int baseY = containerOrigin.getY();
+        final int baseZ = containerOrigin.getZ();
+        final int xStrideX = transform.xStrideX;
+        final int xStrideZ = transform.xStrideZ;
+        final int zStrideX = transform.zStrideX;
+        final int zStrideZ = transform.zStrideZ;
+
+        for (int y = range.minY; y <= range.maxY; ++y)
+        {
+            final int posY = baseY + y;
+
+            if (posY < 0 || posY > 255)
+            {
+                continue;
+            }
+
+            for (int z = range.minZ; z <= range.maxZ; ++z)
+            {
+                final int rowX = baseX + z * zStrideX;
+                final int rowZ = baseZ + z * zStrideZ;
+
+                for (int x = range.minX; x <= range.maxX; ++x)
+                {
+                    IBlockState state = snapshot.getBlockState(x, y, z);
+
+                    // Structure void
+                    if (state == null)
+                    {
+                        continue;
+                    }
+
+                    final int posX = rowX + x * xStrideX;
+                    final int posZ = rowZ + x * xStrideZ;
+                    ExtendedBlockStorage storage = storages[posY >> 4];
+
+                    if (storage == null)
+                    {
+                        if (state.getMaterial() == Material.AIR)
+                        {
+                            continue;
+                        }
+
+                        storage = new ExtendedBlockStorage(posY >> 4 << 4, false);
+                        storages[posY >> 4] = storage;
+                    }
+
+                    storage.set(posX & 0xF, posY & 0xF, posZ & 0xF, state);
+
+                    if (state.getBlock() instanceof ITileEntityProvider)
+                    {
+                        posMutable.set(x, y, z);
+                        NBTTagCompound teNBT = snapshot.getBlockEntityData(posMutable);
+                        BlockPos pos = new BlockPos(posX, posY, posZ);
+                        blockEntities.add(new PendingBlockEntity(pos, state, teNBT, mirrorMain, mirrorSub, rotationCombined));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Places the blocks of all the given placements that are within the given chunk directly into
+     * the chunk's block storage arrays, bypassing the per-block setBlockState() calls and their
+     * block entity and neighbor bookkeeping. The block entities are then created in a second pass,
+     * followed by the entities. This is meant for populating freshly loaded schematic world chunks,
+     * where none of the lighting or block update handling matters.
+     * The chunk must be empty, as any existing block entities are not removed.
+     */
+    public static void placeToChunkDirect(List<SchematicPlacement> placements, Chunk chunk, World world)
+    {
+        ChunkPos chunkPos = new ChunkPos(chunk.x, chunk.z);
+        ExtendedBlockStorage[] storages = chunk.getBlockStorageArray();
+        List<PendingBlockEntity> blockEntities = new ArrayList<>();
+
+        for (SchematicPlacement placement : placements)
+        {
+            if (placement.isEnabled() && placement.isSchematicLoaded())
+            {
+                placeToStorageWithinChunk(placement, chunkPos, storages, blockEntities);
+            }
+        }
+
+        releaseEmptyStorages(storages);
+        chunk.markDirty();
+
+        createPendingBlockEntities(world, blockEntities);
+
+        for (SchematicPlacement placement : placements)
+        {
+            if (placement.isEnabled() && placement.isSchematicLoaded())
+            {
+                placeEntitiesToWorldWithinChunk(placement, chunkPos, world);
+            }
+        }
+    }
+
+    /**
+     * Replaces any sections that only contain air with the null storage
+     */
+    public static void releaseEmptyStorages(ExtendedBlockStorage[] storages)
+    {
+        for (int i = 0; i < storages.length; ++i)
+        {
+            if (storages[i] != null && storages[i].isEmpty())
+            {
+                storages[i] = Chunk.NULL_BLOCK_STORAGE;
+            }
+        }
+    }
+
+    /**
+     * Creates the block entities collected by {@link #placeToStorageWithinChunk}
+     * into the world. The block states must already be in the world.
+     */
+    public static void createPendingBlockEntities(World world, List<PendingBlockEntity> blockEntities)
+    {
+        for (PendingBlockEntity entry : blockEntities)
+        {
+            BlockPos pos = entry.pos;
+
+            // A later placement may have replaced the block in the same position
+            if (world.getBlockState(pos) != entry.state)
+            {
+                continue;
+            }
+
+            Block block = entry.state.getBlock();
+            TileEntity te = ((ITileEntityProvider) block).createNewTileEntity(world, block.getMetaFromState(entry.state));
+
+            if (te == null)
+            {
+                continue;
+            }
+
+            world.setTileEntity(pos, te);
+
+            if (entry.nbt != null)
+            {
+                NBTTagCompound teNBT = NbtWrap.copy(entry.nbt);
+                NbtUtils.putVec3i(teNBT, pos);
+
+                try
+                {
+                    te.readFromNBT(teNBT);
+
+                    if (entry.mirrorMain != BlockMirror.NONE) { te.mirror(entry.mirrorMain.getVanillaMirror()); }
+                    if (entry.mirrorSub != BlockMirror.NONE)  { te.mirror(entry.mirrorSub.getVanillaMirror()); }
+                    if (entry.rotation != BlockRotation.NONE) { te.rotate(entry.rotation.getVanillaRotation()); }
+                }
+                catch (Exception e)
+                {
+                    Litematica.LOGGER.warn("Failed to load TileEntity data for {} @ {}", entry.state, pos);
+                }
+            }
+
+            te.updateContainingBlockInfo();
+        }
+    }
+
+    /**
+     * Returns the world position of the sub-region's block state container's (0, 0, 0) position.
+     * The other positions can then be calculated using the strides of the {@link SubRegionTransform}.
+     */
+    protected static BlockPos getTransformedContainerOrigin(BlockPos origin, BlockPos regionPos, BlockPos posMinRel, BlockPos regionPosTransformed,
+                                                           SchematicPlacement schematicPlacement, SubRegionPlacement placement)
+    {
+        BlockPos pos = new BlockPos(posMinRel.getX() - regionPos.getX(),
+                                    posMinRel.getY() - regionPos.getY(),
+                                    posMinRel.getZ() - regionPos.getZ());
+        pos = PositionUtils.getTransformedPlacementPosition(pos, schematicPlacement, placement);
+        return pos.add(regionPosTransformed).add(origin);
+    }
+
+    /**
+     * Returns the range of the sub-region's block state container that is within the given chunk,
+     * in the container's own untransformed coordinates.
+     * @return the range, or null if the sub-region doesn't touch the chunk or the range is invalid
+     */
+    @Nullable
+    public static IntBoundingBox getContainerRangeWithinChunk(ChunkPos chunkPos, String regionName, Vec3i regionSize, Vec3i containerSize,
+                                                              BlockPos origin, SchematicPlacement schematicPlacement, SubRegionPlacement placement)
+    {
+        CornerDefinedBox box = schematicPlacement.getSubRegionBox(regionName, EnabledCondition.ENABLED);
+        IntBoundingBox bounds = box != null ? PositionUtils.getBoundsWithinChunkForBox(box, chunkPos.x, chunkPos.z) : null;
+
+        if (bounds == null)
+        {
+            return null;
+        }
+
+        BlockPos regionPos = placement.getPosition();
+
+        // These are the untransformed relative positions
+        BlockPos posEndRel = (new BlockPos(PositionUtils.getRelativeEndPositionFromAreaSize(regionSize))).add(regionPos);
+        BlockPos posMinRel = malilib.util.position.PositionUtils.getMinCorner(regionPos, posEndRel);
+
+        // The transformed sub-region origin position
+        BlockPos regionPosTransformed = PositionUtils.getTransformedBlockPos(regionPos, schematicPlacement.getMirror(), schematicPlacement.getRotation());
+
+        // The relative offset of the affected region's corners, to the sub-region's origin corner
+        BlockPos boxMinRel = new BlockPos(bounds.minX - origin.getX() - regionPosTransformed.getX(), 0, bounds.minZ - origin.getZ() - regionPosTransformed.getZ());
+        BlockPos boxMaxRel = new BlockPos(bounds.maxX - origin.getX() - regionPosTransformed.getX(), 0, bounds.maxZ - origin.getZ() - regionPosTransformed.getZ());
+
+        // Reverse transform that relative offset, to get the untransformed orientation's offsets
+        boxMinRel = PositionUtils.getReverseTransformedBlockPos(boxMinRel, placement.getMirror(), placement.getRotation());
+        boxMaxRel = PositionUtils.getReverseTransformedBlockPos(boxMaxRel, placement.getMirror(), placement.getRotation());
+
+        boxMinRel = PositionUtils.getReverseTransformedBlockPos(boxMinRel, schematicPlacement.getMirror(), schematicPlacement.getRotation());
+        boxMaxRel = PositionUtils.getReverseTransformedBlockPos(boxMaxRel, schematicPlacement.getMirror(), schematicPlacement.getRotation());
+
+        // Get the offset relative to the sub-region's minimum corner, instead of the origin corner (which can be at any corner)
+        boxMinRel = boxMinRel.subtract(posMinRel.subtract(regionPos));
+        boxMaxRel = boxMaxRel.subtract(posMinRel.subtract(regionPos));
+
+        BlockPos posMin = malilib.util.position.PositionUtils.getMinCorner(boxMinRel, boxMaxRel);
+        BlockPos posMax = malilib.util.position.PositionUtils.getMaxCorner(boxMinRel, boxMaxRel);
+
+        final int startX = posMin.getX();
+        final int startZ = posMin.getZ();
+        final int endX = posMax.getX();
+        final int endZ = posMax.getZ();
+
+        //System.out.printf("sx: %d, sz: %d => ex: %d, ez: %d\n", startX, startZ, endX, endZ);
+
+        if (startX < 0 || startZ < 0 || endX >= containerSize.getX() || endZ >= containerSize.getZ())
+        {
+            System.out.printf("DEBUG ============= OUT OF BOUNDS - region: %s, sx: %d, sz: %d, ex: %d, ez: %d - size x: %d z: %d =============\n",
+                    regionName, startX, startZ, endX, endZ, containerSize.getX(), containerSize.getZ());
+            return null;
+        }
+
+        return new IntBoundingBox(startX, 0, startZ, endX, Math.abs(regionSize.getY()) - 1, endZ);
+    }
+
+    /**
+     * Places the entities of all the enabled sub-regions of the placement that are within the given chunk
+     */
+    public static void placeEntitiesToWorldWithinChunk(SchematicPlacement schematicPlacement, ChunkPos chunkPos, World world)
+    {
+        if (schematicPlacement.ignoreEntities())
+        {
+            return;
+        }
+
+        ISchematic schematic = schematicPlacement.getSchematic();
+        Set<String> regionsTouchingChunk = PositionUtils.getSubRegionNamesTouchingChunk(chunkPos.x, chunkPos.z, schematicPlacement.getSubRegionBoxes(EnabledCondition.ENABLED));
+        BlockPos origin = schematicPlacement.getPosition();
+
+        for (String regionName : regionsTouchingChunk)
+        {
+            SubRegionPlacement placement = schematicPlacement.getSubRegion(regionName);
+            ISchematicRegion region = schematic.getSchematicRegion(regionName);
+
+            if (region != null && placement != null && placement.isEnabled() && placement.ignoreEntities() == false)
+            {
+                placeEntitiesToWorldWithinChunk(world, chunkPos, region, origin, schematicPlacement, placement);
+            }
+        }
+    }
+
     public static void placeEntitiesToWorldWithinChunk(World world, ChunkPos chunkPos, ISchematicRegion region,
                                                        BlockPos origin, SchematicPlacement schematicPlacement, SubRegionPlacement placement)
     {
@@ -688,4 +1051,25 @@ public class SchematicPlacingUtils
             livingBase.prevRenderYawOffset = rotationYaw;
         }
     }
+
+    public static class PendingBlockEntity
+    {
+        public final BlockPos pos;
+        public final IBlockState state;
+        @Nullable public final NBTTagCompound nbt;
+        public final BlockMirror mirrorMain;
+        public final BlockMirror mirrorSub;
+        public final BlockRotation rotation;
+
+        public PendingBlockEntity(BlockPos pos, IBlockState state, @Nullable NBTTagCompound nbt,
+                                  BlockMirror mirrorMain, BlockMirror mirrorSub, BlockRotation rotation)
+        {
+            this.pos = pos;
+            this.state = state;
+            this.nbt = nbt;
+            this.mirrorMain = mirrorMain;
+            this.mirrorSub = mirrorSub;
+            this.rotation = rotation;
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package litematica.schematic.verifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.HashCommon;
+
+import net.minecraft.block.state.IBlockState;
+
+/**
+ * Interns the block state pairs of one verifier into integer ids.
+ * The id lookup doesn't allocate anything for already existing pairs,
+ * so the verifier task can check millions of blocks without creating
+ * a new {@link BlockStatePair} object for each of them.
+ */
+public class BlockStatePairRegistry
+{
+    protected final ArrayList<BlockStatePair> pairs = new ArrayList<>();
+    protected int[] table = new int[64];
+    protected int mask = this.table.length - 1;
+
+    public BlockStatePairRegistry()
+    {
+        Arrays.fill(this.table, -1);
+    }
+
+    public int size()
+    {
+        return this.pairs.size();
+    }
+
+    public BlockStatePair getPair(int id)
+    {
+        return this.pairs.get(id);
+    }
+
+    /**
+     * @return the id of the given pair, creating a new id for it if it doesn't exist yet
+     */
+    public int getId(VerifierResultType type, IBlockState expectedState, IBlockState foundState)
+    {
+        int slot = HashCommon.mix(hash(type, expectedState, foundState)) & this.mask;
+
+        while (true)
+        {
+            int id = this.table[slot];
+
+            if (id == -1)
+            {
+                return this.addPair(slot, new BlockStatePair(type, expectedState, foundState));
+            }
+
+            BlockStatePair pair = this.pairs.get(id);
+
+            if (pair.type == type && pair.expectedState == expectedState && pair.foundState == foundState)
+            {
+                return id;
+            }
+
+            slot = (slot + 1) & this.mask;
+        }
+    }
+
+    /**
+     * @return the id of the given pair, or -1 if the pair hasn't been registered
+     */
+    public int getExistingId(@Nullable BlockStatePair pair)
+    {
+        if (pair == null)
+        {
+            return -1;
+        }
+
+        int slot = HashCommon.mix(pair.hashCode()) & this.mask;
+
+        while (true)
+        {
+            int id = this.table[slot];
+
+            if (id == -1 || this.pairs.get(id).equals(pair))
+            {
+                return id;
+            }
+
+            slot = (slot + 1) & this.mask;
+        }
+    }
+
+    public void clear()
+    {
+        this.pairs.clear();
+        Arrays.fill(this.table, -1);
+    }
+
+    protected int addPair(int slot, BlockStatePair pair)
+    {
+        int id = this.pairs.size();
+        this.pairs.add(pair);
+        this.table[slot] = id;
+
+        if (this.pairs.size() * 4 >= this.table.length * 3)
+        {
+            this.rehash(this.table.length * 2);
+        }
+
+        return id;
+    }
+
+    protected void rehash(int newSize)
+    {
+        this.table = new int[newSize];
+        this.mask = newSize - 1;
+        Arrays.fill(this.table, -1);
+
+        final int size = this.pairs.size();
+
+        for (int id = 0; id < size; ++id)
+        {
+            int slot = HashCommon.mix(this.pairs.get(id).hashCode()) & this.mask;
+
+            while (this.table[slot] != -1)
+            {
+                slot = (slot + 1) & this.mask;
+            }
+
+            this.table[slot] = id;
+        }
+    }
+
+    /**
+     * Must match {@link BlockStatePair#hashCode()}
+     */
+    protected static int hash(VerifierResultType type, IBlockState expectedState, IBlockState foundState)
+    {
+        int result = type.hashCode();
+        result = 31 * result + expectedState.hashCode();
+        result = 31 * result + foundState.hashCode();
+        return result;
+    }
+}
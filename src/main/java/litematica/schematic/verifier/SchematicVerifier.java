@@ -8,14 +8,15 @@ import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
 import com.google.common.collect.ArrayListMultimap;
-import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongCollection;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
 
 import malilib.listener.EventListener;
 import malilib.listener.TaskCompletionListener;
@@ -23,6 +24,7 @@ import malilib.util.StringUtils;
 import malilib.util.data.EnabledCondition;
 import malilib.util.data.RunStatus;
 import malilib.util.game.wrap.RegistryUtils;
+import malilib.util.game.wrap.WorldWrap;
 import malilib.util.position.BlockPos;
 import malilib.util.position.ChunkPos;
 import malilib.util.position.IntBoundingBox;
@@ -37,6 +39,7 @@ import litematica.selection.SelectionBox;
 import litematica.task.SchematicVerifierTask;
 import litematica.util.PositionUtils;
 import litematica.util.value.BlockInfoListType;
+import litematica.world.WorldSchematic;
 
 public class SchematicVerifier implements IInfoHudRenderer
 {
@@ -46,7 +49,8 @@ public class SchematicVerifier implements IInfoHudRenderer
     protected final ArrayListMultimap<ChunkPos, IntBoundingBox> boxesInChunks = ArrayListMultimap.create();
     protected final LongOpenHashSet completedChunks = new LongOpenHashSet();
 
-    protected final Long2ObjectOpenHashMap<Object2ObjectOpenHashMap<BlockStatePair, IntArrayList>> resultsPerChunk = new Long2ObjectOpenHashMap<>();
+    protected final BlockStatePairRegistry pairRegistry = new BlockStatePairRegistry();
+    protected final Long2ObjectOpenHashMap<VerifierChunkResults> resultsPerChunk = new Long2ObjectOpenHashMap<>();
     protected final Object2IntOpenHashMap<BlockStatePair> countsPerPair = new Object2IntOpenHashMap<>();
     protected final Object2IntOpenHashMap<VerifierResultType> countsPerType = new Object2IntOpenHashMap<>();
 
@@ -56,11 +60,12 @@ public class SchematicVerifier implements IInfoHudRenderer
     protected final HashSet<BlockStatePair> ignoredPairs = new HashSet<>();
     protected final HashSet<VerifierResultType> visibleCategories = new HashSet<>();
 
-    protected final ArrayList<BlockPairTypePosition> allSelectedPositions = new ArrayList<>();
+    protected final SelectedPositionIndex selectedPositionIndex = new SelectedPositionIndex();
     protected final ArrayList<BlockPairTypePosition> closestSelectedPositions = new ArrayList<>();
 
     protected final ArrayList<String> infoHudLines = new ArrayList<>();
     protected RunStatus status = RunStatus.STOPPED;
+    protected int closestPositionsVersion;
     protected BlockInfoListType verifierType = BlockInfoListType.ALL;
     protected String name = "?";
     @Nullable protected SchematicVerifierTask task;
@@ -378,45 +383,108 @@ public class SchematicVerifier implements IInfoHudRenderer
         }
     }
 
-    public void addBlockResultsFromWorld(ChunkPos chunkPos, Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> results)
+    public BlockStatePairRegistry getPairRegistry()
+    {
+        return this.pairRegistry;
+    }
+
+    public void addBlockResultsFromWorld(ChunkPos chunkPos, VerifierChunkResults results)
     {
         long chunkPosLong = ChunkPos.asLong(chunkPos.x, chunkPos.z);
 
         this.resultsPerChunk.put(chunkPosLong, results);
 
-        /*
-        Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> old = this.resultsPerChunk.get(chunkPosLong);
+        this.completedChunks.add(chunkPosLong);
+        this.countsDirty = true;
+        this.selectedPairsDirty = true;
+        this.selectedPositionsDirty = true;
 
-        if (old != null)
+        if (this.statusChangeListener != null)
         {
-            // Subtract the old counts
-            old.forEach((pair, list) -> {
-                int size = list.size();
-                this.countsPerPair.addTo(pair, -size);
-                this.countsPerType.addTo(pair.type, -size);
-            });
+            this.statusChangeListener.onEvent();
         }
+    }
 
+    /**
+     * Re-checks the given individual block positions, and moves each of them
+     * to their new block state pair in the existing results, also updating the counts.
+     * Positions in chunks that haven't been verified yet, and positions outside
+     * of the verified area, are ignored.
+     */
+    public void reCheckPositions(LongCollection positions, World clientWorld, WorldSchematic schematicWorld)
+    {
+        if (this.autoRefresh == false || this.status == RunStatus.STOPPED)
+        {
+            return;
+        }
 
-        // Add the new counts
-        results.forEach((pair, list) -> {
-            int size = list.size();
-            this.countsPerPair.addTo(pair, size);
-            this.countsPerType.addTo(pair.type, size);
-        });
-        */
+        BlockPos.MutBlockPos mutablePos = new BlockPos.MutBlockPos();
+        boolean changed = false;
 
-        this.completedChunks.add(chunkPosLong);
-        this.countsDirty = true;
-        this.selectedPairsDirty = true;
-        this.selectedPositionsDirty = true;
+        for (long posLong : positions)
+        {
+            int x = malilib.util.position.PositionUtils.unpackX(posLong);
+            int y = malilib.util.position.PositionUtils.unpackY(posLong);
+            int z = malilib.util.position.PositionUtils.unpackZ(posLong);
+            long chunkPosLong = ChunkPos.asLong(x >> 4, z >> 4);
+            VerifierChunkResults results = this.resultsPerChunk.get(chunkPosLong);
 
-        if (this.statusChangeListener != null)
+            if (results == null || WorldWrap.isClientChunkLoaded(x >> 4, z >> 4, schematicWorld) == false)
+            {
+                continue;
+            }
+
+            mutablePos.set(x, y, z);
+            Chunk schematicChunk = schematicWorld.getChunk(x >> 4, z >> 4);
+            Chunk clientChunk = clientWorld.getChunk(x >> 4, z >> 4);
+            int newPairId = SchematicVerifierTask.getBlockStatePairId(mutablePos, schematicChunk, clientChunk, this.pairRegistry);
+            int oldPairId = results.setPairId(PositionUtils.packChunkRelativePosition(x, y, z), newPairId);
+
+            if (oldPairId != -1 && oldPairId != newPairId)
+            {
+                this.onPositionPairChanged(this.pairRegistry.getPair(oldPairId), this.pairRegistry.getPair(newPairId));
+                changed = true;
+            }
+        }
+
+        if (changed && this.statusChangeListener != null)
         {
             this.statusChangeListener.onEvent();
         }
     }
 
+    protected void onPositionPairChanged(BlockStatePair oldPair, BlockStatePair newPair)
+    {
+        if (this.countsDirty == false)
+        {
+            this.addToCount(oldPair, -1);
+            this.addToCount(newPair, 1);
+        }
+
+        if (this.calculatedSelectedPairs.contains(oldPair) ||
+            this.calculatedSelectedPairs.contains(newPair))
+        {
+            this.selectedPositionsDirty = true;
+        }
+    }
+
+    protected void addToCount(BlockStatePair pair, int amount)
+    {
+        int count = this.countsPerPair.addTo(pair, amount) + amount;
+        this.countsPerType.addTo(pair.type, amount);
+
+        if (count <= 0)
+        {
+            this.countsPerPair.removeInt(pair);
+            this.selectedPairsDirty = true;
+        }
+        else if (count == amount)
+        {
+            // A new pair, which may need to be selected via its type
+            this.selectedPairsDirty = true;
+        }
+    }
+
     public List<BlockStatePairCount> getNonIgnoredBlockPairs()
     {
         this.updateCountsIfDirty();
@@ -439,12 +507,22 @@ public class SchematicVerifier implements IInfoHudRenderer
         return this.closestSelectedPositions;
     }
 
+    /**
+     * @return a counter that changes every time the closest selected positions list is updated,
+     *         so that anything derived from the list can be cached until the list changes
+     */
+    public int getClosestPositionsVersion()
+    {
+        return this.closestPositionsVersion;
+    }
+
     protected void clear()
     {
         this.boxesInChunks.clear();
         this.completedChunks.clear();
 
         this.resultsPerChunk.clear();
+        this.pairRegistry.clear();
         this.countsPerPair.clear();
         this.countsPerType.clear();
 
@@ -453,8 +531,9 @@ public class SchematicVerifier implements IInfoHudRenderer
         this.calculatedSelectedPairs.clear();
         this.ignoredPairs.clear();
 
-        this.allSelectedPositions.clear();
+        this.selectedPositionIndex.clear();
         this.closestSelectedPositions.clear();
+        ++this.closestPositionsVersion;
 
         this.status = RunStatus.STOPPED;
     }
@@ -511,13 +590,27 @@ public class SchematicVerifier implements IInfoHudRenderer
         this.countsPerPair.clear();
         this.countsPerType.clear();
 
-        for (Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> map : this.resultsPerChunk.values())
+        int[] countsPerId = new int[this.pairRegistry.size()];
+
+        for (VerifierChunkResults results : this.resultsPerChunk.values())
+        {
+            final int paletteSize = results.getPaletteSize();
+
+            for (int i = 0; i < paletteSize; ++i)
+            {
+                countsPerId[results.getPaletteId(i)] += results.getPaletteCount(i);
+            }
+        }
+
+        for (int id = 0; id < countsPerId.length; ++id)
         {
-            for (BlockStatePair pair : map.keySet())
+            int count = countsPerId[id];
+
+            if (count > 0)
             {
-                int size = map.get(pair).size();
-                this.countsPerPair.addTo(pair, size);
-                this.countsPerType.addTo(pair.type, size);
+                BlockStatePair pair = this.pairRegistry.getPair(id);
+                this.countsPerPair.put(pair, count);
+                this.countsPerType.addTo(pair.type, count);
             }
         }
 
@@ -544,20 +637,49 @@ public class SchematicVerifier implements IInfoHudRenderer
     protected void updateSelectedPositions()
     {
         this.updateSelectedPairsIfDirty();
-        this.allSelectedPositions.clear();
+        this.selectedPositionIndex.clear();
+
+        boolean[] selectedIds = new boolean[this.pairRegistry.size()];
+        boolean hasSelectedIds = false;
+
+        for (BlockStatePair pair : this.calculatedSelectedPairs)
+        {
+            int id = this.pairRegistry.getExistingId(pair);
+
+            if (id != -1)
+            {
+                selectedIds[id] = true;
+                hasSelectedIds = true;
+            }
+        }
+
+        BlockPos.MutBlockPos mutablePos = new BlockPos.MutBlockPos();
 
         for (long chunkPosLong : this.resultsPerChunk.keySet())
         {
-            Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> results = this.resultsPerChunk.get(chunkPosLong);
+            // Nothing selected, or none of the selected pairs have any positions
+            if (hasSelectedIds == false)
+            {
+                break;
+            }
 
-            for (BlockStatePair pair : results.keySet())
+            VerifierChunkResults results = this.resultsPerChunk.get(chunkPosLong);
+            final int baseX = malilib.util.position.PositionUtils.getChunkPosX(chunkPosLong) << 4;
+            final int baseZ = malilib.util.position.PositionUtils.getChunkPosZ(chunkPosLong) << 4;
+            final int count = results.getEntryCount();
+
+            for (int i = 0; i < count; ++i)
             {
-                if (this.calculatedSelectedPairs.contains(pair))
+                int id = results.getPairIdAt(i);
+
+                if (selectedIds[id])
                 {
-                    for (int relPos : results.get(pair))
-                    {
-                        this.allSelectedPositions.add(BlockPairTypePosition.of(pair, chunkPosLong, relPos));
-                    }
+                    int relPos = results.getRelativePositionAt(i);
+                    mutablePos.set(baseX + PositionUtils.getChunkRelativeX(relPos),
+                                   PositionUtils.getChunkRelativeY(relPos),
+                                   baseZ + PositionUtils.getChunkRelativeZ(relPos));
+                    int packedRelPos = malilib.util.position.PositionUtils.getPackedChunkRelativePosition(mutablePos);
+                    this.selectedPositionIndex.add(chunkPosLong, BlockPairTypePosition.of(this.pairRegistry.getPair(id), chunkPosLong, packedRelPos));
                 }
             }
         }
@@ -588,9 +710,8 @@ public class SchematicVerifier implements IInfoHudRenderer
         this.closestSelectedPositions.clear();
 
         int max = Configs.InfoOverlays.VERIFIER_ERROR_HIGHLIGHT_MAX_POSITIONS.getIntegerValue();
-        int endIndex = Math.min(max, this.allSelectedPositions.size());
-        this.allSelectedPositions.sort(new BlockPairTypePositionComparator(referencePos, true));
-        this.closestSelectedPositions.addAll(this.allSelectedPositions.subList(0, endIndex));
+        this.selectedPositionIndex.getClosestPositions(referencePos, max, this.closestSelectedPositions);
+        ++this.closestPositionsVersion;
         this.selectedClosestPositionsDirty = false;
         this.lastSortPosition = referencePos;
     }
@@ -5,10 +5,16 @@ import java.util.List;
 import javax.annotation.Nullable;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
+import net.minecraft.world.World;
+
+import malilib.util.game.wrap.GameWrap;
 import malilib.util.position.BlockPos;
 import malilib.util.position.ChunkPos;
+import malilib.util.position.PositionUtils;
 import litematica.data.DataManager;
 import litematica.schematic.placement.SchematicPlacement;
+import litematica.world.SchematicWorldHandler;
+import litematica.world.WorldSchematic;
 
 public class SchematicVerifierManager
 {
@@ -18,6 +24,8 @@ public class SchematicVerifierManager
     protected final ArrayList<SchematicVerifier> allVerifiers = new ArrayList<>();
     protected final LongOpenHashSet touchedChunks = new LongOpenHashSet();
     protected final LongOpenHashSet reCheckChunks = new LongOpenHashSet();
+    protected final LongOpenHashSet reCheckPositions = new LongOpenHashSet();
+    protected final BlockPos.MutBlockPos mutablePos = new BlockPos.MutBlockPos();
     @Nullable protected SchematicVerifier selectedVerifier;
 
     public List<SchematicVerifier> getActiveVerifiers()
@@ -93,9 +101,45 @@ public class SchematicVerifierManager
         }
     }
 
-    public void onBlockChanged(BlockPos pos)
+    /**
+     * Called when a single block changes in the client world.
+     * The whole 3x3x3 area around the block is also re-checked, because the actual state
+     * of a block depends on its neighbors, including the diagonal ones
+     * (for example redstone wire connections up and down the sides of blocks).
+     */
+    public void onBlockChanged(int x, int y, int z)
+    {
+        if (this.touchedChunks.contains(ChunkPos.asLong(x >> 4, z >> 4)) == false &&
+            this.touchedChunks.contains(ChunkPos.asLong((x - 1) >> 4, (z - 1) >> 4)) == false &&
+            this.touchedChunks.contains(ChunkPos.asLong((x + 1) >> 4, (z + 1) >> 4)) == false &&
+            this.touchedChunks.contains(ChunkPos.asLong((x - 1) >> 4, (z + 1) >> 4)) == false &&
+            this.touchedChunks.contains(ChunkPos.asLong((x + 1) >> 4, (z - 1) >> 4)) == false)
+        {
+            return;
+        }
+
+        for (int oy = -1; oy <= 1; ++oy)
+        {
+            for (int oz = -1; oz <= 1; ++oz)
+            {
+                for (int ox = -1; ox <= 1; ++ox)
+                {
+                    this.addReCheckPosition(x + ox, y + oy, z + oz);
+                }
+            }
+        }
+    }
+
+    protected void addReCheckPosition(int x, int y, int z)
     {
-        this.onChunkChanged(pos.getX() >> 4, pos.getZ() >> 4);
+        long chunkPosLong = ChunkPos.asLong(x >> 4, z >> 4);
+
+        if (y >= 0 && y < 256 && this.touchedChunks.contains(chunkPosLong))
+        {
+            this.mutablePos.set(x, y, z);
+            int relPos = PositionUtils.getPackedChunkRelativePosition(this.mutablePos);
+            this.reCheckPositions.add(PositionUtils.getPackedAbsolutePosition(chunkPosLong, relPos));
+        }
     }
 
     public void onChunkChanged(int cx, int cz)
@@ -121,6 +165,31 @@ public class SchematicVerifierManager
         this.reCheckChunks.clear();
     }
 
+    /**
+     * Re-checks the individually changed block positions in the active verifiers.
+     * This is cheap enough to be done every tick, unlike the whole chunk re-checks.
+     */
+    public void reCheckChangedPositions()
+    {
+        if (this.reCheckPositions.isEmpty())
+        {
+            return;
+        }
+
+        World clientWorld = GameWrap.getClientWorld();
+        WorldSchematic schematicWorld = SchematicWorldHandler.getSchematicWorld();
+
+        if (clientWorld != null && schematicWorld != null)
+        {
+            for (SchematicVerifier verifier : this.activeVerifiers)
+            {
+                verifier.reCheckPositions(this.reCheckPositions, clientWorld, schematicWorld);
+            }
+        }
+
+        this.reCheckPositions.clear();
+    }
+
     protected void createAndAddVerifier(SchematicPlacement placement)
     {
         // TODO
@@ -0,0 +1,165 @@
+package litematica.schematic.verifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import malilib.util.position.BlockPos;
+import malilib.util.position.ChunkPos;
+import malilib.util.position.PositionUtils;
+
+/**
+ * A chunk column bucketed spatial index of the selected verifier result positions.
+ * The closest positions to a reference position are found by visiting the chunk columns
+ * in expanding square rings around the reference position, and stopping once the
+ * remaining rings can't contain any positions closer than the ones already found.
+ */
+public class SelectedPositionIndex
+{
+    protected final Long2ObjectOpenHashMap<ArrayList<BlockPairTypePosition>> positionsPerChunk = new Long2ObjectOpenHashMap<>();
+    protected int minChunkX = Integer.MAX_VALUE;
+    protected int minChunkZ = Integer.MAX_VALUE;
+    protected int maxChunkX = Integer.MIN_VALUE;
+    protected int maxChunkZ = Integer.MIN_VALUE;
+    protected int size;
+
+    public void clear()
+    {
+        this.positionsPerChunk.clear();
+        this.minChunkX = Integer.MAX_VALUE;
+        this.minChunkZ = Integer.MAX_VALUE;
+        this.maxChunkX = Integer.MIN_VALUE;
+        this.maxChunkZ = Integer.MIN_VALUE;
+        this.size = 0;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public void add(long chunkPosLong, BlockPairTypePosition position)
+    {
+        ArrayList<BlockPairTypePosition> list = this.positionsPerChunk.get(chunkPosLong);
+
+        if (list == null)
+        {
+            int chunkX = PositionUtils.getChunkPosX(chunkPosLong);
+            int chunkZ = PositionUtils.getChunkPosZ(chunkPosLong);
+
+            list = new ArrayList<>();
+            this.positionsPerChunk.put(chunkPosLong, list);
+
+            this.minChunkX = Math.min(this.minChunkX, chunkX);
+            this.minChunkZ = Math.min(this.minChunkZ, chunkZ);
+            this.maxChunkX = Math.max(this.maxChunkX, chunkX);
+            this.maxChunkZ = Math.max(this.maxChunkZ, chunkZ);
+        }
+
+        list.add(position);
+        ++this.size;
+    }
+
+    /**
+     * Adds up to <b>maxCount</b> of the positions closest to the given reference position
+     * to the given list, sorted by their distance, closest first.
+     */
+    public void getClosestPositions(BlockPos referencePos, int maxCount, List<BlockPairTypePosition> listOut)
+    {
+        if (maxCount <= 0 || this.size == 0)
+        {
+            return;
+        }
+
+        // The head of the queue is the farthest position found so far
+        BlockPairTypePositionComparator comparator = new BlockPairTypePositionComparator(referencePos, false);
+        PriorityQueue<BlockPairTypePosition> queue = new PriorityQueue<>(Math.min(maxCount, this.size), comparator);
+        final int centerX = referencePos.getX() >> 4;
+        final int centerZ = referencePos.getZ() >> 4;
+        final int startRing = Math.max(0, Math.max(Math.max(this.minChunkX - centerX, centerX - this.maxChunkX),
+                                                   Math.max(this.minChunkZ - centerZ, centerZ - this.maxChunkZ)));
+        final int endRing = Math.max(Math.max(Math.abs(this.minChunkX - centerX), Math.abs(this.maxChunkX - centerX)),
+                                     Math.max(Math.abs(this.minChunkZ - centerZ), Math.abs(this.maxChunkZ - centerZ)));
+
+        for (int ring = startRing; ring <= endRing; ++ring)
+        {
+            if (queue.size() >= maxCount)
+            {
+                // The minimum horizontal distance from the reference position to any chunk in this ring
+                double minDistance = ring > 0 ? (ring - 1) * 16 + 1 : 0;
+
+                if (minDistance * minDistance > comparator.getSquareDistance(queue.peek().posLong))
+                {
+                    break;
+                }
+            }
+
+            final int minX = Math.max(centerX - ring, this.minChunkX);
+            final int maxX = Math.min(centerX + ring, this.maxChunkX);
+
+            for (int chunkX = minX; chunkX <= maxX; ++chunkX)
+            {
+                // The full columns of the ring on the west and east edges
+                if (chunkX == centerX - ring || chunkX == centerX + ring)
+                {
+                    final int minZ = Math.max(centerZ - ring, this.minChunkZ);
+                    final int maxZ = Math.min(centerZ + ring, this.maxChunkZ);
+
+                    for (int chunkZ = minZ; chunkZ <= maxZ; ++chunkZ)
+                    {
+                        this.addClosestPositionsFromChunk(chunkX, chunkZ, referencePos, maxCount, queue, comparator);
+                    }
+                }
+                // Only the north and south edges of the ring in the middle columns
+                else
+                {
+                    this.addClosestPositionsFromChunk(chunkX, centerZ - ring, referencePos, maxCount, queue, comparator);
+                    this.addClosestPositionsFromChunk(chunkX, centerZ + ring, referencePos, maxCount, queue, comparator);
+                }
+            }
+        }
+
+        int startIndex = listOut.size();
+        listOut.addAll(queue);
+        listOut.subList(startIndex, listOut.size()).sort(new BlockPairTypePositionComparator(referencePos, true));
+    }
+
+    protected void addClosestPositionsFromChunk(int chunkX, int chunkZ, BlockPos referencePos, int maxCount,
+                                                PriorityQueue<BlockPairTypePosition> queue,
+                                                BlockPairTypePositionComparator comparator)
+    {
+        ArrayList<BlockPairTypePosition> list = this.positionsPerChunk.get(ChunkPos.asLong(chunkX, chunkZ));
+
+        if (list == null)
+        {
+            return;
+        }
+
+        if (queue.size() >= maxCount)
+        {
+            int diffX = Math.max(0, Math.max((chunkX << 4) - referencePos.getX(), referencePos.getX() - ((chunkX << 4) + 15)));
+            int diffZ = Math.max(0, Math.max((chunkZ << 4) - referencePos.getZ(), referencePos.getZ() - ((chunkZ << 4) + 15)));
+            double minDistance = (double) diffX * diffX + (double) diffZ * diffZ;
+
+            // The whole chunk column is farther away than all the positions found so far
+            if (minDistance > comparator.getSquareDistance(queue.peek().posLong))
+            {
+                return;
+            }
+        }
+
+        for (BlockPairTypePosition position : list)
+        {
+            if (queue.size() < maxCount)
+            {
+                queue.add(position);
+            }
+            else if (comparator.getSquareDistance(position.posLong) < comparator.getSquareDistance(queue.peek().posLong))
+            {
+                queue.poll();
+                queue.add(position);
+            }
+        }
+    }
+}
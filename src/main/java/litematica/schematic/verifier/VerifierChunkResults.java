@@ -0,0 +1,167 @@
+package litematica.schematic.verifier;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+/**
+ * The verifier results of one chunk, stored as a packed int array with one entry per checked position.
+ * Each entry contains a chunk-local palette index in the upper 16 bits, and the chunk-relative
+ * position in the {@link litematica.util.PositionUtils#packChunkRelativePosition(int, int, int)} format
+ * in the lower 16 bits. The chunk-local palette maps to the verifier wide pair ids
+ * of the {@link BlockStatePairRegistry}, and since a chunk
+ * has at most 65536 positions, the local palette index always fits in the 16 bits.
+ * For single position updates, a position index is built lazily on the first update,
+ * which then allows changing the pair of a position in constant time.
+ */
+public class VerifierChunkResults
+{
+    protected int[] entries;
+    protected int entryCount;
+    protected int[] paletteIds = new int[8];
+    protected int[] paletteCounts = new int[8];
+    protected int paletteSize;
+    protected final Int2IntOpenHashMap localIndexForId = new Int2IntOpenHashMap();
+    @Nullable protected Int2IntOpenHashMap entryIndexAtPosition;
+
+    public VerifierChunkResults(int expectedEntryCount)
+    {
+        this.entries = new int[Math.max(expectedEntryCount, 16)];
+        this.localIndexForId.defaultReturnValue(-1);
+    }
+
+    /**
+     * Adds a newly checked position. Only used while building the results,
+     * each position must only be added once.
+     */
+    public void add(int pairId, int relPos)
+    {
+        if (this.entryCount >= this.entries.length)
+        {
+            this.entries = Arrays.copyOf(this.entries, this.entries.length * 2);
+        }
+
+        int localIndex = this.getOrCreateLocalIndex(pairId);
+        ++this.paletteCounts[localIndex];
+        this.entries[this.entryCount++] = (localIndex << 16) | relPos;
+    }
+
+    /**
+     * Trims the entry array to the actual number of entries, after the results have been built
+     */
+    public void trim()
+    {
+        if (this.entries.length > this.entryCount)
+        {
+            this.entries = Arrays.copyOf(this.entries, this.entryCount);
+        }
+    }
+
+    public int getEntryCount()
+    {
+        return this.entryCount;
+    }
+
+    public int getPairIdAt(int entryIndex)
+    {
+        return this.paletteIds[this.entries[entryIndex] >>> 16];
+    }
+
+    public int getRelativePositionAt(int entryIndex)
+    {
+        return this.entries[entryIndex] & 0xFFFF;
+    }
+
+    public int getPaletteSize()
+    {
+        return this.paletteSize;
+    }
+
+    public int getPaletteId(int localIndex)
+    {
+        return this.paletteIds[localIndex];
+    }
+
+    public int getPaletteCount(int localIndex)
+    {
+        return this.paletteCounts[localIndex];
+    }
+
+    /**
+     * @return the current pair id at the given chunk-relative position,
+     *         or -1 if the position was not checked by the verifier
+     */
+    public int getPairId(int relPos)
+    {
+        this.buildIndexIfNeeded();
+        int entryIndex = this.entryIndexAtPosition.get(relPos);
+        return entryIndex != -1 ? this.getPairIdAt(entryIndex) : -1;
+    }
+
+    /**
+     * Changes the pair of the given already checked chunk-relative position.
+     * @return the previous pair id of the position, or -1 if the position was not
+     *         checked by the verifier, in which case nothing is changed
+     */
+    public int setPairId(int relPos, int pairId)
+    {
+        this.buildIndexIfNeeded();
+        int entryIndex = this.entryIndexAtPosition.get(relPos);
+
+        if (entryIndex == -1)
+        {
+            return -1;
+        }
+
+        int oldLocalIndex = this.entries[entryIndex] >>> 16;
+        int oldPairId = this.paletteIds[oldLocalIndex];
+
+        if (oldPairId != pairId)
+        {
+            int newLocalIndex = this.getOrCreateLocalIndex(pairId);
+            --this.paletteCounts[oldLocalIndex];
+            ++this.paletteCounts[newLocalIndex];
+            this.entries[entryIndex] = (newLocalIndex << 16) | relPos;
+        }
+
+        return oldPairId;
+    }
+
+    protected int getOrCreateLocalIndex(int pairId)
+    {
+        int localIndex = this.localIndexForId.get(pairId);
+
+        if (localIndex == -1)
+        {
+            if (this.paletteSize >= this.paletteIds.length)
+            {
+                this.paletteIds = Arrays.copyOf(this.paletteIds, this.paletteIds.length * 2);
+                this.paletteCounts = Arrays.copyOf(this.paletteCounts, this.paletteCounts.length * 2);
+            }
+
+            localIndex = this.paletteSize++;
+            this.paletteIds[localIndex] = pairId;
+            this.localIndexForId.put(pairId, localIndex);
+        }
+
+        return localIndex;
+    }
+
+    protected void buildIndexIfNeeded()
+    {
+        if (this.entryIndexAtPosition != null)
+        {
+            return;
+        }
+
+        Int2IntOpenHashMap index = new Int2IntOpenHashMap(this.entryCount);
+        index.defaultReturnValue(-1);
+
+        for (int i = 0; i < this.entryCount; ++i)
+        {
+            index.put(this.entries[i] & 0xFFFF, i);
+        }
+
+        this.entryIndexAtPosition = index;
+    }
+}
@@ -1,8 +1,7 @@
 package litematica.task;
 
+import java.util.List;
 import com.google.common.collect.ArrayListMultimap;
-import it.unimi.dsi.fastutil.ints.IntArrayList;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
@@ -12,12 +11,13 @@ import malilib.util.game.wrap.WorldWrap;
 import malilib.util.position.BlockPos;
 import malilib.util.position.ChunkPos;
 import malilib.util.position.IntBoundingBox;
-import malilib.util.position.PositionUtils;
 import litematica.config.Configs;
 import litematica.scheduler.tasks.TaskProcessChunkBase;
-import litematica.schematic.verifier.BlockStatePair;
+import litematica.schematic.verifier.BlockStatePairRegistry;
 import litematica.schematic.verifier.SchematicVerifier;
+import litematica.schematic.verifier.VerifierChunkResults;
 import litematica.schematic.verifier.VerifierResultType;
+import litematica.util.PositionUtils;
 import litematica.world.SchematicWorldHandler;
 import litematica.world.WorldSchematic;
 
@@ -81,9 +81,18 @@ public class SchematicVerifierTask extends TaskProcessChunkBase
         BlockPos.MutBlockPos mutablePos = new BlockPos.MutBlockPos();
         Chunk schematicChunk = this.schematicWorld.getChunk(pos.x, pos.z);
         Chunk clientChunk = this.worldClient.getChunk(pos.x, pos.z);
-        Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> results = new Object2ObjectOpenHashMap<>();
+        BlockStatePairRegistry registry = this.verifier.getPairRegistry();
+        List<IntBoundingBox> boxes = this.getBoxesInChunk(pos);
+        int volume = 0;
 
-        for (IntBoundingBox bb : this.getBoxesInChunk(pos))
+        for (IntBoundingBox bb : boxes)
+        {
+            volume += (bb.maxX - bb.minX + 1) * (bb.maxY - bb.minY + 1) * (bb.maxZ - bb.minZ + 1);
+        }
+
+        VerifierChunkResults results = new VerifierChunkResults(volume);
+
+        for (IntBoundingBox bb : boxes)
         {
             final int startX = bb.minX;
             final int startY = bb.minY;
@@ -99,26 +108,22 @@ public class SchematicVerifierTask extends TaskProcessChunkBase
                     for (int x = startX; x <= endX; ++x)
                     {
                         mutablePos.set(x, y, z);
-                        this.checkBlock(mutablePos, schematicChunk, clientChunk, results);
+                        int pairId = getBlockStatePairId(mutablePos, schematicChunk, clientChunk, registry);
+                        results.add(pairId, PositionUtils.packChunkRelativePosition(x, y, z));
                     }
                 }
             }
         }
 
+        results.trim();
         this.verifier.addBlockResultsFromWorld(pos, results);
     }
 
-    protected void checkBlock(BlockPos.MutBlockPos pos,
-                              Chunk schematicChunk,
-                              Chunk clientChunk,
-                              Object2ObjectOpenHashMap<BlockStatePair, IntArrayList> results)
+    public static int getBlockStatePairId(BlockPos pos, Chunk schematicChunk, Chunk clientChunk, BlockStatePairRegistry registry)
     {
         IBlockState clientBlock = clientChunk.getBlockState(pos).getActualState(clientChunk.getWorld(), pos);
         IBlockState schematicBlock = schematicChunk.getBlockState(pos);
         VerifierResultType type = VerifierResultType.from(schematicBlock, clientBlock);
-        BlockStatePair pair = new BlockStatePair(type, schematicBlock, clientBlock);
-        int posInt = PositionUtils.getPackedChunkRelativePosition(pos);
-
-        results.computeIfAbsent(pair, (p) -> new IntArrayList()).add(posInt);
+        return registry.getId(type, schematicBlock, clientBlock);
     }
 }
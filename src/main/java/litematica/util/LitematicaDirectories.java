@@ -70,6 +70,11 @@ public class LitematicaDirectories
         return getDataDirectory("material_list");
     }
 
+    public static Path getPagedStorageDirectory()
+    {
+        return getDataDirectory("paged_storage");
+    }
+
     public static Path getPlacementSaveFilesDirectory()
     {
         Path dir = getPerWorldDataDirectory("placements");
@@ -0,0 +1,343 @@
+package litematica.util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagByte;
+import net.minecraft.nbt.NBTTagByteArray;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagDouble;
+import net.minecraft.nbt.NBTTagFloat;
+import net.minecraft.nbt.NBTTagInt;
+import net.minecraft.nbt.NBTTagIntArray;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagLong;
+import net.minecraft.nbt.NBTTagLongArray;
+import net.minecraft.nbt.NBTTagShort;
+import net.minecraft.nbt.NBTTagString;
+
+import malilib.util.game.wrap.NbtWrap;
+
+/**
+ * A reader for the binary NBT format, which reads the compound tag entries one by one
+ * from the stream. This allows the caller to decide per entry whether the entry should be
+ * read normally, skipped without building any tags for it, handled by the caller, or whether
+ * the reading should be stopped, for example when only a header tag is needed.
+ */
+public class NbtStreamReader implements Closeable
+{
+    public static final byte TAG_END = 0;
+    public static final byte TAG_BYTE = 1;
+    public static final byte TAG_SHORT = 2;
+    public static final byte TAG_INT = 3;
+    public static final byte TAG_LONG = 4;
+    public static final byte TAG_FLOAT = 5;
+    public static final byte TAG_DOUBLE = 6;
+    public static final byte TAG_BYTE_ARRAY = 7;
+    public static final byte TAG_STRING = 8;
+    public static final byte TAG_LIST = 9;
+    public static final byte TAG_COMPOUND = 10;
+    public static final byte TAG_INT_ARRAY = 11;
+    public static final byte TAG_LONG_ARRAY = 12;
+
+    protected static final int MAX_DEPTH = 512;
+
+    protected final DataInputStream input;
+
+    public NbtStreamReader(InputStream inputStream)
+    {
+        this.input = new DataInputStream(inputStream);
+    }
+
+    /**
+     * Opens a reader for the given GZIP compressed NBT file
+     */
+    public static NbtStreamReader openCompressed(Path file) throws IOException
+    {
+        InputStream is = Files.newInputStream(file);
+
+        try
+        {
+            return new NbtStreamReader(new BufferedInputStream(new GZIPInputStream(is, 65536), 65536));
+        }
+        catch (IOException e)
+        {
+            is.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the root compound tag of the stream into the given tag.
+     * @return true if the entire root compound was read, false if the handler stopped the reading
+     * @throws IOException if the stream doesn't start with a compound tag, or on any read error
+     */
+    public boolean readRootCompound(NBTTagCompound tag, EntryHandler handler) throws IOException
+    {
+        byte typeId = this.input.readByte();
+
+        if (typeId != TAG_COMPOUND)
+        {
+            throw new IOException("Root tag must be a compound tag, found type " + typeId);
+        }
+
+        this.input.readUTF(); // The name of the root tag is always empty
+
+        return this.readCompound(tag, handler);
+    }
+
+    /**
+     * Reads the payload of a compound tag, passing each entry to the handler first.
+     * @return true if the entire compound was read, false if the handler stopped the reading
+     */
+    public boolean readCompound(NBTTagCompound tag, EntryHandler handler) throws IOException
+    {
+        while (true)
+        {
+            byte typeId = this.input.readByte();
+
+            if (typeId == TAG_END)
+            {
+                return true;
+            }
+
+            String name = this.input.readUTF();
+            EntryAction action = handler.onEntry(typeId, name, this);
+
+            if (action == EntryAction.READ)
+            {
+                NbtWrap.putTag(tag, name, this.readPayload(typeId, 1));
+            }
+            else if (action == EntryAction.SKIP)
+            {
+                this.skipPayload(typeId, 1);
+            }
+            else if (action == EntryAction.STOP)
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Reads the payload of a long array tag. The returned array is not copied anywhere,
+     * so it can be used directly as the backing array of a container.
+     */
+    public long[] readLongArray() throws IOException
+    {
+        int length = this.readArrayLength();
+        long[] arr = new long[length];
+
+        for (int i = 0; i < length; ++i)
+        {
+            arr[i] = this.input.readLong();
+        }
+
+        return arr;
+    }
+
+    public NBTBase readPayload(byte typeId, int depth) throws IOException
+    {
+        if (depth > MAX_DEPTH)
+        {
+            throw new IOException("Tried to read NBT tag with too high complexity, depth > " + MAX_DEPTH);
+        }
+
+        switch (typeId)
+        {
+            case TAG_BYTE:      return new NBTTagByte(this.input.readByte());
+            case TAG_SHORT:     return new NBTTagShort(this.input.readShort());
+            case TAG_INT:       return new NBTTagInt(this.input.readInt());
+            case TAG_LONG:      return new NBTTagLong(this.input.readLong());
+            case TAG_FLOAT:     return new NBTTagFloat(this.input.readFloat());
+            case TAG_DOUBLE:    return new NBTTagDouble(this.input.readDouble());
+            case TAG_STRING:    return new NBTTagString(this.input.readUTF());
+            case TAG_LONG_ARRAY: return new NBTTagLongArray(this.readLongArray());
+
+            case TAG_BYTE_ARRAY:
+            {
+                byte[] arr = new byte[this.readArrayLength()];
+                this.input.readFully(arr);
+                return new NBTTagByteArray(arr);
+            }
+
+            case TAG_INT_ARRAY:
+            {
+                int[] arr = new int[this.readArrayLength()];
+
+                for (int i = 0; i < arr.length; ++i)
+                {
+                    arr[i] = this.input.readInt();
+                }
+
+                return new NBTTagIntArray(arr);
+            }
+
+            case TAG_LIST:
+            {
+                byte entryTypeId = this.input.readByte();
+                int length = this.readArrayLength();
+                NBTTagList list = new NBTTagList();
+
+                if (length > 0 && entryTypeId == TAG_END)
+                {
+                    throw new IOException("Missing type on a non-empty NBT list");
+                }
+
+                for (int i = 0; i < length; ++i)
+                {
+                    NbtWrap.addTag(list, this.readPayload(entryTypeId, depth + 1));
+                }
+
+                return list;
+            }
+
+            case TAG_COMPOUND:
+            {
+                NBTTagCompound tag = new NBTTagCompound();
+
+                while (true)
+                {
+                    byte entryTypeId = this.input.readByte();
+
+                    if (entryTypeId == TAG_END)
+                    {
+                        return tag;
+                    }
+
+                    String name = this.input.readUTF();
+                    NbtWrap.putTag(tag, name, this.readPayload(entryTypeId, depth + 1));
+                }
+            }
+
+            default:
+                throw new IOException("Invalid NBT tag type " + typeId);
+        }
+    }
+
+    /**
+     * Skips over the payload of a tag of the given type, without creating any tags
+     */
+    public void skipPayload(byte typeId, int depth) throws IOException
+    {
+        if (depth > MAX_DEPTH)
+        {
+            throw new IOException("Tried to read NBT tag with too high complexity, depth > " + MAX_DEPTH);
+        }
+
+        switch (typeId)
+        {
+            case TAG_BYTE:          this.skipBytes(1); break;
+            case TAG_SHORT:         this.skipBytes(2); break;
+            case TAG_INT:           this.skipBytes(4); break;
+            case TAG_LONG:          this.skipBytes(8); break;
+            case TAG_FLOAT:         this.skipBytes(4); break;
+            case TAG_DOUBLE:        this.skipBytes(8); break;
+            case TAG_STRING:        this.skipBytes(this.input.readUnsignedShort()); break;
+            case TAG_BYTE_ARRAY:    this.skipBytes(this.readArrayLength()); break;
+            case TAG_INT_ARRAY:     this.skipBytes(this.readArrayLength() * 4L); break;
+            case TAG_LONG_ARRAY:    this.skipBytes(this.readArrayLength() * 8L); break;
+
+            case TAG_LIST:
+            {
+                byte entryTypeId = this.input.readByte();
+                int length = this.readArrayLength();
+
+                for (int i = 0; i < length; ++i)
+                {
+                    this.skipPayload(entryTypeId, depth + 1);
+                }
+
+                break;
+            }
+
+            case TAG_COMPOUND:
+            {
+                while (true)
+                {
+                    byte entryTypeId = this.input.readByte();
+
+                    if (entryTypeId == TAG_END)
+                    {
+                        break;
+                    }
+
+                    this.skipBytes(this.input.readUnsignedShort());
+                    this.skipPayload(entryTypeId, depth + 1);
+                }
+
+                break;
+            }
+
+            default:
+                throw new IOException("Invalid NBT tag type " + typeId);
+        }
+    }
+
+    protected int readArrayLength() throws IOException
+    {
+        int length = this.input.readInt();
+
+        if (length < 0)
+        {
+            throw new IOException("Invalid negative NBT array length " + length);
+        }
+
+        return length;
+    }
+
+    protected void skipBytes(long count) throws IOException
+    {
+        while (count > 0)
+        {
+            int skipped = this.input.skipBytes((int) Math.min(count, Integer.MAX_VALUE));
+
+            if (skipped <= 0)
+            {
+                // skipBytes() may return 0 without reaching the end of the stream, read() will tell
+                if (this.input.read() == -1)
+                {
+                    throw new IOException("Unexpected end of NBT stream");
+                }
+
+                skipped = 1;
+            }
+
+            count -= skipped;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.input.close();
+    }
+
+    public enum EntryAction
+    {
+        /** Read the entry normally into the parent compound tag */
+        READ,
+        /** Skip over the entry without creating any tags for it */
+        SKIP,
+        /** The handler already read the entire payload of the entry by itself */
+        HANDLED,
+        /** Stop reading, without consuming the payload of the current entry */
+        STOP
+    }
+
+    public interface EntryHandler
+    {
+        /**
+         * Called for each entry of a compound tag, after the entry's type and name have been read,
+         * but before its payload has been read.
+         */
+        EntryAction onEntry(byte typeId, String name, NbtStreamReader reader) throws IOException;
+    }
+}
@@ -505,6 +505,30 @@ public class PositionUtils
         return null;
     }
 
+    /**
+     * Packs the given position into a chunk-relative position in the {@code y << 8 | z << 4 | x} format.
+     * The x and z coordinates can be either world or chunk-relative coordinates.
+     */
+    public static int packChunkRelativePosition(int x, int y, int z)
+    {
+        return (y & 0xFF) << 8 | (z & 0xF) << 4 | (x & 0xF);
+    }
+
+    public static int getChunkRelativeX(int relPos)
+    {
+        return relPos & 0xF;
+    }
+
+    public static int getChunkRelativeY(int relPos)
+    {
+        return (relPos >>> 8) & 0xFF;
+    }
+
+    public static int getChunkRelativeZ(int relPos)
+    {
+        return (relPos >>> 4) & 0xF;
+    }
+
     public static void getPerChunkBoxes(Collection<? extends CornerDefinedBox> boxes, BiConsumer<ChunkPos, IntBoundingBox> consumer)
     {
         for (CornerDefinedBox box : boxes)